@@ -20,7 +20,12 @@ android {
 
     testOptions {
         execution = "ANDROIDX_TEST_ORCHESTRATOR"
-
+        unitTests.all {
+            // the *Benchmark classes are skipped unless asked for with ./gradlew test -Pbenchmarks
+            it.systemProperty("benchmarks", project.hasProperty("benchmarks"))
+            // the benchmarks print their timings
+            it.testLogging.showStandardStreams = project.hasProperty("benchmarks")
+        }
     }
 
     buildTypes {
@@ -61,6 +66,9 @@ dependencies {
     // Glide for updating the pictures
     implementation("com.github.bumptech.glide:glide:4.12.0")
     annotationProcessor("com.github.bumptech.glide:compiler:4.12.0")
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.12.0") {
+        isTransitive = false
+    }
 
     // RecyclerView
     implementation(libs.recyclerview)
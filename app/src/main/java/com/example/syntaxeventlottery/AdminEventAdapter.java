@@ -6,7 +6,6 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -14,88 +13,90 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
 import java.text.SimpleDateFormat;
 import java.util.List;
 
 /**
- * The {@code AdminEventAdapter} class extends {@link ArrayAdapter} to provide a custom adapter
- * for displaying and managing event items in a list view for administrators.
+ * The {@code AdminEventAdapter} class extends {@link ListAdapter} to provide a custom adapter
+ * for displaying and managing event items in a list for administrators.
+ * New lists are diffed against the shown one on a background thread, so only changed rows are bound again.
+ * The rows are the events of a {@link PageWindow}, loaded while the list is scrolled.
  */
-public class AdminEventAdapter extends ArrayAdapter<Event> {
+public class AdminEventAdapter extends ListAdapter<ListRow<Event>, AdminEventAdapter.ViewHolder> {
     private final String TAG = "Admin Event Adapter";
 
     /** The application context. */
     private Context context;
 
-    /** The list of events to display. */
-    private List<Event> eventList;
-
     /** The controller responsible for event-related operations. */
     private EventController eventController;
 
+    /** Learns the poster size from the first row, so that preloaded posters are decoded at that size. */
+    private final ViewPreloadSizeProvider<Event> preloadSizeProvider = new ViewPreloadSizeProvider<>();
+
+    /** The loaded pages of events. */
+    private final PageWindow<Event> window = new PageWindow<>(WindowedPager.WINDOW_ITEMS);
+
     /**
-     * Constructs a new {@code AdminEventAdapter}.
+     * Constructs a new {@code AdminEventAdapter} with an empty list.
      *
-     * @param context   The current context.
-     * @param eventList The list of events to display.
+     * @param context The current context.
      */
-    public AdminEventAdapter(Context context, List<Event> eventList) {
-        super(context, R.layout.admin_event_item, eventList);
+    public AdminEventAdapter(Context context) {
+        super(ListRow.diffCallback());
         this.context = context;
-        this.eventList = eventList;
-        this.eventController = new EventController(new EventRepository());
+        this.eventController = new EventController(App.getEventRepository());
     }
 
     /**
-     * Provides a view for an AdapterView.
+     * Inflates the layout of an event row.
      *
-     * @param position    The position of the item within the adapter's data set.
-     * @param convertView The old view to reuse, if possible.
-     * @param parent      The parent that this view will eventually be attached to.
-     * @return A View corresponding to the data at the specified position.
+     * @param parent   The parent that the row will be attached to.
+     * @param viewType The view type of the new row.
+     * @return A new ViewHolder for the row.
      */
     @NonNull
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        if (convertView == null) {
-            convertView = LayoutInflater.from(context).inflate(R.layout.admin_event_item, parent, false);
-        }
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.admin_event_item, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        preloadSizeProvider.setView(holder.posterImage);
+        return holder;
+    }
 
+    /**
+     * Binds the event at a position to a row.
+     *
+     * @param holder   The ViewHolder of the row.
+     * @param position The position of the event within the list.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         // Get the current event
-        Event event = eventList.get(position);
-
-        // Find and set views
-        TextView eventName = convertView.findViewById(R.id.eventName);
-        TextView eventLocation = convertView.findViewById(R.id.eventLocation);
-        TextView eventOrganizerId = convertView.findViewById(R.id.eventOrganizer);
-        TextView eventStartDate = convertView.findViewById(R.id.eventStartDate);
-        ImageView posterImage = convertView.findViewById(R.id.eventPoster);
+        Event event = getItem(position).getItem();
 
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
         String formattedDate = dateFormat.format(event.getStartDate());
-        eventName.setText(event.getEventName());
-        eventOrganizerId.setText("Created by: " + event.getOrganizerId());
-        eventLocation.setText("Facility: " + event.getFacilityName());
-        eventStartDate.setText("Starts: " + formattedDate);
+        holder.eventName.setText(event.getEventName());
+        holder.eventOrganizerId.setText("Created by: " + event.getOrganizerId());
+        holder.eventLocation.setText("Facility: " + event.getFacilityName());
+        holder.eventStartDate.setText("Starts: " + formattedDate);
 
         // Load the event poster image using Glide
-        if (event.getPosterUrl() != null && !event.getPosterUrl().isEmpty()) {
-            Glide.with(context).load(event.getPosterUrl()).into(posterImage);
-        } else {
-            Glide.with(context).load(R.drawable.ic_no_event_poster).into(posterImage);
-        }
+        ImageLoader.posterRow(Glide.with(context), event).into(holder.posterImage);
 
         // Set click listener to fetch and show event details
-        convertView.setOnClickListener(v -> displayEventDetails(event.getEventID()));
+        holder.itemView.setOnClickListener(v -> displayEventDetails(event.getEventID()));
 
         // Delete button functionality
-        Button deleteButton = convertView.findViewById(R.id.deleteButton);
-        deleteButton.setOnClickListener(v -> {
+        holder.deleteButton.setOnClickListener(v -> {
             new AlertDialog.Builder(context)
                     .setTitle("Delete Event")
                     .setMessage("Are you sure you want to delete this event?")
@@ -103,8 +104,47 @@ public class AdminEventAdapter extends ArrayAdapter<Event> {
                     .setNegativeButton("No", null)
                     .show();
         });
+    }
 
-        return convertView;
+    /**
+     * Replaces the list of events. Only the rows of added, removed, moved or changed events are updated.
+     *
+     * @param events The events to display.
+     */
+    public void submitEvents(List<Event> events) {
+        submitList(ListRow.of(events, Event::getEventID, AdminEventAdapter::rowContent));
+    }
+
+    /**
+     * @return The window of loaded events the rows show.
+     */
+    public PageWindow<Event> getWindow() {
+        return window;
+    }
+
+    /**
+     * Shows the events of the window, after pages were added to or dropped from it.
+     */
+    public void showWindow() {
+        submitEvents(window.getItems());
+    }
+
+    // everything onBindViewHolder shows
+    private static Object[] rowContent(Event event) {
+        return new Object[] {event.getEventName(), event.getOrganizerId(), event.getFacilityName(), event.getStartDate(),
+                event.getPosterUrl(), event.getPosterThumbnailUrl()};
+    }
+
+    /**
+     * Creates a scroll listener that fetches the posters of the rows about to be shown.
+     *
+     * @return The preloader to add to the RecyclerView showing this adapter.
+     */
+    public RecyclerViewPreloader<Event> createPreloader() {
+        return new RecyclerViewPreloader<>(Glide.with(context),
+                ImageLoader.preloadModels(Glide.with(context),
+                        position -> position < getItemCount() ? getItem(position).getItem() : null, ImageLoader::posterRow),
+                preloadSizeProvider, ImageLoader.MAX_PRELOAD);
     }
 
     /**
@@ -119,7 +159,7 @@ public class AdminEventAdapter extends ArrayAdapter<Event> {
     }
 
     /**
-     * Deletes an event from the database and updates the adapter.
+     * Deletes an event from the database and removes its row.
      *
      * @param event The event object to delete.
      */
@@ -128,15 +168,42 @@ public class AdminEventAdapter extends ArrayAdapter<Event> {
             @Override
             public void onSuccess(Void result) {
                 Log.d(TAG, "Event deleted");
-                eventList.remove(event);
-                notifyDataSetChanged();
+                window.remove(event);
+                showWindow();
             }
 
             @Override
             public void onError(Exception e) {
-                Toast.makeText(AdminEventAdapter.this.getContext(), e.getMessage(), Toast.LENGTH_SHORT).show();
+                Toast.makeText(context, e.getMessage(), Toast.LENGTH_SHORT).show();
                 Log.e(TAG, "Error deleting event", e);
             }
         });
     }
+
+    /**
+     * The {@code ViewHolder} class holds references to the views of an event row.
+     */
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView eventName;
+        TextView eventLocation;
+        TextView eventOrganizerId;
+        TextView eventStartDate;
+        ImageView posterImage;
+        Button deleteButton;
+
+        /**
+         * Constructs a new {@code ViewHolder}.
+         *
+         * @param itemView The view of the event row.
+         */
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            eventName = itemView.findViewById(R.id.eventName);
+            eventLocation = itemView.findViewById(R.id.eventLocation);
+            eventOrganizerId = itemView.findViewById(R.id.eventOrganizer);
+            eventStartDate = itemView.findViewById(R.id.eventStartDate);
+            posterImage = itemView.findViewById(R.id.eventPoster);
+            deleteButton = itemView.findViewById(R.id.deleteButton);
+        }
+    }
 }
@@ -14,7 +14,6 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 
-import com.bumptech.glide.Glide;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.storage.FirebaseStorage;
@@ -53,7 +52,7 @@ public class AdminEventDetailActivity extends AppCompatActivity {
         setContentView(R.layout.admin_event_detail);
 
         // initalize event controller
-        eventController = new EventController(new EventRepository());
+        eventController = new EventController(App.getEventRepository());
 
         // Initialize views
         backButton = findViewById(R.id.backButton);
@@ -86,10 +85,10 @@ public class AdminEventDetailActivity extends AppCompatActivity {
 
     private void loadEventDetails() {
         // get newest event details and display them
-        eventController.refreshRepository(new DataCallback<Void>() {
+        eventController.getEvent(eventID, new DataCallback<Event>() {
             @Override
-            public void onSuccess(Void result) {
-                event = eventController.getEventById(eventID);
+            public void onSuccess(Event result) {
+                event = result;
                 if (event == null) {
                     Log.e(TAG, "Couldn't find Event");
                     Toast.makeText(AdminEventDetailActivity.this, "Failed to retrieve event details", Toast.LENGTH_SHORT).show();
@@ -112,9 +111,7 @@ public class AdminEventDetailActivity extends AppCompatActivity {
                 // Load images
                 // Load event poster image using Glide
                 if (event.getPosterUrl() != null && !event.getPosterUrl().isEmpty()) {
-                    Glide.with(AdminEventDetailActivity.this)
-                            .load(event.getPosterUrl())
-                            .into(eventPosterImageView);
+                    ImageLoader.loadPoster(AdminEventDetailActivity.this, event, eventPosterImageView);
                 } else {
                     eventPosterImageView.setImageResource(R.drawable.ic_no_event_poster); // Set default image if no URL
                     deletePosterButton.setEnabled(false);
@@ -122,11 +119,21 @@ public class AdminEventDetailActivity extends AppCompatActivity {
                     deletePosterButton.setBackgroundColor(ContextCompat.getColor(AdminEventDetailActivity.this, R.color.grey));
                 }
 
-                // Load QRcode image using Glide
+                // Render the QR code from the event ID
                 if (event.getQrCode() != null && !event.getQrCode().isEmpty()) {
-                    Glide.with(AdminEventDetailActivity.this)
-                            .load(event.getQrCode())
-                            .into(eventqrCode);
+                    QRCodeRenderer.getInstance().load(AdminEventDetailActivity.this, event.getEventID(),
+                            QRCodeRenderer.DEFAULT_SIZE, new DataCallback<Bitmap>() {
+                                @Override
+                                public void onSuccess(Bitmap result) {
+                                    eventqrCode.setImageBitmap(result);
+                                }
+
+                                @Override
+                                public void onError(Exception e) {
+                                    Log.e(TAG, "Failed to render QR code", e);
+                                    eventqrCode.setImageResource(R.drawable.default_qrcode);
+                                }
+                            });
                 } else {
                     eventqrCode.setImageResource(R.drawable.default_qrcode); // Set default image if no URL
                 }
@@ -142,11 +149,11 @@ public class AdminEventDetailActivity extends AppCompatActivity {
     }
 
     /**
-     * Replaces the QR code image URL in Firestore with a default image URL.
+     * Removes the QR code of the event, the default image is shown in its place.
      */
     private void deleteQRCodeImage() {
         event.setQrCode(null); // set qr code to null
-        eventController.updateEvent(event, null, null, new DataCallback<Event>() {
+        eventController.updateEvent(event, null, new DataCallback<Event>() {
             @Override
             public void onSuccess(Event result) {
                 event = result;
@@ -168,7 +175,8 @@ public class AdminEventDetailActivity extends AppCompatActivity {
      */
     private void deletePosterImage() {
         event.setPosterUrl(null); // set poster url to null
-        eventController.updateEvent(event, null, null, new DataCallback<Event>() {
+        event.setPosterThumbnailUrl(null);
+        eventController.updateEvent(event, null, new DataCallback<Event>() {
             @Override
             public void onSuccess(Event result) {
                 event = result;
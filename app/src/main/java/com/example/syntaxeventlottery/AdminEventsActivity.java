@@ -3,10 +3,11 @@ package com.example.syntaxeventlottery;
 import android.os.Bundle;
 import android.util.Log;
 import android.widget.Button;
-import android.widget.ListView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -20,15 +21,16 @@ import java.util.List;
 /**
  * The {@code AdminEventsActivity} class displays a list of events to the administrator.
  * It provides functionality to view all events and navigate back to the previous screen.
+ * Events are loaded a page at a time while the list is scrolled, see {@link WindowedPager}.
  */
 public class AdminEventsActivity extends AppCompatActivity {
     private final String TAG = "AdminEventsActivity";
 
-    private ListView listViewEvents;
+    private RecyclerView listViewEvents;
     private AdminEventAdapter eventAdapter;
     private Button backButton;
     private EventController eventController;
-    private ArrayList<Event> eventsList;
+    private WindowedPager<Event> pager;
 
     /**
      * Called when the activity is first created.
@@ -41,51 +43,43 @@ public class AdminEventsActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.admin_events_main);
 
-        // Initialize ListView, Back button, and eventController
+        // Initialize RecyclerView, Back button, and eventController
         listViewEvents = findViewById(R.id.listViewEvents);
         backButton = findViewById(R.id.backButton);
-        eventController = new EventController(new EventRepository());
+        eventController = new EventController(App.getEventRepository());
 
         // Set up Back button
         backButton.setOnClickListener(v -> finish());
 
-        // initialize local list
-        eventsList = new ArrayList<>();
         // initialize list view and adapter
-        eventAdapter = new AdminEventAdapter(this, eventsList);
+        listViewEvents.setLayoutManager(new LinearLayoutManager(this));
+        eventAdapter = new AdminEventAdapter(this);
         listViewEvents.setAdapter(eventAdapter);
+        listViewEvents.addOnScrollListener(eventAdapter.createPreloader());
 
-        // Load all events
-        loadEvents();
+        // Load pages of events while the list is scrolled
+        pager = new WindowedPager<>(eventAdapter.getWindow(), eventController::loadEventPage, WindowedPager.PAGE_SIZE,
+                new DataCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        eventAdapter.showWindow();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Error loading events: " + e.getMessage());
+                        Toast.makeText(AdminEventsActivity.this, e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                });
+        listViewEvents.addOnScrollListener(pager.createScrollListener());
     }
 
     /**
      * Called when the activity resumes.
-     * Ensures the latest events are loaded and displayed.
+     * Loads the first page of events, or the shown pages again so that changes made on the detail screen appear.
      */
     protected void onResume() {
         super.onResume();
-        loadEvents();
-    }
-
-    /**
-     * Loads all events from the event repository and updates the list view.
-     */
-    private void loadEvents() {
-        eventController.refreshRepository(new DataCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-                eventsList.clear();
-                ArrayList<Event> allEvents = eventController.getLocalEventsList();
-                eventsList.addAll(allEvents);
-                eventAdapter.notifyDataSetChanged();
-            }
-
-            @Override
-            public void onError(Exception e) {
-                Log.e(TAG, "Error refreshing events: " +e.getMessage());
-                Toast.makeText(AdminEventsActivity.this, e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
+        pager.reload();
     }
 }
@@ -6,7 +6,6 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -14,71 +13,81 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
 import java.util.List;
 
 /**
- * The {@code AdminUserAdapter} class extends {@link ArrayAdapter} to provide a custom adapter
- * for displaying and managing user profiles in a list view for administrators.
+ * The {@code AdminUserAdapter} class extends {@link ListAdapter} to provide a custom adapter
+ * for displaying and managing user profiles in a list for administrators.
+ * New lists are diffed against the shown one on a background thread, so only changed rows are bound again.
+ * The rows are the users of a {@link PageWindow}, loaded while the list is scrolled.
  */
-public class AdminUserAdapter extends ArrayAdapter<User> {
+public class AdminUserAdapter extends ListAdapter<ListRow<User>, AdminUserAdapter.ViewHolder> {
     private final String TAG="AdminUserAdapter";
 
     private final Context context;
-    private List<User> userList;
     private UserController userController;
 
+    /** Learns the photo size from the first row, so that preloaded photos are decoded at that size. */
+    private final ViewPreloadSizeProvider<User> preloadSizeProvider = new ViewPreloadSizeProvider<>();
+
+    /** The loaded pages of users. */
+    private final PageWindow<User> window = new PageWindow<>(WindowedPager.WINDOW_ITEMS);
+
     /**
-     * Constructs a new {@code AdminUserAdapter}.
+     * Constructs a new {@code AdminUserAdapter} with an empty list.
      *
-     * @param context  The current context.
-     * @param userList The list of users to display.
+     * @param context The current context.
      */
-    public AdminUserAdapter(Context context, List<User> userList) {
-        super(context, R.layout.admin_user_item, userList);
+    public AdminUserAdapter(Context context) {
+        super(ListRow.diffCallback());
         this.context = context;
-        this.userList = userList;
+        this.userController = new UserController(App.getUserRepository());
     }
 
     /**
-     * Provides a view for an AdapterView.
+     * Inflates the layout of a user row.
      *
-     * @param position    The position of the item within the adapter's data set.
-     * @param convertView The old view to reuse, if possible.
-     * @param parent      The parent that this view will eventually be attached to.
-     * @return A View corresponding to the data at the specified position.
+     * @param parent   The parent that the row will be attached to.
+     * @param viewType The view type of the new row.
+     * @return A new ViewHolder for the row.
      */
     @NonNull
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        if (convertView == null) {
-            convertView = LayoutInflater.from(context).inflate(R.layout.admin_user_item, parent, false);
-        }
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.admin_user_item, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        preloadSizeProvider.setView(holder.userImage);
+        return holder;
+    }
 
+    /**
+     * Binds the user at a position to a row.
+     *
+     * @param holder   The ViewHolder of the row.
+     * @param position The position of the user within the list.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         // Get the current user based on position
-        User user = userList.get(position);
+        User user = getItem(position).getItem();
 
-        // initalize user controller
-        userController = new UserController(new UserRepository());
-
-        // Find and set views
-        TextView userName = convertView.findViewById(R.id.userName);
-        ImageView userImage = convertView.findViewById(R.id.userImage);
-        Button deleteButton = convertView.findViewById(R.id.deleteButton);
-
-        userName.setText(user.getUsername());
+        holder.userName.setText(user.getUsername());
 
         // Load user profile image using Glide
-        Glide.with(context).load(user.getProfilePhotoUrl()).into(userImage);
+        ImageLoader.photoRow(Glide.with(context), user).into(holder.userImage);
 
         // Set click listener to fetch and show event details from the database
-        convertView.setOnClickListener(v -> fetchUserDetailsAndShow(user.getUserID()));
+        holder.itemView.setOnClickListener(v -> fetchUserDetailsAndShow(user.getUserID()));
 
         // Delete button functionality
-        deleteButton.setOnClickListener(v -> {
+        holder.deleteButton.setOnClickListener(v -> {
             new AlertDialog.Builder(context)
                     .setTitle("Delete Profile")
                     .setMessage("Are you sure you want to delete this profile?")
@@ -86,8 +95,42 @@ public class AdminUserAdapter extends ArrayAdapter<User> {
                     .setNegativeButton("No", null)
                     .show();
         });
+    }
+
+    /**
+     * Replaces the list of users. Only the rows of added, removed, moved or changed users are updated.
+     *
+     * @param users The users to display.
+     */
+    public void submitUsers(List<User> users) {
+        submitList(ListRow.of(users, User::getUserID,
+                user -> new Object[] {user.getUsername(), user.getProfilePhotoUrl(), user.getProfileThumbnailUrl()}));
+    }
 
-        return convertView;
+    /**
+     * @return The window of loaded users the rows show.
+     */
+    public PageWindow<User> getWindow() {
+        return window;
+    }
+
+    /**
+     * Shows the users of the window, after pages were added to or dropped from it.
+     */
+    public void showWindow() {
+        submitUsers(window.getItems());
+    }
+
+    /**
+     * Creates a scroll listener that fetches the photos of the rows about to be shown.
+     *
+     * @return The preloader to add to the RecyclerView showing this adapter.
+     */
+    public RecyclerViewPreloader<User> createPreloader() {
+        return new RecyclerViewPreloader<>(Glide.with(context),
+                ImageLoader.preloadModels(Glide.with(context),
+                        position -> position < getItemCount() ? getItem(position).getItem() : null, ImageLoader::photoRow),
+                preloadSizeProvider, ImageLoader.MAX_PRELOAD);
     }
 
     /**
@@ -102,7 +145,7 @@ public class AdminUserAdapter extends ArrayAdapter<User> {
     }
 
     /**
-     * Deletes a user's profile from the database and updates the adapter.
+     * Deletes a user's profile from the database and removes its row.
      *
      * @param user The user object to delete.
      */
@@ -111,15 +154,36 @@ public class AdminUserAdapter extends ArrayAdapter<User> {
             @Override
             public void onSuccess(Void result) {
                 Log.d(TAG, "User deleted");
-                userList.remove(user);
-                notifyDataSetChanged();
+                window.remove(user);
+                showWindow();
             }
 
             @Override
             public void onError(Exception e) {
                 Log.e(TAG, "Error deleting user", e);
-                Toast.makeText(AdminUserAdapter.this.getContext(), "Error deleting user: "+e.getMessage(), Toast.LENGTH_SHORT).show();
+                Toast.makeText(context, "Error deleting user: "+e.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
+
+    /**
+     * The {@code ViewHolder} class holds references to the views of a user row.
+     */
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView userName;
+        ImageView userImage;
+        Button deleteButton;
+
+        /**
+         * Constructs a new {@code ViewHolder}.
+         *
+         * @param itemView The view of the user row.
+         */
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            userName = itemView.findViewById(R.id.userName);
+            userImage = itemView.findViewById(R.id.userImage);
+            deleteButton = itemView.findViewById(R.id.deleteButton);
+        }
+    }
 }
\ No newline at end of file
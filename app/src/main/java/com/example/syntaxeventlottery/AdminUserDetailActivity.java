@@ -46,8 +46,8 @@ public class AdminUserDetailActivity extends AppCompatActivity {
         setContentView(R.layout.admin_user_detail);
 
         // Initialize controllers
-        userController = new UserController(new UserRepository());
-        eventController = new EventController(new EventRepository());
+        userController = new UserController(App.getUserRepository());
+        eventController = new EventController(App.getEventRepository());
 
         // Initialize views
         backButton = findViewById(R.id.backButton);
@@ -93,10 +93,10 @@ public class AdminUserDetailActivity extends AppCompatActivity {
      * Loads the user's details from the repository and updates the UI.
      */
     private void loadUserDetails() {
-        userController.refreshRepository(new DataCallback<Void>() {
+        userController.getUser(userID, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                user = userController.getUserByDeviceID(userID);
+            public void onSuccess(User result) {
+                user = result;
                 if (user == null) {
                     Log.e(TAG, "Couldn't find User");
                     Toast.makeText(AdminUserDetailActivity.this, "Couldn't load user details", Toast.LENGTH_SHORT).show();
@@ -168,10 +168,9 @@ public class AdminUserDetailActivity extends AppCompatActivity {
      * @param userID The ID of the user whose facility events are to be deleted.
      */
     private void deleteFacilityEvents(String userID) {
-        eventController.refreshRepository(new DataCallback<Void>() {
+        eventController.loadAllOrganizerEvents(userID, new DataCallback<ArrayList<Event>>() {
             @Override
-            public void onSuccess(Void result) {
-                ArrayList<Event> facilityEvents = eventController.getOrganizerEvents(userID);
+            public void onSuccess(ArrayList<Event> facilityEvents) {
                 if (facilityEvents.isEmpty()) {
                     Log.d(TAG, "No events to delete for this facility");
                     Toast.makeText(AdminUserDetailActivity.this, "Facility profile deleted successfully", Toast.LENGTH_SHORT).show();
@@ -194,7 +193,7 @@ public class AdminUserDetailActivity extends AppCompatActivity {
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "Failed to refresh event repository");
+                Log.e(TAG, "Failed to load facility events", e);
             }
         });
     }
@@ -3,10 +3,11 @@ package com.example.syntaxeventlottery;
 import android.os.Bundle;
 import android.util.Log;
 import android.widget.Button;
-import android.widget.ListView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
@@ -22,15 +23,16 @@ import java.util.Set;
 /**
  * The {@code AdminUsersActivity} class displays a list of users to administrators.
  * It provides functionality to view all users and navigate back to the previous screen.
+ * Users are loaded a page at a time while the list is scrolled, see {@link WindowedPager}.
  */
 public class AdminUsersActivity extends AppCompatActivity {
     private final String TAG="AdminUsersActivity";
 
-    private ListView listViewUsers;
+    private RecyclerView listViewUsers;
     private AdminUserAdapter userAdapter;
-    private List<User> userList;
     private Button backButton;
     private UserController userController;
+    private WindowedPager<User> pager;
 
     /**
      * Called when the activity is first created.
@@ -43,46 +45,47 @@ public class AdminUsersActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.admin_users_main);
 
-        // Initialize ListView, Back button
+        // Initialize RecyclerView, Back button
         listViewUsers = findViewById(R.id.listViewUsers);
         backButton = findViewById(R.id.backButton);
 
         // initialize controller
-        userController = new UserController(new UserRepository());
+        userController = new UserController(App.getUserRepository());
 
 
         // Set up Back button to close the activity
         backButton.setOnClickListener(v -> finish());
 
         // Initialize user list and adapter
-        userList = new ArrayList<>();
-        userAdapter = new AdminUserAdapter(this, userList);
+        listViewUsers.setLayoutManager(new LinearLayoutManager(this));
+        userAdapter = new AdminUserAdapter(this);
         listViewUsers.setAdapter(userAdapter);
+        listViewUsers.addOnScrollListener(userAdapter.createPreloader());
 
-        // Load most updated users
-        loadUsersFromDatabase();
+        // Load pages of users while the list is scrolled
+        pager = new WindowedPager<>(userAdapter.getWindow(), userController::loadUserPage, WindowedPager.PAGE_SIZE,
+                new DataCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        userAdapter.showWindow();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "error loading users", e);
+                        Toast.makeText(AdminUsersActivity.this, e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                });
+        listViewUsers.addOnScrollListener(pager.createScrollListener());
     }
 
     /**
-     * Loads the most updated list of users from the database
-     * and refreshes the user list in the adapter.
+     * Called when the activity resumes.
+     * Loads the first page of users, or the shown pages again so that changes made on the detail screen appear.
      */
-    private void loadUsersFromDatabase() {
-        // refresh user repository to get most updated data
-        userController.refreshRepository(new DataCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-                userList.clear();
-                ArrayList<User> refreshedUsers = userController.getLocalUsersList();
-                userList.addAll(refreshedUsers);
-                userAdapter.notifyDataSetChanged();
-            }
-
-            @Override
-            public void onError(Exception e) {
-                Log.e(TAG, "error refreshing user repository", e);
-                Toast.makeText(AdminUsersActivity.this, e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
+    @Override
+    protected void onResume() {
+        super.onResume();
+        pager.reload();
     }
 }
\ No newline at end of file
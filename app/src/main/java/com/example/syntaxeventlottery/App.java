@@ -1,16 +1,34 @@
 package com.example.syntaxeventlottery;
 
+import android.app.Activity;
 import android.app.Application;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
  * The {@code App} class is the main application class for the Syntax Event Lottery app.
  * It initializes global application state and creates a notification channel for the app.
+ * It also owns the repositories shared by every screen, so data loaded on one screen is reused
+ * by the next one instead of being fetched again. The events listener of the shared cache is
+ * detached while no activity is visible.
  */
 public class App extends Application {
     public static final String CHANNEL_ID = "syntax_event_lottery_channel";
+    private static final String TAG = "App";
+    // quick switches to another app keep the listener, a new listener downloads every event again
+    private static final long STOP_LISTENING_DELAY_MS = 30_000;
+
+    private static EventRepository eventRepository;
+    private static UserRepository userRepository;
+    private static NotificationRepository notificationRepository;
 
     /**
      * Called when the application is starting, before any activity, service, or receiver objects
@@ -20,6 +38,45 @@ public class App extends Application {
     public void onCreate() {
         super.onCreate();
         createNotificationChannel();
+        ImagePreparer.init(this);
+        registerActivityLifecycleCallbacks(new ForegroundTracker());
+    }
+
+    /**
+     * Returns the event repository shared by the whole app, creating it on first use.
+     *
+     * @return The shared {@link EventRepository}.
+     */
+    public static synchronized EventRepository getEventRepository() {
+        if (eventRepository == null) {
+            eventRepository = new EventRepository();
+        }
+        return eventRepository;
+    }
+
+    /**
+     * Returns the user repository shared by the whole app, creating it on first use.
+     *
+     * @return The shared {@link UserRepository}.
+     */
+    public static synchronized UserRepository getUserRepository() {
+        if (userRepository == null) {
+            userRepository = new UserRepository();
+        }
+        return userRepository;
+    }
+
+    /**
+     * Returns the notification repository shared by the whole app, creating it on first use.
+     * It reads notification preferences from the users cached by {@link #getUserRepository()}.
+     *
+     * @return The shared {@link NotificationRepository}.
+     */
+    public static synchronized NotificationRepository getNotificationRepository() {
+        if (notificationRepository == null) {
+            notificationRepository = new NotificationRepository(getUserRepository());
+        }
+        return notificationRepository;
     }
 
     /**
@@ -39,4 +96,52 @@ public class App extends Application {
             notificationManager.createNotificationChannel(channel);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Counts the started activities. The events listener is detached a while after the last one stops
+     * and attached again when an activity starts, so the cache is not kept in sync in the background.
+     */
+    private static class ForegroundTracker implements ActivityLifecycleCallbacks {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private final Runnable stopListening = () -> {
+            Log.d(TAG, "App in background, detaching the events listener");
+            getEventRepository().stopListening();
+        };
+        private int startedActivities;
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+            if (startedActivities++ == 0) {
+                handler.removeCallbacks(stopListening);
+                getEventRepository().startListening();
+            }
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+            if (--startedActivities == 0) {
+                handler.postDelayed(stopListening, STOP_LISTENING_DELAY_MS);
+            }
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+        }
+    }
+}
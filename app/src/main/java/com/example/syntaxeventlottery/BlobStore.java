@@ -0,0 +1,36 @@
+package com.example.syntaxeventlottery;
+
+import android.net.Uri;
+
+/**
+ * The {@code BlobStore} interface abstracts the storage of binary files such as event posters,
+ * so that upload logic can be run against Firebase Storage or a stub in tests.
+ */
+public interface BlobStore {
+
+    /**
+     * Uploads a local file and resolves its download URL.
+     *
+     * @param path     The path of the file in the store.
+     * @param source   The URI of the local file.
+     * @param callback The callback receiving the download URL.
+     */
+    void upload(String path, Uri source, DataCallback<String> callback);
+
+    /**
+     * Uploads bytes and resolves their download URL.
+     *
+     * @param path     The path of the file in the store.
+     * @param data     The bytes to upload.
+     * @param callback The callback receiving the download URL.
+     */
+    void upload(String path, byte[] data, DataCallback<String> callback);
+
+    /**
+     * Deletes a file from the store.
+     *
+     * @param path     The path of the file in the store.
+     * @param callback The callback notified once the file is deleted.
+     */
+    void delete(String path, DataCallback<Void> callback);
+}
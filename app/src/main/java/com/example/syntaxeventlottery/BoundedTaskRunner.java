@@ -0,0 +1,84 @@
+package com.example.syntaxeventlottery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code BoundedTaskRunner} class runs a number of asynchronous tasks while keeping at most a fixed
+ * number of them in flight, for example Firestore queries over chunks of IDs or batch commits.
+ * A new task is started each time a running one finishes.
+ */
+public final class BoundedTaskRunner {
+
+    /**
+     * An asynchronous task that reports its completion through {@code done}, whether it succeeded or not.
+     */
+    public interface Task {
+        /**
+         * Starts the task.
+         *
+         * @param index The index of the task, from 0 to the task count.
+         * @param done  Must be run exactly once when the task has finished.
+         */
+        void run(int index, Runnable done);
+    }
+
+    private BoundedTaskRunner() {
+    }
+
+    /**
+     * Runs {@code count} tasks with at most {@code maxInFlight} of them running at once.
+     *
+     * @param count       The number of tasks.
+     * @param maxInFlight The maximum number of tasks running at the same time.
+     * @param task        The task to run for every index.
+     * @param onComplete  Run once after every task has finished.
+     * @throws IllegalArgumentException If there are tasks and {@code maxInFlight} is not positive, as none
+     *                                  of them would ever start.
+     */
+    public static void run(int count, int maxInFlight, Task task, Runnable onComplete) {
+        if (count <= 0) {
+            onComplete.run();
+            return;
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Invalid number of tasks in flight " + maxInFlight);
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        Runnable[] startNext = new Runnable[1];
+        startNext[0] = () -> {
+            int index = next.getAndIncrement();
+            if (index >= count) {
+                return;
+            }
+            task.run(index, () -> {
+                if (finished.incrementAndGet() == count) {
+                    onComplete.run();
+                } else {
+                    startNext[0].run();
+                }
+            });
+        };
+        for (int i = 0; i < Math.min(maxInFlight, count); i++) {
+            startNext[0].run();
+        }
+    }
+
+    /**
+     * Splits a list into consecutive chunks of at most {@code size} elements.
+     *
+     * @param list The list to split.
+     * @param size The maximum chunk size.
+     * @param <T>  The element type.
+     * @return The chunks, in order.
+     */
+    public static <T> List<List<T>> partition(List<T> list, int size) {
+        List<List<T>> chunks = new ArrayList<>((list.size() + size - 1) / size);
+        for (int from = 0; from < list.size(); from += size) {
+            chunks.add(new ArrayList<>(list.subList(from, Math.min(from + size, list.size()))));
+        }
+        return chunks;
+    }
+}
@@ -63,7 +63,7 @@ public class CreateUserProfileActivity extends AppCompatActivity {
         initializeUI();
 
         // Initialize user controller
-        userController = new UserController(new UserRepository());
+        userController = new UserController(App.getUserRepository());
 
         // Retrieve or generate device ID
         deviceId = getIntent().getStringExtra("DEVICE_ID");
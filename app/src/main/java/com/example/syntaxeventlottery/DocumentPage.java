@@ -0,0 +1,151 @@
+package com.example.syntaxeventlottery;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of the results of a Firestore query, also used as the cursor to load the next page.
+ *
+ * @param <T> The type of the items read from the documents.
+ */
+public class DocumentPage<T> {
+    private final List<T> items;
+    // the document of each item, or null if the page was not read from documents
+    private final List<DocumentSnapshot> documents;
+    private final DocumentSnapshot first;
+    private final DocumentSnapshot last;
+    private final boolean hasMore;
+
+    /**
+     * Where a page is read relative to the page used as its cursor.
+     */
+    public enum Direction {
+        /** The documents following the cursor page, or the first documents without a cursor. */
+        AFTER,
+        /** The documents preceding the cursor page. */
+        BEFORE,
+        /** The documents starting at the first document of the cursor page, to read that page again. */
+        FROM
+    }
+
+    DocumentPage(List<T> items, DocumentSnapshot first, DocumentSnapshot last, boolean hasMore) {
+        this(items, null, first, last, hasMore);
+    }
+
+    private DocumentPage(List<T> items, List<DocumentSnapshot> documents, DocumentSnapshot first,
+                         DocumentSnapshot last, boolean hasMore) {
+        this.items = items;
+        this.documents = documents;
+        this.first = first;
+        this.last = last;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Limits a query to the page following this one.
+     *
+     * @param query    The query, ordered the same way as the query that loaded this page.
+     * @param after    The previously loaded page, or {@code null} to load the first page.
+     * @param pageSize The maximum number of documents in the page.
+     * @return The query reading only the documents of the next page.
+     */
+    static Query next(Query query, DocumentPage<?> after, int pageSize) {
+        query = query.limit(pageSize);
+        if (after != null && after.last != null) {
+            query = query.startAfter(after.last);
+        }
+        return query;
+    }
+
+    /**
+     * Limits a query to a page read relative to a cursor page.
+     *
+     * @param query     The query, ordered the same way as the query that loaded the cursor page.
+     * @param cursor    The cursor page, or {@code null} to load the first page.
+     * @param direction Where the page is read relative to the cursor page.
+     * @param pageSize  The maximum number of documents in the page.
+     * @return The query reading only the documents of the page.
+     */
+    static Query page(Query query, DocumentPage<?> cursor, Direction direction, int pageSize) {
+        if (cursor == null || cursor.first == null || direction == Direction.AFTER) {
+            return next(query, cursor, pageSize);
+        }
+        if (direction == Direction.BEFORE) {
+            // the documents closest to the cursor, still returned in query order
+            return query.endBefore(cursor.first).limitToLast(pageSize);
+        }
+        return query.startAt(cursor.first).limit(pageSize);
+    }
+
+    /**
+     * Creates the page of a query result.
+     *
+     * @param documents The documents read by a query limited to {@code pageSize} documents.
+     * @param pageSize  The maximum number of documents in the page.
+     * @param converter Reads an item from a document, returning {@code null} to skip the document.
+     * @param <T>       The type of the items.
+     * @return The page. For a page read {@link Direction#BEFORE} a cursor, {@link #hasMore()} tells whether
+     * more documents may precede it.
+     */
+    static <T> DocumentPage<T> of(List<DocumentSnapshot> documents, int pageSize, Function<DocumentSnapshot, T> converter) {
+        ArrayList<T> items = new ArrayList<>(documents.size());
+        ArrayList<DocumentSnapshot> itemDocuments = new ArrayList<>(documents.size());
+        for (DocumentSnapshot doc : documents) {
+            T item = converter.apply(doc);
+            if (item != null) {
+                items.add(item);
+                itemDocuments.add(doc);
+            }
+        }
+        DocumentSnapshot first = documents.isEmpty() ? null : documents.get(0);
+        DocumentSnapshot last = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+        return new DocumentPage<>(items, itemDocuments, first, last, documents.size() == pageSize);
+    }
+
+    /**
+     * Splits a page read in one query into consecutive pages of at most {@code pageSize} items, each with
+     * the cursors of its own first and last document, so that they can be dropped and loaded again one by one.
+     *
+     * @param pageSize The maximum number of items per page.
+     * @return The pages in query order, or a list holding only this page if it is not larger than {@code pageSize}.
+     */
+    List<DocumentPage<T>> split(int pageSize) {
+        if (items.size() <= pageSize) {
+            return Collections.singletonList(this);
+        }
+        List<DocumentPage<T>> pages = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += pageSize) {
+            int end = Math.min(items.size(), start + pageSize);
+            boolean isLast = end == items.size();
+            // the outer pages keep the outer cursors, which include documents that were skipped
+            DocumentSnapshot pageFirst = start == 0 ? first : documentOf(start);
+            DocumentSnapshot pageLast = isLast ? last : documentOf(end - 1);
+            pages.add(new DocumentPage<>(new ArrayList<>(items.subList(start, end)), pageFirst, pageLast,
+                    !isLast || hasMore));
+        }
+        return pages;
+    }
+
+    private DocumentSnapshot documentOf(int index) {
+        return documents == null ? null : documents.get(index);
+    }
+
+    /**
+     * @return The items in this page, in query order.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return {@code true} if another page may follow this one.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
@@ -86,7 +86,7 @@ public class EditEventActivity extends AppCompatActivity {
         locationSwitch = findViewById(R.id.locationSwitch);
 
         // initialize event controller
-        eventController = new EventController(new EventRepository());
+        eventController = new EventController(App.getEventRepository());
 
         // get event using intent
         currentEvent = (Event) getIntent().getSerializableExtra("event");
@@ -206,7 +206,7 @@ public class EditEventActivity extends AppCompatActivity {
         currentEvent.setCapacity(capacity);
         currentEvent.setLocationRequired(isLocationRequired);
 
-        eventController.updateEvent(currentEvent, imageUri, null, new DataCallback<Event>() {
+        eventController.updateEvent(currentEvent, imageUri, new DataCallback<Event>() {
             @Override
             public void onSuccess(Event result) {
                 Toast.makeText(EditEventActivity.this, "Event details updated successfully", Toast.LENGTH_SHORT).show();
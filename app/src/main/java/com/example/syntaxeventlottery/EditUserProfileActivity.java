@@ -49,7 +49,7 @@ public class EditUserProfileActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.edit_user_profile);
 
-        userController = new UserController(new UserRepository());
+        userController = new UserController(App.getUserRepository());
 
         // Retrieve deviceID from system
         deviceID = Settings.Secure.getString(getContentResolver(), Settings.Secure.ANDROID_ID);
@@ -87,10 +87,10 @@ public class EditUserProfileActivity extends AppCompatActivity {
      * Loads the user's profile from the repository.
      */
     private void loadUserProfile() {
-        userController.refreshRepository(new DataCallback<Void>() {
+        userController.getUser(deviceID, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                user = userController.getUserByDeviceID(deviceID);
+            public void onSuccess(User result) {
+                user = result;
                 displayUserDetails();
             }
 
@@ -0,0 +1,454 @@
+package com.example.syntaxeventlottery;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The {@code EntrantStore} class keeps the entrants of a large event outside of the event document.
+ * Every entrant is a document {@code events/{eventId}/entrants/{userId}} holding the user ID, the
+ * entrant's {@link ParticipantState} and the time they joined. The number of entrants per state is
+ * kept in {@link #COUNTER_SHARDS} counter documents under {@code events/{eventId}/counters}, so that
+ * concurrent joins increment different documents instead of all writing the event document.
+ *
+ * <p>Paging the entrants of a state needs a composite index on {@code state} and {@code joinedAt}
+ * of the {@code entrants} collection group.</p>
+ */
+public class EntrantStore {
+    private static final String TAG = "EntrantStore";
+
+    /** Number of counter documents the entrant counts are spread over. */
+    static final int COUNTER_SHARDS = 10;
+    /** Firestore accepts at most 500 writes per batch, one is kept for the counter update. */
+    static final int USERS_PER_BATCH = 499;
+    /** Page size used when every entrant of a state is needed, for example by the lottery. */
+    static final int FULL_LOAD_PAGE_SIZE = 1000;
+
+    private final FirebaseFirestore db;
+    private final CollectionReference eventsRef;
+
+    /**
+     * Creates an entrant store for the given events collection.
+     *
+     * @param db        The Firestore instance, used for transactions and batches.
+     * @param eventsRef The events collection.
+     */
+    public EntrantStore(FirebaseFirestore db, CollectionReference eventsRef) {
+        this.db = db;
+        this.eventsRef = eventsRef;
+    }
+
+    private CollectionReference entrants(String eventId) {
+        return eventsRef.document(eventId).collection("entrants");
+    }
+
+    private CollectionReference counters(String eventId) {
+        return eventsRef.document(eventId).collection("counters");
+    }
+
+    private DocumentReference randomShard(String eventId) {
+        return counters(eventId).document(String.valueOf(ThreadLocalRandom.current().nextInt(COUNTER_SHARDS)));
+    }
+
+    /**
+     * Reads the number of entrants in every state by summing the counter shards.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback A callback receiving the count of every state.
+     */
+    public void getCounts(String eventId, DataCallback<EnumMap<ParticipantState, Long>> callback) {
+        counters(eventId).get()
+                .addOnSuccessListener(snapshot -> {
+                    EnumMap<ParticipantState, Long> counts = new EnumMap<>(ParticipantState.class);
+                    for (ParticipantState state : ParticipantState.values()) {
+                        long total = 0;
+                        for (DocumentSnapshot shard : snapshot.getDocuments()) {
+                            Long value = shard.getLong(state.name());
+                            if (value != null) {
+                                total += value;
+                            }
+                        }
+                        counts.put(state, total);
+                    }
+                    callback.onSuccess(counts);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to read entrant counts of " + eventId, e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Reads the state of a single entrant.
+     *
+     * @param eventId  The ID of the event.
+     * @param userId   The ID of the user.
+     * @param callback A callback receiving the entrant's state, or {@code null} if the user is not an entrant.
+     */
+    public void getState(String eventId, String userId, DataCallback<ParticipantState> callback) {
+        entrants(eventId).document(userId).get()
+                .addOnSuccessListener(doc -> callback.onSuccess(stateOf(doc)))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to read entrant " + userId + " of " + eventId, e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Reads the state of the user in every event that stores its entrants in this store.
+     *
+     * @param userId   The ID of the user.
+     * @param callback A callback receiving the user's state keyed by event ID.
+     */
+    public void getStatesForUser(String userId, DataCallback<Map<String, ParticipantState>> callback) {
+        db.collectionGroup("entrants").whereEqualTo("userId", userId).get()
+                .addOnSuccessListener(snapshot -> {
+                    HashMap<String, ParticipantState> states = new HashMap<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        ParticipantState state = stateOf(doc);
+                        DocumentReference eventRef = doc.getReference().getParent().getParent();
+                        if (state != null && eventRef != null) {
+                            states.put(eventRef.getId(), state);
+                        }
+                    }
+                    callback.onSuccess(states);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to read events of entrant " + userId, e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Adds a user to the waiting list. The entrant document is checked and written in a transaction,
+     * so a user cannot join twice; only users that were cancelled may join again.
+     * The waiting list limit is checked against the counters read just before the transaction, which
+     * keeps the counter shards out of the transaction but may let a few concurrent joins exceed it.
+     *
+     * @param eventId  The ID of the event.
+     * @param userId   The ID of the joining user.
+     * @param limit    The waiting list limit, or {@code null} if the waiting list is unlimited.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void join(String eventId, String userId, Integer limit, DataCallback<Void> callback) {
+        getCounts(eventId, new DataCallback<EnumMap<ParticipantState, Long>>() {
+            @Override
+            public void onSuccess(EnumMap<ParticipantState, Long> counts) {
+                if (limit != null && counts.get(ParticipantState.WAITING) >= limit) {
+                    callback.onError(new FirebaseFirestoreException("Failed to join waiting list: No spots available",
+                            FirebaseFirestoreException.Code.FAILED_PRECONDITION));
+                    return;
+                }
+                DocumentReference entrantRef = entrants(eventId).document(userId);
+                DocumentReference shardRef = randomShard(eventId);
+                db.runTransaction(transaction -> {
+                            ParticipantState previous = stateOf(transaction.get(entrantRef));
+                            if (previous != null && previous != ParticipantState.CANCELLED) {
+                                throw new FirebaseFirestoreException("Failed to join waiting list: You are already a participant",
+                                        FirebaseFirestoreException.Code.ALREADY_EXISTS);
+                            }
+                            HashMap<String, Object> entrant = new HashMap<>();
+                            entrant.put("userId", userId);
+                            entrant.put("state", ParticipantState.WAITING.name());
+                            entrant.put("joinedAt", FieldValue.serverTimestamp());
+                            transaction.set(entrantRef, entrant);
+                            transaction.set(shardRef, countChange(previous, ParticipantState.WAITING, 1), SetOptions.merge());
+                            return null;
+                        })
+                        .addOnSuccessListener(result -> callback.onSuccess(null))
+                        .addOnFailureListener(e -> {
+                            Log.e(TAG, "Failed to join waiting list of " + eventId, e);
+                            callback.onError(e);
+                        });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Moves a single entrant to a new state, or removes them, in a transaction that reads the
+     * entrant's current state so the counters stay exact.
+     *
+     * @param eventId  The ID of the event.
+     * @param userId   The ID of the entrant.
+     * @param state    The new state, or {@code null} to remove the entrant.
+     * @param callback A callback receiving the entrant's previous state.
+     */
+    public void moveEntrant(String eventId, String userId, ParticipantState state,
+                            DataCallback<ParticipantState> callback) {
+        DocumentReference entrantRef = entrants(eventId).document(userId);
+        DocumentReference shardRef = randomShard(eventId);
+        db.runTransaction(transaction -> {
+                    ParticipantState previous = stateOf(transaction.get(entrantRef));
+                    if (previous == null) {
+                        throw new FirebaseFirestoreException("User ID not found in any event list",
+                                FirebaseFirestoreException.Code.NOT_FOUND);
+                    }
+                    if (previous == state) {
+                        return previous;
+                    }
+                    if (state == null) {
+                        transaction.delete(entrantRef);
+                    } else {
+                        transaction.update(entrantRef, "state", state.name());
+                    }
+                    transaction.set(shardRef, countChange(previous, state, 1), SetOptions.merge());
+                    return previous;
+                })
+                .addOnSuccessListener(callback::onSuccess)
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to move entrant " + userId + " of " + eventId, e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Moves waiting entrants to a new state in transactions of at most {@link #USERS_PER_BATCH} users,
+     * as done by the lottery. Each transaction re-reads its entrants and only moves those still waiting,
+     * so an entrant that left or was moved by a concurrent draw keeps its state, and the counter shard
+     * it updates changes by the number of entrants actually moved.
+     * Transactions are committed one after another; when one fails, the earlier ones stay applied
+     * and the error is a {@link PartialMoveException} listing the entrants that were moved.
+     *
+     * @param eventId  The ID of the event.
+     * @param userIds  The IDs of the waiting entrants to move.
+     * @param state    The new state.
+     * @param callback A callback receiving the IDs of the entrants that were moved.
+     */
+    public void moveWaitingEntrants(String eventId, List<String> userIds, ParticipantState state,
+                                    DataCallback<List<String>> callback) {
+        commitBatch(eventId, userIds, 0, state, new ArrayList<>(), callback);
+    }
+
+    private void commitBatch(String eventId, List<String> userIds, int from, ParticipantState state,
+                             List<String> moved, DataCallback<List<String>> callback) {
+        if (from >= userIds.size()) {
+            callback.onSuccess(moved);
+            return;
+        }
+        int to = Math.min(from + USERS_PER_BATCH, userIds.size());
+        List<String> batchUsers = userIds.subList(from, to);
+        DocumentReference shardRef = randomShard(eventId);
+        db.runTransaction(transaction -> {
+                    // a transaction reads everything before it writes
+                    List<String> waiting = new ArrayList<>();
+                    for (String userId : batchUsers) {
+                        if (stateOf(transaction.get(entrants(eventId).document(userId))) == ParticipantState.WAITING) {
+                            waiting.add(userId);
+                        }
+                    }
+                    for (String userId : waiting) {
+                        transaction.update(entrants(eventId).document(userId), "state", state.name());
+                    }
+                    if (!waiting.isEmpty()) {
+                        transaction.set(shardRef, countChange(ParticipantState.WAITING, state, waiting.size()),
+                                SetOptions.merge());
+                    }
+                    return waiting;
+                })
+                .addOnSuccessListener(batchMoved -> {
+                    moved.addAll(batchMoved);
+                    commitBatch(eventId, userIds, to, state, moved, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to move entrants " + from + "-" + to + " of " + eventId, e);
+                    callback.onError(new PartialMoveException(new ArrayList<>(moved), userIds.size(), e));
+                });
+    }
+
+    /**
+     * Loads one page of the entrants in a state, in the order they joined.
+     *
+     * @param eventId  The ID of the event.
+     * @param state    The state to list.
+     * @param after    The previously loaded page, or {@code null} to load the first page.
+     * @param pageSize The maximum number of entrants in the page.
+     * @param callback A callback receiving the page.
+     */
+    public void loadPage(String eventId, ParticipantState state, EntrantPage after, int pageSize,
+                         DataCallback<EntrantPage> callback) {
+        Query query = entrants(eventId)
+                .whereEqualTo("state", state.name())
+                .orderBy("joinedAt")
+                .limit(pageSize);
+        if (after != null && after.last != null) {
+            query = query.startAfter(after.last);
+        }
+        query.get()
+                .addOnSuccessListener(snapshot -> callback.onSuccess(toPage(snapshot, pageSize)))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to load entrants of " + eventId, e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Loads every entrant in a state by following the pages until the last one.
+     *
+     * @param eventId  The ID of the event.
+     * @param state    The state to list.
+     * @param callback A callback receiving the user IDs, in the order they joined.
+     */
+    public void loadAll(String eventId, ParticipantState state, DataCallback<List<String>> callback) {
+        loadRemaining(eventId, state, null, new ArrayList<>(), callback);
+    }
+
+    private void loadRemaining(String eventId, ParticipantState state, EntrantPage after,
+                               List<String> collected, DataCallback<List<String>> callback) {
+        loadPage(eventId, state, after, FULL_LOAD_PAGE_SIZE, new DataCallback<EntrantPage>() {
+            @Override
+            public void onSuccess(EntrantPage page) {
+                collected.addAll(page.getUserIds());
+                if (page.hasMore()) {
+                    loadRemaining(eventId, state, page, collected, callback);
+                } else {
+                    callback.onSuccess(collected);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Deletes every entrant and counter document of an event, in batches of at most 500 deletes.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void deleteAll(String eventId, DataCallback<Void> callback) {
+        deleteCollection(entrants(eventId), new DataCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                deleteCollection(counters(eventId), callback);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    private void deleteCollection(CollectionReference collection, DataCallback<Void> callback) {
+        collection.limit(USERS_PER_BATCH + 1).get()
+                .addOnSuccessListener(snapshot -> {
+                    if (snapshot.isEmpty()) {
+                        callback.onSuccess(null);
+                        return;
+                    }
+                    WriteBatch batch = db.batch();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        batch.delete(doc.getReference());
+                    }
+                    batch.commit()
+                            .addOnSuccessListener(aVoid -> deleteCollection(collection, callback))
+                            .addOnFailureListener(callback::onError);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to delete " + collection.getPath(), e);
+                    callback.onError(e);
+                });
+    }
+
+    private static HashMap<String, Object> countChange(ParticipantState from, ParticipantState to, long amount) {
+        HashMap<String, Object> change = new HashMap<>();
+        if (from != null) {
+            change.put(from.name(), FieldValue.increment(-amount));
+        }
+        if (to != null) {
+            change.put(to.name(), FieldValue.increment(amount));
+        }
+        return change;
+    }
+
+    private static ParticipantState stateOf(DocumentSnapshot doc) {
+        String state = doc.exists() ? doc.getString("state") : null;
+        return state == null ? null : ParticipantState.valueOf(state);
+    }
+
+    private static EntrantPage toPage(QuerySnapshot snapshot, int pageSize) {
+        List<DocumentSnapshot> docs = snapshot.getDocuments();
+        ArrayList<String> userIds = new ArrayList<>(docs.size());
+        for (DocumentSnapshot doc : docs) {
+            userIds.add(doc.getId());
+        }
+        DocumentSnapshot last = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+        return new EntrantPage(userIds, last, docs.size() == pageSize);
+    }
+
+    /**
+     * Reports that entrants moved in several write batches were only partly moved: the batches committed
+     * before the failed one stay applied.
+     */
+    public static class PartialMoveException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> moved;
+
+        PartialMoveException(List<String> moved, int total, Exception cause) {
+            super("Moved " + moved.size() + " of " + total + " entrants before an error occurred: "
+                    + cause.getMessage(), cause);
+            this.moved = moved;
+        }
+
+        /**
+         * @return The IDs of the entrants that were moved, possibly none.
+         */
+        public List<String> getMoved() {
+            return moved;
+        }
+    }
+
+    /**
+     * One page of entrants, also used as the cursor to load the next page.
+     */
+    public static class EntrantPage {
+        private final List<String> userIds;
+        private final DocumentSnapshot last;
+        private final boolean hasMore;
+
+        EntrantPage(List<String> userIds, DocumentSnapshot last, boolean hasMore) {
+            this.userIds = userIds;
+            this.last = last;
+            this.hasMore = hasMore;
+        }
+
+        /**
+         * @return The user IDs in this page, in the order the entrants joined.
+         */
+        public List<String> getUserIds() {
+            return userIds;
+        }
+
+        /**
+         * @return {@code true} if another page may follow this one.
+         */
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+}
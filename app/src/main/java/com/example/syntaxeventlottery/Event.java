@@ -1,11 +1,13 @@
 package com.example.syntaxeventlottery;
 
+import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.ServerTimestamp;
 
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,14 +43,30 @@ public class Event implements Serializable {
 
     private String organizerId;
     private String posterUrl;
+    private String posterThumbnailUrl;
+    // content of the QR code (the event ID), null once an admin removed it; older events hold a Storage URL
     private String qrCode;
-    private ArrayList<String> participants; // those who have joined waiting list
-    private ArrayList<String> selectedParticipants; // those who have been selected by lottery
-    private ArrayList<String> confirmedParticipants; // those who have confirmed to take part of event
-    private ArrayList<String> cancelledParticipants; // those who have rejected their invitation or have been cancelled by the organizer
+    // one state per entrant keyed by user ID, stored in Firestore as the four participant lists:
+    // WAITING -> participants, those who have joined waiting list
+    // SELECTED -> selectedParticipants, those who have been selected by lottery
+    // CONFIRMED -> confirmedParticipants, those who have confirmed to take part of event
+    // CANCELLED -> cancelledParticipants, those who have rejected their invitation or have been cancelled by the organizer
+    private EventMembership membership = new EventMembership();
+
+    // events expecting many entrants keep them in an entrants subcollection instead of the lists above,
+    // the membership then only holds the entrants loaded so far and the counts come from the counter shards
+    private boolean shardedEntrants;
+    private EnumMap<ParticipantState, Long> entrantCounts = new EnumMap<>(ParticipantState.class);
+
+    /** Waiting list limit above which a new event stores its entrants in a subcollection. */
+    public static final int SHARDED_ENTRANTS_THRESHOLD = 1000;
 
     // Geolocation new attributes
     private boolean locationRequired;
+    // coordinates of the facility and their geohash, used to find events near a user; null if unknown
+    private Double latitude;
+    private Double longitude;
+    private String geohash;
 
     // -------------------------------------------------------------------------
     // Constructors
@@ -83,10 +101,6 @@ public class Event implements Serializable {
         this.startDate = startDate;
         this.endDate = endDate;
         this.organizerId = organizerId;
-        this.participants = new ArrayList<>();
-        this.selectedParticipants = new ArrayList<>();
-        this.confirmedParticipants = new ArrayList<>();
-        this.cancelledParticipants = new ArrayList<>();
         this.waitingListLimit = waitingListLimit;
         this.capacityFull = false;
         this.waitingListFull = false;
@@ -149,7 +163,7 @@ public class Event implements Serializable {
     }
 
     public boolean getCapacityFull() {
-        return confirmedParticipants.size() >= capacity;
+        return getParticipantCount(ParticipantState.CONFIRMED) >= capacity;
     }
 
     public void setCapacityFull(boolean full) {
@@ -168,7 +182,7 @@ public class Event implements Serializable {
         if (waitingListLimit == null) { // if limit is null, cannot be full
             return false;
         }
-        return participants.size() >= waitingListLimit;
+        return getParticipantCount(ParticipantState.WAITING) >= waitingListLimit;
     }
 
     public void setWaitingListFull(boolean full) {
@@ -215,6 +229,19 @@ public class Event implements Serializable {
         this.posterUrl = posterUrl;
     }
 
+    /**
+     * Gets the URL of the small poster variant shown in event lists.
+     *
+     * @return The thumbnail URL, or {@code null} for posters uploaded before thumbnails existed.
+     */
+    public String getPosterThumbnailUrl() {
+        return posterThumbnailUrl;
+    }
+
+    public void setPosterThumbnailUrl(String posterThumbnailUrl) {
+        this.posterThumbnailUrl = posterThumbnailUrl;
+    }
+
     public String getQrCode() {
         return qrCode;
     }
@@ -224,7 +251,7 @@ public class Event implements Serializable {
     }
 
     public ArrayList<String> getParticipants() {
-        return participants;
+        return membership.getUsers(ParticipantState.WAITING);
     }
 
     /**
@@ -238,31 +265,159 @@ public class Event implements Serializable {
     }
 
     public void setParticipants(ArrayList<String> participants) {
-        this.participants = participants;
+        membership.replaceUsers(ParticipantState.WAITING, participants);
     }
 
     public ArrayList<String> getSelectedParticipants() {
-        return selectedParticipants;
+        return membership.getUsers(ParticipantState.SELECTED);
     }
 
     public void setSelectedParticipants(ArrayList<String> selectedParticipants) {
-        this.selectedParticipants = selectedParticipants;
+        membership.replaceUsers(ParticipantState.SELECTED, selectedParticipants);
     }
 
     public ArrayList<String> getConfirmedParticipants() {
-        return confirmedParticipants;
+        return membership.getUsers(ParticipantState.CONFIRMED);
     }
 
     public void setConfirmedParticipants(ArrayList<String> confirmedParticipants) {
-        this.confirmedParticipants = confirmedParticipants;
+        membership.replaceUsers(ParticipantState.CONFIRMED, confirmedParticipants);
     }
 
     public ArrayList<String> getCancelledParticipants() {
-        return cancelledParticipants;
+        return membership.getUsers(ParticipantState.CANCELLED);
     }
 
     public void setCancelledParticipants(ArrayList<String> cancelledParticipants) {
-        this.cancelledParticipants = cancelledParticipants;
+        membership.replaceUsers(ParticipantState.CANCELLED, cancelledParticipants);
+    }
+
+    /**
+     * Returns the membership model holding the state of every entrant.
+     *
+     * @return The event's {@link EventMembership}.
+     */
+    @Exclude
+    public EventMembership getMembership() {
+        return membership;
+    }
+
+    /**
+     * Returns a copy of the participant list that holds entrants in the given state.
+     *
+     * @param state The participant state.
+     * @return The list of user IDs in that state.
+     */
+    public ArrayList<String> getParticipantList(ParticipantState state) {
+        return membership.getUsers(state);
+    }
+
+    /**
+     * Returns the state of an entrant in this event.
+     *
+     * @param userId The ID of the user.
+     * @return The entrant's state, or {@code null} if the user is not an entrant.
+     */
+    public ParticipantState getParticipantState(String userId) {
+        return membership.getState(userId);
+    }
+
+    /**
+     * Moves an entrant to a new state, adding them if they are not an entrant yet.
+     *
+     * @param userId The ID of the user.
+     * @param state  The new state.
+     * @return The previous state, or {@code null} if the user was not an entrant.
+     */
+    public ParticipantState setParticipantState(String userId, ParticipantState state) {
+        ParticipantState previous = membership.setState(userId, state);
+        if (shardedEntrants && previous != state) {
+            changeEntrantCount(previous, -1);
+            changeEntrantCount(state, 1);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes an entrant from this event.
+     *
+     * @param userId The ID of the user.
+     * @return The state the entrant was in, or {@code null} if the user was not an entrant.
+     */
+    public ParticipantState removeParticipant(String userId) {
+        ParticipantState previous = membership.remove(userId);
+        if (shardedEntrants) {
+            changeEntrantCount(previous, -1);
+        }
+        return previous;
+    }
+
+    /**
+     * Checks whether a user is an entrant in the given state.
+     *
+     * @param userId The ID of the user.
+     * @param state  The state to check.
+     * @return {@code true} if the user is in that state.
+     */
+    public boolean hasParticipant(String userId, ParticipantState state) {
+        return membership.isInState(userId, state);
+    }
+
+    /**
+     * Returns the number of entrants in the given state.
+     *
+     * @param state The state to count.
+     * @return The number of entrants in that state.
+     */
+    public int getParticipantCount(ParticipantState state) {
+        if (shardedEntrants) {
+            Long count = entrantCounts.get(state);
+            return count == null ? 0 : count.intValue();
+        }
+        return membership.size(state);
+    }
+
+    /**
+     * Returns whether the entrants are stored in the event's entrants subcollection
+     * instead of the participant list fields.
+     *
+     * @return {@code true} if the entrants are stored in the subcollection.
+     */
+    public boolean isShardedEntrants() {
+        return shardedEntrants;
+    }
+
+    public void setShardedEntrants(boolean shardedEntrants) {
+        this.shardedEntrants = shardedEntrants;
+    }
+
+    /**
+     * Decides whether an event with the given waiting list limit should store its entrants in a
+     * subcollection. Events without a limit can grow past the size of a document, so they are sharded too.
+     *
+     * @param waitingListLimit The waiting list limit, or {@code null} if unlimited.
+     * @return {@code true} if there is no limit or it exceeds {@link #SHARDED_ENTRANTS_THRESHOLD}.
+     */
+    public static boolean needsShardedEntrants(Integer waitingListLimit) {
+        return waitingListLimit == null || waitingListLimit > SHARDED_ENTRANTS_THRESHOLD;
+    }
+
+    /**
+     * Sets the entrant counts read from the counter shards of a sharded event.
+     *
+     * @param counts The number of entrants in every state.
+     */
+    @Exclude
+    public void setEntrantCounts(Map<ParticipantState, Long> counts) {
+        entrantCounts.clear();
+        entrantCounts.putAll(counts);
+    }
+
+    private void changeEntrantCount(ParticipantState state, long amount) {
+        if (state != null) {
+            Long count = entrantCounts.get(state);
+            entrantCounts.put(state, Math.max(0, (count == null ? 0 : count) + amount));
+        }
     }
 
     // GEOlocation
@@ -274,6 +429,60 @@ public class Event implements Serializable {
         this.locationRequired = locationRequired;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    /**
+     * Returns the geohash of the event's coordinates, which the "events near me" queries are ordered by.
+     *
+     * @return The geohash, or {@code null} if the coordinates are unknown.
+     */
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    /**
+     * Sets the coordinates of the facility together with their geohash, or clears all three.
+     *
+     * @param latitude  The latitude, or {@code null} if the location is unknown.
+     * @param longitude The longitude, or {@code null} if the location is unknown.
+     */
+    public void setCoordinates(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            this.latitude = null;
+            this.longitude = null;
+            this.geohash = null;
+            return;
+        }
+        this.geohash = GeoHash.encode(latitude, longitude, GeoQuery.STORED_PRECISION);
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * @return {@code true} if the coordinates of the facility are known.
+     */
+    public boolean hasCoordinates() {
+        return latitude != null && longitude != null && geohash != null;
+    }
+
 
     /**
      * Returns a string representation of the event.
@@ -296,8 +505,8 @@ public class Event implements Serializable {
                 ", organizerId='" + organizerId + '\'' +
                 ", posterUrl='" + posterUrl + '\'' +
                 ", qrCode='" + qrCode + '\'' +
-                ", participants=" + participants +
-                ", selectedParticipants=" + selectedParticipants +
+                ", participants=" + getParticipants() +
+                ", selectedParticipants=" + getSelectedParticipants() +
                 '}';
     }
 }
\ No newline at end of file
@@ -10,27 +10,30 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
- * The {@code EventAdapter} class extends {@link RecyclerView.Adapter} to provide a custom adapter
+ * The {@code EventAdapter} class extends {@link ListAdapter} to provide a custom adapter
  * for displaying event items in a {@link RecyclerView}. It binds event data to the views in each item
  * and handles user interactions with the event items.
+ * New lists are diffed against the shown one on a background thread, so only changed rows are bound again.
  */
-public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHolder> {
+public class EventAdapter extends ListAdapter<ListRow<Event>, EventAdapter.EventViewHolder> {
     private final String TAG = "EventAdapter";
 
-    /** List of events to be displayed in the RecyclerView. */
-    private List<Event> eventsList;
-
     /** Context from which the adapter is created, used for inflating layouts and starting activities. */
     private Context context;
 
+    /** Learns the poster size from the first row, so that preloaded posters are decoded at that size. */
+    private final ViewPreloadSizeProvider<Event> preloadSizeProvider = new ViewPreloadSizeProvider<>();
+
     /**
      * Constructs a new {@code EventAdapter}.
      *
@@ -38,8 +41,9 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
      * @param context    The context in which the adapter is operating.
      */
     public EventAdapter(List<Event> eventsList, Context context) {
+        super(ListRow.diffCallback());
         this.context = context;
-        this.eventsList = (eventsList != null) ? eventsList : new ArrayList<>();
+        updateEvents(eventsList);
     }
 
     /**
@@ -53,7 +57,9 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
     @Override
     public EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_event, parent, false);
-        return new EventViewHolder(view);
+        EventViewHolder holder = new EventViewHolder(view);
+        preloadSizeProvider.setView(holder.eventPosterImageView);
+        return holder;
     }
 
     /**
@@ -65,7 +71,7 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
      */
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
-        Event event = eventsList.get(position);
+        Event event = getItem(position).getItem();
         Log.d("EventAdapter", "Event name: " +event.getEventName());
         holder.eventNameTextView.setText(event.getEventName());
         holder.eventDescriptionTextView.setText(event.getDescription());
@@ -74,15 +80,7 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
         holder.eventFacilityLocationTextView.setText("Location: "+ event.getFacilityLocation());
 
         // Load the image using Glide, which will automatically handle activity lifecycle
-        if (event.getPosterUrl() != null && !event.getPosterUrl().isEmpty()) {
-            Glide.with(context)  // Glide automatically cancels when the activity is destroyed
-                    .load(event.getPosterUrl())
-                    .into(holder.eventPosterImageView);
-        } else {
-            Glide.with(context)
-                    .load(R.drawable.ic_no_event_poster)
-                    .into(holder.eventPosterImageView);
-        }
+        ImageLoader.posterRow(Glide.with(context), event).into(holder.eventPosterImageView);
 
         // Set click listener for each event item to open EventDetailActivity
         holder.itemView.setOnClickListener(v -> {
@@ -101,26 +99,31 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
     }
 
     /**
-     * Returns the total number of items in the data set held by the adapter.
+     * Creates a scroll listener that fetches the posters of the rows about to be shown.
      *
-     * @return The total number of events.
+     * @return The preloader to add to the RecyclerView showing this adapter.
      */
-    @Override
-    public int getItemCount() {
-        return (eventsList != null) ? eventsList.size() : 0;
+    public RecyclerViewPreloader<Event> createPreloader() {
+        return new RecyclerViewPreloader<>(Glide.with(context),
+                ImageLoader.preloadModels(Glide.with(context),
+                        position -> position < getItemCount() ? getItem(position).getItem() : null, ImageLoader::posterRow),
+                preloadSizeProvider, ImageLoader.MAX_PRELOAD);
     }
 
     /**
-     * Updates the entire list of events and refreshes the RecyclerView.
+     * Replaces the list of events. Only the rows of added, removed, moved or changed events are updated.
      *
      * @param newEvents A new list of {@link Event} objects to replace the current list.
      */
     public void updateEvents(List<Event> newEvents) {
-        eventsList.clear();
-        if (newEvents != null) {
-            eventsList.addAll(newEvents);
-        }
-        notifyDataSetChanged();
+        submitList(ListRow.of(newEvents, Event::getEventID, EventAdapter::rowContent));
+    }
+
+    // everything onBindViewHolder shows or passes to the detail screen
+    private static Object[] rowContent(Event event) {
+        return new Object[] {event.getEventName(), event.getDescription(), event.getStartDate(), event.getEndDate(),
+                event.getFacilityName(), event.getFacilityLocation(), event.getPosterUrl(), event.getPosterThumbnailUrl(),
+                event.getQrCode(), event.getCapacity(), event.isDrawed()};
     }
 
 
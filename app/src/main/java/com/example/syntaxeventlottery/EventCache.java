@@ -0,0 +1,381 @@
+package com.example.syntaxeventlottery;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Process-wide in-memory cache of {@link Event} objects.
+ * The cache is kept up to date by a single Firestore snapshot listener on the {@code events}
+ * collection, which only applies the document changes (added, modified, removed) instead of
+ * downloading the whole collection every time a screen is opened.
+ * Events are indexed by event ID and by organizer ID so lookups do not scan the whole cache.
+ * A reverse membership index maps each user to the events they take part in, grouped by
+ * {@link ParticipantState}, and is updated incrementally from the participant list changes.
+ */
+public class EventCache {
+    private static final String TAG = "EventCache";
+    private static EventCache instance;
+
+    private final LinkedHashMap<String, Event> eventsById;
+    private final HashMap<String, LinkedHashSet<String>> eventIdsByOrganizer;
+    private final HashMap<String, EnumMap<ParticipantState, LinkedHashSet<String>>> eventIdsByUser;
+    // participant lists as they were last indexed, events can be mutated in place before a put
+    private final HashMap<String, EnumMap<ParticipantState, HashSet<String>>> indexedMembers;
+    private final List<DataCallback<Void>> pendingCallbacks;
+    private ListenerRegistration registration;
+    private boolean synced;
+    private boolean awaitingInitialSnapshot;
+
+    /**
+     * Creates an empty cache. Use {@link #getInstance()} to access the shared cache.
+     */
+    EventCache() {
+        this.eventsById = new LinkedHashMap<>();
+        this.eventIdsByOrganizer = new HashMap<>();
+        this.eventIdsByUser = new HashMap<>();
+        this.indexedMembers = new HashMap<>();
+        this.pendingCallbacks = new ArrayList<>();
+    }
+
+    /**
+     * Returns the cache shared by every {@link EventRepository} in the process.
+     *
+     * @return The shared {@code EventCache}.
+     */
+    public static synchronized EventCache getInstance() {
+        if (instance == null) {
+            instance = new EventCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Attaches the snapshot listener to the events collection if it is not already attached.
+     *
+     * @param eventsRef The Firestore {@code events} collection.
+     */
+    public synchronized void startListening(CollectionReference eventsRef) {
+        if (registration != null) {
+            return;
+        }
+        awaitingInitialSnapshot = true;
+        registration = eventsRef.addSnapshotListener((snapshots, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Events listener failed", e);
+                onListenerError(e);
+                return;
+            }
+            if (snapshots == null) {
+                return;
+            }
+            List<DataCallback<Void>> ready;
+            synchronized (this) {
+                if (awaitingInitialSnapshot) {
+                    // a fresh listener reports every document as ADDED and says nothing of the events deleted
+                    // while it was detached, the cached events are updated in place and only those are dropped
+                    Set<String> eventIds = new HashSet<>();
+                    for (DocumentSnapshot doc : snapshots.getDocuments()) {
+                        eventIds.add(doc.getId());
+                    }
+                    retainOnly(eventIds);
+                    awaitingInitialSnapshot = false;
+                }
+                for (DocumentChange change : snapshots.getDocumentChanges()) {
+                    String eventId = change.getDocument().getId();
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        applyChange(change.getType(), eventId, null);
+                    } else {
+                        applyChange(change.getType(), eventId, EventRepository.toEvent(change.getDocument()));
+                    }
+                }
+                synced = true;
+                ready = drainPendingCallbacks();
+            }
+            Log.d(TAG, "Events cache updated with " + snapshots.getDocumentChanges().size() + " changes");
+            for (DataCallback<Void> callback : ready) {
+                callback.onSuccess(null);
+            }
+        });
+    }
+
+    /**
+     * Detaches the snapshot listener. Cached events are kept but are no longer updated.
+     */
+    public synchronized void stopListening() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    /**
+     * Calls back once the cache has received its first snapshot from Firestore.
+     * If the cache is already in sync the callback is invoked immediately.
+     *
+     * @param callback The callback to notify.
+     */
+    public void whenSynced(DataCallback<Void> callback) {
+        synchronized (this) {
+            if (!synced) {
+                pendingCallbacks.add(callback);
+                return;
+            }
+        }
+        callback.onSuccess(null);
+    }
+
+    /**
+     * Applies a single document change to the cache.
+     *
+     * @param type    The type of the change.
+     * @param eventId The ID of the changed event document.
+     * @param event   The new event data, or {@code null} for removals.
+     */
+    synchronized void applyChange(DocumentChange.Type type, String eventId, Event event) {
+        if (type == DocumentChange.Type.REMOVED) {
+            remove(eventId);
+        } else {
+            put(eventId, event);
+        }
+    }
+
+    /**
+     * Adds or replaces an event in the cache.
+     *
+     * @param eventId The ID of the event.
+     * @param event   The event to store.
+     */
+    public synchronized void put(String eventId, Event event) {
+        if (eventId == null || event == null) {
+            return;
+        }
+        Event previous = eventsById.put(eventId, event);
+        if (previous != null) {
+            unindexOrganizer(previous.getOrganizerId(), eventId);
+        }
+        if (event.getOrganizerId() != null) {
+            LinkedHashSet<String> organizerEvents = eventIdsByOrganizer.get(event.getOrganizerId());
+            if (organizerEvents == null) {
+                organizerEvents = new LinkedHashSet<>();
+                eventIdsByOrganizer.put(event.getOrganizerId(), organizerEvents);
+            }
+            organizerEvents.add(eventId);
+        }
+        updateMembership(eventId, event);
+    }
+
+    /**
+     * Removes an event from the cache.
+     *
+     * @param eventId The ID of the event to remove.
+     */
+    public synchronized void remove(String eventId) {
+        if (eventId == null) {
+            return;
+        }
+        Event removed = eventsById.remove(eventId);
+        if (removed != null) {
+            unindexOrganizer(removed.getOrganizerId(), eventId);
+        }
+        updateMembership(eventId, null);
+    }
+
+    /**
+     * Removes every cached event that is not in the given set, keeping the indexes of the others.
+     *
+     * @param eventIds The IDs of the events that still exist.
+     */
+    synchronized void retainOnly(Set<String> eventIds) {
+        for (String eventId : new ArrayList<>(eventsById.keySet())) {
+            if (!eventIds.contains(eventId)) {
+                remove(eventId);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the cache is kept in sync by an attached listener that delivered its first snapshot,
+     * in which case an event missing from the cache does not exist.
+     *
+     * @return {@code true} if the cached events are up to date.
+     */
+    public synchronized boolean isLive() {
+        return registration != null && synced && !awaitingInitialSnapshot;
+    }
+
+    /**
+     * Retrieves a cached event by its ID.
+     *
+     * @param eventId The ID of the event.
+     * @return The cached {@link Event}, or {@code null} if it is not cached.
+     */
+    public synchronized Event get(String eventId) {
+        if (eventId == null) {
+            return null;
+        }
+        return eventsById.get(eventId);
+    }
+
+    /**
+     * Retrieves the cached events organized by the given user using the organizer index.
+     *
+     * @param organizerId The ID of the organizer.
+     * @return A list of the organizer's cached {@link Event} objects, empty if there are none.
+     */
+    public synchronized ArrayList<Event> getEventsByOrganizer(String organizerId) {
+        ArrayList<Event> organizerEvents = new ArrayList<>();
+        LinkedHashSet<String> eventIds = eventIdsByOrganizer.get(organizerId);
+        if (eventIds == null) {
+            return organizerEvents;
+        }
+        for (String eventId : eventIds) {
+            organizerEvents.add(eventsById.get(eventId));
+        }
+        return organizerEvents;
+    }
+
+    /**
+     * Retrieves the cached events in which the user is in the given state using the
+     * reverse membership index. The cost is proportional to the user's events only.
+     *
+     * @param userId The ID of the user.
+     * @param state  The participant state to look up.
+     * @return A list of matching cached {@link Event} objects, empty if there are none.
+     */
+    public synchronized ArrayList<Event> getEventsByParticipant(String userId, ParticipantState state) {
+        ArrayList<Event> userEvents = new ArrayList<>();
+        EnumMap<ParticipantState, LinkedHashSet<String>> userIndex = eventIdsByUser.get(userId);
+        if (userIndex == null || userIndex.get(state) == null) {
+            return userEvents;
+        }
+        for (String eventId : userIndex.get(state)) {
+            userEvents.add(eventsById.get(eventId));
+        }
+        return userEvents;
+    }
+
+    /**
+     * Returns a copy of all cached events.
+     *
+     * @return A list of cached {@link Event} objects.
+     */
+    public synchronized ArrayList<Event> getEvents() {
+        return new ArrayList<>(eventsById.values());
+    }
+
+    /**
+     * Returns whether the cache has received at least one snapshot from Firestore.
+     *
+     * @return {@code true} if the cache is in sync.
+     */
+    public synchronized boolean isSynced() {
+        return synced;
+    }
+
+    private void unindexOrganizer(String organizerId, String eventId) {
+        if (organizerId == null) {
+            return;
+        }
+        LinkedHashSet<String> organizerEvents = eventIdsByOrganizer.get(organizerId);
+        if (organizerEvents != null) {
+            organizerEvents.remove(eventId);
+            if (organizerEvents.isEmpty()) {
+                eventIdsByOrganizer.remove(organizerId);
+            }
+        }
+    }
+
+    /**
+     * Brings the reverse membership index up to date for one event by diffing its participant
+     * lists against the lists that were indexed last time.
+     *
+     * @param eventId The ID of the event.
+     * @param event   The current event, or {@code null} if it was removed.
+     */
+    private void updateMembership(String eventId, Event event) {
+        EnumMap<ParticipantState, HashSet<String>> previous = indexedMembers.remove(eventId);
+        EnumMap<ParticipantState, HashSet<String>> current = null;
+        if (event != null) {
+            current = new EnumMap<>(ParticipantState.class);
+            for (ParticipantState state : ParticipantState.values()) {
+                current.put(state, new HashSet<>(event.getMembership().getUsersView(state)));
+            }
+            indexedMembers.put(eventId, current);
+        }
+
+        for (ParticipantState state : ParticipantState.values()) {
+            Set<String> before = previous == null ? Collections.emptySet() : previous.get(state);
+            Set<String> after = current == null ? Collections.emptySet() : current.get(state);
+            for (String userId : before) {
+                if (!after.contains(userId)) {
+                    unindexMember(userId, state, eventId);
+                }
+            }
+            for (String userId : after) {
+                if (!before.contains(userId)) {
+                    indexMember(userId, state, eventId);
+                }
+            }
+        }
+    }
+
+    private void indexMember(String userId, ParticipantState state, String eventId) {
+        EnumMap<ParticipantState, LinkedHashSet<String>> userIndex = eventIdsByUser.get(userId);
+        if (userIndex == null) {
+            userIndex = new EnumMap<>(ParticipantState.class);
+            eventIdsByUser.put(userId, userIndex);
+        }
+        LinkedHashSet<String> eventIds = userIndex.get(state);
+        if (eventIds == null) {
+            eventIds = new LinkedHashSet<>();
+            userIndex.put(state, eventIds);
+        }
+        eventIds.add(eventId);
+    }
+
+    private void unindexMember(String userId, ParticipantState state, String eventId) {
+        EnumMap<ParticipantState, LinkedHashSet<String>> userIndex = eventIdsByUser.get(userId);
+        if (userIndex == null || userIndex.get(state) == null) {
+            return;
+        }
+        userIndex.get(state).remove(eventId);
+        if (userIndex.get(state).isEmpty()) {
+            userIndex.remove(state);
+            if (userIndex.isEmpty()) {
+                eventIdsByUser.remove(userId);
+            }
+        }
+    }
+
+    private void onListenerError(Exception e) {
+        List<DataCallback<Void>> failed;
+        synchronized (this) {
+            // Firestore removes a listener after an error, allow the next refresh to re-attach it
+            registration = null;
+            failed = drainPendingCallbacks();
+        }
+        for (DataCallback<Void> callback : failed) {
+            callback.onError(e);
+        }
+    }
+
+    private List<DataCallback<Void>> drainPendingCallbacks() {
+        List<DataCallback<Void>> drained = new ArrayList<>(pendingCallbacks);
+        pendingCallbacks.clear();
+        return drained;
+    }
+}
@@ -4,21 +4,17 @@ import static android.content.ContentValues.TAG;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Color;
 import android.net.Uri;
 import android.util.Log;
 
-import com.google.android.gms.maps.model.LatLng;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -28,7 +24,14 @@ import javax.annotation.Nullable;
  * operations and additional functionalities, such as managing participant lists and sending notifications.
  */
 public class EventController {
+    /** Number of entrants loaded per page on the participant list screens. */
+    static final int ENTRANT_PAGE_SIZE = 50;
+    /** Number of events loaded per page on the organizer screen, and per query when all of them are needed. */
+    static final int ORGANIZER_EVENT_PAGE_SIZE = 20;
+
     private EventRepository repository;
+    private LotteryEngine lotteryEngine;
+    private NotificationRepository notificationRepository;
 
     /**
      * Constructs a new {@code EventController}.
@@ -36,104 +39,110 @@ public class EventController {
      * @param repository The {@link EventRepository} instance used for data operations.
      */
     public EventController(EventRepository repository) {
-        this.repository = repository;
+        this(repository, new LotteryEngine());
     }
 
-
     /**
-     * Fetches the locations of all participants for a given event.
+     * Constructs a new {@code EventController} with a specific lottery engine.
      *
-     * @param eventID  The ID of the event.
-     * @param callback The callback to handle the list of {@link LatLng} locations.
+     * @param repository    The {@link EventRepository} instance used for data operations.
+     * @param lotteryEngine The {@link LotteryEngine} used to draw participants.
      */
-    public void getAllParticipantLocations(String eventID, DataCallback<List<LatLng>> callback) {
-        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
-        firestore.collection("events")
-                .document(eventID)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        // Combine participants, selectedParticipants, and confirmedParticipants into one list
-                        List<String> allParticipants = new ArrayList<>();
-
-                        // Add participants to the list
-                        List<String> participants = (List<String>) documentSnapshot.get("participants");
-                        if (participants != null && !participants.isEmpty()) {
-                            allParticipants.addAll(participants);
-                        }
-
-                        // Add selectedParticipants to the list
-                        List<String> selectedParticipants = (List<String>) documentSnapshot.get("selectedParticipants");
-                        if (selectedParticipants != null && !selectedParticipants.isEmpty()) {
-                            allParticipants.addAll(selectedParticipants);
-                        }
-
-                        // Add confirmedParticipants to the list
-                        List<String> confirmedParticipants = (List<String>) documentSnapshot.get("confirmedParticipants");
-                        if (confirmedParticipants != null && !confirmedParticipants.isEmpty()) {
-                            allParticipants.addAll(confirmedParticipants);
-                        }
-
-                        // Check if the combined list is not empty
-                        if (!allParticipants.isEmpty()) {
-                            // Fetch locations for all participants
-                            fetchParticipantLocations(allParticipants, callback);
-                        } else {
-                            callback.onError(new Exception("No participants found for this event."));
-                        }
-                    } else {
-                        callback.onError(new Exception("Event not found."));
-                    }
-                })
-                .addOnFailureListener(callback::onError);
+    public EventController(EventRepository repository, LotteryEngine lotteryEngine) {
+        this(repository, lotteryEngine, null);
     }
 
+    /**
+     * Constructs a new {@code EventController} sending notifications through a specific repository.
+     *
+     * @param repository             The {@link EventRepository} instance used for data operations.
+     * @param lotteryEngine          The {@link LotteryEngine} used to draw participants.
+     * @param notificationRepository The {@link NotificationRepository} used to send notifications,
+     *                               or {@code null} to use the one shared by the app.
+     */
+    EventController(EventRepository repository, LotteryEngine lotteryEngine,
+                    @Nullable NotificationRepository notificationRepository) {
+        this.repository = repository;
+        this.lotteryEngine = lotteryEngine;
+        this.notificationRepository = notificationRepository;
+    }
 
 
     /**
-     * Helper method to fetch participant locations based on their device IDs.
+     * Retrieves the IDs of the participants shown on the event map: the entrants on the waiting list,
+     * the selected entrants and the confirmed entrants. The entrants of sharded events are paged in.
      *
-     * @param participants List of participant device IDs.
-     * @param callback     The callback to handle the list of LatLng locations.
+     * @param event    The event.
+     * @param callback The callback receiving the participant IDs.
      */
-    private void fetchParticipantLocations(List<String> participants, DataCallback<List<LatLng>> callback) {
-        FirebaseFirestore firestore = FirebaseFirestore.getInstance();
-        List<LatLng> participantLocations = new ArrayList<>();
-        AtomicInteger remaining = new AtomicInteger(participants.size());
+    public void loadMapParticipantIds(Event event, DataCallback<List<String>> callback) {
+        List<ParticipantState> states = new ArrayList<>();
+        states.add(ParticipantState.WAITING);
+        states.add(ParticipantState.SELECTED);
+        states.add(ParticipantState.CONFIRMED);
+        loadEntrantsOf(event, states, 0, new ArrayList<>(), callback);
+    }
 
-        for (String deviceID : participants) {
-            firestore.collection("Users")
-                    .document(deviceID)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            // Retrieve the location field for the participant
-                            List<Double> location = (List<Double>) documentSnapshot.get("location");
-                            if (location != null && location.size() == 2) {
-                                double latitude = location.get(0);
-                                double longitude = location.get(1);
-                                LatLng latLng = new LatLng(latitude, longitude);
-                                participantLocations.add(latLng);
-                            } else {
-                                Log.d(TAG, "Location not found for user: " + deviceID);
-                            }
-                        } else {
-                            Log.d(TAG, "User not found for deviceID: " + deviceID);
-                        }
-                        if (remaining.decrementAndGet() == 0) {
-                            callback.onSuccess(participantLocations);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Failed to load user data for deviceID: " + deviceID, e);
-                        if (remaining.decrementAndGet() == 0) {
-                            callback.onSuccess(participantLocations);
-                        }
-                    });
+    /**
+     * Retrieves the locations of the participants shown on the event map from the event's location projection,
+     * which takes one query however many participants there are. The projection is only used if it holds a
+     * location for every waiting, selected and confirmed entrant; entrants who joined before it existed are missing.
+     *
+     * @param event    The event.
+     * @param callback The callback receiving the locations, or {@code null} if the projection is incomplete
+     *                 and the locations have to be read from the participants' user documents.
+     */
+    public void loadMapLocations(Event event, DataCallback<List<ProjectedLocation>> callback) {
+        if (!event.getLocationRequired()) {
+            // locations are only projected for events that require one
+            callback.onSuccess(null);
+            return;
         }
+        repository.loadEntrantSummary(event, null, new DataCallback<Event>() {
+            @Override
+            public void onSuccess(Event result) {
+                int participants = event.getParticipantCount(ParticipantState.WAITING)
+                        + event.getParticipantCount(ParticipantState.SELECTED)
+                        + event.getParticipantCount(ParticipantState.CONFIRMED);
+                repository.loadParticipantLocations(event.getEventID(), new DataCallback<List<ProjectedLocation>>() {
+                    @Override
+                    public void onSuccess(List<ProjectedLocation> locations) {
+                        callback.onSuccess(locations.size() >= participants ? locations : null);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        callback.onError(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
     }
 
+    private void loadEntrantsOf(Event event, List<ParticipantState> states, int index, List<String> collected,
+                                DataCallback<List<String>> callback) {
+        if (index == states.size()) {
+            callback.onSuccess(collected);
+            return;
+        }
+        repository.loadAllEntrants(event, states.get(index), new DataCallback<List<String>>() {
+            @Override
+            public void onSuccess(List<String> userIds) {
+                collected.addAll(userIds);
+                loadEntrantsOf(event, states, index + 1, collected, callback);
+            }
 
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
 
     public ArrayList<Event> getLocalEventsList() {
         return repository.getLocalEventsList();
@@ -160,8 +169,11 @@ public class EventController {
             return;
         }
         event.generateEventID(event.getOrganizerId());
-        Bitmap qrCodeBitmap = generateQRCodeBitmap(event.getEventID());
-        repository.addEventToRepo(event, imageUri, qrCodeBitmap, callback);
+        // the storage mode is chosen once, when the event is created
+        event.setShardedEntrants(Event.needsShardedEntrants(event.getWaitingListLimit()));
+        // the QR code holds the event ID and is rendered on the device, see QRCodeRenderer
+        event.setQrCode(event.getEventID());
+        repository.addEventToRepo(event, imageUri, callback);
     }
 
     /**
@@ -169,15 +181,13 @@ public class EventController {
      *
      * @param event          The {@link Event} object with updated details.
      * @param imageUri       The {@link Uri} of the new event poster image (optional).
-     * @param qrCodeBitmap   The updated QR code as a {@link Bitmap} (optional).
      * @param callback       The callback to handle the operation result.
      */
-    public void updateEvent(Event event, @Nullable Uri imageUri,
-                            @Nullable Bitmap qrCodeBitmap, DataCallback<Event> callback) {
+    public void updateEvent(Event event, @Nullable Uri imageUri, DataCallback<Event> callback) {
         if (!validateEvent(event, callback)) {
             return;
         }
-        repository.updateEventDetails(event, imageUri, qrCodeBitmap, callback);
+        repository.updateEventDetails(event, imageUri, callback);
     }
 
 
@@ -202,14 +212,22 @@ public class EventController {
         if (eventId == null) {
             return null;
         }
-        ArrayList<Event> events = getLocalEventsList();
-        for (Event event : events) {
-            if (event.getEventID().equals(eventId)) {
-                return event;
-            }
+        // indexed lookup, returns null if no matching event found
+        return repository.getEventById(eventId);
+    }
+
+    /**
+     * Loads a single {@link Event}, from the cache if it is in sync, otherwise with one document read.
+     *
+     * @param eventId  The unique identifier of the event to load.
+     * @param callback The callback receiving the event, or {@code null} if not found.
+     */
+    public void getEvent(String eventId, DataCallback<Event> callback) {
+        if (eventId == null) {
+            callback.onSuccess(null);
+            return;
         }
-        // return null if no matching event found
-        return null;
+        repository.getEvent(eventId, callback);
     }
 
 
@@ -224,13 +242,73 @@ public class EventController {
             return null;
         }
         // get all events where the passed id is the event's organizer
-        ArrayList<Event> organizerEvents = new ArrayList<>();
-        for (Event event : repository.getLocalEventsList()) {
-            if (event.getOrganizerId().equals(organizerID)) {
-                organizerEvents.add(event);
-            }
+        return repository.getEventsByOrganizer(organizerID);
+    }
+
+    /**
+     * Loads the next page of the events organized by a specific user, ordered by start date,
+     * without downloading the events of other organizers.
+     *
+     * @param organizerID The ID of the organizer.
+     * @param after       The previously loaded page, or {@code null} for the first page.
+     * @param callback    The {@link DataCallback} receiving the loaded page.
+     */
+    public void loadOrganizerEventPage(String organizerID, @Nullable DocumentPage<Event> after,
+                                       DataCallback<DocumentPage<Event>> callback) {
+        if (organizerID == null || organizerID.isEmpty()) {
+            callback.onError(new IllegalArgumentException("Organizer ID is required"));
+            return;
         }
-        return organizerEvents;
+        repository.loadOrganizerEventsPage(organizerID, after, ORGANIZER_EVENT_PAGE_SIZE, callback);
+    }
+
+    /**
+     * Loads every event organized by a specific user, ordered by start date,
+     * without downloading the events of other organizers.
+     *
+     * @param organizerID The ID of the organizer.
+     * @param callback    The {@link DataCallback} receiving the events.
+     */
+    public void loadAllOrganizerEvents(String organizerID, DataCallback<ArrayList<Event>> callback) {
+        if (organizerID == null || organizerID.isEmpty()) {
+            callback.onError(new IllegalArgumentException("Organizer ID is required"));
+            return;
+        }
+        repository.loadAllOrganizerEvents(organizerID, ORGANIZER_EVENT_PAGE_SIZE, callback);
+    }
+
+
+    /**
+     * Loads a page of all events, ordered by start date, for the admin screens.
+     *
+     * @param cursor    The page the new page is read relative to, or {@code null} for the first page.
+     * @param direction Where the page is read relative to the cursor.
+     * @param pageSize  The maximum number of events in the page.
+     * @param callback  The {@link DataCallback} receiving the loaded page.
+     */
+    public void loadEventPage(@Nullable DocumentPage<Event> cursor, DocumentPage.Direction direction, int pageSize,
+                              DataCallback<DocumentPage<Event>> callback) {
+        repository.loadEventsPage(cursor, direction, pageSize, callback);
+    }
+
+    /**
+     * Finds the events near a user's location, nearest first.
+     *
+     * @param location     The user's location as latitude and longitude.
+     * @param radiusMeters The search radius in metres.
+     * @param callback     The {@link DataCallback} receiving the events sorted by distance.
+     */
+    public void findEventsNear(List<Double> location, double radiusMeters, DataCallback<List<Event>> callback) {
+        if (location == null || location.size() < 2 || location.get(0) == null || location.get(1) == null
+                || Math.abs(location.get(0)) > 90 || Math.abs(location.get(1)) > 180) {
+            callback.onError(new IllegalArgumentException("Location is unknown"));
+            return;
+        }
+        if (!(radiusMeters > 0)) {
+            callback.onError(new IllegalArgumentException("Invalid search radius"));
+            return;
+        }
+        repository.findEventsNear(location.get(0), location.get(1), radiusMeters, callback);
     }
 
 
@@ -244,29 +322,82 @@ public class EventController {
      * @param callback The {@link DataCallback} to handle the result of the operation.
      */
     public void addUserToWaitingList(Event event, String userID, DataCallback<Event> callback) {
+        addUserToWaitingList(event, userID, null, callback);
+    }
+
+    /**
+     * Adds a user to the waiting list of a specified event, storing the user's location for the event map
+     * if the event requires a location.
+     *
+     * @param event    The {@link Event} object representing the event to which the user is being added.
+     * @param userID   The unique ID of the user being added to the waiting list.
+     * @param location The user's location as latitude and longitude, or {@code null} if it is not known.
+     * @param callback The {@link DataCallback} to handle the result of the operation.
+     */
+    public void addUserToWaitingList(Event event, String userID, @Nullable List<Double> location,
+                                     DataCallback<Event> callback) {
         // Validate inputs
         if (event == null || userID == null || userID.isEmpty()) {
             callback.onError(new IllegalArgumentException("Failed to retrieve event data, try again later"));
             return;
         }
 
-        ArrayList<String> participants = event.getParticipants();
-        if (participants.contains(userID)) {
+        // Cancelled entrants may join again, anyone else is already taking part
+        ParticipantState state = event.getParticipantState(userID);
+        if (state != null && state != ParticipantState.CANCELLED) {
             callback.onError(new IllegalArgumentException("Failed to join waiting list: You are already a participant"));
             return;
         }
 
         // Check if a waiting list limit was set
         // If true check that waiting list is not full
-        if (event.getWaitingListLimit() != null && participants.size() >= event.getWaitingListLimit()) {
+        if (event.getWaitingListLimit() != null
+                && event.getParticipantCount(ParticipantState.WAITING) >= event.getWaitingListLimit()) {
             callback.onError(new IllegalArgumentException("Failed to join waiting list: No spots available"));
             return;
         }
 
-        // Update participants list and save
-        participants.add(userID);
-        event.setParticipants(participants);
-        updateEvent(event, null, null, callback);
+        // Update participant state locally, then join atomically so concurrent joins are not lost
+        event.setParticipantState(userID, ParticipantState.WAITING);
+        repository.joinWaitingList(event, userID,
+                restoreOnError(event, Collections.singletonMap(userID, state), event.isDrawed(),
+                        saveLocationOnJoin(event, userID, location, callback)));
+    }
+
+    // the location is stored once the join succeeded, a failed write only leaves the entrant off the map
+    private DataCallback<Event> saveLocationOnJoin(Event event, String userID, @Nullable List<Double> location,
+                                                   DataCallback<Event> callback) {
+        if (!event.getLocationRequired() || location == null || location.size() < 2
+                || location.get(0) == null || location.get(1) == null) {
+            return callback;
+        }
+        return new DataCallback<Event>() {
+            @Override
+            public void onSuccess(Event result) {
+                try {
+                    ProjectedLocation projected = ProjectedLocation.of(userID, location.get(0), location.get(1));
+                    repository.saveParticipantLocation(event, projected, new DataCallback<Void>() {
+                        @Override
+                        public void onSuccess(Void ignored) {
+                            Log.d(TAG, "Location of " + userID + " stored for " + event.getEventID());
+                        }
+
+                        @Override
+                        public void onError(Exception e) {
+                            Log.e(TAG, "Failed to store the location of " + userID, e);
+                        }
+                    });
+                } catch (IllegalArgumentException e) {
+                    Log.e(TAG, "Invalid location of " + userID, e);
+                }
+                callback.onSuccess(result);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        };
     }
 
     /**
@@ -284,38 +415,17 @@ public class EventController {
             return;
         }
 
-        // Get the event lists, initialize them if they are null
-        ArrayList<String> participants = event.getParticipants();
-        if (participants == null) {
-            participants = new ArrayList<>();
-        }
-
-        ArrayList<String> selectedParticipants = event.getSelectedParticipants();
-        if (selectedParticipants == null) {
-            selectedParticipants = new ArrayList<>();
-        }
-
-        ArrayList<String> confirmedParticipants = event.getConfirmedParticipants();
-        if (confirmedParticipants == null) {
-            confirmedParticipants = new ArrayList<>();
-        }
-
-        // Remove user from the lists (if present)
-        boolean removedFromParticipants = participants.remove(userID);
-        boolean removedFromSelected = selectedParticipants.remove(userID);
-        boolean removedFromConfirmed = confirmedParticipants.remove(userID);
-
-        // If the user wasn't removed from any list, you may want to log that
-        if (!removedFromParticipants && !removedFromSelected && !removedFromConfirmed) {
+        // Only waiting, selected and confirmed entrants can leave, cancelled entrants stay recorded
+        ParticipantState state = event.getParticipantState(userID);
+        if (state == null || state == ParticipantState.CANCELLED) {
             callback.onError(new IllegalArgumentException("User ID not found in any event list"));
             return;
         }
 
-        // Update participants list and save
-        event.setParticipants(participants);
-        event.setSelectedParticipants(selectedParticipants);
-        event.setConfirmedParticipants(confirmedParticipants);
-        updateEvent(event, null, null, callback);
+        // Remove the entrant locally and from the stored lists
+        event.removeParticipant(userID);
+        repository.removeParticipant(event, userID,
+                restoreOnError(event, Collections.singletonMap(userID, state), event.isDrawed(), callback));
     }
 
     /**
@@ -333,33 +443,15 @@ public class EventController {
         }
 
         // return if user has already been cancelled
-        if (event.getCancelledParticipants().contains(userID)) {
+        if (event.hasParticipant(userID, ParticipantState.CANCELLED)) {
             callback.onError(new IllegalArgumentException("This user has already been set to cancelled"));
+            return;
         }
 
-        if (event.getParticipants().contains(userID)) {
-            ArrayList<String> participants = event.getParticipants();
-            participants.remove(userID);
-            event.setParticipants(participants);
-        }
-
-        if (event.getSelectedParticipants().contains(userID)) {
-            ArrayList<String> selectedParticipants = event.getSelectedParticipants();
-            selectedParticipants.remove(userID);
-            event.setSelectedParticipants(selectedParticipants);
-        }
-
-        if (event.getConfirmedParticipants().contains(userID)) {
-            ArrayList<String> confirmedParticipants = event.getConfirmedParticipants();
-            confirmedParticipants.remove(userID);
-            event.setSelectedParticipants(confirmedParticipants);
-        }
-
-        // update event and repository data
-        ArrayList<String> cancelledParticipants = event.getCancelledParticipants();
-        cancelledParticipants.add(userID);
-        event.setCancelledParticipants(cancelledParticipants);
-        updateEvent(event, null, null, callback);
+        // moving the entrant to cancelled takes them off any other list
+        ParticipantState previous = event.setParticipantState(userID, ParticipantState.CANCELLED);
+        repository.updateParticipantState(event, Collections.singletonList(userID), ParticipantState.CANCELLED,
+                restoreOnError(event, Collections.singletonMap(userID, previous), event.isDrawed(), callback));
     }
 
     /**
@@ -376,31 +468,26 @@ public class EventController {
             return;
         }
 
-        // check that user is in the selected list
-        // if true, remove them from selected list and add them to the confirmed list
-        ArrayList<String> selectedParticipants = event.getSelectedParticipants();
-
-        if (!selectedParticipants.contains(userID)) {
-            callback.onError(new IllegalArgumentException("Failed to enroll: You were not selected by the draw"));
+        // check that user was not already confirmed for the event
+        ParticipantState state = event.getParticipantState(userID);
+        if (state == ParticipantState.CONFIRMED) {
+            callback.onError(new IllegalArgumentException("Failed to enroll: You have already been confirmed"));
             return;
         }
 
-        // check that user was not already confirmed for the event
-        ArrayList<String> confirmedParticipants = event.getConfirmedParticipants();
-
-        if (event.getConfirmedParticipants().contains(userID)) {
-            callback.onError(new IllegalArgumentException("Failed to enroll: You have already been confirmed"));
+        // check that user is in the selected list
+        // if true, move them from the selected list to the confirmed list
+        if (state != ParticipantState.SELECTED) {
+            callback.onError(new IllegalArgumentException("Failed to enroll: You were not selected by the draw"));
             return;
         }
 
-        // update the lists
-        selectedParticipants.remove(userID);
-        confirmedParticipants.add(userID);
-        event.setSelectedParticipants(selectedParticipants);
-        event.setConfirmedParticipants(confirmedParticipants);
+        // update the entrant's state
+        event.setParticipantState(userID, ParticipantState.CONFIRMED);
 
         // update the repository
-        updateEvent(event, null, null, callback);
+        repository.updateParticipantState(event, Collections.singletonList(userID), ParticipantState.CONFIRMED,
+                restoreOnError(event, Collections.singletonMap(userID, state), event.isDrawed(), callback));
     }
 
     /**
@@ -416,48 +503,13 @@ public class EventController {
             return;
         }
 
-        if (event.getParticipants().isEmpty()) {
+        if (event.getParticipantCount(ParticipantState.WAITING) == 0) {
             callback.onError(new IllegalArgumentException("Cannot Draw: No users in the waiting list"));
             return;
         }
 
-        ArrayList<String> selectedList = new ArrayList<>();
-        ArrayList<String> participants = event.getParticipants();
-        ArrayList<String> updatedWaitingList = new ArrayList<>(participants);
-        int capacity = event.getCapacity();
-
-        if (participants.size() <= capacity) {
-            // add all users to the waiting list, if the waiting list is less than capacity
-            selectedList.addAll(participants);
-            updatedWaitingList.clear();
-        } else {
-            // perform the draw
-            Collections.shuffle(participants);
-            List<String> chosenParticipants = participants.subList(0, capacity);
-            selectedList.addAll(chosenParticipants);
-            // remove selected list from the participants
-            updatedWaitingList.removeAll(chosenParticipants);
-        }
-
-        // Update the event's selected participants and waiting list
-        event.setSelectedParticipants(selectedList);
-        event.setParticipants(updatedWaitingList);
-        event.setDrawed(true);
-
-        // Send notifications to participants
-        sendLotteryResultNotifications(event, new DataCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-            }
-
-            @Override
-            public void onError(Exception e) {
-                Log.e(TAG, "Error queuing notifications", e);
-            }
-        });
-
-        // Save the event with the updated information
-        updateEvent(event, null, null, callback);
+        // perform the draw, everyone is selected if the waiting list is less than capacity
+        drawFromWaitingList(event, event.getCapacity(), false, callback);
     }
 
     /**
@@ -474,157 +526,227 @@ public class EventController {
             return;
         }
 
-        if (event.getParticipants().isEmpty()) {
+        if (event.getParticipantCount(ParticipantState.WAITING) == 0) {
             callback.onError(new IllegalArgumentException("Cannot redraw: No users in the waiting list"));
             return;
         }
 
-        ArrayList<String> participants = event.getParticipants(); // Waiting list
-        ArrayList<String> selectedList = new ArrayList<>(event.getSelectedParticipants()); // Clone the selected list
-        int confirmedCount = event.getConfirmedParticipants().size();
+        int selectedCount = event.getParticipantCount(ParticipantState.SELECTED);
+        int confirmedCount = event.getParticipantCount(ParticipantState.CONFIRMED);
         int capacity = event.getCapacity();
 
-        // Calculate remaining spots in the selected list
-        int remainingSpots = capacity - (selectedList.size() + confirmedCount);
+        // Calculate remaining spots in the selected list, which also continues a draw stopped by a failed batch
+        int remainingSpots = capacity - (selectedCount + confirmedCount);
 
         if (remainingSpots <= 0) {
             callback.onError(new IllegalArgumentException("Cannot redraw: No spots available"));
             return;
         }
 
-        // If there is less participants than remaining spots, add all of them
-        if (participants.size() <= remainingSpots) {
-            selectedList.addAll(participants);
-            participants.clear();
-        } else {
-            // Shuffle the waiting list to randomize the selection
-            Collections.shuffle(participants);
-            // Select a random subset of participants for the remaining spots
-            List<String> newSelections = participants.subList(0, remainingSpots);
-            selectedList.addAll(newSelections);
-            // Remove the newly selected participants from the waiting list
-            participants.removeAll(newSelections);
-        }
-
-        // Update the event with the new selected and waiting list
-        event.setSelectedParticipants(selectedList);
-        event.setParticipants(participants);
+        // Select a random subset of the waiting list for the remaining spots,
+        // if there is less participants than remaining spots, all of them are selected
+        drawFromWaitingList(event, remainingSpots, true, callback);
+    }
 
-        // Send notifications to participants
-        sendLotteryResultNotifications(event, new DataCallback<Void>() {
+    /**
+     * Draws entrants from the waiting list and moves them to the selected list.
+     * The waiting list of a sharded event is paged in from its entrants subcollection first.
+     *
+     * @param event          The {@link Event} for which the draw is performed.
+     * @param count          The number of entrants to select.
+     * @param previousDrawed Whether the draw had been performed before.
+     * @param callback       The {@link DataCallback} to handle the result of the operation.
+     */
+    private void drawFromWaitingList(Event event, int count, boolean previousDrawed, DataCallback<Event> callback) {
+        DataCallback<List<String>> draw = new DataCallback<List<String>>() {
             @Override
-            public void onSuccess(Void result) {
+            public void onSuccess(List<String> waitingList) {
+                LotteryEngine.DrawResult result = lotteryEngine.draw(waitingList, count);
+                List<String> chosenParticipants = result.getWinners();
+
+                // Move the chosen entrants from the waiting list to the selected list
+                HashMap<String, ParticipantState> previousStates = new HashMap<>();
+                for (String userID : chosenParticipants) {
+                    previousStates.put(userID, event.setParticipantState(userID, ParticipantState.SELECTED));
+                }
+                event.setDrawed(true);
+
+                // Save only the moved entrants, entrants joining during the draw are kept.
+                // Participants are only notified of the entrants that were saved.
+                repository.updateParticipantState(event, chosenParticipants, ParticipantState.SELECTED,
+                        restoreOnError(event, previousStates, previousDrawed,
+                                notifyDrawResult(event, chosenParticipants, result.getRemaining(), callback)));
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "Error queuing notifications", e);
+                Log.e(TAG, "Error loading the waiting list", e);
+                callback.onError(e);
             }
-        });
+        };
 
-        // Save the updated event
-        updateEvent(event, null, null, callback);
+        if (event.isShardedEntrants()) {
+            repository.loadAllEntrants(event, ParticipantState.WAITING, draw);
+        } else {
+            draw.onSuccess(event.getParticipants());
+        }
     }
 
     /**
-     * Sends lottery result notifications by adding them to the database.
+     * Loads the entrant counts of a sharded event and the state of the given user in it.
+     * Events with inline participant lists are returned as they are.
+     *
+     * @param event    The {@link Event} to complete.
+     * @param userID   The ID of the user viewing the event, may be null.
+     * @param callback The {@link DataCallback} receiving the event.
      */
-    public void sendLotteryResultNotifications(Event event, DataCallback<Void> callback) {
-        UserController userController = new UserController(new UserRepository());
-        userController.refreshRepository(new DataCallback<Void>() {
+    public void loadEntrantSummary(Event event, String userID, DataCallback<Event> callback) {
+        repository.loadEntrantSummary(event, userID, callback);
+    }
+
+    /**
+     * Loads the next page of a sharded event's entrants in a state into the event.
+     *
+     * @param event    The {@link Event} whose entrants are listed.
+     * @param state    The participant state to list.
+     * @param after    The previously loaded page, or {@code null} for the first page.
+     * @param callback The {@link DataCallback} receiving the loaded page.
+     */
+    public void loadEntrantPage(Event event, ParticipantState state, @Nullable EntrantStore.EntrantPage after,
+                                DataCallback<EntrantStore.EntrantPage> callback) {
+        repository.loadEntrantPage(event, state, after, ENTRANT_PAGE_SIZE, callback);
+    }
+
+    /**
+     * Adds the user's memberships of sharded events to the cached events, so that the
+     * getUser...Events methods also return those events.
+     *
+     * @param userId   The ID of the user.
+     * @param callback The {@link DataCallback} to handle the result of the operation.
+     */
+    public void loadShardedMemberships(String userId, DataCallback<Void> callback) {
+        repository.loadShardedMemberships(userId, callback);
+    }
+
+    /**
+     * Wraps the callback of a draw so that the lottery results are sent once the draw is saved.
+     * When a draw of a sharded event stops after the draw was saved, see {@link EntrantStore.PartialMoveException},
+     * only the entrants that were moved are told they were selected; the others are still on the waiting list
+     * and may be drawn when the draw is continued, so nobody is told they were not selected.
+     *
+     * @param event       The {@link Event} that was drawn.
+     * @param selected    The entrants chosen by the draw.
+     * @param notSelected The entrants left on the waiting list.
+     * @param callback    The callback to notify.
+     * @return The wrapping callback.
+     */
+    private DataCallback<Event> notifyDrawResult(Event event, List<String> selected, List<String> notSelected,
+                                                 DataCallback<Event> callback) {
+        DataCallback<Void> logErrors = new DataCallback<Void>() {
             @Override
             public void onSuccess(Void result) {
-                // Prepare lists
-                final List<String> selectedUsers = new ArrayList<>(event.getSelectedParticipants());
-                final List<String> notSelectedUsers = new ArrayList<>(event.getParticipants());
+            }
 
-                final String selectedMessage = "You've been selected for the event: " + event.getEventName();
-                final String notSelectedMessage = "You were not selected for the event: " + event.getEventName();
-                final String eventId = event.getEventID();
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error sending lottery result notifications", e);
+            }
+        };
+        return new DataCallback<Event>() {
+            @Override
+            public void onSuccess(Event result) {
+                sendLotteryResultNotifications(event, selected, notSelected, logErrors);
+                callback.onSuccess(result);
+            }
 
-                // Add notifications for selected users
-                addNotificationsToDatabase(selectedUsers, selectedMessage, eventId, new DataCallback<Void>() {
-                    @Override
-                    public void onSuccess(Void result) {
-                        Log.d(TAG, "Notifications for selected users added successfully.");
-                    }
+            @Override
+            public void onError(Exception e) {
+                if (e instanceof EntrantStore.PartialMoveException) {
+                    sendLotteryResultNotifications(event, ((EntrantStore.PartialMoveException) e).getMoved(),
+                            Collections.emptyList(), logErrors);
+                }
+                callback.onError(e);
+            }
+        };
+    }
 
-                    @Override
-                    public void onError(Exception e) {
-                        Log.e(TAG, "Error adding notifications for selected users.", e);
-                    }
-                });
+    /**
+     * Sends lottery result notifications as two campaigns: one to the selected entrants and one
+     * to the entrants left on the waiting list. The number of writes grows with the number of
+     * recipient chunks, not with the number of entrants.
+     *
+     * @param event       The {@link Event} that was drawn.
+     * @param selected    The entrants that were selected.
+     * @param notSelected The entrants that were not selected.
+     * @param callback    The {@link DataCallback} to handle the result of the operation.
+     */
+    public void sendLotteryResultNotifications(Event event, List<String> selected, List<String> notSelected,
+                                               DataCallback<Void> callback) {
+        final String selectedMessage = "You've been selected for the event: " + event.getEventName();
+        final String notSelectedMessage = "You were not selected for the event: " + event.getEventName();
+        final String eventId = event.getEventID();
 
-                // Add notifications for not selected users
-                addNotificationsToDatabase(notSelectedUsers, notSelectedMessage, eventId, new DataCallback<Void>() {
-                    @Override
-                    public void onSuccess(Void result) {
-                        Log.d(TAG, "Notifications for not selected users added successfully.");
-                    }
+        List<NotificationCampaign> campaigns = new ArrayList<>();
+        campaigns.add(new NotificationCampaign(eventId, ParticipantState.SELECTED, selectedMessage, selected));
+        campaigns.add(new NotificationCampaign(eventId, ParticipantState.WAITING, notSelectedMessage, notSelected));
+        addCampaignsToDatabase(campaigns, callback);
+    }
 
-                    @Override
-                    public void onError(Exception e) {
-                        Log.e(TAG, "Error adding notifications for not selected users.", e);
-                    }
-                });
+    /**
+     * Notify all selected entrant but not accept event to accept accept the event.
+     */
+    public void notifyAcceptInvitation(Event event, DataCallback<Void> callback) {
+        final String selectedMessage = "You've been selected for the event: " + event.getEventName() + "\nPlease accept the event as soon as possible.";
 
-                // Notify the original callback that the process is complete
-                callback.onSuccess(null);
+        // selected entrants that accepted are confirmed, so the campaign only reaches those who have not
+        sendCampaignToState(event, ParticipantState.SELECTED, selectedMessage, callback);
+    }
+
+    /**
+     * Sends a campaign to the entrants of an event that are in a state now. The entrants of sharded events
+     * are paged in first.
+     */
+    private void sendCampaignToState(Event event, ParticipantState state, String message, DataCallback<Void> callback) {
+        repository.loadAllEntrants(event, state, new DataCallback<List<String>>() {
+            @Override
+            public void onSuccess(List<String> recipients) {
+                addCampaignsToDatabase(Collections.singletonList(
+                        new NotificationCampaign(event.getEventID(), state, message, recipients)), callback);
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "Error refreshing user repository while sending notifications.", e);
+                Log.e(TAG, "Error loading the recipients of a campaign", e);
                 callback.onError(e);
             }
         });
     }
 
     /**
-     * Notify all selected entrant but not accept event to accept accept the event.
+     * Stores broadcast campaigns together with their recipients.
      */
-    public void notifyAcceptInvitation(Event event, DataCallback<Void> callback) {
-        UserController userController = new UserController(new UserRepository());
-        userController.refreshRepository(new DataCallback<Void>() {
+    public void addCampaignsToDatabase(List<NotificationCampaign> campaigns, DataCallback<Void> callback) {
+        getNotificationRepository().addCampaigns(campaigns, new DataCallback<Void>() {
             @Override
             public void onSuccess(Void result) {
-                // Prepare lists
-                final List<String> selectedUsers = new ArrayList<>(event.getSelectedParticipants());
-
-                final String selectedMessage = "You've been selected for the event: " + event.getEventName() + "\nPlease accept the event as soon as possible.";
-                final String eventId = event.getEventID();
-
-                // Add notifications for selected users
-                addNotificationsToDatabase(selectedUsers, selectedMessage, eventId, new DataCallback<Void>() {
-                    @Override
-                    public void onSuccess(Void result) {
-                        Log.d(TAG, "Notifications for selected users added successfully.");
-                    }
-
-                    @Override
-                    public void onError(Exception e) {
-                        Log.e(TAG, "Error adding notifications for selected users.", e);
-                    }
-                });
-
-                // Notify the original callback that the process is complete
+                Log.d(TAG, "Campaigns added successfully.");
                 callback.onSuccess(null);
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "Error refreshing user repository while sending notifications.", e);
+                Log.e(TAG, "Error adding campaigns.", e);
                 callback.onError(e);
             }
         });
     }
 
-    /**
-     * Adds notifications to the database for a list of users.
-     */
-    public void addNotificationsToDatabase(List<String> userIds, String message, String eventId, DataCallback<Void> callback) {
-        NotificationRepository notificationRepository = new NotificationRepository();
-        notificationRepository.addNotifications(userIds, message, eventId, callback);
+    // the repository shared by the app is only created when a notification is sent
+    private NotificationRepository getNotificationRepository() {
+        if (notificationRepository == null) {
+            notificationRepository = App.getNotificationRepository();
+        }
+        return notificationRepository;
     }
 
     private int generateNotificationId() {
@@ -637,7 +759,7 @@ public class EventController {
      * @param userID
      */
     public boolean isUserInWaitingList(Event event, String userID) {
-        return !event.getParticipants().isEmpty() && event.getParticipants().contains(userID);
+        return event.hasParticipant(userID, ParticipantState.WAITING);
     }
 
     public ArrayList<String> getEventWaitingList(Event event) {
@@ -650,7 +772,7 @@ public class EventController {
      * @param userID
      */
     public boolean isUserInSelectedList(Event event, String userID) {
-        return !event.getSelectedParticipants().isEmpty() && event.getSelectedParticipants().contains(userID);
+        return event.hasParticipant(userID, ParticipantState.SELECTED);
     }
 
     public ArrayList<String> getEventSelectedList(Event event) {
@@ -663,7 +785,7 @@ public class EventController {
      * @param userID
      */
     public boolean isUserInConfirmedList(Event event, String userID) {
-        return !event.getConfirmedParticipants().isEmpty() && event.getConfirmedParticipants().contains(userID);
+        return event.hasParticipant(userID, ParticipantState.CONFIRMED);
     }
 
     public ArrayList<String> getEventConfirmedList(Event event) {
@@ -671,60 +793,100 @@ public class EventController {
     }
 
     public boolean isUserInCancelledList(Event event, String userID) {
-        return !event.getCancelledParticipants().isEmpty() && event.getCancelledParticipants().contains(userID);
+        return event.hasParticipant(userID, ParticipantState.CANCELLED);
     }
 
     public ArrayList<String> getEventCancelledList(Event event) {
         return event.getCancelledParticipants();
     }
 
+    /**
+     * Retrieves the events in which the user is on the waiting list, using the reverse membership index.
+     *
+     * @param userId The ID of the user.
+     * @return A list of matching {@link Event} objects.
+     */
     public ArrayList<Event> getUserWaitlistedEvents(String userId) {
-        ArrayList<Event> events = getLocalEventsList();
-        ArrayList<Event> userWaitlistedEvents = new ArrayList<>();
-        for (Event event : events) {
-            if (event.getParticipants().contains(userId)) {
-                userWaitlistedEvents.add(event);
-            }
-        }
-        return userWaitlistedEvents;
+        return repository.getEventsByParticipant(userId, ParticipantState.WAITING);
     }
 
+    /**
+     * Retrieves the events in which the user is on the selected list, using the reverse membership index.
+     *
+     * @param userId The ID of the user.
+     * @return A list of matching {@link Event} objects.
+     */
     public ArrayList<Event> getUserSelectedEvents(String userId) {
-        ArrayList<Event> events = getLocalEventsList();
-        ArrayList<Event> userSelectedListEvents = new ArrayList<>();
-        for (Event event : events) {
-            if (event.getSelectedParticipants().contains(userId)) {
-                userSelectedListEvents.add(event);
-            }
-        }
-        return userSelectedListEvents;
+        return repository.getEventsByParticipant(userId, ParticipantState.SELECTED);
     }
 
+    /**
+     * Retrieves the events in which the user is on the confirmed list, using the reverse membership index.
+     *
+     * @param userId The ID of the user.
+     * @return A list of matching {@link Event} objects.
+     */
     public ArrayList<Event> getUserEnrolledEvents(String userId) {
-        ArrayList<Event> events = getLocalEventsList();
-        ArrayList<Event> userEnrolledListEvents = new ArrayList<>();
-        for (Event event : events) {
-            if (event.getConfirmedParticipants().contains(userId)) {
-                userEnrolledListEvents.add(event);
-            }
-        }
-        return userEnrolledListEvents;
+        return repository.getEventsByParticipant(userId, ParticipantState.CONFIRMED);
     }
 
 
+    /**
+     * Retrieves the events in which the user is on the cancelled list, using the reverse membership index.
+     *
+     * @param userId The ID of the user.
+     * @return A list of matching {@link Event} objects.
+     */
     public ArrayList<Event> getUserCancelledEvents(String userId) {
-        ArrayList<Event> events = getLocalEventsList();
-        ArrayList<Event> userCancelledListEvents = new ArrayList<>();
-        for (Event event : events) {
-            if (event.getCancelledParticipants().contains(userId)) {
-                userCancelledListEvents.add(event);
-            }
-        }
-        return userCancelledListEvents;
+        return repository.getEventsByParticipant(userId, ParticipantState.CANCELLED);
     }
 
 
 
+    /**
+     * Wraps a callback so that when a participant list update fails, the entrants changed
+     * locally are put back in their previous states before the error is reported.
+     * When a draw of a sharded event fails after the draw was saved, see {@link EntrantStore.PartialMoveException},
+     * the entrants that were moved keep their new state and the event stays drawn.
+     *
+     * @param event          The {@link Event} that was changed locally.
+     * @param previousStates The previous state of every changed entrant, null if they were not an entrant.
+     * @param previousDrawed Whether the draw had been performed before the change.
+     * @param callback       The callback to notify.
+     * @return The wrapping callback.
+     */
+    private DataCallback<Event> restoreOnError(Event event, Map<String, ParticipantState> previousStates,
+                                               boolean previousDrawed, DataCallback<Event> callback) {
+        return new DataCallback<Event>() {
+            @Override
+            public void onSuccess(Event result) {
+                callback.onSuccess(event);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                boolean partial = e instanceof EntrantStore.PartialMoveException;
+                Set<String> moved = partial
+                        ? new HashSet<>(((EntrantStore.PartialMoveException) e).getMoved()) : Collections.emptySet();
+                for (Map.Entry<String, ParticipantState> entry : previousStates.entrySet()) {
+                    if (moved.contains(entry.getKey())) {
+                        continue;
+                    }
+                    if (entry.getValue() == null) {
+                        event.removeParticipant(entry.getKey());
+                    } else {
+                        event.setParticipantState(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (!partial) {
+                    event.setDrawed(previousDrawed);
+                }
+                repository.cacheEvent(event);
+                callback.onError(e);
+            }
+        };
+    }
+
     //------------ event object helper methods -----------//
     /**
      * Validate event data and report errors through callback
@@ -759,10 +921,9 @@ public class EventController {
             if (event.getWaitingListLimit() < event.getCapacity()) {
             callback.onError(new IllegalArgumentException("Waiting list limit cannot be smaller than the capacity"));
         }
-        if (event.getConfirmedParticipants() != null) {
-            if (event.getCapacity() < event.getConfirmedParticipants().size()) {
-                callback.onError(new IllegalArgumentException(event.getConfirmedParticipants().size() + " entrants confirmed, capacity cannot be reduced smaller"));
-            }
+        int confirmedCount = event.getParticipantCount(ParticipantState.CONFIRMED);
+        if (event.getCapacity() < confirmedCount) {
+            callback.onError(new IllegalArgumentException(confirmedCount + " entrants confirmed, capacity cannot be reduced smaller"));
         }
         return true;
     }
@@ -771,23 +932,10 @@ public class EventController {
      * Generates a QR Code bitmap for the given event ID.
      *
      * @param eventId The ID of the event.
-     * @return The generated QR Code bitmap.
+     * @return The QR Code bitmap, cached after the first call, or {@code null} if the ID cannot be encoded.
      */
     public Bitmap generateQRCodeBitmap(String eventId) {
-        QRCodeWriter writer = new QRCodeWriter();
-        try {
-            BitMatrix bitMatrix = writer.encode(eventId, BarcodeFormat.QR_CODE, 300, 300);
-            Bitmap bmp = Bitmap.createBitmap(300, 300, Bitmap.Config.RGB_565);
-            for (int x = 0; x < 300; x++) {
-                for (int y = 0; y < 300; y++) {
-                    bmp.setPixel(x, y, bitMatrix.get(x, y) ? Color.BLACK : Color.WHITE);
-                }
-            }
-            return bmp;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+        return QRCodeRenderer.getInstance().render(eventId, QRCodeRenderer.DEFAULT_SIZE);
     }
 
     public void sendNotificationsToGroup(Event event, String group, String message, EventDetailActivity eventDetailActivity, DataCallback<Void> callback) {
@@ -795,48 +943,25 @@ public class EventController {
             message = getDefaultMessage(group, event.getEventName());
         }
 
-        UserController userController = new UserController(new UserRepository());
-        String finalMessage = message;
-        userController.refreshRepository(new DataCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-                List<String> userIds;
-
-                switch (group) {
-                    case "waitingList":
-                        userIds = event.getParticipants();
-                        break;
-                    case "selectedParticipants":
-                        userIds = event.getSelectedParticipants();
-                        break;
-                    case "cancelledParticipants":
-                        userIds = event.getCancelledParticipants();
-                        break;
-                    default:
-                        callback.onError(new Exception("Invalid group specified"));
-                        return;
-                }
-
-                addNotificationsToDatabase(userIds, finalMessage, event.getEventID(), new DataCallback<Void>() {
-                    @Override
-                    public void onSuccess(Void result) {
-                        callback.onSuccess(null);
-                    }
+        ParticipantState state;
 
-                    @Override
-                    public void onError(Exception e) {
-                        Log.e(TAG, "Error adding notifications to database", e);
-                        callback.onError(e);
-                    }
-                });
-            }
+        switch (group) {
+            case "waitingList":
+                state = ParticipantState.WAITING;
+                break;
+            case "selectedParticipants":
+                state = ParticipantState.SELECTED;
+                break;
+            case "cancelledParticipants":
+                state = ParticipantState.CANCELLED;
+                break;
+            default:
+                callback.onError(new Exception("Invalid group specified"));
+                return;
+        }
 
-            @Override
-            public void onError(Exception e) {
-                Log.e(TAG, "Error sending notifications to group", e);
-                callback.onError(e);
-            }
-        });
+        // one campaign for the whole group instead of one notification per entrant
+        sendCampaignToState(event, state, message, callback);
     }
 
 
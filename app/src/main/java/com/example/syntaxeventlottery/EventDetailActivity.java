@@ -3,6 +3,7 @@ import android.Manifest;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
@@ -79,8 +80,8 @@ public class EventDetailActivity extends AppCompatActivity {
         }
 
         // initialize controller
-        eventController = new EventController(new EventRepository());
-        userController = new UserController(new UserRepository(), locationManager);
+        eventController = new EventController(App.getEventRepository());
+        userController = new UserController(App.getUserRepository(), locationManager);
 
         // Get device ID
         deviceID = Settings.Secure.getString(getContentResolver(), Settings.Secure.ANDROID_ID);
@@ -115,16 +116,15 @@ public class EventDetailActivity extends AppCompatActivity {
     /**
      * Loads the event details by refreshing the event repository and retrieving the specified event.
      * Updates the UI based on whether the user is an organizer or a participant.
-     * Handles location requirements for participants if the event requires location sharing.
      *
      * @param deviceID The unique ID of the device, used to identify the current user.
      */
     private void loadEvent(String deviceID) {
         // Refresh the event repository and load the details of the specified event
-        eventController.refreshRepository(new DataCallback<Void>() {
+        eventController.getEvent(eventID, new DataCallback<Event>() {
             @Override
-            public void onSuccess(Void result) {
-                event = eventController.getEventById(eventID);
+            public void onSuccess(Event result) {
+                event = result;
 
                 if (event == null) {
                     Log.e(TAG, "Event not found in the repository.");
@@ -133,32 +133,20 @@ public class EventDetailActivity extends AppCompatActivity {
                     return;
                 }
 
-                // Log the fetched event and its location requirement
-                Log.d(TAG, "Fetched event: " + event);
-                Log.d(TAG, "Event location requirement: " + event.getLocationRequired());
-
-                // Check if the current user is the organizer
-                boolean isOrganizer = event.getOrganizerId().equals(deviceID);
-                Log.d(TAG, "Is Organizer? " + isOrganizer);
-
-                if (isOrganizer) {
-                    // If the current user is the organizer, proceed to update the UI
-                    updateUI(event);
-                }
-                else {
-                    // If the current user is an entrant, handle location requirement
-                    if (event.getLocationRequired()) {
-                        if (FirstTimeVist == true) {
-                            showLocationWarningDialog(deviceID);
-                            FirstTimeVist = false;
-                            updateUI(event);
-                        }
-                        updateUI(event);
+                // large events keep their entrants outside the event document, load the counts and own state
+                eventController.loadEntrantSummary(event, deviceID, new DataCallback<Event>() {
+                    @Override
+                    public void onSuccess(Event result) {
+                        showEvent(deviceID);
                     }
-                    else {
-                        updateUI(event);
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Error loading the event entrants: ", e);
+                        Toast.makeText(EventDetailActivity.this, "Failed to get updated data.", Toast.LENGTH_SHORT).show();
+                        finish();
                     }
-                }
+                });
             }
 
             @Override
@@ -170,6 +158,41 @@ public class EventDetailActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Shows the loaded event, as an organizer or as a participant.
+     * Handles location requirements for participants if the event requires location sharing.
+     *
+     * @param deviceID The unique ID of the device, used to identify the current user.
+     */
+    private void showEvent(String deviceID) {
+        // Log the fetched event and its location requirement
+        Log.d(TAG, "Fetched event: " + event);
+        Log.d(TAG, "Event location requirement: " + event.getLocationRequired());
+
+        // Check if the current user is the organizer
+        boolean isOrganizer = event.getOrganizerId().equals(deviceID);
+        Log.d(TAG, "Is Organizer? " + isOrganizer);
+
+        if (isOrganizer) {
+            // If the current user is the organizer, proceed to update the UI
+            updateUI(event);
+        }
+        else {
+            // If the current user is an entrant, handle location requirement
+            if (event.getLocationRequired()) {
+                if (FirstTimeVist == true) {
+                    showLocationWarningDialog(deviceID);
+                    FirstTimeVist = false;
+                    updateUI(event);
+                }
+                updateUI(event);
+            }
+            else {
+                updateUI(event);
+            }
+        }
+    }
+
     /**
      * Displays a dialog warning the user that location permission is required for the event.
      * Allows the user to enable location permissions or decline and navigate back to the home screen.
@@ -215,12 +238,11 @@ public class EventDetailActivity extends AppCompatActivity {
     private void handleLocationRequirement(String deviceID) {
         Log.d(TAG, "Entered handleLocationRequirement with deviceID: " + deviceID);
 
-        // Refresh user data to ensure we have the latest information
-        userController.refreshRepository(new DataCallback<Void>() {
+        // Read the user's document to ensure we have the latest information
+        userController.getUser(deviceID, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                // After refreshing, retrieve the current user based on the deviceID
-                currentUser = userController.getUserByDeviceID(deviceID);
+            public void onSuccess(User result) {
+                currentUser = result;
                 Log.d(TAG, "Current user after refresh: " + deviceID+currentUser);
 
                 if (currentUser != null) {
@@ -460,18 +482,24 @@ public class EventDetailActivity extends AppCompatActivity {
         eventDrawedStatusTextView.setText("Drawed: "+event.isDrawed());
 
 
-        if (event.getPosterUrl() != null && !event.getPosterUrl().isEmpty()) {
-            Glide.with(this).load(event.getPosterUrl()).into(posterImageView);
-            Log.d(TAG, "Loaded poster image. poster url: " + event.getPosterUrl());
-        } else {
-            // load default poster
-            Glide.with(this).load(R.drawable.ic_no_event_poster).into(posterImageView);
-        }
+        // shows the thumbnail until the full poster is loaded, or the default poster
+        ImageLoader.loadPoster(this, event, posterImageView);
 
 
         if (event.getQrCode() != null && !event.getQrCode().isEmpty()) {
-            Glide.with(this).load(event.getQrCode()).into(qrCodeImageView);
-            Log.d(TAG, "Loaded QR code image. qr code url: " + event.getQrCode());
+            // the QR code only holds the event ID, it is rendered on the device
+            QRCodeRenderer.getInstance().load(this, event.getEventID(), QRCodeRenderer.DEFAULT_SIZE, new DataCallback<Bitmap>() {
+                @Override
+                public void onSuccess(Bitmap result) {
+                    qrCodeImageView.setImageBitmap(result);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    Log.e(TAG, "Failed to render QR code", e);
+                    qrCodeImageView.setImageResource(R.drawable.default_qrcode);
+                }
+            });
         } else {
             // load missing qr code image
             Glide.with(this).load(R.drawable.default_qrcode).into(qrCodeImageView);
@@ -537,7 +565,9 @@ public class EventDetailActivity extends AppCompatActivity {
      */
     private void setupButtonListeners() {
         // user joins waiting list
-        joinWaitingListButton.setOnClickListener(v -> eventController.addUserToWaitingList(event, deviceID, new DataCallback<Event>() {
+        // the location is stored with the entrant for events that show their entrants on a map
+        joinWaitingListButton.setOnClickListener(v -> eventController.addUserToWaitingList(event, deviceID,
+                currentUser == null ? null : currentUser.getLocation(), new DataCallback<Event>() {
             @Override
             public void onSuccess(Event result) {
                 Toast.makeText(EventDetailActivity.this, "You have joined the waiting list", Toast.LENGTH_SHORT).show();
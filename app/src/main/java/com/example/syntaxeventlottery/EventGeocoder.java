@@ -0,0 +1,63 @@
+package com.example.syntaxeventlottery;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code EventGeocoder} class looks up the coordinates of a facility location, so that events can be stored
+ * with coordinates and a geohash and found by the "events near me" queries, see {@link GeoQuery}.
+ * The lookup may use the network and runs off the main thread.
+ */
+public class EventGeocoder {
+    private static final String TAG = "EventGeocoder";
+    // lookups are rare, one thread is shared by every screen
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Creates a geocoder.
+     *
+     * @param context The context used by the platform geocoder.
+     */
+    public EventGeocoder(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Looks up the coordinates of an address. An address that cannot be found is not an error: the event is
+     * then saved without coordinates and is only missing from the "events near me" results.
+     *
+     * @param address  The facility location as entered by the organizer.
+     * @param callback Receives {@code {latitude, longitude}} on the main thread, or {@code null} if not found.
+     */
+    public void locate(String address, DataCallback<double[]> callback) {
+        if (address == null || address.trim().isEmpty() || !Geocoder.isPresent()) {
+            callback.onSuccess(null);
+            return;
+        }
+        EXECUTOR.execute(() -> {
+            double[] coordinates = null;
+            try {
+                List<Address> results = new Geocoder(context).getFromLocationName(address, 1);
+                if (results != null && !results.isEmpty()) {
+                    coordinates = new double[] {results.get(0).getLatitude(), results.get(0).getLongitude()};
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                Log.e(TAG, "Failed to find coordinates of " + address, e);
+            }
+            double[] result = coordinates;
+            mainHandler.post(() -> callback.onSuccess(result));
+        });
+    }
+}
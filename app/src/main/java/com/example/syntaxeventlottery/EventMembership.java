@@ -0,0 +1,152 @@
+package com.example.syntaxeventlottery;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The {@code EventMembership} class tracks the entrants of an {@link Event}.
+ * Every entrant is keyed by user ID and has exactly one {@link ParticipantState}, so membership
+ * checks and state transitions take constant time and an entrant can never appear in two lists.
+ * Entrants of each state are kept in insertion order, which keeps the waiting list in the order
+ * in which entrants joined.
+ */
+public class EventMembership implements Serializable {
+
+    private final HashMap<String, ParticipantState> stateByUser;
+    private final EnumMap<ParticipantState, LinkedHashSet<String>> usersByState;
+
+    /**
+     * Creates an empty membership.
+     */
+    public EventMembership() {
+        this.stateByUser = new HashMap<>();
+        this.usersByState = new EnumMap<>(ParticipantState.class);
+        for (ParticipantState state : ParticipantState.values()) {
+            usersByState.put(state, new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * Returns the state of an entrant.
+     *
+     * @param userId The ID of the user.
+     * @return The entrant's state, or {@code null} if the user is not an entrant.
+     */
+    public ParticipantState getState(String userId) {
+        return stateByUser.get(userId);
+    }
+
+    /**
+     * Checks whether a user is an entrant in the given state.
+     *
+     * @param userId The ID of the user.
+     * @param state  The state to check.
+     * @return {@code true} if the user is in that state.
+     */
+    public boolean isInState(String userId, ParticipantState state) {
+        return stateByUser.get(userId) == state;
+    }
+
+    /**
+     * Moves an entrant to a new state, adding them if they are not an entrant yet.
+     * An entrant that (re)joins the waiting list is placed at its end.
+     *
+     * @param userId The ID of the user.
+     * @param state  The new state.
+     * @return The previous state, or {@code null} if the user was not an entrant.
+     */
+    public ParticipantState setState(String userId, ParticipantState state) {
+        ParticipantState previous = stateByUser.put(userId, state);
+        if (previous == state) {
+            return previous;
+        }
+        if (previous != null) {
+            usersByState.get(previous).remove(userId);
+        }
+        usersByState.get(state).add(userId);
+        return previous;
+    }
+
+    /**
+     * Removes an entrant.
+     *
+     * @param userId The ID of the user.
+     * @return The state the entrant was in, or {@code null} if the user was not an entrant.
+     */
+    public ParticipantState remove(String userId) {
+        ParticipantState previous = stateByUser.remove(userId);
+        if (previous != null) {
+            usersByState.get(previous).remove(userId);
+        }
+        return previous;
+    }
+
+    /**
+     * Returns the number of entrants in a state.
+     *
+     * @param state The state to count.
+     * @return The number of entrants in that state.
+     */
+    public int size(ParticipantState state) {
+        return usersByState.get(state).size();
+    }
+
+    /**
+     * Returns a read-only view of the entrants in a state, in insertion order.
+     *
+     * @param state The state to look up.
+     * @return An unmodifiable view of the user IDs in that state.
+     */
+    public Set<String> getUsersView(ParticipantState state) {
+        return Collections.unmodifiableSet(usersByState.get(state));
+    }
+
+    /**
+     * Returns a copy of the entrants in a state, in insertion order.
+     *
+     * @param state The state to look up.
+     * @return A list of the user IDs in that state.
+     */
+    public ArrayList<String> getUsers(ParticipantState state) {
+        return new ArrayList<>(usersByState.get(state));
+    }
+
+    /**
+     * Replaces the entrants of a state, as read from one of the participant list fields.
+     * A user listed in several states keeps the latest active one, so inconsistent stored lists resolve the
+     * same way in any order. Cancelled entrants could join again before each entrant had a single state,
+     * so a user listed as cancelled and in another list keeps the other state.
+     *
+     * @param state   The state whose entrants are replaced.
+     * @param userIds The user IDs in that state, may be null.
+     */
+    public void replaceUsers(ParticipantState state, Collection<String> userIds) {
+        HashSet<String> incoming = userIds == null ? new HashSet<>() : new HashSet<>(userIds);
+        for (String userId : new ArrayList<>(usersByState.get(state))) {
+            if (!incoming.contains(userId)) {
+                remove(userId);
+            }
+        }
+        if (userIds == null) {
+            return;
+        }
+        for (String userId : userIds) {
+            ParticipantState current = stateByUser.get(userId);
+            if (current == null || rank(current) < rank(state)) {
+                setState(userId, state);
+            }
+        }
+    }
+
+    // cancelled ranks below the active states, which rank in the order an entrant goes through them
+    private static int rank(ParticipantState state) {
+        return state == ParticipantState.CANCELLED ? -1 : state.ordinal();
+    }
+}
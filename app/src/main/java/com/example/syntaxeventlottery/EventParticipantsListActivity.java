@@ -7,11 +7,13 @@ import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Activity for managing and displaying the list of participants in an event.
@@ -26,7 +28,6 @@ public class EventParticipantsListActivity extends AppCompatActivity {
     private String eventId;
     private RecyclerView listRecyclerView;
     private WaitingListAdapter participantsListAdapter;
-    private ArrayList<User> usersList;
     private TextView listTitle;
     private TextView listDetails;
     private Button backButton;
@@ -35,6 +36,15 @@ public class EventParticipantsListActivity extends AppCompatActivity {
     private Button confirmedListButton;
     private Button cancelledListButton;
 
+    // list shown and paging position, events with inline participant lists are loaded in a single page
+    private ParticipantState currentState = ParticipantState.WAITING;
+    private EntrantStore.EntrantPage lastPage;
+    private boolean loadingPage;
+
+    // users already read on this screen, and the list request whose users are shown
+    private ParticipantResolver participantResolver;
+    private int listRequest;
+
     /**
      * Initializes the activity, including event controllers, UI components, and button listeners.
      * Retrieves the event ID passed from the previous activity and loads the event data.
@@ -47,8 +57,9 @@ public class EventParticipantsListActivity extends AppCompatActivity {
         setContentView(R.layout.event_participant_list);
 
         // Initialize controllers
-        eventController = new EventController(new EventRepository());
-        userController = new UserController(new UserRepository());
+        eventController = new EventController(App.getEventRepository());
+        userController = new UserController(App.getUserRepository());
+        participantResolver = new ParticipantResolver(userController::getUsers);
 
         // Retrieve event ID passed from EventDetailActivity
         eventId = getIntent().getStringExtra("eventID");
@@ -60,9 +71,19 @@ public class EventParticipantsListActivity extends AppCompatActivity {
         // Initialize RecyclerView and Adapter
         listRecyclerView = findViewById(R.id.waitingListRecyclerView);
         listRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-        usersList = new ArrayList<>();
-        participantsListAdapter = new WaitingListAdapter(usersList, cancelEntrant(), "Waiting List"); // Initial list type
+        participantsListAdapter = new WaitingListAdapter(cancelEntrant(), "Waiting List"); // Initial list type
         listRecyclerView.setAdapter(participantsListAdapter);
+        listRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // load the next page of entrants shortly before the end of the list is reached
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (lastPage != null && lastPage.hasMore() && layoutManager != null
+                        && layoutManager.findLastVisibleItemPosition() >= participantsListAdapter.getItemCount() - 5) {
+                    loadNextPage();
+                }
+            }
+        });
 
 
         // initialize buttons
@@ -74,10 +95,10 @@ public class EventParticipantsListActivity extends AppCompatActivity {
 
         // set up button listeners
         backButton.setOnClickListener(v -> finish());
-        waitingListButton.setOnClickListener(v -> loadWaitingList());
-        selectedListButton.setOnClickListener(v -> loadSelectedList());
-        confirmedListButton.setOnClickListener(v -> loadConfirmedList());
-        cancelledListButton.setOnClickListener(v -> loadCancelledList());
+        waitingListButton.setOnClickListener(v -> openList(ParticipantState.WAITING));
+        selectedListButton.setOnClickListener(v -> openList(ParticipantState.SELECTED));
+        confirmedListButton.setOnClickListener(v -> openList(ParticipantState.CONFIRMED));
+        cancelledListButton.setOnClickListener(v -> openList(ParticipantState.CANCELLED));
 
         if (eventId != null) {
             loadEventData();
@@ -91,12 +112,23 @@ public class EventParticipantsListActivity extends AppCompatActivity {
      * Refreshes the event repository and loads the event data for the specified event ID.
      */
     private void loadEventData() {
-        eventController.refreshRepository(new DataCallback<Void>() {
+        eventController.getEvent(eventId, new DataCallback<Event>() {
             @Override
-            public void onSuccess(Void result) {
-                event = eventController.getEventById(eventId);
+            public void onSuccess(Event result) {
+                event = result;
                 Log.d(TAG, "event loaded");
-                loadWaitingList();
+                // the entrant counts of large events are kept in counter documents
+                eventController.loadEntrantSummary(event, null, new DataCallback<Event>() {
+                    @Override
+                    public void onSuccess(Event result) {
+                        openList(ParticipantState.WAITING);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "error loading entrant counts", e);
+                    }
+                });
             }
 
             @Override
@@ -107,50 +139,67 @@ public class EventParticipantsListActivity extends AppCompatActivity {
     }
 
     /**
-     * Loads and displays the list of users in the event's waiting list.
+     * Shows the first page of the entrants in the given state.
+     *
+     * @param state The participant state to list.
      */
-    private void loadWaitingList() {
-        // set title
-        listTitle.setText("Waiting List");
-
-        // clear old list
-        usersList.clear();
-        ArrayList<User> waitingList = new ArrayList<>();
+    private void openList(ParticipantState state) {
+        currentState = state;
+        lastPage = null;
+        loadingPage = false;
+        loadNextPage();
+    }
 
-        // get most updated users
-        userController.refreshRepository(new DataCallback<Void>() {
+    /**
+     * Loads the next page of entrants of the shown list and displays the list again.
+     */
+    private void loadNextPage() {
+        if (loadingPage) {
+            return;
+        }
+        loadingPage = true;
+        ParticipantState state = currentState;
+        eventController.loadEntrantPage(event, state, lastPage, new DataCallback<EntrantStore.EntrantPage>() {
             @Override
-            public void onSuccess(Void result) {
-                for (String userId : eventController.getEventWaitingList(event)) {
-                    User user = userController.getUserByDeviceID(userId);
-                    if (user != null) {
-                        waitingList.add(user);
-                    }
-                }
-                Log.d(TAG, "Waiting List Array:"+ waitingList);
-                // set details header
-                if (waitingList.isEmpty()) {
-                    listDetails.setText("No Entrants have joined the waiting list");
-                } else {
-                    if (event.getWaitingListLimit() == null) {
-                        listDetails.setText(waitingList.size()+" Entrants in the waiting list");
-                    } else {
-                        listDetails.setText(waitingList.size()+" / "+ event.getWaitingListLimit()+ " Entrants in the waiting list");
-                    }
+            public void onSuccess(EntrantStore.EntrantPage page) {
+                if (state != currentState) {
+                    return; // another list was opened in the meantime
                 }
-                usersList.addAll(waitingList);
-
-                participantsListAdapter.notifyDataSetChanged();
-                participantsListAdapter.setCurrentListType("Waiting List");
+                loadingPage = false;
+                lastPage = page;
+                refreshCurrentList();
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "Error refreshing user repository",e);
+                loadingPage = false;
+                Log.e(TAG, "Error loading entrants", e);
             }
         });
     }
 
+    /**
+     * Loads and displays the list of users in the event's waiting list.
+     */
+    private void loadWaitingList() {
+        // set title
+        listTitle.setText("Waiting List");
+
+        ArrayList<String> waitingList = eventController.getEventWaitingList(event);
+        Log.d(TAG, "Waiting List Array:"+ waitingList);
+        // set details header
+        if (waitingList.isEmpty()) {
+            listDetails.setText("No Entrants have joined the waiting list");
+        } else {
+            if (event.getWaitingListLimit() == null) {
+                listDetails.setText(event.getParticipantCount(ParticipantState.WAITING)+" Entrants in the waiting list");
+            } else {
+                listDetails.setText(event.getParticipantCount(ParticipantState.WAITING)+" / "+ event.getWaitingListLimit()+ " Entrants in the waiting list");
+            }
+        }
+        showParticipants(waitingList, "Waiting List");
+    }
+
     /**
      * Loads and displays the list of users selected for the event.
      */
@@ -158,39 +207,15 @@ public class EventParticipantsListActivity extends AppCompatActivity {
         // set title
         listTitle.setText("Selected Participants");
 
-        // clear old list
-        usersList.clear();
-        ArrayList<User> selectedList = new ArrayList<>();
-
-        // get most updated users
-        userController.refreshRepository(new DataCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-                for (String userId : eventController.getEventSelectedList(event)) {
-                    User user = userController.getUserByDeviceID(userId);
-                    if (user != null) {
-                        selectedList.add(user);
-                    }
-                }
-                Log.d(TAG, "Selected List Array:"+ selectedList);
-                // set details header
-                if (!event.isDrawed()) {
-                    listDetails.setText("Event draw has not occured");
-                } else {
-                    listDetails.setText(selectedList.size() + " Entrants invited");
-                }
-
-                usersList.addAll(selectedList);
-
-                participantsListAdapter.notifyDataSetChanged();
-                participantsListAdapter.setCurrentListType("Selected Participants");
-            }
-
-            @Override
-            public void onError(Exception e) {
-                Log.e(TAG, "Error refreshing user repository",e);
-            }
-        });
+        ArrayList<String> selectedList = eventController.getEventSelectedList(event);
+        Log.d(TAG, "Selected List Array:"+ selectedList);
+        // set details header
+        if (!event.isDrawed()) {
+            listDetails.setText("Event draw has not occured");
+        } else {
+            listDetails.setText(event.getParticipantCount(ParticipantState.SELECTED) + " Entrants invited");
+        }
+        showParticipants(selectedList, "Selected Participants");
     }
 
     /**
@@ -199,41 +224,18 @@ public class EventParticipantsListActivity extends AppCompatActivity {
     private void loadConfirmedList() {
         // set title
         listTitle.setText("Confirmed Participants");
-        // clear old list
-        usersList.clear();
-        ArrayList<User> confirmedList = new ArrayList<>();
 
-        // get most updated users
-        userController.refreshRepository(new DataCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-                for (String userId : eventController.getEventConfirmedList(event)) {
-                    User user = userController.getUserByDeviceID(userId);
-                    if (user != null) {
-                        confirmedList.add(user);
-                    }
-                }
-                Log.d(TAG, "Confirmed List Array:"+ confirmedList);
-                // set details header
-                if (!event.isDrawed()) {
-                    listDetails.setText("Event draw has not occured");
-                } else if (confirmedList.isEmpty()) {
-                    listDetails.setText("No Entrants have accepted their invitation");
-                } else {
-                    listDetails.setText(confirmedList.size() +" / "+ event.getCapacity() +" Entrants have joined the event");
-                }
-
-                usersList.addAll(confirmedList);
-
-                participantsListAdapter.notifyDataSetChanged();
-                participantsListAdapter.setCurrentListType("Confirmed Participants");
-            }
-
-            @Override
-            public void onError(Exception e) {
-                Log.e(TAG, "Error refreshing user repository",e);
-            }
-        });
+        ArrayList<String> confirmedList = eventController.getEventConfirmedList(event);
+        Log.d(TAG, "Confirmed List Array:"+ confirmedList);
+        // set details header
+        if (!event.isDrawed()) {
+            listDetails.setText("Event draw has not occured");
+        } else if (confirmedList.isEmpty()) {
+            listDetails.setText("No Entrants have accepted their invitation");
+        } else {
+            listDetails.setText(event.getParticipantCount(ParticipantState.CONFIRMED) +" / "+ event.getCapacity() +" Entrants have joined the event");
+        }
+        showParticipants(confirmedList, "Confirmed Participants");
     }
 
     /**
@@ -242,31 +244,38 @@ public class EventParticipantsListActivity extends AppCompatActivity {
     private void loadCancelledList() {
         // set title
         listTitle.setText("Cancelled Participants");
-        // clear old list
-        usersList.clear();
-        ArrayList<User> cancelledList = new ArrayList<>();
 
-        // get most updated users
-        userController.refreshRepository(new DataCallback<Void>() {
+        ArrayList<String> cancelledList = eventController.getEventCancelledList(event);
+        Log.d(TAG, "Cancelled List Array:"+ cancelledList);
+        listDetails.setText("Entrants you have cancelled or who have declined their invitation");
+        showParticipants(cancelledList, "Cancelled Participants");
+    }
+
+    /**
+     * Reads the users of the listed participants and shows them while they arrive.
+     * Only users not read before on this screen are read.
+     *
+     * @param userIds  The IDs of the listed participants.
+     * @param listType The title of the list, passed to the adapter.
+     */
+    private void showParticipants(ArrayList<String> userIds, String listType) {
+        int request = ++listRequest;
+        participantResolver.resolve(userIds, new ParticipantResolver.Listener() {
             @Override
-            public void onSuccess(Void result) {
-                for (String userId : eventController.getEventCancelledList(event)) {
-                    User user = userController.getUserByDeviceID(userId);
-                    if (user != null) {
-                        cancelledList.add(user);
-                    }
+            public void onUsers(List<User> users, boolean complete) {
+                if (request != listRequest) {
+                    return; // another list was opened or the list was refreshed
+                }
+                participantsListAdapter.submitUsers(users, listType);
+                if (complete) {
+                    Log.d(TAG, "Participants resolved, " + participantResolver.getReads() + " reads, "
+                            + participantResolver.getMemoHits() + " remembered");
                 }
-                Log.d(TAG, "Cancelled List Array:"+ cancelledList);
-                listDetails.setText("Entrants you have cancelled or who have declined their invitation");
-                usersList.addAll(cancelledList);
-
-                participantsListAdapter.notifyDataSetChanged();
-                participantsListAdapter.setCurrentListType("Cancelled Participants");
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "Error refreshing user repository",e);
+                Log.e(TAG, "Error loading participants", e);
             }
         });
     }
@@ -275,7 +284,7 @@ public class EventParticipantsListActivity extends AppCompatActivity {
     private WaitingListAdapter.OnClickListener cancelEntrant() {
         return position -> {
             if (position != RecyclerView.NO_POSITION) {
-                User userToCancel = usersList.get(position);
+                User userToCancel = participantsListAdapter.getUser(position);
                 eventController.setUserCancelled(event, userToCancel.getUserID(), new DataCallback<Event>() {
                     @Override
                     public void onSuccess(Event result) {
@@ -298,18 +307,17 @@ public class EventParticipantsListActivity extends AppCompatActivity {
      * Refreshes the currently displayed participant list.
      */
     private void refreshCurrentList() {
-        String currentTitle = listTitle.getText().toString();
-        switch (currentTitle) {
-            case "Waiting List":
+        switch (currentState) {
+            case WAITING:
                 loadWaitingList();
                 break;
-            case "Selected Participants":
+            case SELECTED:
                 loadSelectedList();
                 break;
-            case "Confirmed Participants":
+            case CONFIRMED:
                 loadConfirmedList();
                 break;
-            case "Cancelled Participants":
+            case CANCELLED:
                 loadCancelledList();
                 break;
         }
@@ -2,7 +2,6 @@ package com.example.syntaxeventlottery;
 
 import static android.content.ContentValues.TAG;
 
-import android.graphics.Bitmap;
 import android.net.Uri;
 import android.util.Log;
 import android.widget.Toast;
@@ -11,15 +10,22 @@ import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
-import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
@@ -33,18 +39,42 @@ public class EventRepository  {
     private FirebaseStorage imageDb;
     private CollectionReference eventsRef;
     private StorageReference eventsImageRef;
-    private ArrayList<Event> eventsDataList;
+    private EventCache eventCache;
+    private EntrantStore entrantStore;
+    private LocationProjection locationProjection;
+    private UploadPipeline uploadPipeline;
+    private RefreshGate refreshGate;
+
+    /** How long the cache is used without waiting for the listener again. */
+    static final long MAX_AGE_MS = 30_000;
+    /** How long the cache is still used while the listener is attached again. */
+    static final long MAX_STALE_MS = 10 * 60_000;
 
     /**
      * Constructor for initializing the repository and Firebase references.
+     * Attaches the shared {@link EventCache} listener if it is not already running.
      */
     public EventRepository() {
         this.db = FirebaseFirestore.getInstance();
         this.imageDb = FirebaseStorage.getInstance();
         this.eventsRef = db.collection("events");
         this.eventsImageRef = imageDb.getReference();
-        this.eventsDataList = new ArrayList<>();
+        this.eventCache = EventCache.getInstance();
+        this.entrantStore = new EntrantStore(db, eventsRef);
+        this.locationProjection = new LocationProjection(db, eventsRef);
+        this.uploadPipeline = new UploadPipeline(new FirebaseBlobStore(eventsImageRef));
+        this.refreshGate = new RefreshGate(MAX_AGE_MS, MAX_STALE_MS);
+        eventCache.startListening(eventsRef);
+    }
 
+    /**
+     * Gets the gate deciding when a refresh waits for the events cache, to read its counters or change
+     * its staleness window.
+     *
+     * @return The refresh gate of the events cache.
+     */
+    public RefreshGate getRefreshGate() {
+        return refreshGate;
     }
 
     /**
@@ -53,121 +83,273 @@ public class EventRepository  {
      * @return A list of cached {@link Event} objects.
      */
     public ArrayList<Event> getLocalEventsList() {
-        return new ArrayList<>(eventsDataList); // Return a copy to prevent modification
+        return eventCache.getEvents(); // Return a copy to prevent modification
     }
 
     /**
-     * Updates the local events list by fetching data from Firebase Firestore.
+     * Retrieves a cached event by its ID without copying the cache.
      *
-     * @param callback A callback to notify the success or failure of the update operation.
+     * @param eventId The ID of the event.
+     * @return The cached {@link Event}, or {@code null} if it is not cached.
      */
-    public void updateLocalEventsList(DataCallback<Void> callback) {
-        eventsRef.get()
-                .addOnSuccessListener(querySnapshot -> {
-                    eventsDataList.clear();
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
-                        Event event = doc.toObject(Event.class);
-
-                        if (event.getParticipants() == null) {
-                            event.setParticipants(new ArrayList<>());
-                        }
-                        if (event.getSelectedParticipants() == null) {
-                            event.setSelectedParticipants(new ArrayList<>());
-                        }
-                        if (event.getConfirmedParticipants() == null) {
-                            event.setConfirmedParticipants(new ArrayList<>());
-                        }
-                        if (event.getCancelledParticipants() == null) {
-                            event.setCancelledParticipants(new ArrayList<>());
-                        }
+    public Event getEventById(String eventId) {
+        return eventCache.get(eventId);
+    }
 
-                        eventsDataList.add(event);
+    /**
+     * Gets a single event. The cached event is returned while the cache listener is attached, otherwise the
+     * event document alone is read and stored in the cache, instead of waiting for the whole collection.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback The callback receiving the event, or {@code null} if it does not exist.
+     */
+    public void getEvent(String eventId, DataCallback<Event> callback) {
+        Event cached = eventCache.isLive() ? eventCache.get(eventId) : null;
+        if (cached != null) {
+            callback.onSuccess(cached);
+            return;
+        }
+        eventsRef.document(eventId).get()
+                .addOnSuccessListener(doc -> {
+                    Event event = doc.exists() ? toEvent(doc) : null;
+                    if (event != null) {
+                        eventCache.put(event.getEventID(), event);
                     }
-                    Log.d(TAG, "Local Events List updated");
-                    callback.onSuccess(null);
+                    callback.onSuccess(event);
                 })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error fetching events", e);
+                    Log.e(TAG, "Error reading event " + eventId, e);
                     callback.onError(e);
                 });
     }
 
-
     /**
-     * Adds a new event to the repository, including uploading optional images and QR codes.
+     * Retrieves the cached events organized by the given user.
      *
-     * @param event       The {@link Event} to be added.
-     * @param imageUri    The URI of the event poster image, if available.
-     * @param qrCodeBitmap The bitmap of the event QR code.
-     * @param callback    A callback to notify the success or failure of the operation.
+     * @param organizerId The ID of the organizer.
+     * @return A list of the organizer's cached {@link Event} objects.
      */
-    public void addEventToRepo(Event event, @Nullable Uri imageUri, Bitmap qrCodeBitmap, DataCallback<Event> callback) {
-        eventsDataList.add(event);
-        HashMap<String, Object> data = eventToHashData(event);
-
-        if (imageUri != null) {
-            uploadImage(event, data, imageUri, qrCodeBitmap, callback);
-        } else {
-            uploadQrCode(event, data, qrCodeBitmap, callback);
-        }
+    public ArrayList<Event> getEventsByOrganizer(String organizerId) {
+        return eventCache.getEventsByOrganizer(organizerId);
     }
 
-    private void uploadImage(Event event, HashMap<String, Object> data, Uri imageUri,
-                             Bitmap qrCodeBitmap, DataCallback<Event> callback) {
-        StorageReference posterRef = eventsImageRef.child("event_poster_images/" + event.getEventID());
-        posterRef.putFile(imageUri)
-                .addOnSuccessListener(taskSnapshot ->
-                        posterRef.getDownloadUrl()
-                                .addOnSuccessListener(url -> {
-                                    data.put("posterUrl", url.toString());
-                                    event.setPosterUrl(url.toString());
-                                    // Upload QR code only if qrCodeBitmap is not null
-                                    if (qrCodeBitmap != null) {
-                                        uploadQrCode(event, data, qrCodeBitmap, callback);
-                                    } else {
-                                        uploadEventData(event, data, callback);
-                                    }
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Failed to get poster URL", e);
-                                    callback.onError(e);
-                                }))
+    /**
+     * Loads one page of the events organized by the given user, ordered by start date.
+     * Only the organizer's event documents are read, and the loaded events are stored in the cache.
+     * The query needs a composite index on {@code organizerId} and {@code startDate}.
+     *
+     * @param organizerId The ID of the organizer.
+     * @param after       The previously loaded page, or {@code null} to load the first page.
+     * @param pageSize    The maximum number of events in the page.
+     * @param callback    A callback receiving the page.
+     */
+    public void loadOrganizerEventsPage(String organizerId, @Nullable DocumentPage<Event> after, int pageSize,
+                                        DataCallback<DocumentPage<Event>> callback) {
+        Query query = eventsRef.whereEqualTo("organizerId", organizerId).orderBy("startDate");
+        DocumentPage.next(query, after, pageSize).get()
+                .addOnSuccessListener(snapshot -> {
+                    DocumentPage<Event> page = DocumentPage.of(snapshot.getDocuments(), pageSize, EventRepository::toEvent);
+                    for (Event event : page.getItems()) {
+                        eventCache.put(event.getEventID(), event);
+                    }
+                    callback.onSuccess(page);
+                })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to upload image", e);
+                    Log.e(TAG, "Failed to load events of organizer " + organizerId, e);
                     callback.onError(e);
                 });
     }
 
-    private void uploadQrCode(Event event, HashMap<String, Object> data,
-                              Bitmap qrCodeBitmap, DataCallback<Event> callback) {
-        StorageReference qrCodeRef = eventsImageRef.child("event_qrcode_images/" + event.getEventID() + ".png");
-        qrCodeRef.putBytes(bitmapToByteArray(qrCodeBitmap))
-                .addOnSuccessListener(taskSnapshot ->
-                        qrCodeRef.getDownloadUrl()
-                                .addOnSuccessListener(url -> {
-                                    data.put("qrCode", url.toString());
-                                    event.setQrCode(url.toString());
-                                    uploadEventData(event, data, callback);
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Failed to get QR Code URL", e);
-                                    callback.onError(e);
-                                }))
+    /**
+     * Loads one page of all events, ordered by start date, for browsing the whole collection.
+     * The events are not stored in the cache, so that browsing does not keep every page in memory.
+     *
+     * @param cursor    The page the new page is read relative to, or {@code null} to load the first page.
+     * @param direction Where the page is read relative to the cursor.
+     * @param pageSize  The maximum number of events in the page.
+     * @param callback  A callback receiving the page.
+     */
+    public void loadEventsPage(@Nullable DocumentPage<Event> cursor, DocumentPage.Direction direction, int pageSize,
+                               DataCallback<DocumentPage<Event>> callback) {
+        DocumentPage.page(eventsRef.orderBy("startDate"), cursor, direction, pageSize).get()
+                .addOnSuccessListener(snapshot ->
+                        callback.onSuccess(DocumentPage.of(snapshot.getDocuments(), pageSize, EventRepository::toEvent)))
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to upload QR code", e);
+                    Log.e(TAG, "Failed to load a page of events", e);
                     callback.onError(e);
                 });
     }
 
-    private void uploadEventData(Event event, HashMap<String, Object> data, DataCallback<Event> callback) {
-        eventsRef.document(event.getEventID()).set(data)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Event saved successfully");
-                    callback.onSuccess(event);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to save event", e);
-                    callback.onError(e);
+    /**
+     * Loads every event organized by the given user by following the pages until the last one.
+     *
+     * @param organizerId The ID of the organizer.
+     * @param pageSize    The number of events read per query.
+     * @param callback    A callback receiving the events, ordered by start date.
+     */
+    public void loadAllOrganizerEvents(String organizerId, int pageSize, DataCallback<ArrayList<Event>> callback) {
+        loadRemainingOrganizerEvents(organizerId, null, pageSize, new ArrayList<>(), callback);
+    }
+
+    private void loadRemainingOrganizerEvents(String organizerId, DocumentPage<Event> after, int pageSize,
+                                              ArrayList<Event> collected, DataCallback<ArrayList<Event>> callback) {
+        loadOrganizerEventsPage(organizerId, after, pageSize, new DataCallback<DocumentPage<Event>>() {
+            @Override
+            public void onSuccess(DocumentPage<Event> page) {
+                collected.addAll(page.getItems());
+                if (page.hasMore()) {
+                    loadRemainingOrganizerEvents(organizerId, page, pageSize, collected, callback);
+                } else {
+                    callback.onSuccess(collected);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the cached events in which the user is in the given participant state.
+     *
+     * @param userId The ID of the user.
+     * @param state  The participant state to look up.
+     * @return A list of matching cached {@link Event} objects.
+     */
+    public ArrayList<Event> getEventsByParticipant(String userId, ParticipantState state) {
+        return eventCache.getEventsByParticipant(userId, state);
+    }
+
+    /**
+     * Makes sure the local events cache is in sync with Firebase Firestore.
+     * The cache is kept up to date by a snapshot listener, so this only waits for the
+     * first snapshot (or re-attaches the listener after an error) instead of refetching
+     * the whole collection.
+     * Calls made while the first snapshot is awaited share the wait, see {@link RefreshGate}.
+     *
+     * @param callback A callback to notify the success or failure of the update operation.
+     */
+    public void updateLocalEventsList(DataCallback<Void> callback) {
+        // the listener is detached in the background and after errors, attaching it again is a no-op otherwise
+        eventCache.startListening(eventsRef);
+        refreshGate.refresh(eventCache::whenSynced, callback);
+    }
+
+    /**
+     * Attaches the listener keeping the shared events cache in sync, if it is not attached.
+     */
+    public void startListening() {
+        eventCache.startListening(eventsRef);
+    }
+
+    /**
+     * Detaches the listener keeping the shared events cache in sync. Cached events can still be read,
+     * and {@link #updateLocalEventsList} or {@link #startListening()} attach the listener again.
+     */
+    public void stopListening() {
+        eventCache.stopListening();
+    }
+
+    /**
+     * Converts a Firestore event document to an {@link Event}.
+     * The participant list fields are read into the event's membership model.
+     *
+     * @param doc The event document snapshot.
+     * @return The deserialized {@link Event}.
+     */
+    static Event toEvent(DocumentSnapshot doc) {
+        Event event = doc.toObject(Event.class);
+        if (event == null) {
+            return null;
+        }
+        if (event.getEventID() == null) {
+            event.setEventID(doc.getId());
+        }
+        return event;
+    }
+
+
+    /**
+     * Adds a new event to the repository, including uploading the optional poster image.
+     * QR codes are rendered on the device from the event ID, see {@link QRCodeRenderer}.
+     *
+     * @param event       The {@link Event} to be added.
+     * @param imageUri    The URI of the event poster image, if available.
+     * @param callback    A callback to notify the success or failure of the operation.
+     */
+    public void addEventToRepo(Event event, @Nullable Uri imageUri, DataCallback<Event> callback) {
+        HashMap<String, Object> data = eventToHashData(event);
+        // nothing points to the files of a new event yet, so they are deleted again if saving fails
+        saveEvent(event, data, imageUri, true, new DataCallback<Event>() {
+            @Override
+            public void onSuccess(Event saved) {
+                // only cached once written, a failed creation must not show up in the event lists
+                eventCache.put(saved.getEventID(), saved);
+                callback.onSuccess(saved);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Prepares the poster and its thumbnail, uploads them concurrently and then writes the event
+     * document once, with every download URL in it.
+     */
+    private void saveEvent(Event event, HashMap<String, Object> data, @Nullable Uri imageUri,
+                           boolean rollback, DataCallback<Event> callback) {
+        if (imageUri == null) {
+            uploadEvent(event, data, new ArrayList<>(), rollback, callback);
+            return;
+        }
+        ImagePreparer.getInstance().prepare(imageUri, ImagePreparer.ImageSpec.POSTER, ImagePreparer.ImageSpec.POSTER_THUMBNAIL,
+                new DataCallback<ImagePreparer.PreparedImage>() {
+                    @Override
+                    public void onSuccess(ImagePreparer.PreparedImage poster) {
+                        List<UploadPipeline.Upload> uploads = new ArrayList<>();
+                        uploads.add(UploadPipeline.Upload.fromBytes("posterUrl",
+                                "event_poster_images/" + event.getEventID(), poster.getImage()));
+                        uploads.add(UploadPipeline.Upload.fromBytes("posterThumbnailUrl",
+                                "event_poster_thumbnails/" + event.getEventID(), poster.getThumbnail()));
+                        uploadEvent(event, data, uploads, rollback, callback);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Failed to prepare poster", e);
+                        callback.onError(e);
+                    }
+                });
+    }
+
+    private void uploadEvent(Event event, HashMap<String, Object> data, List<UploadPipeline.Upload> uploads,
+                             boolean rollback, DataCallback<Event> callback) {
+        // merge so that an update without participant lists leaves the stored lists untouched
+        uploadPipeline.run(uploads, data, rollback,
+                (document, written) -> eventsRef.document(event.getEventID()).set(document, SetOptions.merge())
+                        .addOnSuccessListener(aVoid -> written.onSuccess(null))
+                        .addOnFailureListener(written::onError),
+                new DataCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        if (!uploads.isEmpty()) {
+                            event.setPosterUrl((String) data.get("posterUrl"));
+                            event.setPosterThumbnailUrl((String) data.get("posterThumbnailUrl"));
+                        }
+                        Log.d(TAG, "Event saved successfully");
+                        callback.onSuccess(event);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Failed to save event " + event.getEventID(), e);
+                        callback.onError(e);
+                    }
                 });
     }
 
@@ -178,68 +360,486 @@ public class EventRepository  {
      * @param callback A callback to notify the success or failure of the operation.
      */
     public void deleteEventFromRepo(Event event, DataCallback<Void> callback) {
+        if (event.isShardedEntrants()) {
+            // subcollections are not deleted with their parent document
+            entrantStore.deleteAll(event.getEventID(), new DataCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    deleteEventDocument(event, callback);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    Log.e(TAG, "Failed to delete entrants of " + event.getEventID(), e);
+                    callback.onError(e);
+                }
+            });
+        } else {
+            deleteEventDocument(event, callback);
+        }
+    }
+
+    private void deleteEventDocument(Event event, DataCallback<Void> callback) {
         eventsRef.document(event.getEventID()).delete()
                 .addOnSuccessListener(aVoid -> {
-                    eventsDataList.remove(event);
+                    eventCache.remove(event.getEventID());
+                    if (event.getLocationRequired()) {
+                        locationProjection.deleteAll(event.getEventID(), logOnly("Location projection deleted"));
+                    }
                     callback.onSuccess(null);
                 })
                 .addOnFailureListener(callback::onError);
     }
 
     /**
-     * Updates the details of an event, including optional image and QR code uploads.
+     * Updates the details of an event, including an optional poster image upload.
      *
      * @param event       The {@link Event} to be updated.
      * @param imageUri    The URI of the event poster image, if updated.
-     * @param qrCodeBitmap The bitmap of the event QR code, if updated.
      * @param callback    A callback to notify the success or failure of the operation.
      */
-    public void updateEventDetails(Event event, @Nullable Uri imageUri,
-                                   @Nullable Bitmap qrCodeBitmap, DataCallback<Event> callback) {
-        // Update local list
-        for (int i = 0; i < eventsDataList.size(); i++) {
-            if (eventsDataList.get(i).getEventID().equals(event.getEventID())) {
-                eventsDataList.set(i, event);
-                break;
-            }
-        }
+    public void updateEventDetails(Event event, @Nullable Uri imageUri, DataCallback<Event> callback) {
+        // Update local cache
+        eventCache.put(event.getEventID(), event);
 
         HashMap<String, Object> data = eventToHashData(event);
+        // participant lists are only changed through the atomic membership updates,
+        // rewriting them here would drop entrants that joined in the meantime
+        for (ParticipantState state : ParticipantState.values()) {
+            data.remove(state.getFieldName());
+        }
         Log.d(TAG, "event details: " +data);
 
-        // Preserve existing QR code URL
-        if (event.getQrCode() != null) {
-            data.put("qrCode", event.getQrCode());
+        // a new poster overwrites the one the stored event points to, so it is not rolled back
+        saveEvent(event, data, imageUri, false, callback);
+    }
+
+    //------------- Atomic participant list updates --------------//
+    /**
+     * Adds a user to the waiting list in a transaction that re-reads the stored event, so that
+     * concurrent joins are never lost and the waiting list limit cannot be exceeded.
+     * Only the participant list fields are written, or the entrant document for sharded events.
+     *
+     * @param event    The {@link Event} the user joins, already updated locally.
+     * @param userId   The ID of the joining user.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void joinWaitingList(Event event, String userId, DataCallback<Event> callback) {
+        eventCache.put(event.getEventID(), event);
+        if (event.isShardedEntrants()) {
+            entrantStore.join(event.getEventID(), userId, event.getWaitingListLimit(), entrantCallback(event, callback));
+            return;
+        }
+        DocumentReference eventRef = eventsRef.document(event.getEventID());
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(eventRef);
+                    if (!snapshot.exists()) {
+                        throw new FirebaseFirestoreException("Event not found",
+                                FirebaseFirestoreException.Code.NOT_FOUND);
+                    }
+                    for (ParticipantState state : ParticipantState.values()) {
+                        List<String> stored = (List<String>) snapshot.get(state.getFieldName());
+                        if (state != ParticipantState.CANCELLED && stored != null && stored.contains(userId)) {
+                            throw new FirebaseFirestoreException("Failed to join waiting list: You are already a participant",
+                                    FirebaseFirestoreException.Code.ALREADY_EXISTS);
+                        }
+                    }
+                    List<String> waitingList = (List<String>) snapshot.get(ParticipantState.WAITING.getFieldName());
+                    Long limit = snapshot.getLong("waitingListLimit");
+                    if (limit != null && waitingList != null && waitingList.size() >= limit) {
+                        throw new FirebaseFirestoreException("Failed to join waiting list: No spots available",
+                                FirebaseFirestoreException.Code.FAILED_PRECONDITION);
+                    }
+                    transaction.update(eventRef,
+                            ParticipantState.WAITING.getFieldName(), FieldValue.arrayUnion(userId),
+                            ParticipantState.CANCELLED.getFieldName(), FieldValue.arrayRemove(userId));
+                    return null;
+                })
+                .addOnSuccessListener(result -> {
+                    Log.d(TAG, "User " + userId + " joined waiting list of " + event.getEventID());
+                    callback.onSuccess(event);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to join waiting list", e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Moves users to a new participant state with a single field-level update:
+     * the users are added to the field of the new state and removed from every other list.
+     * For sharded events a single user is moved in a transaction and several users, as chosen
+     * by the lottery, are moved from the waiting list in write batches.
+     *
+     * @param event    The {@link Event} containing the users, already updated locally.
+     * @param userIds  The IDs of the users to move.
+     * @param state    The new participant state.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void updateParticipantState(Event event, List<String> userIds, ParticipantState state,
+                                       DataCallback<Event> callback) {
+        if (event.isShardedEntrants()) {
+            updateShardedState(event, userIds, state, state == ParticipantState.CANCELLED
+                    ? forgetLocations(event, userIds, callback) : callback);
+            return;
+        }
+        HashMap<String, Object> updates = new HashMap<>();
+        for (ParticipantState other : ParticipantState.values()) {
+            if (other != state) {
+                updates.put(other.getFieldName(), FieldValue.arrayRemove(userIds.toArray()));
+            }
+        }
+        updates.put(state.getFieldName(), FieldValue.arrayUnion(userIds.toArray()));
+        if (state == ParticipantState.SELECTED) {
+            updates.put("drawed", event.isDrawed());
+        }
+        updateParticipantFields(event, updates, state == ParticipantState.CANCELLED
+                ? forgetLocations(event, userIds, callback) : callback);
+    }
+
+    /**
+     * Removes a user from the waiting, selected and confirmed lists with a single field-level update.
+     *
+     * @param event    The {@link Event} containing the user, already updated locally.
+     * @param userId   The ID of the user to remove.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void removeParticipant(Event event, String userId, DataCallback<Event> callback) {
+        callback = forgetLocations(event, Collections.singletonList(userId), callback);
+        if (event.isShardedEntrants()) {
+            eventCache.put(event.getEventID(), event);
+            entrantStore.moveEntrant(event.getEventID(), userId, null, entrantCallback(event, callback));
+            return;
+        }
+        HashMap<String, Object> updates = new HashMap<>();
+        for (ParticipantState state : ParticipantState.values()) {
+            if (state != ParticipantState.CANCELLED) {
+                updates.put(state.getFieldName(), FieldValue.arrayRemove(userId));
+            }
+        }
+        updateParticipantFields(event, updates, callback);
+    }
+
+    //------------- Events near a location --------------//
+    /**
+     * Finds the events within a radius of a location, nearest first. The circle is read with a few
+     * range queries on the {@code geohash} field, see {@link GeoQuery}, run at the same time; the events
+     * they return outside of the radius are dropped. Events without coordinates are never found.
+     *
+     * @param latitude     The latitude of the centre.
+     * @param longitude    The longitude of the centre.
+     * @param radiusMeters The radius in metres.
+     * @param callback     A callback receiving the events sorted by distance.
+     */
+    public void findEventsNear(double latitude, double longitude, double radiusMeters, DataCallback<List<Event>> callback) {
+        List<GeoQuery.Range> ranges = GeoQuery.ranges(latitude, longitude, radiusMeters);
+        Map<String, Event> candidates = new HashMap<>();
+        Exception[] failure = new Exception[1];
+        BoundedTaskRunner.run(ranges.size(), ranges.size(), (index, done) -> {
+            GeoQuery.Range range = ranges.get(index);
+            eventsRef.orderBy("geohash").startAt(range.getStart()).endAt(range.getEnd() + GeoQuery.PREFIX_END).get()
+                    .addOnSuccessListener(snapshot -> {
+                        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                            Event event = toEvent(doc);
+                            if (event != null && event.hasCoordinates()) {
+                                candidates.put(event.getEventID(), event);
+                            }
+                        }
+                        done.run();
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Failed to read events in geohash range " + range.getStart() + "-" + range.getEnd(), e);
+                        failure[0] = e;
+                        done.run();
+                    });
+        }, () -> {
+            if (failure[0] != null) {
+                callback.onError(failure[0]);
+                return;
+            }
+            callback.onSuccess(GeoQuery.nearest(candidates.values(), Event::getLatitude, Event::getLongitude,
+                    latitude, longitude, radiusMeters));
+        });
+    }
+
+    //------------- Participant location projection --------------//
+    /**
+     * Stores the location of an entrant in the location projection of an event, which the event map reads
+     * instead of the entrants' user documents.
+     *
+     * @param event    The location-required {@link Event} the entrant joined.
+     * @param location The location of the entrant when they joined.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void saveParticipantLocation(Event event, ProjectedLocation location, DataCallback<Void> callback) {
+        locationProjection.put(event.getEventID(), location, callback);
+    }
+
+    /**
+     * Reads the locations stored in the location projection of an event with a single query.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback A callback receiving the stored locations.
+     */
+    public void loadParticipantLocations(String eventId, DataCallback<List<ProjectedLocation>> callback) {
+        locationProjection.load(eventId, callback);
+    }
+
+    // participants leaving the map are removed from the projection once their state was stored,
+    // a failed removal only leaves a stale marker and does not fail the update
+    private DataCallback<Event> forgetLocations(Event event, List<String> userIds, DataCallback<Event> callback) {
+        if (!event.getLocationRequired()) {
+            return callback;
         }
+        return new DataCallback<Event>() {
+            @Override
+            public void onSuccess(Event result) {
+                locationProjection.remove(event.getEventID(), userIds, logOnly("Locations removed"));
+                callback.onSuccess(result);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        };
+    }
+
+    private DataCallback<Void> logOnly(String message) {
+        return new DataCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                Log.d(TAG, message);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // already logged by the projection
+            }
+        };
+    }
+
+    /**
+     * Stores a locally changed event in the cache, for example after a failed update was undone.
+     *
+     * @param event The {@link Event} to cache.
+     */
+    public void cacheEvent(Event event) {
+        eventCache.put(event.getEventID(), event);
+    }
 
-        // Preserve existing poster URL
-        if (event.getPosterUrl() != null) {
-            data.put("posterUrl", event.getPosterUrl());
+    private void updateParticipantFields(Event event, HashMap<String, Object> updates, DataCallback<Event> callback) {
+        eventCache.put(event.getEventID(), event);
+        eventsRef.document(event.getEventID()).update(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Participant lists updated for " + event.getEventID());
+                    callback.onSuccess(event);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to update participant lists", e);
+                    callback.onError(e);
+                });
+    }
+
+    //------------- Sharded entrant storage --------------//
+    private void updateShardedState(Event event, List<String> userIds, ParticipantState state,
+                                    DataCallback<Event> callback) {
+        eventCache.put(event.getEventID(), event);
+        if (state != ParticipantState.SELECTED) {
+            moveEntrants(event, userIds, state, callback);
+            return;
         }
+        // the draw is saved before any entrant is moved: when a batch fails, the entrants already moved count
+        // towards the capacity and a redraw fills the remaining spots instead of the event being drawn again
+        updateParticipantFields(event, new HashMap<>(Collections.singletonMap("drawed", event.isDrawed())),
+                new DataCallback<Event>() {
+                    @Override
+                    public void onSuccess(Event result) {
+                        entrantStore.moveWaitingEntrants(event.getEventID(), userIds, state, new DataCallback<List<String>>() {
+                            @Override
+                            public void onSuccess(List<String> moved) {
+                                if (moved.size() == userIds.size()) {
+                                    callback.onSuccess(event);
+                                    return;
+                                }
+                                // entrants that left the waiting list during the draw were skipped, a redraw fills their spots
+                                callback.onError(new EntrantStore.PartialMoveException(moved, userIds.size(),
+                                        new Exception((userIds.size() - moved.size()) + " entrants were no longer on the waiting list")));
+                            }
+
+                            @Override
+                            public void onError(Exception e) {
+                                callback.onError(e instanceof EntrantStore.PartialMoveException ? e
+                                        : new EntrantStore.PartialMoveException(new ArrayList<>(), userIds.size(), e));
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        callback.onError(e);
+                    }
+                });
+    }
 
-        // Case 1: If both imageUri and qrCodeBitmap are null, just upload event data
-        if (imageUri == null && qrCodeBitmap == null) {
-            uploadEventData(event, data, callback);
+    private void moveEntrants(Event event, List<String> userIds, ParticipantState state, DataCallback<Event> callback) {
+        if (userIds.size() == 1) {
+            entrantStore.moveEntrant(event.getEventID(), userIds.get(0), state, entrantCallback(event, callback));
+        } else {
+            entrantStore.moveWaitingEntrants(event.getEventID(), userIds, state, entrantCallback(event, callback));
         }
-        // Case 2: If only updating image
-        else if (imageUri != null && qrCodeBitmap == null) {
-            uploadImage(event, data, imageUri, null, callback);
+    }
+
+    private <T> DataCallback<T> entrantCallback(Event event, DataCallback<Event> callback) {
+        return new DataCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                Log.d(TAG, "Entrants updated for " + event.getEventID());
+                callback.onSuccess(event);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        };
+    }
+
+    /**
+     * Loads one page of a sharded event's entrants in a state and adds them to the event's membership.
+     * Events with inline participant lists already hold all entrants, so an empty last page is returned.
+     *
+     * @param event    The {@link Event} whose entrants are loaded.
+     * @param state    The participant state to list.
+     * @param after    The previously loaded page, or {@code null} for the first page.
+     * @param pageSize The maximum number of entrants in the page.
+     * @param callback A callback receiving the loaded page.
+     */
+    public void loadEntrantPage(Event event, ParticipantState state, @Nullable EntrantStore.EntrantPage after,
+                                int pageSize, DataCallback<EntrantStore.EntrantPage> callback) {
+        if (!event.isShardedEntrants()) {
+            callback.onSuccess(new EntrantStore.EntrantPage(new ArrayList<>(), null, false));
+            return;
         }
-        // Case 3: If only updating QR code
-        else if (imageUri == null && qrCodeBitmap != null) {
-            uploadQrCode(event, data, qrCodeBitmap, callback);
+        entrantStore.loadPage(event.getEventID(), state, after, pageSize, new DataCallback<EntrantStore.EntrantPage>() {
+            @Override
+            public void onSuccess(EntrantStore.EntrantPage page) {
+                for (String userId : page.getUserIds()) {
+                    // the counts already include these entrants, only the membership is filled in
+                    event.getMembership().setState(userId, state);
+                }
+                callback.onSuccess(page);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Retrieves every entrant of an event in a state, paging through the entrants subcollection
+     * of sharded events. The loaded entrants are added to the event's membership.
+     *
+     * @param event    The {@link Event} whose entrants are loaded.
+     * @param state    The participant state to list.
+     * @param callback A callback receiving the user IDs in the order they joined.
+     */
+    public void loadAllEntrants(Event event, ParticipantState state, DataCallback<List<String>> callback) {
+        if (!event.isShardedEntrants()) {
+            callback.onSuccess(event.getParticipantList(state));
+            return;
         }
-        // Case 4: If updating both image and QR code
-        else {
-            uploadImage(event, data, imageUri, qrCodeBitmap, callback);
+        entrantStore.loadAll(event.getEventID(), state, new DataCallback<List<String>>() {
+            @Override
+            public void onSuccess(List<String> userIds) {
+                for (String userId : userIds) {
+                    event.getMembership().setState(userId, state);
+                }
+                callback.onSuccess(userIds);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Loads the entrant counts of a sharded event and the state of one user, which is enough
+     * to show the event to that user. Events with inline participant lists are returned unchanged.
+     *
+     * @param event    The {@link Event} to complete.
+     * @param userId   The ID of the user whose state is loaded, may be null.
+     * @param callback A callback receiving the updated event.
+     */
+    public void loadEntrantSummary(Event event, @Nullable String userId, DataCallback<Event> callback) {
+        if (!event.isShardedEntrants()) {
+            callback.onSuccess(event);
+            return;
         }
+        entrantStore.getCounts(event.getEventID(), new DataCallback<EnumMap<ParticipantState, Long>>() {
+            @Override
+            public void onSuccess(EnumMap<ParticipantState, Long> counts) {
+                event.setEntrantCounts(counts);
+                if (userId == null) {
+                    callback.onSuccess(event);
+                    return;
+                }
+                entrantStore.getState(event.getEventID(), userId, new DataCallback<ParticipantState>() {
+                    @Override
+                    public void onSuccess(ParticipantState state) {
+                        if (state == null) {
+                            event.getMembership().remove(userId);
+                        } else {
+                            event.getMembership().setState(userId, state);
+                        }
+                        eventCache.put(event.getEventID(), event);
+                        callback.onSuccess(event);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        callback.onError(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
     }
 
-    // Convert Bitmap to ByteArray
-    private byte[] bitmapToByteArray(Bitmap bitmap) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.PNG, 100, baos);
-        return baos.toByteArray();
+    /**
+     * Adds the user's memberships of sharded events to the cached events, so that the
+     * user's events can be found through the reverse membership index.
+     *
+     * @param userId   The ID of the user.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void loadShardedMemberships(String userId, DataCallback<Void> callback) {
+        entrantStore.getStatesForUser(userId, new DataCallback<Map<String, ParticipantState>>() {
+            @Override
+            public void onSuccess(Map<String, ParticipantState> states) {
+                for (Map.Entry<String, ParticipantState> entry : states.entrySet()) {
+                    Event event = eventCache.get(entry.getKey());
+                    if (event != null) {
+                        event.getMembership().setState(userId, entry.getValue());
+                        eventCache.put(entry.getKey(), event);
+                    }
+                }
+                callback.onSuccess(null);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
     }
 
     /**
@@ -268,6 +868,14 @@ public class EventRepository  {
         data.put("waitingListFull", event.getWaitingListFull());
         data.put("drawed", event.isDrawed());
         data.put("locationRequired", event.getLocationRequired());
+        data.put("latitude", event.getLatitude());
+        data.put("longitude", event.getLongitude());
+        data.put("geohash", event.getGeohash());
+        data.put("shardedEntrants", event.isShardedEntrants());
+        // written even when null, so that a removed poster or QR code is cleared by a merge
+        data.put("posterUrl", event.getPosterUrl());
+        data.put("posterThumbnailUrl", event.getPosterThumbnailUrl());
+        data.put("qrCode", event.getQrCode());
 
         return data;
     }
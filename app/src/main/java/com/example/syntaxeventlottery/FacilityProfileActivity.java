@@ -55,7 +55,7 @@ public class FacilityProfileActivity extends AppCompatActivity {
         currentUser = (User) getIntent().getSerializableExtra("currentUser");
 
         // Initalize user controller
-        userController = new UserController(new UserRepository());
+        userController = new UserController(App.getUserRepository());
 
         // Set onClick listener for the Back button
         buttonBack.setOnClickListener(new View.OnClickListener() {
@@ -0,0 +1,54 @@
+package com.example.syntaxeventlottery;
+
+import android.net.Uri;
+
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+/**
+ * {@link BlobStore} backed by Firebase Storage.
+ * The download URL is requested as a continuation of the upload task, so the caller gets a single
+ * callback for both round trips.
+ */
+public class FirebaseBlobStore implements BlobStore {
+    private final StorageReference root;
+
+    /**
+     * Creates a store writing below the given reference.
+     *
+     * @param root The root reference of the store.
+     */
+    public FirebaseBlobStore(StorageReference root) {
+        this.root = root;
+    }
+
+    @Override
+    public void upload(String path, Uri source, DataCallback<String> callback) {
+        StorageReference ref = root.child(path);
+        resolveUrl(ref, ref.putFile(source), callback);
+    }
+
+    @Override
+    public void upload(String path, byte[] data, DataCallback<String> callback) {
+        StorageReference ref = root.child(path);
+        resolveUrl(ref, ref.putBytes(data), callback);
+    }
+
+    @Override
+    public void delete(String path, DataCallback<Void> callback) {
+        root.child(path).delete()
+                .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                .addOnFailureListener(callback::onError);
+    }
+
+    private void resolveUrl(StorageReference ref, UploadTask upload, DataCallback<String> callback) {
+        upload.continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        throw task.getException();
+                    }
+                    return ref.getDownloadUrl();
+                })
+                .addOnSuccessListener(url -> callback.onSuccess(url.toString()))
+                .addOnFailureListener(callback::onError);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.syntaxeventlottery;
+
+/**
+ * The {@code GeoHash} class converts coordinates to and from geohashes: base 32 strings naming a cell of the
+ * world, made by halving the longitude and latitude ranges in turn. Each added character makes the cell 32 times
+ * smaller, and nearby points usually share a prefix, so a prefix names every point in a larger cell.
+ */
+public final class GeoHash {
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    /** Longest geohash supported, 60 bits or cells of a few centimetres. */
+    static final int MAX_PRECISION = 12;
+
+    private GeoHash() {
+    }
+
+    /**
+     * Encodes a point.
+     *
+     * @param latitude  The latitude, between -90 and 90 degrees.
+     * @param longitude The longitude, between -180 and 180 degrees.
+     * @param precision The number of characters, between 1 and {@link #MAX_PRECISION}.
+     * @return The geohash of the cell containing the point.
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Invalid geohash precision " + precision);
+        }
+        if (Double.isNaN(latitude) || latitude < -90 || latitude > 90
+                || Double.isNaN(longitude) || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid coordinates " + latitude + ", " + longitude);
+        }
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bits = 0;
+        int value = 0;
+        while (hash.length() < precision) {
+            value <<= 1;
+            // even bits split the longitude, odd bits the latitude
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    value |= 1;
+                    minLng = mid;
+                } else {
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    value |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bits == 5) {
+                hash.append(BASE32.charAt(value));
+                bits = 0;
+                value = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Decodes a geohash to the bounds of its cell.
+     *
+     * @param hash The geohash.
+     * @return The bounds as {@code {minLatitude, minLongitude, maxLatitude, maxLongitude}}.
+     */
+    public static double[] bounds(String hash) {
+        if (hash == null || hash.isEmpty() || hash.length() > MAX_PRECISION) {
+            throw new IllegalArgumentException("Invalid geohash " + hash);
+        }
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int value = BASE32.indexOf(hash.charAt(i));
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid geohash " + hash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((value >> bit) & 1) == 1;
+                if (evenBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (set) {
+                        minLng = mid;
+                    } else {
+                        maxLng = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[] {minLat, minLng, maxLat, maxLng};
+    }
+
+    /**
+     * Decodes a geohash to the centre of its cell.
+     *
+     * @param hash The geohash.
+     * @return The centre as {@code {latitude, longitude}}.
+     */
+    public static double[] decode(String hash) {
+        double[] bounds = bounds(hash);
+        return new double[] {(bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2};
+    }
+}
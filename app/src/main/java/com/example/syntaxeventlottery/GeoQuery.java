@@ -0,0 +1,213 @@
+package com.example.syntaxeventlottery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The {@code GeoQuery} class answers "near me" radius queries over documents that store the {@link GeoHash}
+ * of their location in a string field. The bounding box of a circle is covered by the geohash cells of the
+ * highest precision that needs at most {@link #MAX_RANGES} prefix range queries on the geohash field, after cells
+ * that follow each other in geohash order are merged into one range. Smaller cells read fewer documents outside of
+ * the circle, and those that are read anyway are removed by {@link #nearest} using the haversine distance.
+ */
+public final class GeoQuery {
+    /** Length of the geohash stored with a location, cells of about one by one metre. */
+    public static final int STORED_PRECISION = 10;
+    /** Maximum number of range queries issued for one circle. */
+    static final int MAX_RANGES = 9;
+    /** Mean radius of the earth in metres. */
+    static final double EARTH_RADIUS_M = 6_371_008.8;
+    /** Sorts after every geohash character, appended to the end prefix of a range to read the whole prefix. */
+    public static final String PREFIX_END = "\uf8ff";
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private GeoQuery() {
+    }
+
+    /**
+     * A range of geohash prefixes, read by one query ordered by the geohash field.
+     */
+    public static final class Range {
+        private final String start;
+        private final String end;
+
+        Range(String start, String end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return The first prefix of the range. Every geohash in the range sorts at or after it.
+         */
+        public String getStart() {
+            return start;
+        }
+
+        /**
+         * @return The last prefix of the range. Every geohash in the range sorts at or before
+         * {@code end + PREFIX_END}, the bound to use with {@code endAt}.
+         */
+        public String getEnd() {
+            return end;
+        }
+
+        /**
+         * @param geohash A stored geohash.
+         * @return {@code true} if the geohash is in the range.
+         */
+        public boolean contains(String geohash) {
+            return geohash.compareTo(start) >= 0 && (geohash.compareTo(end) <= 0 || geohash.startsWith(end));
+        }
+    }
+
+    /**
+     * Finds the geohash ranges covering a circle.
+     *
+     * @param latitude     The latitude of the centre.
+     * @param longitude    The longitude of the centre.
+     * @param radiusMeters The radius of the circle in metres.
+     * @return At most {@link #MAX_RANGES} ranges, in geohash order, together covering every point of the circle.
+     */
+    public static List<Range> ranges(double latitude, double longitude, double radiusMeters) {
+        if (radiusMeters < 0) {
+            throw new IllegalArgumentException("Invalid radius " + radiusMeters);
+        }
+        double halfHeight = Math.toDegrees(radiusMeters / EARTH_RADIUS_M);
+        double south = Math.max(-90, latitude - halfHeight);
+        double north = Math.min(90, latitude + halfHeight);
+        double halfWidth = 180;
+        if (south > -90 && north < 90) {
+            // the widest part of the box is at the latitude closest to a pole
+            double cos = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+            halfWidth = Math.min(180, halfHeight / Math.max(cos, 1e-12));
+        }
+
+        // longer prefixes than the stored geohashes would match nothing
+        for (int precision = STORED_PRECISION; precision >= 1; precision--) {
+            int bits = 5 * precision;
+            // longitude takes the extra bit of an odd number of bits
+            long columns = 1L << ((bits + 1) / 2);
+            long rows = 1L << (bits / 2);
+            double cellWidth = 360.0 / columns;
+            double cellHeight = 180.0 / rows;
+            long firstRow = Math.min(rows - 1, (long) Math.floor((south + 90) / cellHeight));
+            long lastRow = Math.min(rows - 1, (long) Math.floor((north + 90) / cellHeight));
+            long firstColumn = (long) Math.floor((longitude - halfWidth + 180) / cellWidth);
+            long lastColumn = (long) Math.floor((longitude + halfWidth + 180) / cellWidth);
+            if (lastColumn - firstColumn + 1 >= columns) {
+                firstColumn = 0;
+                lastColumn = columns - 1;
+            }
+            // coverings of many small cells are skipped without listing them, a coarser precision is tried
+            if ((lastRow - firstRow + 1) * (lastColumn - firstColumn + 1) > 4 * MAX_RANGES) {
+                continue;
+            }
+            TreeSet<String> cells = new TreeSet<>();
+            for (long row = firstRow; row <= lastRow; row++) {
+                for (long column = firstColumn; column <= lastColumn; column++) {
+                    // the centre of the cell, with columns past the antimeridian wrapped around
+                    double lng = (Math.floorMod(column, columns) + 0.5) * cellWidth - 180;
+                    cells.add(GeoHash.encode((row + 0.5) * cellHeight - 90, lng, precision));
+                }
+            }
+            List<Range> ranges = merge(cells);
+            if (ranges.size() <= MAX_RANGES) {
+                return ranges;
+            }
+        }
+        return Collections.singletonList(new Range("0", "z"));
+    }
+
+    private static List<Range> merge(TreeSet<String> cells) {
+        List<Range> ranges = new ArrayList<>();
+        String start = null;
+        String end = null;
+        for (String cell : cells) {
+            if (start != null && cell.equals(increment(end))) {
+                end = cell;
+                continue;
+            }
+            if (start != null) {
+                ranges.add(new Range(start, end));
+            }
+            start = cell;
+            end = cell;
+        }
+        ranges.add(new Range(start, end));
+        return ranges;
+    }
+
+    // the geohash following a hash of the same length, or null after the last one
+    private static String increment(String hash) {
+        char[] chars = hash.toCharArray();
+        for (int i = chars.length - 1; i >= 0; i--) {
+            int value = BASE32.indexOf(chars[i]);
+            if (value < 31) {
+                chars[i] = BASE32.charAt(value + 1);
+                return new String(chars);
+            }
+            chars[i] = BASE32.charAt(0);
+        }
+        return null;
+    }
+
+    /**
+     * Computes the great-circle distance between two points with the haversine formula.
+     *
+     * @param latitude1  The latitude of the first point.
+     * @param longitude1 The longitude of the first point.
+     * @param latitude2  The latitude of the second point.
+     * @param longitude2 The longitude of the second point.
+     * @return The distance in metres.
+     */
+    public static double distanceMeters(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLat = Math.toRadians(latitude2 - latitude1);
+        double dLng = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Keeps the candidates inside a circle, nearest first.
+     *
+     * @param candidates   The items read by the range queries, possibly outside of the circle.
+     * @param latitudeOf   Reads the latitude of an item.
+     * @param longitudeOf  Reads the longitude of an item.
+     * @param latitude     The latitude of the centre.
+     * @param longitude    The longitude of the centre.
+     * @param radiusMeters The radius of the circle in metres.
+     * @param <T>          The type of the items.
+     * @return The items within the radius, sorted by distance to the centre.
+     */
+    public static <T> List<T> nearest(Iterable<T> candidates, ToDoubleFunction<T> latitudeOf,
+                                      ToDoubleFunction<T> longitudeOf, double latitude, double longitude,
+                                      double radiusMeters) {
+        List<T> items = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (T candidate : candidates) {
+            double distance = distanceMeters(latitude, longitude,
+                    latitudeOf.applyAsDouble(candidate), longitudeOf.applyAsDouble(candidate));
+            if (distance <= radiusMeters) {
+                items.add(candidate);
+                distances.add(distance);
+            }
+        }
+        // the distances are computed once, not again for every comparison
+        Integer[] order = new Integer[items.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(distances.get(a), distances.get(b)));
+        List<T> sorted = new ArrayList<>(order.length);
+        for (Integer index : order) {
+            sorted.add(items.get(index));
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.syntaxeventlottery;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code ImageLoadStats} class counts where loaded images came from, so that the hit rate of the
+ * image caches can be logged. It is fed by the request listener of {@link LotteryGlideModule}.
+ */
+public final class ImageLoadStats {
+
+    /**
+     * Where an image was loaded from.
+     */
+    public enum Source {
+        /** The in-memory cache of decoded images. */
+        MEMORY,
+        /** The disk cache, either the original data or a resized copy. */
+        DISK,
+        /** The network. */
+        REMOTE,
+        /** A local resource such as a drawable. */
+        LOCAL,
+        /** The load failed. */
+        FAILED
+    }
+
+    private static final ImageLoadStats instance = new ImageLoadStats();
+
+    private final AtomicLongArray counts = new AtomicLongArray(Source.values().length);
+
+    /**
+     * Creates empty counters. Use {@link #getInstance()} for the counters of the app.
+     */
+    ImageLoadStats() {
+    }
+
+    /**
+     * Returns the counters shared by the whole process.
+     *
+     * @return The shared {@code ImageLoadStats}.
+     */
+    public static ImageLoadStats getInstance() {
+        return instance;
+    }
+
+    /**
+     * Counts one load.
+     *
+     * @param source Where the image came from.
+     * @return The total number of loads counted so far.
+     */
+    public long record(Source source) {
+        counts.incrementAndGet(source.ordinal());
+        return getTotal();
+    }
+
+    /**
+     * Gets the number of loads counted for a source.
+     *
+     * @param source The source to look up.
+     * @return The number of loads from that source.
+     */
+    public long getCount(Source source) {
+        return counts.get(source.ordinal());
+    }
+
+    /**
+     * Gets the number of loads counted, whatever their source.
+     *
+     * @return The total number of loads.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Gets the share of remote images that were served from the memory or disk cache.
+     *
+     * @return The hit rate between 0 and 1, or 0 if no remote image was loaded yet.
+     */
+    public double getHitRate() {
+        long hits = getCount(Source.MEMORY) + getCount(Source.DISK);
+        long loads = hits + getCount(Source.REMOTE);
+        return loads == 0 ? 0 : (double) hits / loads;
+    }
+
+    /**
+     * Resets every counter to zero.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d image loads (memory %d, disk %d, remote %d, local %d, failed %d), hit rate %.1f%%",
+                getTotal(), getCount(Source.MEMORY), getCount(Source.DISK), getCount(Source.REMOTE),
+                getCount(Source.LOCAL), getCount(Source.FAILED), getHitRate() * 100);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.syntaxeventlottery;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+/**
+ * The {@code ImageLoader} class builds the Glide requests for posters and profile photos, so that list
+ * rows, their preloaders and the detail screens load images the same way.
+ * Rows load the thumbnail variant into fixed-size views, which Glide decodes at the view's size. The
+ * preloaders build the identical request, so a prefetched row is a memory cache hit when it is bound.
+ * Detail screens show the thumbnail first and replace it once the full image is loaded.
+ */
+public final class ImageLoader {
+    /** Number of rows ahead of the visible ones whose images are fetched while scrolling. */
+    public static final int MAX_PRELOAD = 10;
+
+    private ImageLoader() {
+    }
+
+    /**
+     * Builds the request for the poster shown in an event list row.
+     *
+     * @param glide The request manager of the screen.
+     * @param event The event whose poster is loaded.
+     * @return The request, showing the default poster if the event has none.
+     */
+    public static RequestBuilder<Drawable> posterRow(RequestManager glide, Event event) {
+        return glide.load(rowUrl(event.getPosterThumbnailUrl(), event.getPosterUrl()))
+                .centerCrop()
+                .fallback(R.drawable.ic_no_event_poster)
+                .error(R.drawable.ic_no_event_poster);
+    }
+
+    /**
+     * Builds the request for the profile photo shown in a user list row.
+     *
+     * @param glide The request manager of the screen.
+     * @param user  The user whose photo is loaded.
+     * @return The request.
+     */
+    public static RequestBuilder<Drawable> photoRow(RequestManager glide, User user) {
+        return glide.load(rowUrl(user.getProfileThumbnailUrl(), user.getProfilePhotoUrl()))
+                .centerCrop();
+    }
+
+    /**
+     * Loads the full poster of an event, showing its thumbnail while the full image loads.
+     *
+     * @param context The context of the screen.
+     * @param event   The event whose poster is loaded.
+     * @param view    The view showing the poster.
+     */
+    public static void loadPoster(Context context, Event event, ImageView view) {
+        RequestManager glide = Glide.with(context);
+        RequestBuilder<Drawable> request = glide.load(emptyToNull(event.getPosterUrl()))
+                .fallback(R.drawable.ic_no_event_poster)
+                .error(R.drawable.ic_no_event_poster);
+        String thumbnailUrl = emptyToNull(event.getPosterThumbnailUrl());
+        if (thumbnailUrl != null) {
+            request = request.thumbnail(glide.load(thumbnailUrl));
+        }
+        request.into(view);
+    }
+
+    /**
+     * Creates the provider telling a preloader which image each row of a list shows.
+     *
+     * @param glide   The request manager of the screen.
+     * @param itemAt  Gets the item shown at a position, or {@code null} past the end of the list.
+     * @param request Builds the row request of an item, it must match the request used when binding.
+     * @param <T>     The item type.
+     * @return The model provider.
+     */
+    public static <T> ListPreloader.PreloadModelProvider<T> preloadModels(
+            RequestManager glide, IntFunction<T> itemAt, BiFunction<RequestManager, T, RequestBuilder<?>> request) {
+        return new ListPreloader.PreloadModelProvider<T>() {
+            @NonNull
+            @Override
+            public List<T> getPreloadItems(int position) {
+                T item = itemAt.apply(position);
+                return item == null ? Collections.emptyList() : Collections.singletonList(item);
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<?> getPreloadRequestBuilder(@NonNull T item) {
+                return request.apply(glide, item);
+            }
+        };
+    }
+
+    // rows show the thumbnail, images uploaded before thumbnails existed fall back to the full image
+    private static String rowUrl(String thumbnailUrl, String fullUrl) {
+        String url = emptyToNull(thumbnailUrl);
+        return url != null ? url : emptyToNull(fullUrl);
+    }
+
+    private static String emptyToNull(String url) {
+        return url == null || url.isEmpty() ? null : url;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.syntaxeventlottery;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code ImagePreparer} class turns a picked image into the bytes that are uploaded.
+ * Camera and gallery images are often several megabytes; before upload they are decoded with an
+ * {@code inSampleSize}, rotated upright, scaled to bounded dimensions and re-encoded, which also
+ * drops every EXIF tag (including location). A small thumbnail variant is produced for list rows.
+ */
+public class ImagePreparer {
+    private static ImagePreparer instance;
+
+    /**
+     * The bounds and encoding of a prepared image.
+     */
+    public static class ImageSpec {
+        /** Event posters shown on the detail screens. */
+        public static final ImageSpec POSTER = new ImageSpec(1280, Bitmap.CompressFormat.JPEG, 80);
+        /** Event posters shown in event lists. */
+        public static final ImageSpec POSTER_THUMBNAIL = new ImageSpec(320, Bitmap.CompressFormat.JPEG, 70);
+        /** Profile photos shown on the profile screens. */
+        public static final ImageSpec PROFILE_PHOTO = new ImageSpec(512, Bitmap.CompressFormat.JPEG, 85);
+        /** Profile photos shown in user lists. */
+        public static final ImageSpec PROFILE_THUMBNAIL = new ImageSpec(128, Bitmap.CompressFormat.JPEG, 75);
+
+        private final int maxDimension;
+        private final Bitmap.CompressFormat format;
+        private final int quality;
+
+        /**
+         * Creates a spec.
+         *
+         * @param maxDimension The maximum width and height in pixels.
+         * @param format       The format the image is encoded in.
+         * @param quality      The encoding quality, from 0 to 100.
+         */
+        public ImageSpec(int maxDimension, Bitmap.CompressFormat format, int quality) {
+            this.maxDimension = maxDimension;
+            this.format = format;
+            this.quality = quality;
+        }
+    }
+
+    /**
+     * The encoded image and its thumbnail.
+     */
+    public static class PreparedImage {
+        private final byte[] image;
+        private final byte[] thumbnail;
+
+        PreparedImage(byte[] image, byte[] thumbnail) {
+            this.image = image;
+            this.thumbnail = thumbnail;
+        }
+
+        public byte[] getImage() {
+            return image;
+        }
+
+        public byte[] getThumbnail() {
+            return thumbnail;
+        }
+    }
+
+    private final ContentResolver resolver;
+    private final ExecutorService executor;
+    private final Handler mainHandler;
+
+    private ImagePreparer(ContentResolver resolver) {
+        this.resolver = resolver;
+        this.executor = Executors.newSingleThreadExecutor();
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Creates the shared preparer, called once when the application starts.
+     *
+     * @param context The application context.
+     */
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new ImagePreparer(context.getApplicationContext().getContentResolver());
+        }
+    }
+
+    /**
+     * Returns the shared preparer.
+     *
+     * @return The shared {@code ImagePreparer}.
+     * @throws IllegalStateException If {@link #init(Context)} has not been called.
+     */
+    public static synchronized ImagePreparer getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("ImagePreparer is not initialized");
+        }
+        return instance;
+    }
+
+    /**
+     * Prepares an image and its thumbnail off the main thread.
+     *
+     * @param source        The URI of the picked image.
+     * @param imageSpec     The bounds and encoding of the image.
+     * @param thumbnailSpec The bounds and encoding of the thumbnail.
+     * @param callback      The callback receiving the encoded bytes on the main thread.
+     */
+    public void prepare(Uri source, ImageSpec imageSpec, ImageSpec thumbnailSpec, DataCallback<PreparedImage> callback) {
+        executor.execute(() -> {
+            try {
+                PreparedImage prepared = prepare(source, imageSpec, thumbnailSpec);
+                mainHandler.post(() -> callback.onSuccess(prepared));
+            } catch (IOException | RuntimeException e) {
+                mainHandler.post(() -> callback.onError(e));
+            }
+        });
+    }
+
+    private PreparedImage prepare(Uri source, ImageSpec imageSpec, ImageSpec thumbnailSpec) throws IOException {
+        // first pass only reads the dimensions
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = open(source)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Cannot decode image " + source);
+        }
+
+        int rotation;
+        try (InputStream in = open(source)) {
+            rotation = rotationOf(new ExifInterface(in));
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, imageSpec.maxDimension);
+        Bitmap decoded;
+        try (InputStream in = open(source)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Cannot decode image " + source);
+        }
+
+        Bitmap image = transform(decoded, rotation, imageSpec.maxDimension);
+        if (image != decoded) {
+            decoded.recycle();
+        }
+        Bitmap thumbnail = transform(image, 0, thumbnailSpec.maxDimension);
+        try {
+            return new PreparedImage(encode(image, imageSpec), encode(thumbnail, thumbnailSpec));
+        } finally {
+            if (thumbnail != image) {
+                thumbnail.recycle();
+            }
+            image.recycle();
+        }
+    }
+
+    private InputStream open(Uri source) throws IOException {
+        InputStream in = resolver.openInputStream(source);
+        if (in == null) {
+            throw new IOException("Cannot open image " + source);
+        }
+        return in;
+    }
+
+    private static int rotationOf(ExifInterface exif) {
+        switch (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                return 90;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                return 180;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                return 270;
+            default:
+                return 0;
+        }
+    }
+
+    // scales the bitmap down to fit maxDimension and applies the rotation, returns the source if nothing changes
+    private static Bitmap transform(Bitmap source, int rotation, int maxDimension) {
+        int[] size = scaledSize(source.getWidth(), source.getHeight(), maxDimension);
+        if (rotation == 0 && size[0] == source.getWidth() && size[1] == source.getHeight()) {
+            return source;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postScale((float) size[0] / source.getWidth(), (float) size[1] / source.getHeight());
+        matrix.postRotate(rotation);
+        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+    }
+
+    private static byte[] encode(Bitmap bitmap, ImageSpec spec) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(spec.format, spec.quality, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Calculates the largest power of two sample size that keeps the decoded image at least
+     * {@code maxDimension} on its longer side, so it is never upscaled afterwards.
+     *
+     * @param width        The width of the source image.
+     * @param height       The height of the source image.
+     * @param maxDimension The maximum width and height of the prepared image.
+     * @return The sample size to decode with.
+     */
+    static int calculateInSampleSize(int width, int height, int maxDimension) {
+        int longer = Math.max(width, height);
+        int sampleSize = 1;
+        while (longer / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Calculates the size of an image scaled down to fit in a square of {@code maxDimension},
+     * keeping its aspect ratio. Images that already fit keep their size.
+     *
+     * @param width        The width of the image.
+     * @param height       The height of the image.
+     * @param maxDimension The maximum width and height.
+     * @return The scaled width and height.
+     */
+    static int[] scaledSize(int width, int height, int maxDimension) {
+        int longer = Math.max(width, height);
+        if (longer <= maxDimension) {
+            return new int[] {width, height};
+        }
+        double scale = (double) maxDimension / longer;
+        return new int[] {
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))};
+    }
+}
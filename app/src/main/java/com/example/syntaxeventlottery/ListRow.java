@@ -0,0 +1,90 @@
+package com.example.syntaxeventlottery;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The {@code ListRow} class is an item of a RecyclerView list together with its ID and the values its row
+ * displays, captured when the list is submitted to a {@link androidx.recyclerview.widget.ListAdapter}.
+ * Events and users are edited in place by some screens, so comparing the items themselves would miss those
+ * changes; the diff compares the captured values instead, and only rows whose values changed are bound again.
+ *
+ * @param <T> The type of the item.
+ */
+public final class ListRow<T> {
+    private final String id;
+    private final T item;
+    private final List<Object> content;
+
+    private ListRow(String id, T item, List<Object> content) {
+        this.id = id;
+        this.item = item;
+        this.content = content;
+    }
+
+    /**
+     * Creates a row.
+     *
+     * @param id      The ID of the item, such as the event ID.
+     * @param item    The item shown in the row.
+     * @param content The values the row displays.
+     * @param <T>     The type of the item.
+     * @return The row.
+     */
+    public static <T> ListRow<T> of(String id, T item, Object... content) {
+        return new ListRow<>(id, item, Arrays.asList(content));
+    }
+
+    /**
+     * Creates the rows of a list.
+     *
+     * @param items   The items of the list, {@code null} for an empty list.
+     * @param id      Gets the ID of an item.
+     * @param content Gets the values the row of an item displays.
+     * @param <T>     The type of the items.
+     * @return The rows, in the order of the items.
+     */
+    public static <T> List<ListRow<T>> of(List<T> items, Function<T, String> id, Function<T, Object[]> content) {
+        List<ListRow<T>> rows = new ArrayList<>();
+        if (items != null) {
+            for (T item : items) {
+                rows.add(of(id.apply(item), item, content.apply(item)));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Creates the callback a {@code ListAdapter} uses to diff lists of rows on a background thread.
+     *
+     * @param <T> The type of the items.
+     * @return The diff callback.
+     */
+    public static <T> DiffUtil.ItemCallback<ListRow<T>> diffCallback() {
+        return new DiffUtil.ItemCallback<ListRow<T>>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull ListRow<T> oldRow, @NonNull ListRow<T> newRow) {
+                return Objects.equals(oldRow.id, newRow.id);
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull ListRow<T> oldRow, @NonNull ListRow<T> newRow) {
+                return oldRow.content.equals(newRow.content);
+            }
+        };
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public T getItem() {
+        return item;
+    }
+}
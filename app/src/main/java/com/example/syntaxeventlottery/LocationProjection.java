@@ -0,0 +1,158 @@
+package com.example.syntaxeventlottery;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code LocationProjection} class keeps a copy of the locations of the participants of a location-required
+ * event, so that the event map reads every location with one query instead of reading every participant's user
+ * document. The locations are packed as {@link ProjectedLocation} strings into the {@code points} map of
+ * {@link #SHARDS} documents under {@code events/{eventId}/locations}, each participant in the shard chosen by
+ * their user ID. Concurrent joins are spread over the shards instead of all writing one document.
+ *
+ * <p>A location is stored when an entrant joins and removed when they leave or are cancelled. Entrants who joined
+ * before the projection existed are missing from it, so readers compare its size with the participant count.</p>
+ */
+public class LocationProjection {
+    private static final String TAG = "LocationProjection";
+
+    /** Number of documents the locations of an event are spread over. */
+    static final int SHARDS = 8;
+    private static final String POINTS = "points";
+
+    private final FirebaseFirestore db;
+    private final CollectionReference eventsRef;
+
+    /**
+     * Creates a location projection for the given events collection.
+     *
+     * @param db        The Firestore instance, used for write batches.
+     * @param eventsRef The events collection.
+     */
+    public LocationProjection(FirebaseFirestore db, CollectionReference eventsRef) {
+        this.db = db;
+        this.eventsRef = eventsRef;
+    }
+
+    private CollectionReference locations(String eventId) {
+        return eventsRef.document(eventId).collection("locations");
+    }
+
+    private DocumentReference shard(String eventId, String userId) {
+        return locations(eventId).document(String.valueOf(Math.floorMod(userId.hashCode(), SHARDS)));
+    }
+
+    /**
+     * Stores the location of a participant, replacing a location stored before.
+     *
+     * @param eventId  The ID of the event.
+     * @param location The location of the participant.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void put(String eventId, ProjectedLocation location, DataCallback<Void> callback) {
+        Map<String, Object> points = Collections.singletonMap(location.getUserId(), location.pack());
+        // merging creates the shard on the first join and leaves the other participants untouched
+        shard(eventId, location.getUserId()).set(Collections.singletonMap(POINTS, points), SetOptions.merge())
+                .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to store the location of " + location.getUserId(), e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Removes the locations of participants.
+     *
+     * @param eventId  The ID of the event.
+     * @param userIds  The IDs of the participants.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void remove(String eventId, List<String> userIds, DataCallback<Void> callback) {
+        Map<DocumentReference, Map<String, Object>> deletes = new HashMap<>();
+        for (String userId : userIds) {
+            DocumentReference ref = shard(eventId, userId);
+            if (!deletes.containsKey(ref)) {
+                deletes.put(ref, new HashMap<>());
+            }
+            deletes.get(ref).put(userId, FieldValue.delete());
+        }
+        WriteBatch batch = db.batch();
+        for (Map.Entry<DocumentReference, Map<String, Object>> entry : deletes.entrySet()) {
+            batch.set(entry.getKey(), Collections.singletonMap(POINTS, entry.getValue()), SetOptions.merge());
+        }
+        batch.commit()
+                .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to remove locations from " + eventId, e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Reads the locations of every participant stored in the projection, with a single query.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback A callback receiving the locations, empty if none were stored.
+     */
+    public void load(String eventId, DataCallback<List<ProjectedLocation>> callback) {
+        locations(eventId).get()
+                .addOnSuccessListener(snapshot -> {
+                    List<ProjectedLocation> result = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        Object points = doc.get(POINTS);
+                        if (!(points instanceof Map)) {
+                            continue;
+                        }
+                        for (Map.Entry<?, ?> entry : ((Map<?, ?>) points).entrySet()) {
+                            Object packed = entry.getValue();
+                            ProjectedLocation location = packed instanceof String
+                                    ? ProjectedLocation.unpack(String.valueOf(entry.getKey()), (String) packed) : null;
+                            if (location != null) {
+                                result.add(location);
+                            }
+                        }
+                    }
+                    callback.onSuccess(result);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to load locations of " + eventId, e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Deletes the projection of an event, since subcollections are not deleted with their parent document.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback A callback to notify the success or failure of the operation.
+     */
+    public void deleteAll(String eventId, DataCallback<Void> callback) {
+        locations(eventId).get()
+                .addOnSuccessListener(snapshot -> {
+                    WriteBatch batch = db.batch();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        batch.delete(doc.getReference());
+                    }
+                    batch.commit()
+                            .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                            .addOnFailureListener(callback::onError);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to delete locations of " + eventId, e);
+                    callback.onError(e);
+                });
+    }
+}
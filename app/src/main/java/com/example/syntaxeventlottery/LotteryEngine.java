@@ -0,0 +1,117 @@
+package com.example.syntaxeventlottery;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.RandomAccess;
+
+/**
+ * The {@code LotteryEngine} class draws winners from an event's waiting list.
+ * Winners are chosen with a partial Fisher-Yates shuffle over a sparse index map, so drawing
+ * {@code k} winners takes O(k) time no matter how long the waiting list is. The random number
+ * generator can be replaced, for example with a seeded {@link Random} to make draws reproducible.
+ */
+public class LotteryEngine {
+
+    private final Random random;
+
+    /**
+     * Creates a lottery engine backed by a {@link SecureRandom}.
+     */
+    public LotteryEngine() {
+        this(new SecureRandom());
+    }
+
+    /**
+     * Creates a lottery engine backed by the given random number generator.
+     *
+     * @param random The random number generator used for the draws.
+     */
+    public LotteryEngine(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Selects {@code count} distinct winners uniformly at random from the pool.
+     * If the pool holds no more than {@code count} entrants, all of them win.
+     *
+     * @param pool  The entrants to draw from, left unchanged.
+     * @param count The number of winners to select.
+     * @return The winners, in the order they were drawn.
+     */
+    public List<String> selectWinners(List<String> pool, int count) {
+        List<String> entrants = pool instanceof RandomAccess ? pool : new ArrayList<>(pool);
+        int n = entrants.size();
+        int k = Math.max(0, Math.min(count, n));
+        List<String> winners = new ArrayList<>(k);
+        if (k == n) {
+            winners.addAll(entrants);
+            return winners;
+        }
+
+        // positions whose value was swapped away, every other position i still holds index i
+        HashMap<Integer, Integer> swapped = new HashMap<>();
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            Integer atI = swapped.get(i);
+            Integer atJ = swapped.get(j);
+            int valueI = atI == null ? i : atI;
+            int valueJ = atJ == null ? j : atJ;
+            // position i is never read again, only remember what moved into position j
+            swapped.put(j, valueI);
+            swapped.remove(i);
+            winners.add(entrants.get(valueJ));
+        }
+        return winners;
+    }
+
+    /**
+     * Draws {@code count} winners and partitions the pool into winners and remaining entrants.
+     * The remaining entrants keep their order from the pool and are collected in one linear pass.
+     *
+     * @param pool  The entrants to draw from, left unchanged.
+     * @param count The number of winners to select.
+     * @return The {@link DrawResult} holding the winners and the remaining entrants.
+     */
+    public DrawResult draw(List<String> pool, int count) {
+        List<String> winners = selectWinners(pool, count);
+        HashSet<String> winnerSet = new HashSet<>(winners);
+        List<String> remaining = new ArrayList<>(Math.max(0, pool.size() - winners.size()));
+        for (String entrant : pool) {
+            if (!winnerSet.contains(entrant)) {
+                remaining.add(entrant);
+            }
+        }
+        return new DrawResult(winners, remaining);
+    }
+
+    /**
+     * The result of a draw: the selected winners and the entrants that were not selected.
+     */
+    public static class DrawResult {
+        private final List<String> winners;
+        private final List<String> remaining;
+
+        DrawResult(List<String> winners, List<String> remaining) {
+            this.winners = winners;
+            this.remaining = remaining;
+        }
+
+        /**
+         * @return The selected entrants, in the order they were drawn.
+         */
+        public List<String> getWinners() {
+            return winners;
+        }
+
+        /**
+         * @return The entrants that were not selected, in their original order.
+         */
+        public List<String> getRemaining() {
+            return remaining;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.syntaxeventlottery;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.request.target.Target;
+
+/**
+ * Glide configuration of the app.
+ * The memory cache and bitmap pool are sized from the device's screen and memory class, the disk
+ * cache is bounded and smaller on low-RAM devices, which also decode to RGB_565. Every load is
+ * counted in {@link ImageLoadStats} and a summary is logged at regular intervals.
+ */
+@GlideModule
+public final class LotteryGlideModule extends AppGlideModule {
+    private static final String TAG = "LotteryGlideModule";
+    // list screens keep a couple of screens of rows decoded
+    private static final float MEMORY_CACHE_SCREENS = 3;
+    private static final long DISK_CACHE_SIZE = 250L * 1024 * 1024;
+    private static final long LOW_RAM_DISK_CACHE_SIZE = 50L * 1024 * 1024;
+    /** A summary of the load counters is logged every this many loads. */
+    private static final int LOG_INTERVAL = 100;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+
+        ActivityManager activityManager = context.getSystemService(ActivityManager.class);
+        boolean lowRam = activityManager != null && activityManager.isLowRamDevice();
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, lowRam ? LOW_RAM_DISK_CACHE_SIZE : DISK_CACHE_SIZE));
+        if (lowRam) {
+            builder.setDefaultRequestOptions(new RequestOptions().format(DecodeFormat.PREFER_RGB_565));
+        }
+        builder.addGlobalRequestListener(new StatsListener());
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+
+    private static class StatsListener implements RequestListener<Object> {
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Object> target, boolean isFirstResource) {
+            record(ImageLoadStats.Source.FAILED);
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(Object resource, Object model, Target<Object> target,
+                                       DataSource dataSource, boolean isFirstResource) {
+            switch (dataSource) {
+                case MEMORY_CACHE:
+                    record(ImageLoadStats.Source.MEMORY);
+                    break;
+                case RESOURCE_DISK_CACHE:
+                case DATA_DISK_CACHE:
+                    record(ImageLoadStats.Source.DISK);
+                    break;
+                case REMOTE:
+                    record(ImageLoadStats.Source.REMOTE);
+                    break;
+                default:
+                    record(ImageLoadStats.Source.LOCAL);
+                    break;
+            }
+            return false;
+        }
+
+        private void record(ImageLoadStats.Source source) {
+            ImageLoadStats stats = ImageLoadStats.getInstance();
+            if (stats.record(source) % LOG_INTERVAL == 0) {
+                Log.d(TAG, stats.toString());
+            }
+        }
+    }
+}
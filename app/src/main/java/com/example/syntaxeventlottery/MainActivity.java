@@ -89,7 +89,7 @@ public class MainActivity extends AppCompatActivity {
             Toast.makeText(this, "Error: Unable to initialize LocationManager", Toast.LENGTH_LONG).show();
             return;
         }
-        userController = new UserController(new UserRepository(), locationManager);
+        userController = new UserController(App.getUserRepository(), locationManager);
 
         // Initialize UI
         adminButton = findViewById(R.id.adminButton);
@@ -186,10 +186,10 @@ public class MainActivity extends AppCompatActivity {
 //            return;
 //        }
 
-        userController.refreshRepository(new DataCallback<Void>() {
+        userController.getUser(deviceId, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                currentUser = userController.getUserByDeviceID(deviceId);
+            public void onSuccess(User result) {
+                currentUser = result;
                 Log.d(TAG, "Current user: " + currentUser);
                 if (currentUser == null) {
                     openCreateProfileActivity();
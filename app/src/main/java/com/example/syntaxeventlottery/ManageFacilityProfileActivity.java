@@ -27,6 +27,7 @@ public class ManageFacilityProfileActivity extends AppCompatActivity {
     public Button buttonSave;
     public UserController userController;
     public EventController eventController;
+    private EventGeocoder eventGeocoder;
     public User currentUser;
     private String deviceID;
     private Facility facility;
@@ -52,8 +53,9 @@ public class ManageFacilityProfileActivity extends AppCompatActivity {
         deviceID = Settings.Secure.getString(getContentResolver(), Settings.Secure.ANDROID_ID);
 
         // Initalize controllers
-        userController = new UserController(new UserRepository());
-        eventController = new EventController(new EventRepository());
+        userController = new UserController(App.getUserRepository());
+        eventController = new EventController(App.getEventRepository());
+        eventGeocoder = new EventGeocoder(this);
 
         // Set onClick listener for the Back button
         buttonBack.setOnClickListener(new View.OnClickListener() {
@@ -75,10 +77,10 @@ public class ManageFacilityProfileActivity extends AppCompatActivity {
      * If no facility is found, redirects to `FacilityProfileActivity` to create one.
      */
     public void getCurrentFacilityDetails() {
-        userController.refreshRepository(new DataCallback<Void>() {
+        userController.getUser(deviceID, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                currentUser = userController.getUserByDeviceID(deviceID);
+            public void onSuccess(User result) {
+                currentUser = result;
                 if (currentUser == null) {
                     Toast.makeText(ManageFacilityProfileActivity.this, "Failed to retrieve facility information.", Toast.LENGTH_SHORT).show();
                     finish();
@@ -152,10 +154,24 @@ public class ManageFacilityProfileActivity extends AppCompatActivity {
      * @param newFacilityLocation The updated facility location.
      */
     private void updateUserEvents(User user, String newFacilityName, String newFacilityLocation) {
-        eventController.refreshRepository(new DataCallback<Void>() {
+        // the events move with the facility, so their coordinates are looked up again
+        eventGeocoder.locate(newFacilityLocation, new DataCallback<double[]>() {
             @Override
-            public void onSuccess(Void result) {
-                ArrayList<Event> organizerEvents = eventController.getOrganizerEvents(user.getUserID());
+            public void onSuccess(double[] coordinates) {
+                updateUserEvents(user, newFacilityName, newFacilityLocation, coordinates);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                updateUserEvents(user, newFacilityName, newFacilityLocation, null);
+            }
+        });
+    }
+
+    private void updateUserEvents(User user, String newFacilityName, String newFacilityLocation, double[] coordinates) {
+        eventController.loadAllOrganizerEvents(user.getUserID(), new DataCallback<ArrayList<Event>>() {
+            @Override
+            public void onSuccess(ArrayList<Event> organizerEvents) {
                 if (organizerEvents.isEmpty()) {
                     Toast.makeText(ManageFacilityProfileActivity.this, "Facility Profile updated", Toast.LENGTH_SHORT).show();
                     startActivity(new Intent(ManageFacilityProfileActivity.this, OrganizerActivity.class));
@@ -169,7 +185,8 @@ public class ManageFacilityProfileActivity extends AppCompatActivity {
                 for (Event e : organizerEvents) {
                     e.setFacilityName(newFacilityName);
                     e.setFacilityLocation(newFacilityLocation);
-                    eventController.updateEvent(e, null, null, new DataCallback<Event>() {
+                    e.setCoordinates(coordinates == null ? null : coordinates[0], coordinates == null ? null : coordinates[1]);
+                    eventController.updateEvent(e, null, new DataCallback<Event>() {
                         @Override
                         public void onSuccess(Event result) {
                             Log.d(TAG, "Event details updated: " + result);
@@ -2,6 +2,8 @@ package com.example.syntaxeventlottery;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.ImageButton;
 import android.widget.Toast;
@@ -12,11 +14,18 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.gms.maps.*;
 import com.google.android.gms.maps.model.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * MapActivity provides a Google Maps interface to display participant locations for a specific event.
- * It allows users to visualize participant locations on a map, with markers for each participant.
+ * It allows users to visualize participant locations on a map. Nearby participants are grouped into
+ * clusters by a {@link MarkerClusterer} built off the main thread, and only the clusters in view are shown.
  */
 public class MapActivity extends AppCompatActivity implements OnMapReadyCallback {
 
@@ -29,6 +38,19 @@ public class MapActivity extends AppCompatActivity implements OnMapReadyCallback
     // Back Button for returning to the previous screen
 
     private EventController eventController;
+    private UserController userController;
+    private ParticipantLocationLoader locationLoader;
+    private boolean locationsRequested;
+    private boolean cameraMoved;
+
+    // every participant location loaded so far, clustered by the background executor
+    private final List<LatLng> participantLocations = new ArrayList<>();
+    private final Map<Long, Marker> shownMarkers = new HashMap<>();
+    private final ExecutorService clusterExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private MarkerClusterer clusterer;
+    private boolean clustering;
+    private boolean clustersOutdated;
 
 
     /**
@@ -51,15 +73,19 @@ public class MapActivity extends AppCompatActivity implements OnMapReadyCallback
         }
 
         // Initialize EventController
-        eventController = new EventController(new EventRepository());
-        eventController.refreshRepository(new DataCallback<Void>() {
+        eventController = new EventController(App.getEventRepository());
+        userController = new UserController(App.getUserRepository());
+        locationLoader = new ParticipantLocationLoader(userController::getUserLocations);
+        eventController.getEvent(eventID, new DataCallback<Event>() {
             @Override
-            public void onSuccess(Void result) {
-                event = eventController.getEventById(eventID);
+            public void onSuccess(Event result) {
+                event = result;
                 if (event == null) {
                     Toast.makeText(MapActivity.this, "Event not found.", Toast.LENGTH_SHORT).show();
                     finish();
+                    return;
                 }
+                loadParticipantLocations();
             }
 
             @Override
@@ -97,35 +123,87 @@ public class MapActivity extends AppCompatActivity implements OnMapReadyCallback
         this.googleMap = googleMap;
         Log.d(TAG, "Map is ready");
 
-        // Load participant locations onto the map
+        // clusters are recomputed for the new view once the camera stops moving
+        googleMap.setOnCameraIdleListener(this::showClusters);
 
-            loadParticipantLocations();
+        // Load participant locations onto the map
+        loadParticipantLocations();
+    }
 
+    /**
+     * Loads participant locations onto the map as markers, once both the event and the map are ready.
+     * The locations are read from the event's location projection, or from the participants' user documents
+     * if the projection is incomplete.
+     */
+    private void loadParticipantLocations() {
+        if (event == null || googleMap == null || locationsRequested) {
+            return;
+        }
+        locationsRequested = true;
+        eventController.loadMapLocations(event, new DataCallback<List<ProjectedLocation>>() {
+            @Override
+            public void onSuccess(List<ProjectedLocation> projected) {
+                if (projected == null) {
+                    loadLocationsFromUsers();
+                    return;
+                }
+                if (isDestroyed()) {
+                    return;
+                }
+                Log.d(TAG, projected.size() + " participant locations loaded from the projection");
+                if (projected.isEmpty()) {
+                    Toast.makeText(MapActivity.this, "No participants found for this event.", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                List<LatLng> locations = new ArrayList<>(projected.size());
+                for (ProjectedLocation location : projected) {
+                    locations.add(new LatLng(location.getLatitude(), location.getLongitude()));
+                }
+                addLocations(locations);
+            }
 
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Failed to load the location projection", e);
+                loadLocationsFromUsers();
+            }
+        });
     }
 
     /**
-     * Loads participant locations onto the map as markers.
+     * Loads participant locations from the participants' user documents.
+     * Markers are added chunk by chunk while the locations arrive.
      */
-    private void loadParticipantLocations() {
-        // Use EventController to get participant locations
-        eventController.getAllParticipantLocations(eventID, new DataCallback<List<LatLng>>() {
+    private void loadLocationsFromUsers() {
+        eventController.loadMapParticipantIds(event, new DataCallback<List<String>>() {
             @Override
-            public void onSuccess(List<LatLng> participantLocations) {
-                if (participantLocations != null && !participantLocations.isEmpty()) {
-                    for (LatLng latLng : participantLocations) {
-                        // Add a marker for each participant's location on the map
-                        googleMap.addMarker(new MarkerOptions()
-                                .position(latLng)
-                                .title("Participant"));
-                        // Move the camera to the first location
-                        if (participantLocations.indexOf(latLng) == 0) {
-                            googleMap.moveCamera(CameraUpdateFactory.newLatLngZoom(latLng, 10));
+            public void onSuccess(List<String> participantIds) {
+                if (participantIds.isEmpty()) {
+                    Toast.makeText(MapActivity.this, "No participants found for this event.", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                locationLoader.load(participantIds, new ParticipantLocationLoader.Listener() {
+                    @Override
+                    public void onLocations(List<LatLng> locations) {
+                        if (isDestroyed()) {
+                            return;
                         }
+                        addLocations(locations);
                     }
-                } else {
-                    Toast.makeText(MapActivity.this, "No participant locations found.", Toast.LENGTH_SHORT).show();
-                }
+
+                    @Override
+                    public void onComplete(List<LatLng> locations, int failedChunks) {
+                        if (isDestroyed()) {
+                            return;
+                        }
+                        Log.d(TAG, locations.size() + " participant locations loaded, " + failedChunks + " chunks failed");
+                        if (failedChunks > 0) {
+                            Toast.makeText(MapActivity.this, "Some participant locations could not be loaded.", Toast.LENGTH_SHORT).show();
+                        } else if (locations.isEmpty()) {
+                            Toast.makeText(MapActivity.this, "No participant locations found.", Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
             }
 
             @Override
@@ -136,6 +214,103 @@ public class MapActivity extends AppCompatActivity implements OnMapReadyCallback
         });
     }
 
+    /**
+     * Adds participant locations to the map, moving the camera to the first location shown.
+     * The clusters are rebuilt in the background with every location loaded so far.
+     *
+     * @param locations The locations to add.
+     */
+    private void addLocations(List<LatLng> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        participantLocations.addAll(locations);
+        // Move the camera to the first location
+        if (!cameraMoved) {
+            googleMap.moveCamera(CameraUpdateFactory.newLatLngZoom(locations.get(0), 10));
+            cameraMoved = true;
+        }
+        buildClusters();
+    }
+
+    /**
+     * Builds the cluster index of the loaded locations off the main thread. Locations arriving while an
+     * index is built are indexed by one more build once it finishes, instead of one build per chunk.
+     */
+    private void buildClusters() {
+        if (clustering) {
+            clustersOutdated = true;
+            return;
+        }
+        clustering = true;
+        double[] latitudes = new double[participantLocations.size()];
+        double[] longitudes = new double[participantLocations.size()];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = participantLocations.get(i).latitude;
+            longitudes[i] = participantLocations.get(i).longitude;
+        }
+        clusterExecutor.execute(() -> {
+            MarkerClusterer built = new MarkerClusterer(latitudes, longitudes);
+            mainHandler.post(() -> {
+                if (isDestroyed()) {
+                    return;
+                }
+                clusterer = built;
+                clustering = false;
+                if (clustersOutdated) {
+                    clustersOutdated = false;
+                    buildClusters();
+                }
+                showClusters();
+            });
+        });
+    }
+
+    /**
+     * Shows a marker for every cluster in view. Markers of clusters that are still in view and unchanged are kept,
+     * so moving the map only adds the markers of newly visible clusters and removes those left behind.
+     */
+    private void showClusters() {
+        if (clusterer == null || googleMap == null) {
+            return;
+        }
+        LatLngBounds bounds = googleMap.getProjection().getVisibleRegion().latLngBounds;
+        List<MarkerClusterer.Cluster> clusters = clusterer.clusters(bounds.southwest.latitude, bounds.southwest.longitude,
+                bounds.northeast.latitude, bounds.northeast.longitude, googleMap.getCameraPosition().zoom);
+
+        Map<Long, MarkerClusterer.Cluster> visible = new HashMap<>();
+        for (MarkerClusterer.Cluster cluster : clusters) {
+            visible.put(cluster.getKey(), cluster);
+        }
+        Iterator<Map.Entry<Long, Marker>> shown = shownMarkers.entrySet().iterator();
+        while (shown.hasNext()) {
+            Map.Entry<Long, Marker> entry = shown.next();
+            MarkerClusterer.Cluster cluster = visible.get(entry.getKey());
+            // the tag holds the size shown, a cluster that grew after more locations arrived is shown again
+            if (cluster != null && Integer.valueOf(cluster.getSize()).equals(entry.getValue().getTag())) {
+                visible.remove(entry.getKey());
+            } else {
+                entry.getValue().remove();
+                shown.remove();
+            }
+        }
+        for (MarkerClusterer.Cluster cluster : visible.values()) {
+            MarkerOptions options = new MarkerOptions()
+                    .position(new LatLng(cluster.getLatitude(), cluster.getLongitude()));
+            if (cluster.getSize() == 1) {
+                options.title("Participant");
+            } else {
+                options.title(cluster.getSize() + " participants")
+                        .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_AZURE));
+            }
+            Marker marker = googleMap.addMarker(options);
+            if (marker != null) {
+                marker.setTag(cluster.getSize());
+                shownMarkers.put(cluster.getKey(), marker);
+            }
+        }
+    }
+
 
     /**
      * Lifecycle callback for starting the activity. Invoked when the activity enters the Started state.
@@ -178,6 +353,7 @@ public class MapActivity extends AppCompatActivity implements OnMapReadyCallback
      */
     @Override
     protected void onDestroy() {
+        clusterExecutor.shutdownNow();
         mapView.onDestroy();
         super.onDestroy();
     }
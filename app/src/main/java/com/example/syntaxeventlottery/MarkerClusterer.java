@@ -0,0 +1,230 @@
+package com.example.syntaxeventlottery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The {@code MarkerClusterer} class groups map locations into clusters, so that a map shows one marker per
+ * cluster instead of one per location. The locations are indexed by a quadtree over the Web Mercator plane of the
+ * map: every node splits its square into four, and at zoom level {@code z} the nodes {@link #CELL_DEPTH_OFFSET}
+ * levels below the map tiles of that zoom, a quarter of a 256 pixel tile wide, form the clusters.
+ * <p>
+ * The quadtree is stored linearly: the locations are sorted by their Morton code, which interleaves the bits of
+ * the x and y cell coordinates, so the locations of every node are a contiguous range found by binary search.
+ * Prefix sums of the coordinates give the size and centre of any node in constant time, so finding the clusters
+ * of the visible part of the map only visits the visible nodes, however many locations there are.
+ * <p>
+ * Building the index sorts the locations and should happen off the main thread; the built index is immutable and
+ * can be queried from any thread.
+ */
+public final class MarkerClusterer {
+    /** Levels of the quadtree, giving cells of about two centimetres. */
+    static final int MAX_DEPTH = 31;
+    /** Levels between the map tiles of a zoom level and its clusters, cells of 64 by 64 pixels. */
+    static final int CELL_DEPTH_OFFSET = 2;
+    /** Latitude at which the Web Mercator plane ends. */
+    static final double MAX_LATITUDE = 85.05112878;
+    private static final double CELLS = 1L << MAX_DEPTH;
+
+    private final long[] codes;
+    // prefix sums of the plane coordinates, in code order
+    private final double[] xSums;
+    private final double[] ySums;
+
+    /**
+     * A group of locations shown as one marker.
+     */
+    public static final class Cluster {
+        private final long key;
+        private final int size;
+        private final double latitude;
+        private final double longitude;
+
+        Cluster(long key, int size, double latitude, double longitude) {
+            this.key = key;
+            this.size = size;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        /**
+         * @return A key identifying the quadtree node of the cluster. The same node gives the same key at every
+         * query, so a map only has to add the markers of new keys when it is moved.
+         */
+        public long getKey() {
+            return key;
+        }
+
+        /**
+         * @return The number of locations in the cluster.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return The latitude of the centre of the locations, or of the location of a single-location cluster.
+         */
+        public double getLatitude() {
+            return latitude;
+        }
+
+        /**
+         * @return The longitude of the centre of the locations, or of the location of a single-location cluster.
+         */
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+
+    /**
+     * Builds the index of a set of locations.
+     *
+     * @param latitudes  The latitudes of the locations, clamped to the Web Mercator plane.
+     * @param longitudes The longitudes of the locations, in the same order.
+     */
+    public MarkerClusterer(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Got " + latitudes.length + " latitudes and "
+                    + longitudes.length + " longitudes");
+        }
+        int count = latitudes.length;
+        codes = new long[count];
+        for (int i = 0; i < count; i++) {
+            codes[i] = spread(cell(toX(longitudes[i]))) | (spread(cell(toY(latitudes[i]))) << 1);
+        }
+        Arrays.sort(codes);
+        xSums = new double[count + 1];
+        ySums = new double[count + 1];
+        for (int i = 0; i < count; i++) {
+            xSums[i + 1] = xSums[i] + (compact(codes[i]) + 0.5) / CELLS;
+            ySums[i + 1] = ySums[i] + (compact(codes[i] >>> 1) + 0.5) / CELLS;
+        }
+    }
+
+    /**
+     * @return The number of indexed locations.
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Finds the clusters of the visible part of a map. Clusters partly inside the bounds are included whole,
+     * so their centre may lie outside of the bounds.
+     *
+     * @param south The southern edge of the visible bounds.
+     * @param west  The western edge, greater than {@code east} if the bounds cross the antimeridian.
+     * @param north The northern edge.
+     * @param east  The eastern edge.
+     * @param zoom  The zoom level of the map.
+     * @return The clusters, every location belonging to exactly one of them.
+     */
+    public List<Cluster> clusters(double south, double west, double north, double east, double zoom) {
+        int depth = Math.max(0, Math.min(MAX_DEPTH, (int) Math.floor(zoom) + CELL_DEPTH_OFFSET));
+        double minY = toY(north);
+        double maxY = toY(south);
+        List<Cluster> result = new ArrayList<>();
+        Set<Long> keys = new HashSet<>();
+        if (west <= east) {
+            collect(0, 0, 0, 0, codes.length, depth, toX(west), toX(east), minY, maxY, result, keys);
+        } else {
+            // two ranges, nodes touching both are only added once
+            collect(0, 0, 0, 0, codes.length, depth, toX(west), 1, minY, maxY, result, keys);
+            collect(0, 0, 0, 0, codes.length, depth, 0, toX(east), minY, maxY, result, keys);
+        }
+        return result;
+    }
+
+    private void collect(int level, long cellX, long cellY, int from, int to, int depth,
+                         double minX, double maxX, double minY, double maxY, List<Cluster> result, Set<Long> keys) {
+        if (from == to) {
+            return;
+        }
+        double size = 1.0 / (1L << level);
+        double left = cellX * size;
+        double top = cellY * size;
+        if (left > maxX || left + size < minX || top > maxY || top + size < minY) {
+            return;
+        }
+        // a single location, or locations in the same smallest cell, cannot be split further
+        if (level == depth || codes[from] == codes[to - 1]) {
+            long key = ((code(cellX, cellY, level) << 1) | 1) << (2 * (MAX_DEPTH - level));
+            if (keys.add(key)) {
+                int count = to - from;
+                double x = (xSums[to] - xSums[from]) / count;
+                double y = (ySums[to] - ySums[from]) / count;
+                result.add(new Cluster(key, count, toLatitude(y), x * 360 - 180));
+            }
+            return;
+        }
+        int shift = 2 * (MAX_DEPTH - level - 1);
+        long prefix = code(cellX, cellY, level) << 2;
+        int start = from;
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            int end = quadrant == 3 ? to : lowerBound(start, to, (prefix | (quadrant + 1)) << shift);
+            collect(level + 1, 2 * cellX + (quadrant & 1), 2 * cellY + (quadrant >> 1), start, end, depth,
+                    minX, maxX, minY, maxY, result, keys);
+            start = end;
+        }
+    }
+
+    // the Morton code of a node's cell, without the levels below it
+    private static long code(long cellX, long cellY, int level) {
+        return level == 0 ? 0 : spread(cellX) | (spread(cellY) << 1);
+    }
+
+    private int lowerBound(int from, int to, long code) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (codes[mid] < code) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    private static double toX(double longitude) {
+        return Math.max(0, Math.min(1, (longitude + 180) / 360));
+    }
+
+    private static double toY(double latitude) {
+        double sin = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude))));
+        return Math.max(0, Math.min(1, 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)));
+    }
+
+    private static double toLatitude(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+
+    private static long cell(double coordinate) {
+        return Math.min((long) CELLS - 1, (long) (coordinate * CELLS));
+    }
+
+    // moves the 32 low bits of a value to the even bits
+    private static long spread(long v) {
+        v &= 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
+    // collects the even bits of a value, undoing spread
+    private static long compact(long v) {
+        v &= 0x5555555555555555L;
+        v = (v | (v >>> 1)) & 0x3333333333333333L;
+        v = (v | (v >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v >>> 16)) & 0x00000000FFFFFFFFL;
+        return v;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.syntaxeventlottery;
 
+import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.ServerTimestamp;
 
 import java.text.SimpleDateFormat;
@@ -17,6 +18,7 @@ public class Notification {
     private boolean read;
     @ServerTimestamp
     private Date timestamp;
+    private boolean campaign;
 
     /**
      * Default constructor required for Firestore deserialization.
@@ -119,6 +121,25 @@ public class Notification {
      */
     public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
 
+    /**
+     * Checks whether the notification was resolved from a {@link NotificationCampaign}
+     * instead of being stored for this user.
+     *
+     * @return True if the notification comes from a campaign, false otherwise.
+     */
+    @Exclude
+    public boolean isCampaign() {
+        return campaign;
+    }
+
+    /**
+     * Marks the notification as coming from a campaign.
+     *
+     * @param campaign True if the notification comes from a campaign.
+     */
+    @Exclude
+    public void setCampaign(boolean campaign) { this.campaign = campaign; }
+
     /**
      * Generates a unique notification ID for display purposes.
      *
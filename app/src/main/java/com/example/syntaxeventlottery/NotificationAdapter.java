@@ -1,52 +1,59 @@
 package com.example.syntaxeventlottery;
 
 import android.content.Context;
-import android.content.Intent;
-import android.provider.Settings;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.firestore.FirebaseFirestore;
-
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Adapter for displaying notifications in a RecyclerView.
+ * New lists are diffed against the shown one on a background thread, so only changed rows are bound again.
  */
-public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapter.NotificationViewHolder> {
+public class NotificationAdapter extends ListAdapter<ListRow<Notification>, NotificationAdapter.NotificationViewHolder> {
 
     private Context context;
-    private List<Notification> notificationList;
-    private FirebaseFirestore db;
-    private String deviceId;
+    private OnClickListener clickListener;
+
+    /**
+     * Interface for handling clicks on a notification.
+     */
+    public interface OnClickListener {
+        /**
+         * Called when a notification is clicked.
+         *
+         * @param notification The clicked notification.
+         */
+        void onClick(Notification notification);
+    }
 
     /**
-     * Constructor to initialize the adapter with a context.
+     * Constructor to initialize the adapter with a context, starting with an empty list.
      *
-     * @param context The application context.
+     * @param context  The application context.
+     * @param listener The listener notified when a notification is clicked.
      */
-    public NotificationAdapter(Context context) {
+    public NotificationAdapter(Context context, OnClickListener listener) {
+        super(ListRow.diffCallback());
         this.context = context;
-        this.notificationList = new ArrayList<>();
-        this.db = FirebaseFirestore.getInstance();
-        this.deviceId = Settings.Secure.getString(context.getContentResolver(), Settings.Secure.ANDROID_ID);
+        this.clickListener = listener;
     }
 
     /**
-     * Adds a notification to the list and updates the RecyclerView.
+     * Replaces the displayed notifications. Only the rows of added, removed, moved or changed
+     * notifications are updated.
      *
-     * @param notification The notification to be added.
+     * @param notifications The notifications to display.
      */
-    public void addNotification(Notification notification) {
-        notificationList.add(notification);
-        notifyItemInserted(notificationList.size() - 1);
+    public void submitNotifications(List<Notification> notifications) {
+        submitList(ListRow.of(notifications, Notification::getId,
+                notification -> new Object[] {notification.getMessage(), notification.getTimestamp()}));
     }
 
     @NonNull
@@ -58,34 +65,17 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
 
     @Override
     public void onBindViewHolder(@NonNull NotificationViewHolder holder, int position) {
-        Notification notification = notificationList.get(position);
+        Notification notification = getItem(position).getItem();
         holder.messageTextView.setText(notification.getMessage());
         holder.timestampTextView.setText(notification.getFormattedTimestamp());
 
         holder.itemView.setOnClickListener(v -> {
-            // Mark notification as read
-            db.collection("notifications").document(notification.getId())
-                    .update("read", true)
-                    .addOnSuccessListener(aVoid -> {
-                        // Remove the notification from the list
-                        notificationList.remove(position);
-                        notifyItemRemoved(position);
-                        notifyItemRangeChanged(position, notificationList.size());
-
-                        // Navigate to event details
-                        Intent intent = new Intent(context, EventDetailActivity.class);
-                        intent.putExtra("event_id", notification.getEventId());
-                        context.startActivity(intent);
-                    })
-                    .addOnFailureListener(e -> Toast.makeText(context, "Failed to update notification", Toast.LENGTH_SHORT).show());
+            if (clickListener != null) {
+                clickListener.onClick(notification);
+            }
         });
     }
 
-    @Override
-    public int getItemCount() {
-        return notificationList.size();
-    }
-
     /**
      * ViewHolder class for holding notification item views.
      */
@@ -0,0 +1,156 @@
+package com.example.syntaxeventlottery;
+
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.ServerTimestamp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Model class for a broadcast notification sent to a group of entrants of an event.
+ * A campaign is stored once in the {@code campaigns} collection instead of once per recipient.
+ * Its recipients are fixed when it is sent: their IDs are stored with it in a few chunked documents,
+ * so entrants who change state later still see the campaigns they received and none they did not.
+ */
+public class NotificationCampaign {
+    private String id;
+    private String eventId;
+    private String group;
+    private String message;
+    @ServerTimestamp
+    private Date timestamp;
+    private List<String> recipientIds = new ArrayList<>();
+
+    /**
+     * Default constructor required for Firestore deserialization.
+     */
+    public NotificationCampaign() {}
+
+    /**
+     * Creates a campaign for entrants of an event in the given state.
+     *
+     * @param eventId      The event ID associated with the campaign.
+     * @param group        The state of the entrants the campaign is sent to.
+     * @param message      The message of the campaign.
+     * @param recipientIds The IDs of the entrants receiving the campaign.
+     */
+    public NotificationCampaign(String eventId, ParticipantState group, String message, List<String> recipientIds) {
+        this.eventId = eventId;
+        this.group = group.name();
+        this.message = message;
+        this.recipientIds = new ArrayList<>(recipientIds);
+    }
+
+    /**
+     * Gets the unique identifier of the campaign.
+     *
+     * @return The campaign ID.
+     */
+    @Exclude
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the unique identifier of the campaign.
+     *
+     * @param id The campaign ID.
+     */
+    public void setId(String id) { this.id = id; }
+
+    /**
+     * Gets the event ID associated with the campaign.
+     *
+     * @return The event ID.
+     */
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Sets the event ID associated with the campaign.
+     *
+     * @param eventId The event ID.
+     */
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    /**
+     * Gets the name of the {@link ParticipantState} the campaign is sent to.
+     *
+     * @return The target group.
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Sets the name of the {@link ParticipantState} the campaign is sent to.
+     *
+     * @param group The target group.
+     */
+    public void setGroup(String group) { this.group = group; }
+
+    /**
+     * Gets the message of the campaign.
+     *
+     * @return The campaign message.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the message of the campaign.
+     *
+     * @param message The campaign message.
+     */
+    public void setMessage(String message) { this.message = message; }
+
+    /**
+     * Gets the timestamp of when the campaign was created.
+     *
+     * @return The timestamp.
+     */
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets the timestamp of the campaign.
+     *
+     * @param timestamp The timestamp.
+     */
+    public void setTimestamp(Date timestamp) { this.timestamp = timestamp; }
+
+    /**
+     * Gets the IDs of the entrants the campaign is sent to. They are only known when the campaign
+     * is created, campaigns read back from Firestore hold none.
+     *
+     * @return The recipient IDs.
+     */
+    @Exclude
+    public List<String> getRecipientIds() {
+        return Collections.unmodifiableList(recipientIds);
+    }
+
+    /**
+     * Converts the campaign to a {@link Notification} for one recipient, so that it can be
+     * shown together with the recipient's personal notifications.
+     *
+     * @param deviceId The device ID of the recipient.
+     * @return The notification for that recipient.
+     */
+    public Notification toNotification(String deviceId) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setDeviceId(deviceId);
+        notification.setEventId(eventId);
+        notification.setMessage(message);
+        notification.setTimestamp(timestamp);
+        notification.setCampaign(true);
+        notification.setRead(true);
+        return notification;
+    }
+}
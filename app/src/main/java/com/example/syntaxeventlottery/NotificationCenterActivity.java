@@ -4,25 +4,18 @@ import android.os.Bundle;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.View;
-import android.widget.ArrayAdapter;
 import android.widget.ImageButton;
-import android.widget.ListView;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.firestore.DocumentChange;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.FirebaseFirestoreException;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QuerySnapshot;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,10 +25,9 @@ public class NotificationCenterActivity extends AppCompatActivity {
 
     private FirebaseFirestore db;
     private String deviceId;
-    private ListView notificationListView;
-    private ArrayAdapter<String> adapter;
-    private List<String> notificationMessages;
-    private List<String> notificationIds;
+    private RecyclerView notificationListView;
+    private NotificationAdapter adapter;
+    private NotificationInbox inbox;
     private ImageButton backButton;
 
 
@@ -54,57 +46,50 @@ public class NotificationCenterActivity extends AppCompatActivity {
         notificationListView = findViewById(R.id.notificationListView);
         backButton = findViewById(R.id.backButton); // Initialize Back Button
 
-        notificationMessages = new ArrayList<>();
-        notificationIds = new ArrayList<>();
-        adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, notificationMessages);
+        inbox = new NotificationInbox(App.getNotificationRepository());
+        notificationListView.setLayoutManager(new LinearLayoutManager(this));
+        // Mark a notification as read when it is clicked
+        adapter = new NotificationAdapter(this, notification -> {
+            Toast.makeText(NotificationCenterActivity.this, "Notification marked as read", Toast.LENGTH_SHORT).show();
+            // campaigns are shared by all recipients and have no read state
+            if (!notification.isCampaign()) {
+                markNotificationAsRead(notification.getId());
+            }
+        });
         notificationListView.setAdapter(adapter);
 
         // Load notifications
         loadNotifications();
 
-        // Set item click listener to mark as read when clicked
-        notificationListView.setOnItemClickListener((parent, view, position, id) -> {
-            String notificationId = notificationIds.get(position);
-            String message = notificationMessages.get(position);
-            Toast.makeText(NotificationCenterActivity.this, "Notification marked as read", Toast.LENGTH_SHORT).show();
-            markNotificationAsRead(notificationId);
-        });
-
         // Set click listener for Back Button
         backButton.setOnClickListener(v -> finish());
     }
 
     /**
-     * Loads unread notifications for the current user.
+     * Loads the inbox of the current user: their own notifications and the campaigns
+     * that were sent to them.
      */
     private void loadNotifications() {
-        db.collection("notifications")
-                .whereEqualTo("deviceId", deviceId)
-                .whereEqualTo("isRead", true)
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot snapshots = task.getResult();
-                        if (snapshots != null && !snapshots.isEmpty()) {
-                            notificationMessages.clear();
-                            notificationIds.clear();
-                            for (DocumentSnapshot doc : snapshots.getDocuments()) {
-                                String message = doc.getString("message");
-                                notificationMessages.add(message);
-                                notificationIds.add(doc.getId());
-                                Log.d("NotificationCenter", "Loaded notification: " + message);
-                            }
-                            adapter.notifyDataSetChanged();
-                        } else {
-                            Toast.makeText(NotificationCenterActivity.this, "No new notifications", Toast.LENGTH_SHORT).show();
-                            Log.d("NotificationCenter", "No notifications found for deviceId: " + deviceId);
-                        }
-                    } else {
-                        Log.w("NotificationCenter", "Error getting documents.", task.getException());
-                        Toast.makeText(NotificationCenterActivity.this, "Failed to load notifications", Toast.LENGTH_SHORT).show();
+        inbox.load(deviceId, new DataCallback<List<Notification>>() {
+            @Override
+            public void onSuccess(List<Notification> notifications) {
+                if (!notifications.isEmpty()) {
+                    for (Notification notification : notifications) {
+                        Log.d("NotificationCenter", "Loaded notification: " + notification.getMessage());
                     }
-                });
+                    adapter.submitNotifications(notifications);
+                } else {
+                    Toast.makeText(NotificationCenterActivity.this, "No new notifications", Toast.LENGTH_SHORT).show();
+                    Log.d("NotificationCenter", "No notifications found for deviceId: " + deviceId);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.w("NotificationCenter", "Error getting documents.", e);
+                Toast.makeText(NotificationCenterActivity.this, "Failed to load notifications", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
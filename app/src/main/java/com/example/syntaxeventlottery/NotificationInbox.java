@@ -0,0 +1,68 @@
+package com.example.syntaxeventlottery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code NotificationInbox} class builds what a user sees: the notifications stored for the user
+ * combined with the {@link NotificationCampaign}s that were sent to them.
+ */
+public class NotificationInbox {
+    private final NotificationRepository notificationRepository;
+
+    /**
+     * Creates an inbox reading from the given repository.
+     *
+     * @param notificationRepository The repository holding notifications and campaigns.
+     */
+    public NotificationInbox(NotificationRepository notificationRepository) {
+        this.notificationRepository = notificationRepository;
+    }
+
+    /**
+     * Loads the inbox of a user, newest first.
+     *
+     * @param deviceId The device ID of the user.
+     * @param callback The callback receiving the notifications.
+     */
+    public void load(String deviceId, DataCallback<List<Notification>> callback) {
+        notificationRepository.getPersonalNotifications(deviceId, new DataCallback<List<Notification>>() {
+            @Override
+            public void onSuccess(List<Notification> personal) {
+                notificationRepository.getCampaignsFor(deviceId, new DataCallback<List<NotificationCampaign>>() {
+                    @Override
+                    public void onSuccess(List<NotificationCampaign> campaigns) {
+                        callback.onSuccess(merge(personal, campaigns, deviceId));
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        callback.onError(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Combines personal notifications with the campaigns sent to the user.
+     *
+     * @param personal  The notifications stored for the user.
+     * @param campaigns The campaigns naming the user as a recipient.
+     * @param deviceId  The device ID of the user.
+     * @return The combined notifications, newest first.
+     */
+    static List<Notification> merge(List<Notification> personal, List<NotificationCampaign> campaigns, String deviceId) {
+        List<Notification> inbox = new ArrayList<>(personal);
+        for (NotificationCampaign campaign : campaigns) {
+            inbox.add(campaign.toNotification(deviceId));
+        }
+        inbox.sort((a, b) -> NotificationRepository.compareNewestFirst(a.getTimestamp(), b.getTimestamp()));
+        return inbox;
+    }
+}
@@ -5,6 +5,7 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.os.Build;
 import android.os.IBinder;
@@ -18,16 +19,25 @@ import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 
+import java.util.Date;
+
 /**
  * A service that listens for real-time notification updates from Firestore and displays system notifications.
+ * Besides the notifications stored for this device it listens for new {@link NotificationCampaign}s
+ * naming this device's user as a recipient.
  */
 public class NotificationListenerService extends Service {
     private static final String TAG = "NotificationListenerService";
     private static final String CHANNEL_ID = "NotificationListenerChannel";
     private static final int NOTIFICATION_ID = 1;
+    private static final String PREFS_NAME = "notification_inbox";
+    private static final String LAST_CAMPAIGN_SEEN = "lastCampaignSeen";
 
     private ListenerRegistration notificationListener;
+    private ListenerRegistration campaignListener;
+    private ListenerRegistration userListener;
     private String deviceId;
+    private boolean allowNotification;
 
     /**
      * Called when the service is created. Initializes the service, sets up the notification channel,
@@ -46,6 +56,7 @@ public class NotificationListenerService extends Service {
 
         // Start listening to Firestore
         startListeningToNotifications();
+        startListeningToCampaigns();
     }
 
     /**
@@ -132,6 +143,58 @@ public class NotificationListenerService extends Service {
                 });
     }
 
+    /**
+     * Sets up the Firestore listener for new campaigns sent to this device's user. Campaigns have no
+     * per-user read state, the time of the newest campaign handled is kept in the shared preferences instead.
+     */
+    private void startListeningToCampaigns() {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+
+        // campaigns are only sent to users allowing notifications, the setting may have changed since
+        userListener = db.collection("Users").document(deviceId)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        Log.w(TAG, "User listen failed.", e);
+                        return;
+                    }
+                    allowNotification = snapshot != null && Boolean.TRUE.equals(snapshot.getBoolean("allowNotification"));
+                    // start listening once the setting is known, so no campaign is dropped while it loads
+                    if (campaignListener == null) {
+                        listenToNewCampaigns(App.getNotificationRepository());
+                    }
+                });
+    }
+
+    private void listenToNewCampaigns(NotificationRepository notificationRepository) {
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        long lastSeen = prefs.getLong(LAST_CAMPAIGN_SEEN, System.currentTimeMillis());
+        campaignListener = notificationRepository.listenToNewCampaigns(deviceId, new Date(lastSeen), new DataCallback<NotificationCampaign>() {
+            @Override
+            public void onSuccess(NotificationCampaign campaign) {
+                if (campaign.getTimestamp() == null) {
+                    return; // not written by the server yet
+                }
+                long seen = Math.max(prefs.getLong(LAST_CAMPAIGN_SEEN, 0), campaign.getTimestamp().getTime());
+                prefs.edit().putLong(LAST_CAMPAIGN_SEEN, seen).apply();
+                if (!allowNotification) {
+                    return;
+                }
+                NotificationUtils.sendNotification(
+                        getApplicationContext(),
+                        "Event Notification",
+                        campaign.getMessage(),
+                        campaign.getId().hashCode(),
+                        campaign.getEventId()
+                );
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Campaign listener failed", e);
+            }
+        });
+    }
+
     /**
      * Marks a notification as read in Firestore.
      *
@@ -170,6 +233,14 @@ public class NotificationListenerService extends Service {
             notificationListener.remove();
             notificationListener = null;
         }
+        if (campaignListener != null) {
+            campaignListener.remove();
+            campaignListener = null;
+        }
+        if (userListener != null) {
+            userListener.remove();
+            userListener = null;
+        }
     }
 
     /**
@@ -3,73 +3,445 @@ package com.example.syntaxeventlottery;
 import android.util.Log;
 
 import com.example.syntaxeventlottery.DataCallback;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 /**
  * Repository class for managing notifications in the application.
+ * Broadcasts to a group of entrants are stored once as a {@link NotificationCampaign} instead of
+ * once per recipient, with the IDs of its recipients in chunked documents. Campaigns are fanned out in a
+ * pipeline: the recipients' notification preferences are taken from the cached users or read in chunked
+ * queries, and the campaign and its recipients that allow notifications are written in batches,
+ * with a bounded number of queries or batches in flight.
  */
 public class NotificationRepository {
     private static final String TAG = "NotificationRepository";
+
+    /** Maximum number of IDs Firestore accepts in a whereIn query. */
+    static final int LOOKUP_CHUNK_SIZE = 30;
+    /** Maximum number of writes Firestore accepts in a batch. */
+    static final int WRITE_BATCH_SIZE = 500;
+    /** Maximum number of queries or batch commits running at the same time. */
+    static final int MAX_IN_FLIGHT = 4;
+    /** Maximum number of recipient IDs stored in one recipients document of a campaign. */
+    static final int RECIPIENTS_PER_DOCUMENT = 1000;
+
     private FirebaseFirestore db;
+    private UserRepository userCache;
 
     /**
      * Constructor to initialize the Firebase Firestore instance.
      */
     public NotificationRepository() {
-        this.db = FirebaseFirestore.getInstance();
+        this(FirebaseFirestore.getInstance(), null);
+    }
+
+    /**
+     * Constructor using the users already cached by a {@link UserRepository} for notification preferences.
+     *
+     * @param userCache The repository whose cached users are used, users it does not hold are queried.
+     */
+    public NotificationRepository(@Nullable UserRepository userCache) {
+        this(FirebaseFirestore.getInstance(), userCache);
+    }
+
+    NotificationRepository(FirebaseFirestore db, @Nullable UserRepository userCache) {
+        this.db = db;
+        this.userCache = userCache;
+    }
+
+    //------------- Campaigns --------------//
+    /**
+     * Sends broadcast campaigns to the recipients that allow notifications.
+     * The callback is notified once every recipient has been written, skipped or has failed.
+     *
+     * @param campaigns The campaigns to send.
+     * @param callback  The callback to handle success or failure.
+     */
+    public void addCampaigns(List<NotificationCampaign> campaigns, DataCallback<Void> callback) {
+        fanOut(campaigns, new DataCallback<FanOutResult>() {
+            @Override
+            public void onSuccess(FanOutResult result) {
+                if (result.getFailed() == 0) {
+                    callback.onSuccess(null);
+                } else {
+                    callback.onError(new Exception(result.getFailed() + " of " + result.getRecipients()
+                            + " notifications could not be sent", result.getErrors().get(0)));
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                callback.onError(e);
+            }
+        });
     }
 
     /**
-     * Adds notifications for a list of users based on their notification preferences.
+     * Sends broadcast campaigns to the recipients that allow notifications and reports what happened to each
+     * of them. The recipients' preferences are taken from the cached users or read in chunked queries, then the
+     * campaigns are stored with the remaining recipients, with a bounded number of queries or batches in flight.
+     * A user receiving several campaigns is counted once per campaign.
+     * The callback always receives a {@link FanOutResult}, failed lookups and batches are counted in it.
      *
-     * @param userIds  The list of user IDs to send notifications to.
-     * @param message  The message to include in the notification.
-     * @param eventId  The event ID associated with the notification.
-     * @param callback The callback to handle success or failure.
+     * @param campaigns The campaigns to send.
+     * @param callback  The callback receiving the result of the fan-out.
      */
-    public void addNotifications(List<String> userIds, String message, String eventId, DataCallback<Void> callback) {
-        for (String userId : userIds) {
-            // Retrieve user's allowNotification setting
-            db.collection("Users").document(userId).get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            Boolean allowNotification = documentSnapshot.getBoolean("allowNotification");
-                            if (allowNotification != null && allowNotification) {
-                                // User allows notifications, add the notification
-                                Map<String, Object> notificationData = new HashMap<>();
-                                notificationData.put("deviceId", userId);
-                                notificationData.put("message", message);
-                                notificationData.put("eventId", eventId);
-                                notificationData.put("isRead", false);
-                                notificationData.put("timestamp", FieldValue.serverTimestamp());
-
-                                db.collection("notifications")
-                                        .add(notificationData)
-                                        .addOnSuccessListener(documentReference -> {
-                                            Log.d(TAG, "Notification added for user: " + userId);
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Log.e(TAG, "Error adding notification for user: " + userId, e);
-                                            callback.onError(e);
-                                        });
-                            } else {
-                                // User does not allow notifications, skip
-                                Log.d(TAG, "User " + userId + " has notifications disabled.");
+    public void fanOut(List<NotificationCampaign> campaigns, DataCallback<FanOutResult> callback) {
+        Map<String, Integer> deliveries = countDeliveries(campaigns);
+        int total = 0;
+        for (int count : deliveries.values()) {
+            total += count;
+        }
+        FanOutResult result = new FanOutResult(total);
+        Set<String> allowed = Collections.synchronizedSet(new HashSet<>());
+
+        // take the preferences of cached users from memory, look the others up
+        List<String> uncached = new ArrayList<>();
+        for (Map.Entry<String, Integer> recipient : deliveries.entrySet()) {
+            User user = userCache == null ? null : userCache.getUserById(recipient.getKey());
+            if (user == null) {
+                uncached.add(recipient.getKey());
+            } else if (user.isAllowNotification()) {
+                allowed.add(recipient.getKey());
+            } else {
+                result.skip(recipient.getValue());
+            }
+        }
+
+        List<List<String>> lookups = BoundedTaskRunner.partition(uncached, LOOKUP_CHUNK_SIZE);
+        BoundedTaskRunner.run(lookups.size(), MAX_IN_FLIGHT, (index, done) -> {
+            List<String> chunk = lookups.get(index);
+            db.collection("Users").whereIn(FieldPath.documentId(), chunk).get()
+                    .addOnSuccessListener(snapshot -> {
+                        Set<String> allowedInChunk = new HashSet<>();
+                        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                            if (Boolean.TRUE.equals(doc.getBoolean("allowNotification"))) {
+                                allowedInChunk.add(doc.getId());
+                            }
+                        }
+                        allowed.addAll(allowedInChunk);
+                        // users without a document or with notifications disabled are skipped
+                        for (String userId : chunk) {
+                            if (!allowedInChunk.contains(userId)) {
+                                result.skip(deliveries.get(userId));
                             }
-                        } else {
-                            Log.d(TAG, "User document not found for userId: " + userId);
                         }
+                        done.run();
                     })
                     .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error retrieving user document for userId: " + userId, e);
+                        Log.e(TAG, "Error retrieving notification preferences of " + chunk.size() + " users", e);
+                        int failed = 0;
+                        for (String userId : chunk) {
+                            failed += deliveries.get(userId);
+                        }
+                        result.fail(failed, e);
+                        done.run();
                     });
+        }, () -> writeCampaigns(keepAllowed(campaigns, allowed), result, callback));
+    }
+
+    // stores the campaigns, the IDs of their recipients in documents of up to RECIPIENTS_PER_DOCUMENT IDs in the
+    // campaign's recipients subcollection, each holding a copy of the message so a recipient finds it in one query
+    private void writeCampaigns(List<NotificationCampaign> campaigns, FanOutResult result,
+                                DataCallback<FanOutResult> callback) {
+        List<CampaignWrite> writes = new ArrayList<>();
+        for (NotificationCampaign campaign : campaigns) {
+            List<String> recipients = campaign.getRecipientIds();
+            if (recipients.isEmpty()) {
+                continue;
+            }
+            DocumentReference campaignRef = db.collection("campaigns").document();
+            Map<String, Object> campaignData = new HashMap<>();
+            campaignData.put("eventId", campaign.getEventId());
+            campaignData.put("group", campaign.getGroup());
+            campaignData.put("message", campaign.getMessage());
+            campaignData.put("recipientCount", recipients.size());
+            campaignData.put("timestamp", FieldValue.serverTimestamp());
+            writes.add(new CampaignWrite(campaignRef, campaignData, 0));
+
+            List<List<String>> chunks = BoundedTaskRunner.partition(recipients, RECIPIENTS_PER_DOCUMENT);
+            for (int i = 0; i < chunks.size(); i++) {
+                Map<String, Object> recipientData = new HashMap<>();
+                recipientData.put("eventId", campaign.getEventId());
+                recipientData.put("group", campaign.getGroup());
+                recipientData.put("message", campaign.getMessage());
+                recipientData.put("userIds", chunks.get(i));
+                recipientData.put("timestamp", FieldValue.serverTimestamp());
+                writes.add(new CampaignWrite(campaignRef.collection("recipients").document(String.valueOf(i)),
+                        recipientData, chunks.get(i).size()));
+            }
+        }
+
+        List<List<CampaignWrite>> batches = BoundedTaskRunner.partition(writes, WRITE_BATCH_SIZE);
+        BoundedTaskRunner.run(batches.size(), MAX_IN_FLIGHT, (index, done) -> {
+            WriteBatch batch = db.batch();
+            int recipients = 0;
+            for (CampaignWrite write : batches.get(index)) {
+                batch.set(write.ref, write.data);
+                recipients += write.recipients;
+            }
+            int batchRecipients = recipients;
+            batch.commit()
+                    .addOnSuccessListener(aVoid -> {
+                        Log.d(TAG, "Campaign batch " + index + " added for " + batchRecipients + " recipients");
+                        result.write(batchRecipients);
+                        done.run();
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Error adding campaign batch " + index + " for " + batchRecipients + " recipients", e);
+                        result.fail(batchRecipients, e);
+                        done.run();
+                    });
+        }, () -> {
+            Log.d(TAG, "Campaign fan-out finished: " + result);
+            callback.onSuccess(result);
+        });
+    }
+
+    /**
+     * Counts how many of the campaigns each user receives, a user listed twice in a campaign receiving it once.
+     *
+     * @param campaigns The campaigns to send.
+     * @return The number of campaigns keyed by user ID, in the order the users are first listed.
+     */
+    static Map<String, Integer> countDeliveries(List<NotificationCampaign> campaigns) {
+        Map<String, Integer> deliveries = new LinkedHashMap<>();
+        for (NotificationCampaign campaign : campaigns) {
+            for (String userId : new LinkedHashSet<>(campaign.getRecipientIds())) {
+                Integer count = deliveries.get(userId);
+                deliveries.put(userId, count == null ? 1 : count + 1);
+            }
+        }
+        return deliveries;
+    }
+
+    /**
+     * Copies campaigns keeping only the recipients that allow notifications, each of them once.
+     *
+     * @param campaigns The campaigns to send.
+     * @param allowed   The IDs of the users that allow notifications.
+     * @return The campaigns with their allowed recipients.
+     */
+    static List<NotificationCampaign> keepAllowed(List<NotificationCampaign> campaigns, Set<String> allowed) {
+        List<NotificationCampaign> kept = new ArrayList<>(campaigns.size());
+        for (NotificationCampaign campaign : campaigns) {
+            List<String> recipients = new ArrayList<>();
+            for (String userId : new LinkedHashSet<>(campaign.getRecipientIds())) {
+                if (allowed.contains(userId)) {
+                    recipients.add(userId);
+                }
+            }
+            kept.add(new NotificationCampaign(campaign.getEventId(), ParticipantState.valueOf(campaign.getGroup()),
+                    campaign.getMessage(), recipients));
+        }
+        return kept;
+    }
+
+    /**
+     * Retrieves the campaigns sent to a user, found through the recipient documents naming the user.
+     *
+     * @param deviceId The device ID of the user.
+     * @param callback The callback receiving the campaigns, newest first.
+     */
+    public void getCampaignsFor(String deviceId, DataCallback<List<NotificationCampaign>> callback) {
+        db.collectionGroup("recipients")
+                .whereArrayContains("userIds", deviceId)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    List<NotificationCampaign> campaigns = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        campaigns.add(toCampaign(doc));
+                    }
+                    campaigns.sort((a, b) -> compareNewestFirst(a.getTimestamp(), b.getTimestamp()));
+                    callback.onSuccess(campaigns);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error retrieving campaigns", e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Listens for campaigns sent to a user after the given time.
+     *
+     * @param deviceId The device ID of the user.
+     * @param since    Only campaigns created after this time are reported.
+     * @param callback The callback receiving every new campaign.
+     * @return The registration used to stop listening.
+     */
+    public ListenerRegistration listenToNewCampaigns(String deviceId, Date since, DataCallback<NotificationCampaign> callback) {
+        return db.collectionGroup("recipients")
+                .whereArrayContains("userIds", deviceId)
+                .whereGreaterThan("timestamp", new Timestamp(since))
+                .orderBy("timestamp")
+                .addSnapshotListener((snapshots, e) -> {
+                    if (e != null) {
+                        Log.w(TAG, "Campaign listen failed.", e);
+                        callback.onError(e);
+                        return;
+                    }
+                    if (snapshots == null) {
+                        return;
+                    }
+                    for (DocumentChange dc : snapshots.getDocumentChanges()) {
+                        if (dc.getType() == DocumentChange.Type.ADDED) {
+                            callback.onSuccess(toCampaign(dc.getDocument()));
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Retrieves the personal notifications stored for a user, newest first.
+     *
+     * @param deviceId The device ID of the user.
+     * @param callback The callback receiving the notifications.
+     */
+    public void getPersonalNotifications(String deviceId, DataCallback<List<Notification>> callback) {
+        db.collection("notifications")
+                .whereEqualTo("deviceId", deviceId)
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    List<Notification> notifications = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        Notification notification = doc.toObject(Notification.class);
+                        if (notification != null) {
+                            notification.setId(doc.getId());
+                            notifications.add(notification);
+                        }
+                    }
+                    callback.onSuccess(notifications);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error retrieving notifications", e);
+                    callback.onError(e);
+                });
+    }
+
+    // a campaign as seen by one recipient, read from the recipients document naming them
+    private static NotificationCampaign toCampaign(DocumentSnapshot recipients) {
+        NotificationCampaign campaign = new NotificationCampaign();
+        DocumentReference campaignRef = recipients.getReference().getParent().getParent();
+        campaign.setId(campaignRef == null ? recipients.getId() : campaignRef.getId());
+        campaign.setEventId(recipients.getString("eventId"));
+        campaign.setGroup(recipients.getString("group"));
+        campaign.setMessage(recipients.getString("message"));
+        campaign.setTimestamp(recipients.getDate("timestamp"));
+        return campaign;
+    }
+
+    /**
+     * Orders timestamps from newest to oldest, with missing timestamps (pending writes) first.
+     */
+    static int compareNewestFirst(Date a, Date b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        return b.compareTo(a);
+    }
+
+    // a document written by a campaign fan-out and the number of recipients it names
+    private static class CampaignWrite {
+        private final DocumentReference ref;
+        private final Map<String, Object> data;
+        private final int recipients;
+
+        CampaignWrite(DocumentReference ref, Map<String, Object> data, int recipients) {
+            this.ref = ref;
+            this.data = data;
+            this.recipients = recipients;
+        }
+    }
+
+    /**
+     * The outcome of a campaign fan-out: every notification to a recipient is either written, skipped or failed.
+     */
+    public static class FanOutResult {
+        private final int recipients;
+        private int written;
+        private int skipped;
+        private int failed;
+        private final List<Exception> errors = new ArrayList<>();
+
+        FanOutResult(int recipients) {
+            this.recipients = recipients;
+        }
+
+        synchronized void write(int count) {
+            written += count;
+        }
+
+        synchronized void skip(int count) {
+            skipped += count;
+        }
+
+        synchronized void fail(int count, Exception e) {
+            failed += count;
+            errors.add(e);
+        }
+
+        /**
+         * @return The number of notifications meant for the recipients, one per campaign a user receives.
+         */
+        public int getRecipients() {
+            return recipients;
+        }
+
+        /**
+         * @return The number of notifications written.
+         */
+        public synchronized int getWritten() {
+            return written;
+        }
+
+        /**
+         * @return The number of users skipped because they disabled notifications or do not exist.
+         */
+        public synchronized int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return The number of users whose preference lookup or notification batch failed.
+         */
+        public synchronized int getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return The errors of the failed lookups and batches.
+         */
+        public synchronized List<Exception> getErrors() {
+            return new ArrayList<>(errors);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "FanOutResult{recipients=" + recipients + ", written=" + written
+                    + ", skipped=" + skipped + ", failed=" + failed + '}';
         }
-        // Handle the callback after processing all users
-        callback.onSuccess(null);
     }
 }
@@ -9,6 +9,7 @@ import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -39,6 +40,12 @@ public class OrganizerActivity extends AppCompatActivity {
     private String deviceID;
     public User currentUser;
     private EventAdapter eventAdapter;
+    private final ArrayList<Event> organizerEvents = new ArrayList<>();
+    private DocumentPage<Event> lastPage;
+    private boolean loadingPage;
+    private String organizerId;
+    /** Increased whenever the list is reloaded, so that pages requested before are dropped. */
+    private int listGeneration;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -59,10 +66,22 @@ public class OrganizerActivity extends AppCompatActivity {
         eventRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         eventAdapter = new EventAdapter(new ArrayList<>(), this);
         eventRecyclerView.setAdapter(eventAdapter);
+        eventRecyclerView.addOnScrollListener(eventAdapter.createPreloader());
+        eventRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // load the next page of events shortly before the end of the list is reached
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (lastPage != null && lastPage.hasMore() && layoutManager != null
+                        && layoutManager.findLastVisibleItemPosition() >= eventAdapter.getItemCount() - 5) {
+                    loadNextPage();
+                }
+            }
+        });
 
         // Initialize controllers
-        eventController = new EventController(new EventRepository());
-        userController = new UserController(new UserRepository());
+        eventController = new EventController(App.getEventRepository());
+        userController = new UserController(App.getUserRepository());
 
         // Fetch updated user information
         fetchUpdatedUserInfo();
@@ -98,10 +117,10 @@ public class OrganizerActivity extends AppCompatActivity {
      * If the user does not have a facility profile, launches the facility profile creation activity.
      */
     private void fetchUpdatedUserInfo() {
-        userController.refreshRepository(new DataCallback<Void>() {
+        userController.getUser(deviceID, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                currentUser = userController.getUserByDeviceID(deviceID);
+            public void onSuccess(User result) {
+                currentUser = result;
                 if (currentUser == null) {
                     Log.e(TAG, "Failed to get updated user info");
                     finish();
@@ -127,27 +146,57 @@ public class OrganizerActivity extends AppCompatActivity {
     }
 
     /**
-     * Loads the events created by the organizer and updates the RecyclerView.
+     * Loads the first page of the events created by the organizer and updates the RecyclerView.
+     * Further pages are loaded while the list is scrolled.
      *
      * @param userId The ID of the user (organizer) whose events are to be loaded.
      */
     public void loadEvents(String userId) {
-        eventController.refreshRepository(new DataCallback<Void>() {
+        organizerId = userId;
+        listGeneration++;
+        lastPage = null;
+        loadingPage = false;
+        loadNextPage();
+    }
+
+    /**
+     * Loads the next page of the organizer's events and displays the list again.
+     */
+    private void loadNextPage() {
+        if (loadingPage) {
+            return;
+        }
+        loadingPage = true;
+        DocumentPage<Event> after = lastPage;
+        int generation = listGeneration;
+        eventController.loadOrganizerEventPage(organizerId, after, new DataCallback<DocumentPage<Event>>() {
             @Override
-            public void onSuccess(Void result) {
-                ArrayList<Event> updatedEvents = eventController.getOrganizerEvents(userId);
+            public void onSuccess(DocumentPage<Event> page) {
+                if (generation != listGeneration) {
+                    return; // the list was reloaded in the meantime
+                }
+                loadingPage = false;
+                lastPage = page;
+                if (after == null) {
+                    organizerEvents.clear();
+                }
+                organizerEvents.addAll(page.getItems());
 
-                if (updatedEvents.isEmpty()) {
+                if (organizerEvents.isEmpty()) {
                     organizerEventDetailTextView.setText("You have not created any events.\nClick \"Create Event\" to host an event!");
                 } else {
                     organizerEventDetailTextView.setText("My Events");
                 }
-                eventAdapter.updateEvents(updatedEvents);
+                eventAdapter.updateEvents(new ArrayList<>(organizerEvents));
             }
 
             @Override
             public void onError(Exception e) {
-                Log.e(TAG, "Error refreshing events: " + e.getMessage(), e);
+                if (generation != listGeneration) {
+                    return;
+                }
+                loadingPage = false;
+                Log.e(TAG, "Error loading events: " + e.getMessage(), e);
                 Toast.makeText(OrganizerActivity.this, "Failed to load events. Please try again.", Toast.LENGTH_SHORT).show();
             }
         });
@@ -51,6 +51,7 @@ public class OrganizerCreateEvent extends AppCompatActivity {
     private Uri imageUri;
     private EventController eventController;
     private UserController userController;
+    private EventGeocoder eventGeocoder;
     private Switch locationRequiredSwitch;
 
     /**
@@ -88,8 +89,9 @@ public class OrganizerCreateEvent extends AppCompatActivity {
         eventImageView.setImageDrawable(ContextCompat.getDrawable(this, R.drawable.ic_no_event_poster));
 
         // Initialize controllers with repository
-        eventController = new EventController(new EventRepository());
-        userController = new UserController(new UserRepository());
+        eventController = new EventController(App.getEventRepository());
+        userController = new UserController(App.getUserRepository());
+        eventGeocoder = new EventGeocoder(this);
 
         // Back button listener
         backButton.setOnClickListener(v -> finish());
@@ -171,10 +173,9 @@ public class OrganizerCreateEvent extends AppCompatActivity {
 
         // Save event
         Integer finalWaitingListLimit = waitingListLimit;
-        userController.refreshRepository(new DataCallback<Void>() {
+        userController.getUser(organizerId, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                User user = userController.getUserByDeviceID(organizerId);
+            public void onSuccess(User user) {
                 if (user == null) {
                     Toast.makeText(OrganizerCreateEvent.this, "Failed to retrieve user data", Toast.LENGTH_SHORT).show();
                     finish();
@@ -182,18 +183,19 @@ public class OrganizerCreateEvent extends AppCompatActivity {
                 }
                 Event event = new Event(eventName, user.getFacility().getName(), user.getFacility().getLocation(),
                         eventDescription, capacity, startDate, endDate, organizerId, finalWaitingListLimit, isLocationRequired);
-                eventController.addEvent(event, imageUri, new DataCallback<Event>() {
+                // the facility's coordinates let entrants find the event near them
+                eventGeocoder.locate(event.getFacilityLocation(), new DataCallback<double[]>() {
                     @Override
-                    public void onSuccess(Event result) {
-                        Toast.makeText(OrganizerCreateEvent.this, "Event creation success", Toast.LENGTH_SHORT).show();
-                        clearInputFields();
-                        finish();
+                    public void onSuccess(double[] coordinates) {
+                        if (coordinates != null) {
+                            event.setCoordinates(coordinates[0], coordinates[1]);
+                        }
+                        addEvent(event);
                     }
 
                     @Override
                     public void onError(Exception e) {
-                        Toast.makeText(OrganizerCreateEvent.this, e.getMessage(), Toast.LENGTH_SHORT).show();
-                        Log.e(TAG, e.toString());
+                        addEvent(event);
                     }
                 });
             }
@@ -208,8 +210,29 @@ public class OrganizerCreateEvent extends AppCompatActivity {
     }
 
     /**
-     * Clears all input fields in the form after event creation.
+     * Saves a new event and closes the screen once it is saved.
+     *
+     * @param event The event to save.
      */
+    private void addEvent(Event event) {
+        eventController.addEvent(event, imageUri, new DataCallback<Event>() {
+            @Override
+            public void onSuccess(Event result) {
+                Toast.makeText(OrganizerCreateEvent.this, "Event creation success", Toast.LENGTH_SHORT).show();
+                clearInputFields();
+                finish();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(OrganizerCreateEvent.this, e.getMessage(), Toast.LENGTH_SHORT).show();
+                Log.e(TAG, e.toString());
+            }
+        });
+    }
+
+    /**
+     * Clears all input fields in the form after event creation.
     private void clearInputFields() {
         eventNameEditText.setText("");
         eventDescriptionEditText.setText("");
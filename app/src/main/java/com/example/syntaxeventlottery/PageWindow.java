@@ -0,0 +1,177 @@
+package com.example.syntaxeventlottery;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The {@code PageWindow} class holds the consecutive pages of a long list that are currently loaded.
+ * When a page is added at one end and the window holds more than {@code maxItems} items, whole pages are
+ * dropped from the other end, so memory stays bounded however far the list is scrolled.
+ * Dropped pages are loaded again with the cursors of the pages at the ends of the window.
+ *
+ * @param <T> The type of the items.
+ */
+public class PageWindow<T> {
+    private final int maxItems;
+    private final LinkedList<DocumentPage<T>> pages = new LinkedList<>();
+    private int size;
+    private boolean hasBefore;
+    private boolean hasAfter = true;
+
+    /**
+     * Creates an empty window.
+     *
+     * @param maxItems The number of items above which pages are dropped. The newest page is always kept.
+     */
+    public PageWindow(int maxItems) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("Invalid window size " + maxItems);
+        }
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Empties the window, so that the next page loaded is the first page of the list.
+     */
+    public void clear() {
+        pages.clear();
+        size = 0;
+        hasBefore = false;
+        hasAfter = true;
+    }
+
+    /**
+     * Replaces every page of the window with a page reloaded {@link DocumentPage.Direction#FROM} the first
+     * page of the window, or with the first page of the list. A reload of several pages is split into pages of
+     * {@code pageSize} items again, so that scrolling on drops them one at a time.
+     * Whether items precede the window is unchanged, unless the page is empty and the window is cleared.
+     *
+     * @param page     The reloaded page.
+     * @param pageSize The number of items per page.
+     */
+    public void replace(DocumentPage<T> page, int pageSize) {
+        if (isEnd(page)) {
+            clear();
+            return;
+        }
+        pages.clear();
+        pages.addAll(page.split(pageSize));
+        size = page.getItems().size();
+        hasAfter = page.hasMore();
+    }
+
+    /**
+     * Adds the page following the window, dropping pages at the start if the window is full.
+     *
+     * @param page The page loaded {@link DocumentPage.Direction#AFTER} the last page.
+     * @return The number of items dropped.
+     */
+    public int append(DocumentPage<T> page) {
+        hasAfter = page.hasMore();
+        if (isEnd(page)) {
+            return 0;
+        }
+        pages.addLast(page);
+        size += page.getItems().size();
+        int dropped = 0;
+        while (size > maxItems && pages.size() > 1) {
+            dropped += drop(pages.removeFirst());
+            hasBefore = true;
+        }
+        return dropped;
+    }
+
+    /**
+     * Adds the page preceding the window, dropping pages at the end if the window is full.
+     *
+     * @param page The page loaded {@link DocumentPage.Direction#BEFORE} the first page.
+     * @return The number of items dropped.
+     */
+    public int prepend(DocumentPage<T> page) {
+        hasBefore = page.hasMore();
+        if (isEnd(page)) {
+            return 0;
+        }
+        pages.addFirst(page);
+        size += page.getItems().size();
+        int dropped = 0;
+        while (size > maxItems && pages.size() > 1) {
+            dropped += drop(pages.removeLast());
+            hasAfter = true;
+        }
+        return dropped;
+    }
+
+    // an empty last page has no cursor to continue from, and nothing to show
+    private boolean isEnd(DocumentPage<T> page) {
+        return page.getItems().isEmpty() && !page.hasMore();
+    }
+
+    private int drop(DocumentPage<T> page) {
+        size -= page.getItems().size();
+        return page.getItems().size();
+    }
+
+    /**
+     * Removes an item from the window, for example after it was deleted.
+     *
+     * @param item The item to remove.
+     * @return {@code true} if the item was in the window.
+     */
+    public boolean remove(T item) {
+        for (DocumentPage<T> page : pages) {
+            if (page.getItems().remove(item)) {
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The items of the window, in list order.
+     */
+    public List<T> getItems() {
+        List<T> items = new ArrayList<>(size);
+        for (DocumentPage<T> page : pages) {
+            items.addAll(page.getItems());
+        }
+        return items;
+    }
+
+    /**
+     * @return The number of items in the window.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The first page of the window, or {@code null} if the window is empty.
+     */
+    public DocumentPage<T> getFirstPage() {
+        return pages.peekFirst();
+    }
+
+    /**
+     * @return The last page of the window, or {@code null} if the window is empty.
+     */
+    public DocumentPage<T> getLastPage() {
+        return pages.peekLast();
+    }
+
+    /**
+     * @return {@code true} if items may precede the window.
+     */
+    public boolean hasBefore() {
+        return hasBefore;
+    }
+
+    /**
+     * @return {@code true} if items may follow the window.
+     */
+    public boolean hasAfter() {
+        return hasAfter;
+    }
+}
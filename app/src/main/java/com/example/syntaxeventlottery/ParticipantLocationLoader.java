@@ -0,0 +1,109 @@
+package com.example.syntaxeventlottery;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code ParticipantLocationLoader} class reads the locations of an event's participants for the map.
+ * The participant IDs are split into chunks of {@link #CHUNK_SIZE}, each read by one query, with at most
+ * {@code maxInFlight} queries running at once. The locations of every chunk are handed to the listener as soon
+ * as the chunk arrives, so the first markers are shown after one query instead of after every participant.
+ * <p>
+ * Chunks may complete on different threads; the listener is called on the thread that delivered the chunk,
+ * which is the main thread for Firestore queries.
+ */
+public class ParticipantLocationLoader {
+    /** Maximum number of IDs Firestore accepts in a whereIn query. */
+    static final int CHUNK_SIZE = 30;
+    /** Maximum number of queries running at the same time. */
+    static final int MAX_IN_FLIGHT = 4;
+
+    /**
+     * Reads the locations of a chunk of participants.
+     */
+    public interface LocationSource {
+        /**
+         * Starts reading locations.
+         *
+         * @param userIds  At most {@link #CHUNK_SIZE} user IDs.
+         * @param callback Receives the locations found. Users without a location are left out.
+         */
+        void load(List<String> userIds, DataCallback<List<LatLng>> callback);
+    }
+
+    /**
+     * Receives the locations of a {@link #load} call while they arrive.
+     */
+    public interface Listener {
+        /**
+         * Called once for every chunk read.
+         *
+         * @param locations The locations of the chunk.
+         */
+        void onLocations(List<LatLng> locations);
+
+        /**
+         * Called once after every chunk was read or failed.
+         *
+         * @param locations    Every location read.
+         * @param failedChunks The number of chunks that could not be read.
+         */
+        void onComplete(List<LatLng> locations, int failedChunks);
+    }
+
+    private final LocationSource source;
+    private final int maxInFlight;
+
+    /**
+     * Creates a loader running at most {@link #MAX_IN_FLIGHT} queries at once.
+     *
+     * @param source Reads the locations of one chunk.
+     */
+    public ParticipantLocationLoader(LocationSource source) {
+        this(source, MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Creates a loader.
+     *
+     * @param source      Reads the locations of one chunk.
+     * @param maxInFlight The maximum number of chunks read at the same time.
+     */
+    public ParticipantLocationLoader(LocationSource source, int maxInFlight) {
+        this.source = source;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Reads the locations of participants.
+     *
+     * @param userIds  The IDs of the participants, duplicates are read once.
+     * @param listener Receives the locations while they arrive.
+     */
+    public void load(List<String> userIds, Listener listener) {
+        List<List<String>> chunks = BoundedTaskRunner.partition(new ArrayList<>(new LinkedHashSet<>(userIds)), CHUNK_SIZE);
+        List<LatLng> all = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failed = new AtomicInteger();
+        BoundedTaskRunner.run(chunks.size(), maxInFlight, (index, done) ->
+                source.load(chunks.get(index), new DataCallback<List<LatLng>>() {
+                    @Override
+                    public void onSuccess(List<LatLng> locations) {
+                        all.addAll(locations);
+                        listener.onLocations(locations);
+                        done.run();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        failed.incrementAndGet();
+                        done.run();
+                    }
+                }),
+                () -> listener.onComplete(new ArrayList<>(all), failed.get()));
+    }
+}
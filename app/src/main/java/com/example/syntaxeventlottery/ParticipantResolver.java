@@ -0,0 +1,203 @@
+package com.example.syntaxeventlottery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code ParticipantResolver} class turns the participant IDs of an event into the {@link User} objects
+ * shown in the participant lists. Only the users asked for are read, in chunks of {@link #CHUNK_SIZE} IDs per
+ * query, and every chunk is handed to the listener as soon as it arrives.
+ * Resolved users are remembered, so switching back to a list or refreshing it only reads users not seen before,
+ * and IDs already being read are not read a second time.
+ * <p>
+ * Not thread-safe: call it and complete the loads on the main thread, as the Firestore callbacks do.
+ */
+public class ParticipantResolver {
+    /** Maximum number of user IDs per query, the limit of a Firestore {@code in} filter. */
+    static final int CHUNK_SIZE = 30;
+
+    /**
+     * Reads the users with the given IDs.
+     */
+    public interface UserBatchLoader {
+        /**
+         * Starts reading users.
+         *
+         * @param userIds  At most {@link #CHUNK_SIZE} user IDs.
+         * @param callback Receives the users found, in any order. IDs without a user are left out.
+         */
+        void load(List<String> userIds, DataCallback<List<User>> callback);
+    }
+
+    /**
+     * Receives the users of a {@link #resolve} call while they arrive.
+     */
+    public interface Listener {
+        /**
+         * Called with the users resolved so far, first with the remembered users and then once per chunk read.
+         *
+         * @param users    The resolved users, in the order of the requested IDs.
+         * @param complete {@code true} for the last call, once every chunk was read or failed.
+         */
+        void onUsers(List<User> users, boolean complete);
+
+        /**
+         * Called when a chunk could not be read. The users of the other chunks are still delivered.
+         *
+         * @param e The error.
+         */
+        void onError(Exception e);
+    }
+
+    private final UserBatchLoader loader;
+    private final Map<String, User> resolved = new HashMap<>();
+    private final Set<String> missing = new HashSet<>();
+    private final Map<String, Chunk> inFlight = new HashMap<>();
+
+    private long reads;
+    private long memoHits;
+
+    /**
+     * Creates a resolver.
+     *
+     * @param loader Reads the users of one chunk.
+     */
+    public ParticipantResolver(UserBatchLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Resolves participant IDs to users.
+     *
+     * @param userIds  The IDs of the participants, in display order.
+     * @param listener Receives the users while they arrive.
+     */
+    public void resolve(List<String> userIds, Listener listener) {
+        Request request = new Request(new ArrayList<>(new LinkedHashSet<>(userIds)), listener);
+        Set<Chunk> waitFor = new LinkedHashSet<>();
+        List<Chunk> started = new ArrayList<>();
+        List<String> toRead = new ArrayList<>();
+        for (String userId : request.userIds) {
+            if (resolved.containsKey(userId) || missing.contains(userId)) {
+                memoHits++;
+            } else if (inFlight.containsKey(userId)) {
+                waitFor.add(inFlight.get(userId));
+            } else {
+                toRead.add(userId);
+            }
+        }
+        for (int from = 0; from < toRead.size(); from += CHUNK_SIZE) {
+            Chunk chunk = new Chunk(new ArrayList<>(toRead.subList(from, Math.min(from + CHUNK_SIZE, toRead.size()))));
+            for (String userId : chunk.userIds) {
+                inFlight.put(userId, chunk);
+            }
+            waitFor.add(chunk);
+            started.add(chunk);
+        }
+
+        request.remaining = waitFor.size();
+        for (Chunk chunk : waitFor) {
+            chunk.requests.add(request);
+        }
+        // remembered users are shown right away, before any chunk is read
+        request.emit();
+        for (Chunk chunk : started) {
+            read(chunk);
+        }
+    }
+
+    private void read(Chunk chunk) {
+        reads++;
+        loader.load(chunk.userIds, new DataCallback<List<User>>() {
+            @Override
+            public void onSuccess(List<User> users) {
+                Set<String> found = new HashSet<>();
+                for (User user : users) {
+                    resolved.put(user.getUserID(), user);
+                    found.add(user.getUserID());
+                }
+                for (String userId : chunk.userIds) {
+                    if (!found.contains(userId)) {
+                        missing.add(userId);
+                    }
+                }
+                finish(chunk, null);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                finish(chunk, e);
+            }
+        });
+    }
+
+    private void finish(Chunk chunk, Exception error) {
+        for (String userId : chunk.userIds) {
+            inFlight.remove(userId);
+        }
+        for (Request request : chunk.requests) {
+            request.remaining--;
+            if (error != null) {
+                request.listener.onError(error);
+            }
+            request.emit();
+        }
+    }
+
+    /**
+     * Forgets a user, so that the next {@link #resolve} call reads it again.
+     *
+     * @param userId The ID of the user.
+     */
+    public void invalidate(String userId) {
+        resolved.remove(userId);
+        missing.remove(userId);
+    }
+
+    /** @return The number of chunk queries made. */
+    public long getReads() {
+        return reads;
+    }
+
+    /** @return The number of requested IDs answered from remembered users. */
+    public long getMemoHits() {
+        return memoHits;
+    }
+
+    // IDs read by one query, and the resolve calls waiting for them
+    private static class Chunk {
+        final List<String> userIds;
+        final List<Request> requests = new ArrayList<>();
+
+        Chunk(List<String> userIds) {
+            this.userIds = userIds;
+        }
+    }
+
+    private class Request {
+        final List<String> userIds;
+        final Listener listener;
+        int remaining;
+
+        Request(List<String> userIds, Listener listener) {
+            this.userIds = userIds;
+            this.listener = listener;
+        }
+
+        void emit() {
+            List<User> users = new ArrayList<>();
+            for (String userId : userIds) {
+                User user = resolved.get(userId);
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+            listener.onUsers(users, remaining == 0);
+        }
+    }
+}
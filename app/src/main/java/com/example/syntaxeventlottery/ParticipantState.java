@@ -0,0 +1,31 @@
+package com.example.syntaxeventlottery;
+
+/**
+ * The {@code ParticipantState} enum lists the states an entrant can be in for an {@link Event}.
+ * Each state is stored in its own participant list field of the event document.
+ */
+public enum ParticipantState {
+    /** The entrant joined the waiting list. */
+    WAITING("participants"),
+    /** The entrant was selected by the lottery. */
+    SELECTED("selectedParticipants"),
+    /** The entrant confirmed to take part in the event. */
+    CONFIRMED("confirmedParticipants"),
+    /** The entrant rejected the invitation or was cancelled by the organizer. */
+    CANCELLED("cancelledParticipants");
+
+    private final String fieldName;
+
+    ParticipantState(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Returns the name of the event document field holding the entrants in this state.
+     *
+     * @return The Firestore field name.
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.syntaxeventlottery;
+
+import java.util.Locale;
+
+/**
+ * The {@code ProjectedLocation} class is the location of one participant as kept in the location projection
+ * of an event, see {@link LocationProjection}. It is stored as a short string: the geohash of the
+ * {@link #GEOHASH_PRECISION}-character cell containing the participant, followed by the latitude and longitude
+ * quantized to {@link #SCALE} steps per degree, about one metre.
+ * The geohash groups nearby participants by prefix without decoding the coordinates.
+ */
+public class ProjectedLocation {
+    /** Length of the stored geohash, cells of about 1.2 km by 0.6 km. */
+    static final int GEOHASH_PRECISION = 6;
+    /** Quantization steps per degree of the stored coordinates. */
+    static final int SCALE = 100_000;
+    private static final char SEPARATOR = '|';
+
+    private final String userId;
+    private final String geohash;
+    private final int latitudeE5;
+    private final int longitudeE5;
+
+    private ProjectedLocation(String userId, String geohash, int latitudeE5, int longitudeE5) {
+        this.userId = userId;
+        this.geohash = geohash;
+        this.latitudeE5 = latitudeE5;
+        this.longitudeE5 = longitudeE5;
+    }
+
+    /**
+     * Creates the projected location of a participant.
+     *
+     * @param userId    The ID of the participant.
+     * @param latitude  The latitude, between -90 and 90 degrees.
+     * @param longitude The longitude, between -180 and 180 degrees.
+     * @return The projected location.
+     */
+    public static ProjectedLocation of(String userId, double latitude, double longitude) {
+        String geohash = GeoHash.encode(latitude, longitude, GEOHASH_PRECISION);
+        return new ProjectedLocation(userId, geohash,
+                (int) Math.round(latitude * SCALE), (int) Math.round(longitude * SCALE));
+    }
+
+    /**
+     * Reads a projected location from its stored form.
+     *
+     * @param userId The ID of the participant the location is stored under.
+     * @param packed The stored form, as returned by {@link #pack()}.
+     * @return The projected location, or {@code null} if the stored form cannot be read.
+     */
+    public static ProjectedLocation unpack(String userId, String packed) {
+        if (packed == null) {
+            return null;
+        }
+        int first = packed.indexOf(SEPARATOR);
+        int second = packed.indexOf(SEPARATOR, first + 1);
+        if (first <= 0 || second < 0) {
+            return null;
+        }
+        try {
+            int latitudeE5 = Integer.parseInt(packed.substring(first + 1, second));
+            int longitudeE5 = Integer.parseInt(packed.substring(second + 1));
+            if (Math.abs(latitudeE5) > 90 * SCALE || Math.abs(longitudeE5) > 180 * SCALE) {
+                return null;
+            }
+            return new ProjectedLocation(userId, packed.substring(0, first), latitudeE5, longitudeE5);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The stored form of this location, for example {@code "c3nfk5|5354412|-11352630"}.
+     */
+    public String pack() {
+        return String.format(Locale.ROOT, "%s%c%d%c%d", geohash, SEPARATOR, latitudeE5, SEPARATOR, longitudeE5);
+    }
+
+    /**
+     * @return The ID of the participant.
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return The geohash of the cell containing the participant.
+     */
+    public String getGeohash() {
+        return geohash;
+    }
+
+    /**
+     * @return The latitude in degrees, rounded to the quantization step.
+     */
+    public double getLatitude() {
+        return (double) latitudeE5 / SCALE;
+    }
+
+    /**
+     * @return The longitude in degrees, rounded to the quantization step.
+     */
+    public double getLongitude() {
+        return (double) longitudeE5 / SCALE;
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.syntaxeventlottery;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The {@code QRCodeRenderer} class renders the QR code of an event.
+ * The {@link BitMatrix} is converted to pixels in one pass over its packed rows and pushed into the
+ * {@link Bitmap} with a single {@link Bitmap#setPixels} call. Rendered bitmaps are kept in an LRU
+ * cache keyed by event ID and size. PNG bytes can be produced straight from the matrix as a 1-bit
+ * grayscale image, without going through a {@code Bitmap}.
+ * The QR code only holds the event ID, so it is rendered on the device when it is shown instead of
+ * being stored; {@link #load} also keeps the PNG in the app's cache directory.
+ */
+public final class QRCodeRenderer {
+    private static final String TAG = "QRCodeRenderer";
+    /** Width and height in pixels of the QR codes shown in the app. */
+    public static final int DEFAULT_SIZE = 300;
+    static final int BLACK = 0xFF000000;
+    static final int WHITE = 0xFFFFFFFF;
+    // about a dozen 300x300 RGB_565 bitmaps
+    private static final int CACHE_SIZE_KB = 2 * 1024;
+    private static final String DISK_CACHE_DIR = "qr_codes";
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static QRCodeRenderer instance;
+
+    private final LruCache<String, Bitmap> cache;
+    private final ExecutorService executor;
+    private final Handler mainHandler;
+
+    /**
+     * Creates a renderer with its own cache. Use {@link #getInstance()} to share the cache.
+     *
+     * @param cacheSizeKb The maximum size of the cached bitmaps in kilobytes.
+     */
+    QRCodeRenderer(int cacheSizeKb) {
+        this.cache = new LruCache<String, Bitmap>(cacheSizeKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+        this.executor = Executors.newSingleThreadExecutor();
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Returns the renderer shared by the whole process.
+     *
+     * @return The shared {@code QRCodeRenderer}.
+     */
+    public static synchronized QRCodeRenderer getInstance() {
+        if (instance == null) {
+            instance = new QRCodeRenderer(CACHE_SIZE_KB);
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the QR code of an event from the memory cache, the disk cache, or by rendering it,
+     * in that order. Disk access and rendering happen off the main thread.
+     *
+     * @param context  The context used to find the cache directory.
+     * @param eventId  The ID of the event encoded in the QR code.
+     * @param size     The width and height of the bitmap in pixels.
+     * @param callback The callback receiving the bitmap on the main thread.
+     */
+    public void load(Context context, String eventId, int size, DataCallback<Bitmap> callback) {
+        String key = eventId + ":" + size;
+        Bitmap cached = cache.get(key);
+        if (cached != null) {
+            callback.onSuccess(cached);
+            return;
+        }
+        File directory = new File(context.getCacheDir(), DISK_CACHE_DIR);
+        executor.execute(() -> {
+            File file = new File(directory, eventId + "_" + size + ".png");
+            Bitmap bitmap = file.exists() ? BitmapFactory.decodeFile(file.getPath()) : null;
+            if (bitmap == null) {
+                try {
+                    BitMatrix matrix = encode(eventId, size);
+                    bitmap = toBitmap(matrix);
+                    writeToDisk(directory, file, toPng(matrix));
+                } catch (WriterException | IllegalArgumentException e) {
+                    Log.e(TAG, "Failed to render QR code for " + eventId, e);
+                    mainHandler.post(() -> callback.onError(e));
+                    return;
+                }
+            }
+            cache.put(key, bitmap);
+
+            Bitmap result = bitmap;
+            mainHandler.post(() -> callback.onSuccess(result));
+        });
+    }
+
+    private void writeToDisk(File directory, File file, byte[] png) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(png);
+        } catch (IOException e) {
+            // the QR code is rendered again next time
+            Log.e(TAG, "Failed to cache QR code in " + file, e);
+        }
+    }
+
+    /**
+     * Renders the QR code of an event, or returns it from the memory cache.
+     *
+     * @param eventId The ID of the event encoded in the QR code.
+     * @param size    The width and height of the bitmap in pixels.
+     * @return The QR code bitmap, or {@code null} if the ID cannot be encoded.
+     */
+    @Nullable
+    public Bitmap render(String eventId, int size) {
+        String key = eventId + ":" + size;
+        Bitmap cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            Bitmap bitmap = toBitmap(encode(eventId, size));
+            cache.put(key, bitmap);
+            return bitmap;
+        } catch (WriterException | IllegalArgumentException e) {
+            Log.e(TAG, "Failed to render QR code for " + eventId, e);
+            return null;
+        }
+    }
+
+    private static Bitmap toBitmap(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        bitmap.setPixels(toPixels(matrix), 0, width, 0, 0, width, height);
+        return bitmap;
+    }
+
+    /**
+     * Encodes content as a QR code matrix of the given size.
+     *
+     * @param content The content of the QR code.
+     * @param size    The width and height of the matrix.
+     * @return The QR code matrix.
+     * @throws WriterException If the content cannot be encoded.
+     */
+    static BitMatrix encode(String content, int size) throws WriterException {
+        return new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size);
+    }
+
+    /**
+     * Converts a matrix to ARGB pixels in row-major order, as expected by {@link Bitmap#setPixels}.
+     * Each row is read from its packed bits. A QR module spans several pixel rows, so a row that
+     * equals the previous one is copied instead of converted again.
+     *
+     * @param matrix The QR code matrix.
+     * @return The pixels, black for set bits and white otherwise.
+     */
+    static int[] toPixels(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int[] pixels = new int[width * height];
+        BitArray row = new BitArray(width);
+        int[] previousBits = null;
+
+        for (int y = 0; y < height; y++) {
+            row = matrix.getRow(y, row);
+            int[] bits = row.getBitArray();
+            int offset = y * width;
+            if (previousBits != null && Arrays.equals(bits, previousBits)) {
+                System.arraycopy(pixels, offset - width, pixels, offset, width);
+                continue;
+            }
+            for (int x = 0; x < width; x++) {
+                pixels[offset + x] = ((bits[x >>> 5] >>> (x & 31)) & 1) != 0 ? BLACK : WHITE;
+            }
+            previousBits = bits.clone();
+        }
+        return pixels;
+    }
+
+    /**
+     * Encodes a matrix as a 1-bit grayscale PNG, where set bits are black.
+     *
+     * @param matrix The QR code matrix.
+     * @return The PNG bytes.
+     */
+    static byte[] toPng(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) / 8;
+        int stride = rowBytes + 1; // each scanline starts with its filter type, 0 means none
+
+        byte[] scanlines = new byte[stride * height];
+        BitArray row = new BitArray(width);
+        for (int y = 0; y < height; y++) {
+            row = matrix.getRow(y, row);
+            int[] bits = row.getBitArray();
+            int offset = y * stride + 1;
+            // in 1-bit grayscale a set sample is white, and the first pixel is the high bit
+            for (int x = 0; x < width; x++) {
+                if (((bits[x >>> 5] >>> (x & 31)) & 1) == 0) {
+                    scanlines[offset + (x >>> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // color type: grayscale
+        header[10] = 0; // compression: deflate
+        header[11] = 0; // filter method
+        header[12] = 0; // no interlace
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + scanlines.length / 8);
+        out.write(PNG_SIGNATURE, 0, PNG_SIGNATURE.length);
+        writeChunk(out, "IHDR", header);
+        writeChunk(out, "IDAT", deflate(scanlines));
+        writeChunk(out, "IEND", new byte[0]);
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 8 + 64);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        byte[] number = new byte[4];
+        writeInt(number, 0, data.length);
+        out.write(number, 0, 4);
+        out.write(typeBytes, 0, typeBytes.length);
+        out.write(data, 0, data.length);
+        writeInt(number, 0, (int) crc.getValue());
+        out.write(number, 0, 4);
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+}
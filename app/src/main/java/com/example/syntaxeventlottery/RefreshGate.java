@@ -0,0 +1,189 @@
+package com.example.syntaxeventlottery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * The {@code RefreshGate} class decides when a cached data set is loaded again.
+ * Refreshes requested while a load is running join that load instead of starting another one.
+ * Data loaded less than {@code maxAgeMs} ago is served from the cache. Older data is still served right away
+ * while a load runs in the background (stale-while-revalidate), unless it is older than {@code maxStaleMs},
+ * in which case the caller waits for the load.
+ */
+public final class RefreshGate {
+
+    /**
+     * Loads the data set into the cache.
+     */
+    public interface Loader {
+        /**
+         * Starts the load.
+         *
+         * @param done Must be notified exactly once when the load has finished or failed.
+         */
+        void load(DataCallback<Void> done);
+    }
+
+    private final LongSupplier clock;
+    private long maxAgeMs;
+    private long maxStaleMs;
+
+    private final List<DataCallback<Void>> waiting = new ArrayList<>();
+    private boolean loading;
+    private boolean loaded;
+    private long loadedAt;
+
+    private long hits;
+    private long staleHits;
+    private long misses;
+    private long coalesced;
+    private long loads;
+
+    /**
+     * Creates a gate measuring time with the system clock.
+     *
+     * @param maxAgeMs   How long loaded data is served without loading it again, in milliseconds.
+     * @param maxStaleMs How long loaded data is served while it is loaded again, in milliseconds.
+     */
+    public RefreshGate(long maxAgeMs, long maxStaleMs) {
+        this(maxAgeMs, maxStaleMs, () -> System.nanoTime() / 1_000_000);
+    }
+
+    /**
+     * Creates a gate with the given clock.
+     *
+     * @param maxAgeMs   How long loaded data is served without loading it again, in milliseconds.
+     * @param maxStaleMs How long loaded data is served while it is loaded again, in milliseconds.
+     * @param clock      Gives the current time in milliseconds.
+     */
+    RefreshGate(long maxAgeMs, long maxStaleMs, LongSupplier clock) {
+        this.clock = clock;
+        setFreshness(maxAgeMs, maxStaleMs);
+    }
+
+    /**
+     * Changes the staleness window.
+     *
+     * @param maxAgeMs   How long loaded data is served without loading it again, in milliseconds.
+     * @param maxStaleMs How long loaded data is served while it is loaded again, in milliseconds.
+     * @throws IllegalArgumentException If {@code maxStaleMs} is shorter than {@code maxAgeMs}.
+     */
+    public synchronized void setFreshness(long maxAgeMs, long maxStaleMs) {
+        if (maxAgeMs < 0 || maxStaleMs < maxAgeMs) {
+            throw new IllegalArgumentException("Invalid staleness window " + maxAgeMs + "/" + maxStaleMs);
+        }
+        this.maxAgeMs = maxAgeMs;
+        this.maxStaleMs = maxStaleMs;
+    }
+
+    /**
+     * Makes sure the cached data is fresh enough, loading it if needed.
+     *
+     * @param loader   Loads the data set, only called when a load has to start.
+     * @param callback Notified once the cached data can be read.
+     */
+    public void refresh(Loader loader, DataCallback<Void> callback) {
+        boolean start = false;
+        boolean serveNow = false;
+        synchronized (this) {
+            long age = loaded ? clock.getAsLong() - loadedAt : Long.MAX_VALUE;
+            if (loaded && age <= maxAgeMs) {
+                hits++;
+                serveNow = true;
+            } else if (loaded && age <= maxStaleMs) {
+                staleHits++;
+                serveNow = true;
+                if (loading) {
+                    coalesced++;
+                } else {
+                    start = true;
+                }
+            } else {
+                misses++;
+                waiting.add(callback);
+                if (loading) {
+                    coalesced++;
+                } else {
+                    start = true;
+                }
+            }
+            if (start) {
+                loading = true;
+                loads++;
+            }
+        }
+        if (serveNow) {
+            callback.onSuccess(null);
+        }
+        if (start) {
+            long startedAt = clock.getAsLong();
+            loader.load(new DataCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    for (DataCallback<Void> waiter : finish(true, startedAt)) {
+                        waiter.onSuccess(null);
+                    }
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    for (DataCallback<Void> waiter : finish(false, startedAt)) {
+                        waiter.onError(e);
+                    }
+                }
+            });
+        }
+    }
+
+    private synchronized List<DataCallback<Void>> finish(boolean success, long startedAt) {
+        loading = false;
+        if (success) {
+            loaded = true;
+            // the data is at least as new as the start of the load
+            loadedAt = startedAt;
+        }
+        List<DataCallback<Void>> done = new ArrayList<>(waiting);
+        waiting.clear();
+        return done;
+    }
+
+    /**
+     * Marks the cached data as out of date, so the next refresh waits for a load.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+    }
+
+    /** @return The number of refreshes served from fresh data. */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** @return The number of refreshes served from stale data while it was loaded again. */
+    public synchronized long getStaleHits() {
+        return staleHits;
+    }
+
+    /** @return The number of refreshes that waited for a load. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** @return The number of refreshes that joined a load already running instead of starting one. */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /** @return The number of loads started. */
+    public synchronized long getLoads() {
+        return loads;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "%d hits, %d stale hits, %d misses, %d coalesced, %d loads",
+                hits, staleHits, misses, coalesced, loads);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.syntaxeventlottery;
+
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code UploadPipeline} class saves a document, such as an event or a user, together with its files.
+ * Every file upload is started at once and their download URLs are joined before the document
+ * is written, so the document is written a single time with all URLs in it. When a stage fails the
+ * callback receives a {@link PipelineException} naming the stage, and files uploaded by the run can
+ * be deleted again so that no orphans are left in the store.
+ */
+public class UploadPipeline {
+
+    /**
+     * The stages of the pipeline.
+     */
+    public enum Stage {
+        /** Uploading files and resolving their download URLs. */
+        UPLOAD,
+        /** Writing the document. */
+        DOCUMENT
+    }
+
+    /**
+     * Writes the document once every download URL is known.
+     */
+    public interface DocumentWriter {
+        /**
+         * Writes the document.
+         *
+         * @param data     The document fields, including the download URLs.
+         * @param callback The callback notified once the document is written.
+         */
+        void write(Map<String, Object> data, DataCallback<Void> callback);
+    }
+
+    /**
+     * A file to upload, and the document field that receives its download URL.
+     */
+    public static class Upload {
+        private final String field;
+        private final String path;
+        private final Uri uri;
+        private final byte[] bytes;
+
+        private Upload(String field, String path, Uri uri, byte[] bytes) {
+            this.field = field;
+            this.path = path;
+            this.uri = uri;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Creates an upload of a local file.
+         *
+         * @param field The document field receiving the download URL.
+         * @param path  The path of the file in the store.
+         * @param uri   The URI of the local file.
+         * @return The upload.
+         */
+        public static Upload fromUri(String field, String path, Uri uri) {
+            return new Upload(field, path, uri, null);
+        }
+
+        /**
+         * Creates an upload of bytes.
+         *
+         * @param field The document field receiving the download URL.
+         * @param path  The path of the file in the store.
+         * @param bytes The bytes to upload.
+         * @return The upload.
+         */
+        public static Upload fromBytes(String field, String path, byte[] bytes) {
+            return new Upload(field, path, null, bytes);
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    /**
+     * Reports the stage that failed, and for uploads the path of the file.
+     */
+    public static class PipelineException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final Stage stage;
+        private final String path;
+
+        PipelineException(Stage stage, String path, Exception cause) {
+            super(stage == Stage.UPLOAD ? "Failed to upload " + path : "Failed to save document", cause);
+            this.stage = stage;
+            this.path = path;
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        /**
+         * Gets the path of the file that failed to upload.
+         *
+         * @return The path, or {@code null} if the document write failed.
+         */
+        public String getPath() {
+            return path;
+        }
+    }
+
+    private final BlobStore blobStore;
+
+    /**
+     * Creates a pipeline uploading to the given store.
+     *
+     * @param blobStore The store receiving the files.
+     */
+    public UploadPipeline(BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * Uploads the files concurrently, puts their download URLs into {@code data} and then writes the document.
+     * With {@code rollback}, files uploaded by this run are deleted when a stage fails. It must be off when
+     * an upload overwrites a file the stored document still points to.
+     *
+     * @param uploads  The files to upload.
+     * @param data     The document fields, the download URLs are added to it.
+     * @param rollback Whether uploaded files are deleted when a stage fails.
+     * @param writer   Writes the document.
+     * @param callback The callback notified once the document is written, or with a {@link PipelineException}.
+     */
+    public void run(List<Upload> uploads, Map<String, Object> data, boolean rollback,
+                    DocumentWriter writer, DataCallback<Void> callback) {
+        String[] urls = new String[uploads.size()];
+        AtomicReference<PipelineException> failure = new AtomicReference<>();
+
+        // every upload is in flight at the same time, the join runs once all of them have finished
+        BoundedTaskRunner.run(uploads.size(), uploads.size(), (index, done) -> {
+            Upload upload = uploads.get(index);
+            DataCallback<String> uploaded = new DataCallback<String>() {
+                @Override
+                public void onSuccess(String url) {
+                    urls[index] = url;
+                    done.run();
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    failure.compareAndSet(null, new PipelineException(Stage.UPLOAD, upload.getPath(), e));
+                    done.run();
+                }
+            };
+            if (upload.uri != null) {
+                blobStore.upload(upload.getPath(), upload.uri, uploaded);
+            } else {
+                blobStore.upload(upload.getPath(), upload.bytes, uploaded);
+            }
+        }, () -> {
+            if (failure.get() != null) {
+                fail(uploads, urls, rollback, failure.get(), callback);
+                return;
+            }
+            for (int i = 0; i < uploads.size(); i++) {
+                data.put(uploads.get(i).getField(), urls[i]);
+            }
+            writer.write(data, new DataCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    callback.onSuccess(null);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    fail(uploads, urls, rollback, new PipelineException(Stage.DOCUMENT, null, e), callback);
+                }
+            });
+        });
+    }
+
+    private void fail(List<Upload> uploads, String[] urls, boolean rollback,
+                      PipelineException failure, DataCallback<Void> callback) {
+        List<String> uploaded = new ArrayList<>();
+        for (int i = 0; i < uploads.size(); i++) {
+            if (urls[i] != null) {
+                uploaded.add(uploads.get(i).getPath());
+            }
+        }
+        if (!rollback || uploaded.isEmpty()) {
+            callback.onError(failure);
+            return;
+        }
+        // the failure is reported once the store is clean again, a failed delete only leaves an orphan
+        BoundedTaskRunner.run(uploaded.size(), uploaded.size(), (index, done) ->
+                blobStore.delete(uploaded.get(index), new DataCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        done.run();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        failure.addSuppressed(e);
+                        done.run();
+                    }
+                }), () -> callback.onError(failure));
+    }
+}
@@ -18,6 +18,7 @@ public class User implements Serializable {
     private String email;
     private String phoneNumber;
     private String profilePhotoUrl;
+    private String profileThumbnailUrl;
     private String username;
     private Set<String> roles;
     private Facility facility;
@@ -168,6 +169,22 @@ public class User implements Serializable {
         this.profilePhotoUrl = profilePhotoUrl;
     }
 
+    /**
+     * @return The URL of the small profile photo variant shown in user lists, or {@code null} if there is none.
+     */
+    public String getProfileThumbnailUrl() {
+        return profileThumbnailUrl;
+    }
+
+    /**
+     * Sets the URL of the small profile photo variant.
+     *
+     * @param profileThumbnailUrl The thumbnail URL to set.
+     */
+    public void setProfileThumbnailUrl(String profileThumbnailUrl) {
+        this.profileThumbnailUrl = profileThumbnailUrl;
+    }
+
     /**
      * @return The username of the user.
      */
@@ -10,7 +10,10 @@ import android.util.Log;
 import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 
+import com.google.android.gms.maps.model.LatLng;
+
 import java.util.ArrayList;
+import java.util.List;
 
 import android.Manifest;
 
@@ -85,6 +88,53 @@ public class UserController {
         return (ArrayList<User>) userRepository.getLocalUsersList();
     }
 
+    /**
+     * Loads a single user from the data source.
+     *
+     * @param deviceId The device ID of the user.
+     * @param callback The callback receiving the user, or {@code null} if there is no such user.
+     */
+    public void getUser(String deviceId, DataCallback<User> callback) {
+        if (deviceId == null) {
+            callback.onSuccess(null);
+            return;
+        }
+        userRepository.getUser(deviceId, callback);
+    }
+
+    /**
+     * Loads the users with the given IDs from the data source.
+     *
+     * @param userIds  The IDs of the users, at most {@link ParticipantResolver#CHUNK_SIZE} of them.
+     * @param callback The callback receiving the users found.
+     */
+    public void getUsers(List<String> userIds, DataCallback<List<User>> callback) {
+        userRepository.getUsersByIds(userIds, callback);
+    }
+
+    /**
+     * Loads the locations of the users with the given IDs from the data source.
+     *
+     * @param userIds  The IDs of the users, at most {@link ParticipantLocationLoader#CHUNK_SIZE} of them.
+     * @param callback The callback receiving the locations found.
+     */
+    public void getUserLocations(List<String> userIds, DataCallback<List<LatLng>> callback) {
+        userRepository.getUserLocations(userIds, callback);
+    }
+
+    /**
+     * Loads a page of all users, ordered by user ID, for the admin screens.
+     *
+     * @param cursor    The page the new page is read relative to, or {@code null} for the first page.
+     * @param direction Where the page is read relative to the cursor.
+     * @param pageSize  The maximum number of users in the page.
+     * @param callback  The callback receiving the loaded page.
+     */
+    public void loadUserPage(@Nullable DocumentPage<User> cursor, DocumentPage.Direction direction, int pageSize,
+                             DataCallback<DocumentPage<User>> callback) {
+        userRepository.loadUsersPage(cursor, direction, pageSize, callback);
+    }
+
     /**
      * Refreshes the user repository by fetching all users from the data source.
      *
@@ -104,13 +154,7 @@ public class UserController {
         if (deviceId == null) {
             return null;
         }
-        ArrayList<User> users = getLocalUsersList();
-        for (User user : users) {
-            if (user.getUserID().equals(deviceId)) {
-                return user;
-            }
-        }
-        return null;
+        return userRepository.getUserById(deviceId);
     }
 
     /**
@@ -56,8 +56,8 @@ public class UserHomeActivity extends AppCompatActivity {
         scanButton = findViewById(R.id.qrScanButton);
 
         // Initialize Controllers
-        eventController = new EventController(new EventRepository());
-        userController = new UserController(new UserRepository());
+        eventController = new EventController(App.getEventRepository());
+        userController = new UserController(App.getUserRepository());
 
         // Get deviceId
         deviceID = Settings.Secure.getString(getContentResolver(), Settings.Secure.ANDROID_ID);
@@ -67,18 +67,21 @@ public class UserHomeActivity extends AppCompatActivity {
         waitlistedEventsRecyclerView.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
         waitlistedEventsAdapter = new EventAdapter(new ArrayList<>(), this);
         waitlistedEventsRecyclerView.setAdapter(waitlistedEventsAdapter);
+        waitlistedEventsRecyclerView.addOnScrollListener(waitlistedEventsAdapter.createPreloader());
 
         // Set up RecyclerView for Selected Events
         selectedEventsRecyclerView = findViewById(R.id.selectedEventsRecyclerView);
         selectedEventsRecyclerView.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
         selectedEventsAdapter = new EventAdapter(new ArrayList<>(), this);
         selectedEventsRecyclerView.setAdapter(selectedEventsAdapter);
+        selectedEventsRecyclerView.addOnScrollListener(selectedEventsAdapter.createPreloader());
 
         // Set up RecyclerView for Enrolled Events
         enrolledEventsRecyclerView = findViewById(R.id.enrolledEventsRecyclerView);
         enrolledEventsRecyclerView.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
         enrolledEventsAdapter = new EventAdapter(new ArrayList<>(), this);
         enrolledEventsRecyclerView.setAdapter(enrolledEventsAdapter);
+        enrolledEventsRecyclerView.addOnScrollListener(enrolledEventsAdapter.createPreloader());
 
         //load all user events
         loadUserEvents(deviceID);
@@ -111,9 +114,19 @@ public class UserHomeActivity extends AppCompatActivity {
         eventController.refreshRepository(new DataCallback<Void>() {
             @Override
             public void onSuccess(Void result) {
-                waitlistedEventsAdapter.updateEvents(eventController.getUserWaitlistedEvents(deviceID));
-                selectedEventsAdapter.updateEvents(eventController.getUserSelectedEvents(deviceID));
-                enrolledEventsAdapter.updateEvents(eventController.getUserEnrolledEvents(deviceID));
+                showUserEvents(deviceID);
+                // large events keep their entrants in a subcollection, add those memberships as well
+                eventController.loadShardedMemberships(deviceID, new DataCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        showUserEvents(deviceID);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Error loading memberships of large events", e);
+                    }
+                });
             }
             @Override
             public void onError(Exception e) {
@@ -123,14 +136,20 @@ public class UserHomeActivity extends AppCompatActivity {
         });
     }
 
+    private void showUserEvents(String deviceID) {
+        waitlistedEventsAdapter.updateEvents(eventController.getUserWaitlistedEvents(deviceID));
+        selectedEventsAdapter.updateEvents(eventController.getUserSelectedEvents(deviceID));
+        enrolledEventsAdapter.updateEvents(eventController.getUserEnrolledEvents(deviceID));
+    }
+
     /**
      * Checks if the user has a facility profile and launches the appropriate activity.
      */
     private void checkFacilityProfileAndLaunch() {
-        userController.refreshRepository(new DataCallback<Void>() {
+        userController.getUser(deviceID, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                currentUser = userController.getUserByDeviceID(deviceID);
+            public void onSuccess(User result) {
+                currentUser = result;
                 if (currentUser == null) {
                     Log.e(TAG, "No user found with this device ID");
                     Toast.makeText(UserHomeActivity.this, "Couldn't load user information, try again", Toast.LENGTH_SHORT).show();
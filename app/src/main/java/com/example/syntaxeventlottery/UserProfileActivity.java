@@ -41,7 +41,7 @@ public class UserProfileActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.user_profile);
 
-        userController = new UserController(new UserRepository());
+        userController = new UserController(App.getUserRepository());
 
         // Retrieve device ID for identifying the user
         deviceID = Settings.Secure.getString(getContentResolver(), Settings.Secure.ANDROID_ID);
@@ -110,10 +110,10 @@ public class UserProfileActivity extends AppCompatActivity {
      * Loads the user's profile by fetching their details from the repository.
      */
     public void loadUserProfile() {
-        userController.refreshRepository(new DataCallback<Void>() {
+        userController.getUser(deviceID, new DataCallback<User>() {
             @Override
-            public void onSuccess(Void result) {
-                currentUser = userController.getUserByDeviceID(deviceID);
+            public void onSuccess(User result) {
+                currentUser = result;
                 displayUserDetails(currentUser);
             }
 
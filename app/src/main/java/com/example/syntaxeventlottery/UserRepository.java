@@ -7,8 +7,10 @@ import android.util.Log;
 
 import androidx.annotation.Nullable;
 
+import com.google.android.gms.maps.model.LatLng;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.SetOptions;
@@ -17,6 +19,7 @@ import com.google.firebase.storage.StorageReference;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 /**
@@ -29,17 +32,45 @@ public class UserRepository {
     private FirebaseStorage storage;
     private CollectionReference usersRef;
     private StorageReference usersImageRef;
-    private ArrayList<User> usersDataList;
+    private LinkedHashMap<String, User> usersById;
+    private UploadPipeline uploadPipeline;
+    private RefreshGate refreshGate;
+
+    /** How long the fetched users are used without fetching them again. */
+    static final long MAX_AGE_MS = 30_000;
+    /** How long the fetched users are still shown while they are fetched again. */
+    static final long MAX_STALE_MS = 10 * 60_000;
 
     /**
      * Initializes the UserRepository with Firestore and Firebase Storage references.
      */
     public UserRepository() {
-        this.db = FirebaseFirestore.getInstance();
-        this.storage = FirebaseStorage.getInstance();
+        this(FirebaseFirestore.getInstance(), FirebaseStorage.getInstance());
+    }
+
+    /**
+     * Initializes the UserRepository with the given Firestore and Firebase Storage instances.
+     *
+     * @param db      The Firestore instance.
+     * @param storage The Firebase Storage instance.
+     */
+    UserRepository(FirebaseFirestore db, FirebaseStorage storage) {
+        this.db = db;
+        this.storage = storage;
         this.usersRef = db.collection("Users");
         this.usersImageRef = storage.getReference();
-        this.usersDataList = new ArrayList<>();
+        this.usersById = new LinkedHashMap<>();
+        this.uploadPipeline = new UploadPipeline(new FirebaseBlobStore(usersImageRef));
+        this.refreshGate = new RefreshGate(MAX_AGE_MS, MAX_STALE_MS);
+    }
+
+    /**
+     * Gets the gate deciding when the users are fetched again, to read its counters or change its staleness window.
+     *
+     * @return The refresh gate of the users cache.
+     */
+    public RefreshGate getRefreshGate() {
+        return refreshGate;
     }
 
     /**
@@ -48,22 +79,168 @@ public class UserRepository {
      * @return A copy of the local users list.
      */
     public ArrayList<User> getLocalUsersList() {
-        return new ArrayList<>(usersDataList);
+        return new ArrayList<>(usersById.values());
     }
 
     /**
-     * Fetches all users from Firestore and updates the local cache.
+     * Retrieves a cached user by their user ID using the ID index, without copying the cache.
+     *
+     * @param userId The ID of the user.
+     * @return The cached {@link User}, or {@code null} if the user is not cached.
+     */
+    public User getUserById(String userId) {
+        if (userId == null) {
+            return null;
+        }
+        return usersById.get(userId);
+    }
+
+    /**
+     * Reads a single user document and stores the user in the local cache, instead of fetching every user.
+     *
+     * @param userId   The ID of the user.
+     * @param callback The callback receiving the user, or {@code null} if there is no such user.
+     */
+    public void getUser(String userId, DataCallback<User> callback) {
+        usersRef.document(userId).get()
+                .addOnSuccessListener(doc -> {
+                    User user = doc.exists() ? toUser(doc) : null;
+                    if (user != null) {
+                        cacheUser(user);
+                    }
+                    callback.onSuccess(user);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error reading user " + userId, e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Reads the users with the given IDs with a single query, and stores them in the local cache.
+     *
+     * @param userIds  The IDs of the users, at most {@link ParticipantResolver#CHUNK_SIZE} of them.
+     * @param callback The callback receiving the users found, in any order.
+     */
+    public void getUsersByIds(List<String> userIds, DataCallback<List<User>> callback) {
+        if (userIds.isEmpty()) {
+            callback.onSuccess(new ArrayList<>());
+            return;
+        }
+        usersRef.whereIn(FieldPath.documentId(), userIds).get()
+                .addOnSuccessListener(snapshot -> {
+                    List<User> users = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        User user = toUser(doc);
+                        if (user != null) {
+                            cacheUser(user);
+                            users.add(user);
+                        }
+                    }
+                    callback.onSuccess(users);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error reading " + userIds.size() + " users", e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Reads the locations of the users with the given IDs with a single query.
+     *
+     * @param userIds  The IDs of the users, at most {@link ParticipantLocationLoader#CHUNK_SIZE} of them.
+     * @param callback The callback receiving the locations found. Users without a location are left out.
+     */
+    public void getUserLocations(List<String> userIds, DataCallback<List<LatLng>> callback) {
+        if (userIds.isEmpty()) {
+            callback.onSuccess(new ArrayList<>());
+            return;
+        }
+        usersRef.whereIn(FieldPath.documentId(), userIds).get()
+                .addOnSuccessListener(snapshot -> {
+                    List<LatLng> locations = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        // whole coordinates are read back as longs
+                        List<Number> location = (List<Number>) doc.get("location");
+                        if (location != null && location.size() == 2
+                                && location.get(0) != null && location.get(1) != null) {
+                            locations.add(new LatLng(location.get(0).doubleValue(), location.get(1).doubleValue()));
+                        }
+                    }
+                    callback.onSuccess(locations);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error reading the locations of " + userIds.size() + " users", e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Loads one page of all users, ordered by user ID, for browsing the whole collection.
+     * The users are not stored in the cache, so that browsing does not keep every page in memory.
+     *
+     * @param cursor    The page the new page is read relative to, or {@code null} to load the first page.
+     * @param direction Where the page is read relative to the cursor.
+     * @param pageSize  The maximum number of users in the page.
+     * @param callback  A callback receiving the page.
+     */
+    public void loadUsersPage(@Nullable DocumentPage<User> cursor, DocumentPage.Direction direction, int pageSize,
+                              DataCallback<DocumentPage<User>> callback) {
+        DocumentPage.page(usersRef.orderBy(FieldPath.documentId()), cursor, direction, pageSize).get()
+                .addOnSuccessListener(snapshot ->
+                        callback.onSuccess(DocumentPage.of(snapshot.getDocuments(), pageSize, UserRepository::toUser)))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to load a page of users", e);
+                    callback.onError(e);
+                });
+    }
+
+    /**
+     * Converts a Firestore user document to a {@link User}, taking the user ID from the document ID if missing.
+     *
+     * @param doc The user document snapshot.
+     * @return The deserialized {@link User}.
+     */
+    static User toUser(DocumentSnapshot doc) {
+        User user = doc.toObject(User.class);
+        if (user != null && user.getUserID() == null) {
+            user.setUserID(doc.getId());
+        }
+        return user;
+    }
+
+    /**
+     * Adds or replaces a user in the local cache.
+     *
+     * @param user The user to cache.
+     */
+    void cacheUser(User user) {
+        if (user == null || user.getUserID() == null) {
+            return;
+        }
+        usersById.put(user.getUserID(), user);
+    }
+
+    /**
+     * Makes sure the local cache holds the users from Firestore.
+     * Calls made while a fetch is running share it, and users fetched recently are served from the cache,
+     * see {@link RefreshGate}.
      *
      * @param callback Callback to handle the success or failure of the operation.
      */
     public void fetchAllUsers(DataCallback<Void> callback) {
+        refreshGate.refresh(this::loadAllUsers, callback);
+    }
+
+    private void loadAllUsers(DataCallback<Void> callback) {
         usersRef.get()
                 .addOnSuccessListener(querySnapshot -> {
-                    usersDataList.clear();
+                    usersById.clear();
                     for (QueryDocumentSnapshot doc : querySnapshot) {
                         User user = doc.toObject(User.class);
-                        usersDataList.add(user);
+                        cacheUser(user);
                     }
+                    Log.d(TAG, "Users fetched, refreshes: " + refreshGate);
                     callback.onSuccess(null);
                 })
                 .addOnFailureListener(e -> {
@@ -80,7 +257,7 @@ public class UserRepository {
      * @param callback  Callback to handle the success or failure of the operation.
      */
     public void addUserToRepo(User user, @Nullable Uri imageUri, DataCallback<User> callback) {
-        usersDataList.add(user);
+        cacheUser(user);
         HashMap<String, Object> data = userToHashData(user);
         if (imageUri != null) {
             uploadProfilePhoto(user, data, imageUri, callback);
@@ -100,7 +277,7 @@ public class UserRepository {
     public void deleteUserfromRepo(User user, DataCallback<Void> callback) {
         usersRef.document(user.getUserID()).delete()
                 .addOnSuccessListener(aVoid -> {
-                    usersDataList.remove(user);
+                    usersById.remove(user.getUserID());
                     callback.onSuccess(null);
                 })
                 .addOnFailureListener(callback::onError);
@@ -108,6 +285,7 @@ public class UserRepository {
 
     /**
      * Uploads a user's profile photo to Firebase Storage and updates Firestore with the photo URL.
+     * The photo is downscaled and re-encoded first, and a thumbnail is uploaded next to it.
      *
      * @param user      The user whose photo is being uploaded.
      * @param data      The user's data to be updated in Firestore.
@@ -115,22 +293,43 @@ public class UserRepository {
      * @param callback  Callback to handle the success or failure of the operation.
      */
     public void uploadProfilePhoto(User user, HashMap<String, Object> data, Uri imageUri, DataCallback<User> callback) {
-        StorageReference profilePhotoRef = usersImageRef.child("user_images/" + user.getUserID());
-        profilePhotoRef.putFile(imageUri)
-                .addOnSuccessListener(taskSnapshot ->
-                        profilePhotoRef.getDownloadUrl()
-                                .addOnSuccessListener(uri -> {
-                                    data.put("profilePhotoUrl", uri.toString());
-                                    user.setProfilePhotoUrl(uri.toString());
-                                    uploadUserData(user, data, callback);
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Failed to get profile photo url", e);
-                                    callback.onError(e);
-                                }))
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to upload profile photo", e);
-                    callback.onError(e);
+        ImagePreparer.getInstance().prepare(imageUri, ImagePreparer.ImageSpec.PROFILE_PHOTO, ImagePreparer.ImageSpec.PROFILE_THUMBNAIL,
+                new DataCallback<ImagePreparer.PreparedImage>() {
+                    @Override
+                    public void onSuccess(ImagePreparer.PreparedImage photo) {
+                        List<UploadPipeline.Upload> uploads = new ArrayList<>();
+                        uploads.add(UploadPipeline.Upload.fromBytes("profilePhotoUrl",
+                                "user_images/" + user.getUserID(), photo.getImage()));
+                        uploads.add(UploadPipeline.Upload.fromBytes("profileThumbnailUrl",
+                                "user_image_thumbnails/" + user.getUserID(), photo.getThumbnail()));
+
+                        // the new photo overwrites the one the stored user points to, so it is not rolled back
+                        uploadPipeline.run(uploads, data, false,
+                                (document, written) -> usersRef.document(user.getUserID()).set(document, SetOptions.merge())
+                                        .addOnSuccessListener(aVoid -> written.onSuccess(null))
+                                        .addOnFailureListener(written::onError),
+                                new DataCallback<Void>() {
+                                    @Override
+                                    public void onSuccess(Void result) {
+                                        user.setProfilePhotoUrl((String) data.get("profilePhotoUrl"));
+                                        user.setProfileThumbnailUrl((String) data.get("profileThumbnailUrl"));
+                                        Log.d(TAG, "User data saved successfully");
+                                        callback.onSuccess(user);
+                                    }
+
+                                    @Override
+                                    public void onError(Exception e) {
+                                        Log.e(TAG, "Failed to save profile photo", e);
+                                        callback.onError(e);
+                                    }
+                                });
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Failed to prepare profile photo", e);
+                        callback.onError(e);
+                    }
                 });
     }
 
@@ -161,12 +360,7 @@ public class UserRepository {
      * @param callback  Callback to handle the success or failure of the operation.
      */
     public void updateUserDetails(User user, @Nullable Uri imageUri, DataCallback<User> callback) {
-        for (int i = 0; i < usersDataList.size(); i++) {
-            if (usersDataList.get(i).getUserID().equals(user.getUserID())) {
-                usersDataList.set(i, user);
-                break;
-            }
-        }
+        cacheUser(user);
         HashMap<String, Object> data = userToHashData(user);
 
         if (imageUri != null) {
@@ -197,6 +391,9 @@ public class UserRepository {
                     .addOnSuccessListener(url -> {
                         data.put("profilePhotoUrl", url.toString());
                         user.setProfilePhotoUrl(url.toString());
+                        // the letter images are small, lists show them directly
+                        data.put("profileThumbnailUrl", null);
+                        user.setProfileThumbnailUrl(null);
                         uploadUserData(user, data, callback);
                     })
                     .addOnFailureListener(e -> {
@@ -247,6 +444,7 @@ public class UserRepository {
         data.put("email", user.getEmail());
         data.put("phoneNumber", user.getPhoneNumber());
         data.put("profilePhotoUrl", user.getProfilePhotoUrl());
+        data.put("profileThumbnailUrl", user.getProfileThumbnailUrl());
         data.put("username", user.getUsername());
         data.put("facility", user.getFacility());
         data.put("receiveNotifications", user.isReceiveNotifications());
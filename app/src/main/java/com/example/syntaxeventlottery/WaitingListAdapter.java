@@ -8,6 +8,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -17,10 +18,10 @@ import java.util.List;
 /**
  * Adapter for managing and displaying the waiting list in a RecyclerView.
  * This adapter is used to display user information in different participant lists (e.g., waiting list, selected participants).
+ * New lists are diffed against the shown one on a background thread, so only changed rows are bound again.
  */
-public class WaitingListAdapter extends RecyclerView.Adapter<WaitingListAdapter.ViewHolder> {
+public class WaitingListAdapter extends ListAdapter<ListRow<User>, WaitingListAdapter.ViewHolder> {
 
-    private List<User> waitingList;
     private OnClickListener cancelEntrantClickListener;
     private String currentListType;
 
@@ -37,25 +38,42 @@ public class WaitingListAdapter extends RecyclerView.Adapter<WaitingListAdapter.
     }
 
     /**
-     * Constructor for WaitingListAdapter.
+     * Constructor for WaitingListAdapter, starting with an empty list.
      *
-     * @param waitingList The list of users to display.
      * @param listener    The click listener for the cancel button.
      * @param listType    The type of the current list (e.g., "Waiting List", "Selected Participants").
      */
-    public WaitingListAdapter(List<User> waitingList, OnClickListener listener, String listType) {
-        this.waitingList = waitingList;
+    public WaitingListAdapter(OnClickListener listener, String listType) {
+        super(ListRow.diffCallback());
         this.cancelEntrantClickListener = listener;
         this.currentListType = listType;
     }
 
     /**
-     * Updates the current list type.
+     * Replaces the displayed users. Only the rows of added, removed, moved or changed users are updated,
+     * unless the list type changes, which changes every row.
      *
-     * @param listType The new list type (e.g., "Waiting List", "Selected Participants").
+     * @param users    The users to display.
+     * @param listType The type of the list (e.g., "Waiting List", "Selected Participants").
      */
-    public void setCurrentListType(String listType) {
-        this.currentListType = listType;
+    public void submitUsers(List<User> users, String listType) {
+        if (!listType.equals(currentListType)) {
+            // the cancel button depends on the list type, so rows kept by the diff are bound again too
+            currentListType = listType;
+            notifyItemRangeChanged(0, getItemCount());
+        }
+        submitList(ListRow.of(users, User::getUserID, user -> new Object[] {user.getUsername(), user.getPhoneNumber(),
+                user.getEmail(), user.getProfilePhotoUrl(), user.getProfileThumbnailUrl()}));
+    }
+
+    /**
+     * Gets the user displayed at a position.
+     *
+     * @param position The position of the row.
+     * @return The user.
+     */
+    public User getUser(int position) {
+        return getItem(position).getItem();
     }
 
     /**
@@ -80,17 +98,13 @@ public class WaitingListAdapter extends RecyclerView.Adapter<WaitingListAdapter.
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        User user = waitingList.get(position);
+        User user = getUser(position);
         holder.usernameTextView.setText("Username: " + user.getUsername());
         holder.phoneNumberTextView.setText("Phone: " + user.getPhoneNumber());
         holder.emailTextView.setText("Email: " + user.getEmail());
 
         // Load user profile image using Glide
-        if (user.getProfilePhotoUrl() != null) {
-            Glide.with(holder.itemView.getContext())
-                    .load(user.getProfilePhotoUrl())
-                    .into(holder.userProfileImageView);
-        }
+        ImageLoader.photoRow(Glide.with(holder.itemView.getContext()), user).into(holder.userProfileImageView);
 
         // Set up the cancel entrant button
         if (currentListType.equals("Waiting List") || currentListType.equals("Selected Participants")) {
@@ -105,16 +119,6 @@ public class WaitingListAdapter extends RecyclerView.Adapter<WaitingListAdapter.
         }
     }
 
-    /**
-     * Returns the total number of items in the waiting list.
-     *
-     * @return The size of the waiting list.
-     */
-    @Override
-    public int getItemCount() {
-        return waitingList.size();
-    }
-
     /**
      * ViewHolder for holding views of an individual item in the waiting list.
      */
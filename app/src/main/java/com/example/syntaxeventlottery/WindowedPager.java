@@ -0,0 +1,170 @@
+package com.example.syntaxeventlottery;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * The {@code WindowedPager} class loads a long list page by page into a {@link PageWindow} while it is
+ * scrolled: the next page when the end of the window is near, and a dropped page again when the start is near.
+ * Only one page is loaded at a time, and pages requested before the list is reloaded are ignored.
+ *
+ * @param <T> The type of the items.
+ */
+public class WindowedPager<T> {
+    /** Number of items loaded per page on the admin screens. */
+    static final int PAGE_SIZE = 25;
+    /** Number of items above which the admin screens drop pages they scrolled past. */
+    static final int WINDOW_ITEMS = 6 * PAGE_SIZE;
+    /** How close to an end of the window, in rows, the next page is loaded. */
+    static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * Loads one page of the list.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface PageSource<T> {
+        /**
+         * Starts loading a page.
+         *
+         * @param cursor    The page the new page is read relative to, or {@code null} for the first page.
+         * @param direction Where the page is read relative to the cursor.
+         * @param pageSize  The maximum number of items in the page.
+         * @param callback  Receives the page.
+         */
+        void load(@Nullable DocumentPage<T> cursor, DocumentPage.Direction direction, int pageSize,
+                  DataCallback<DocumentPage<T>> callback);
+    }
+
+    private final PageWindow<T> window;
+    private final PageSource<T> source;
+    private final int pageSize;
+    private final DataCallback<Void> listener;
+
+    private boolean loading;
+    /** Increased whenever the list is reloaded, so that pages requested before are dropped. */
+    private int generation;
+
+    /**
+     * Creates a pager.
+     *
+     * @param window   The window receiving the pages.
+     * @param source   Loads the pages.
+     * @param pageSize The number of items per page.
+     * @param listener Notified with {@code onSuccess} whenever the window changed, or with the error of a load.
+     */
+    public WindowedPager(PageWindow<T> window, PageSource<T> source, int pageSize, DataCallback<Void> listener) {
+        this.window = window;
+        this.source = source;
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Loads the pages shown again, starting at the first item of the window, so that changes made
+     * elsewhere are shown without scrolling back to the start of the list. An empty window loads the first page.
+     */
+    public void reload() {
+        generation++;
+        loading = false;
+        DocumentPage<T> first = window.getFirstPage();
+        if (first == null) {
+            load(null, DocumentPage.Direction.AFTER);
+        } else {
+            // one query for the whole window instead of one per page
+            load(first, DocumentPage.Direction.FROM, Math.max(window.size(), pageSize));
+        }
+    }
+
+    /**
+     * Loads the page following the window, unless a page is being loaded or the list ends.
+     */
+    public void loadAfter() {
+        if (window.hasAfter()) {
+            load(window.getLastPage(), DocumentPage.Direction.AFTER);
+        }
+    }
+
+    /**
+     * Loads the page preceding the window, unless a page is being loaded or the window starts the list.
+     */
+    public void loadBefore() {
+        if (window.hasBefore()) {
+            load(window.getFirstPage(), DocumentPage.Direction.BEFORE);
+        }
+    }
+
+    /**
+     * @return {@code true} while a page is loaded.
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    private void load(DocumentPage<T> cursor, DocumentPage.Direction direction) {
+        load(cursor, direction, pageSize);
+    }
+
+    private void load(DocumentPage<T> cursor, DocumentPage.Direction direction, int size) {
+        if (loading) {
+            return;
+        }
+        loading = true;
+        int requested = generation;
+        source.load(cursor, direction, size, new DataCallback<DocumentPage<T>>() {
+            @Override
+            public void onSuccess(DocumentPage<T> page) {
+                if (requested != generation) {
+                    return; // the list was reloaded in the meantime
+                }
+                loading = false;
+                if (cursor == null || direction == DocumentPage.Direction.FROM) {
+                    window.replace(page, pageSize);
+                } else if (direction == DocumentPage.Direction.AFTER) {
+                    window.append(page);
+                } else {
+                    window.prepend(page);
+                }
+                listener.onSuccess(null);
+                if (cursor != null && direction == DocumentPage.Direction.FROM && window.getFirstPage() == null) {
+                    // everything shown was deleted, start over at the beginning of the list
+                    load(null, DocumentPage.Direction.AFTER);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (requested != generation) {
+                    return;
+                }
+                loading = false;
+                listener.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Creates a scroll listener loading pages when an end of the window comes near.
+     * The RecyclerView must use a {@link LinearLayoutManager}.
+     *
+     * @return The scroll listener to add to the RecyclerView showing the window.
+     */
+    public RecyclerView.OnScrollListener createScrollListener() {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager == null) {
+                    return;
+                }
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= window.size() - PREFETCH_DISTANCE) {
+                    loadAfter();
+                } else if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    loadBefore();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BoundedTaskRunnerTest {
+
+    @Test
+    public void testRun_LimitsTasksInFlight() {
+
+        // Keep the completion of every started task to finish them later
+        List<Runnable> running = new ArrayList<>();
+        int[] maxRunning = new int[1];
+        boolean[] completed = new boolean[1];
+
+        BoundedTaskRunner.run(10, 3, (index, done) -> {
+            running.add(done);
+            maxRunning[0] = Math.max(maxRunning[0], running.size());
+        }, () -> completed[0] = true);
+
+        // Only three tasks are started at first
+        assertEquals(3, running.size());
+
+        // Finishing a task starts the next one, until all ten have run
+        int finished = 0;
+        while (!running.isEmpty()) {
+            running.remove(0).run();
+            finished++;
+        }
+        assertEquals(10, finished);
+        assertEquals(3, maxRunning[0]);
+        assertTrue(completed[0]);
+    }
+
+    @Test
+    public void testRun_NoTasks() {
+
+        // Completion is reported right away when there is nothing to run
+        boolean[] completed = new boolean[1];
+        BoundedTaskRunner.run(0, 3, (index, done) -> fail(), () -> completed[0] = true);
+        assertTrue(completed[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRun_NoTasksInFlightRejected() {
+
+        // Try to run tasks without allowing any of them to start
+        BoundedTaskRunner.run(10, 0, (index, done) -> done.run(), () -> { });
+    }
+
+    @Test
+    public void testPartition() {
+
+        // Split five IDs into chunks of two
+        List<List<String>> chunks = BoundedTaskRunner.partition(Arrays.asList("A", "B", "C", "D", "E"), 2);
+
+        assertEquals(3, chunks.size());
+        assertEquals(Arrays.asList("A", "B"), chunks.get(0));
+        assertEquals(Arrays.asList("E"), chunks.get(2));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DocumentPageTest {
+
+    private static DocumentSnapshot doc(String id) {
+        DocumentSnapshot doc = mock(DocumentSnapshot.class);
+        when(doc.getId()).thenReturn(id);
+        return doc;
+    }
+
+    @Test
+    public void testFullPageMayHaveMore() {
+
+        // Create a page from as many documents as the page size
+        List<DocumentSnapshot> docs = Arrays.asList(doc("a"), doc("b"), doc("c"));
+        DocumentPage<String> page = DocumentPage.of(docs, 3, DocumentSnapshot::getId);
+
+        // Check that the items keep the query order and that another page may follow
+        assertEquals(Arrays.asList("a", "b", "c"), page.getItems());
+        assertTrue(page.hasMore());
+    }
+
+    @Test
+    public void testShortPageIsLast() {
+
+        // Create a page with fewer documents than the page size
+        DocumentPage<String> page = DocumentPage.of(Arrays.asList(doc("a")), 3, DocumentSnapshot::getId);
+
+        // Check that no page follows
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void testEmptyPage() {
+
+        // Create a page from an empty query result
+        DocumentPage<String> page = DocumentPage.of(new ArrayList<>(), 3, DocumentSnapshot::getId);
+
+        // Check that the page is empty and last
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void testSkippedDocumentsStillCountTowardsThePage() {
+
+        // Create a full page in which one document cannot be read
+        List<DocumentSnapshot> docs = Arrays.asList(doc("a"), doc(null), doc("c"));
+        DocumentPage<String> page = DocumentPage.of(docs, 3, DocumentSnapshot::getId);
+
+        // Check that the unreadable document is skipped but the next page is still loaded
+        assertEquals(Arrays.asList("a", "c"), page.getItems());
+        assertTrue(page.hasMore());
+    }
+
+    @Test
+    public void testSplitGivesEachPageItsOwnCursors() {
+
+        // Read five documents in one query and split them into pages of two
+        List<DocumentSnapshot> docs = Arrays.asList(doc("a"), doc("b"), doc("c"), doc("d"), doc("e"));
+        List<DocumentPage<String>> pages = DocumentPage.of(docs, 5, DocumentSnapshot::getId).split(2);
+
+        // Check that the items are split in query order and that only the last page keeps the read's hasMore
+        assertEquals(3, pages.size());
+        assertEquals(Arrays.asList("a", "b"), pages.get(0).getItems());
+        assertEquals(Arrays.asList("c", "d"), pages.get(1).getItems());
+        assertEquals(Arrays.asList("e"), pages.get(2).getItems());
+        assertTrue(pages.get(0).hasMore());
+        assertTrue(pages.get(2).hasMore());
+
+        // Check that the page after the first one is read after its own last document
+        Query query = mock(Query.class, RETURNS_SELF);
+        DocumentPage.next(query, pages.get(0), 2);
+        verify(query).startAfter(docs.get(1));
+
+        // Check that the middle page is read again from its own first document
+        Query reload = mock(Query.class, RETURNS_SELF);
+        DocumentPage.page(reload, pages.get(1), DocumentPage.Direction.FROM, 2);
+        verify(reload).startAt(docs.get(2));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import com.google.firebase.firestore.DocumentChange;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+
+public class EventCacheTest {
+
+    // Initialize cache
+    private EventCache eventCache;
+
+    @Before
+    public void setUp() {
+        // Use a fresh cache instead of the shared instance
+        eventCache = new EventCache();
+    }
+
+    private Event createEvent(String eventID, String eventName) {
+        Event event = new Event(eventName, "Facility1", "Location1", "Test Event", 10, new Date(System.currentTimeMillis() + 1000), new Date(System.currentTimeMillis() + 2000), "Organizer123", null, false);
+        event.setEventID(eventID);
+        return event;
+    }
+
+    @Test
+    public void testApplyChange_Added() {
+
+        // Apply an added document
+        Event event = createEvent("EventID", "Event1");
+        eventCache.applyChange(DocumentChange.Type.ADDED, "EventID", event);
+
+        // Check that the event is returned from memory
+        assertEquals(event, eventCache.get("EventID"));
+        assertEquals(1, eventCache.getEvents().size());
+    }
+
+    @Test
+    public void testApplyChange_Modified() {
+
+        // Add an event and then modify it
+        eventCache.applyChange(DocumentChange.Type.ADDED, "EventID", createEvent("EventID", "Event1"));
+        Event modified = createEvent("EventID", "Updated Event");
+        eventCache.applyChange(DocumentChange.Type.MODIFIED, "EventID", modified);
+
+        // Check that the modified event replaced the old one
+        assertEquals("Updated Event", eventCache.get("EventID").getEventName());
+        assertEquals(1, eventCache.getEvents().size());
+    }
+
+    @Test
+    public void testApplyChange_Removed() {
+
+        // Add an event and then remove it
+        eventCache.applyChange(DocumentChange.Type.ADDED, "EventID", createEvent("EventID", "Event1"));
+        eventCache.applyChange(DocumentChange.Type.REMOVED, "EventID", null);
+
+        // Check that the event is no longer cached
+        assertNull(eventCache.get("EventID"));
+        assertTrue(eventCache.getEvents().isEmpty());
+    }
+
+    @Test
+    public void testGetEvents_ReturnsCopy() {
+
+        // Modifying the returned list should not change the cache
+        eventCache.put("EventID", createEvent("EventID", "Event1"));
+        eventCache.getEvents().clear();
+
+        assertEquals(1, eventCache.getEvents().size());
+    }
+
+    @Test
+    public void testGetEventsByParticipant() {
+
+        // Add a user to the waiting list of one event
+        Event event = createEvent("EventID", "Event1");
+        event.setParticipantState("User123", ParticipantState.WAITING);
+        eventCache.put("EventID", event);
+        eventCache.put("OtherEventID", createEvent("OtherEventID", "Event2"));
+
+        // Check that only the joined event is found through the reverse index
+        assertEquals(1, eventCache.getEventsByParticipant("User123", ParticipantState.WAITING).size());
+        assertTrue(eventCache.getEventsByParticipant("User123", ParticipantState.SELECTED).isEmpty());
+    }
+
+    @Test
+    public void testGetEventsByParticipant_UpdatedInPlace() {
+
+        // Index a waiting user
+        Event event = createEvent("EventID", "Event1");
+        event.setParticipantState("User123", ParticipantState.WAITING);
+        eventCache.put("EventID", event);
+
+        // Move the user to the selected list on the same event object and store it again
+        event.setParticipantState("User123", ParticipantState.SELECTED);
+        eventCache.put("EventID", event);
+
+        // Check that the index follows the change
+        assertTrue(eventCache.getEventsByParticipant("User123", ParticipantState.WAITING).isEmpty());
+        assertEquals(event, eventCache.getEventsByParticipant("User123", ParticipantState.SELECTED).get(0));
+
+        // Removing the event clears the index
+        eventCache.remove("EventID");
+        assertTrue(eventCache.getEventsByParticipant("User123", ParticipantState.SELECTED).isEmpty());
+    }
+
+    @Test
+    public void testRetainOnly_DropsDeletedEvents() {
+
+        // Cache two events the user waits in, then learn that only the first still exists
+        Event kept = createEvent("EventID", "Event1");
+        kept.setParticipantState("User123", ParticipantState.WAITING);
+        Event deleted = createEvent("OtherEventID", "Event2");
+        deleted.setParticipantState("User123", ParticipantState.WAITING);
+        eventCache.put("EventID", kept);
+        eventCache.put("OtherEventID", deleted);
+        eventCache.retainOnly(Collections.singleton("EventID"));
+
+        // Check that the deleted event left the cache and its indexes, and the other one stayed
+        assertNull(eventCache.get("OtherEventID"));
+        assertEquals(kept, eventCache.get("EventID"));
+        assertEquals(1, eventCache.getEventsByParticipant("User123", ParticipantState.WAITING).size());
+        assertEquals(1, eventCache.getEventsByOrganizer("Organizer123").size());
+    }
+}
@@ -7,11 +7,16 @@ import android.content.Context;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 
 public class EventControllerTest {
 
@@ -24,33 +29,30 @@ public class EventControllerTest {
     @Mock
     private Context mockContext;
 
+    @Mock
+    private NotificationRepository mockNotificationRepository;
+
     @Before
     public void setUp() {
 
         // Initialize mocks
         MockitoAnnotations.openMocks(this);
 
-        // Create controller using the mock repository
-        eventController = new EventController(mockRepository);
+        // Create controller using the mock repositories
+        eventController = new EventController(mockRepository, new LotteryEngine(), mockNotificationRepository);
     }
 
     @Test
     public void testGetEventById_Found() {
 
-        // Create list of events
-        ArrayList<Event> events = new ArrayList<>();
-
         // Create a new event for testing
         Event event = new Event("Event1", "Facility1", "Location1", "Test Event", 100, new Date(System.currentTimeMillis() + 1000), new Date(System.currentTimeMillis() + 2000), "Organizer123", null, false);
 
         // Set an event ID
         event.setEventID("EventID");
 
-        // Add the new event to the events list
-        events.add(event);
-
-        // Use mock repository to return the test event list
-        when(mockRepository.getLocalEventsList()).thenReturn(events);
+        // Use mock repository to return the test event from its index
+        when(mockRepository.getEventById("EventID")).thenReturn(event);
 
         // Use the controller to find the event by its ID
         Event result = eventController.getEventById("EventID");
@@ -62,8 +64,8 @@ public class EventControllerTest {
     @Test
     public void testGetEventById_NotFound() {
 
-        // Mock an empty list of events using the mockRepository
-        when(mockRepository.getLocalEventsList()).thenReturn(new ArrayList<>());
+        // Mock an empty index using the mockRepository
+        when(mockRepository.getEventById(anyString())).thenReturn(null);
 
         // Find event with an ID that doesn't exist
         Event result = eventController.getEventById("NonExistentID");
@@ -115,4 +117,276 @@ public class EventControllerTest {
         // Verify that an error was triggered
         verify(mockCallback).onError(any(IllegalArgumentException.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddUserToWaitingList_JoinsAtomically() {
+
+        // Create a test event
+        Event event = new Event("Event1", "Facility1", "Location1", "Test Event", 10, new Date(System.currentTimeMillis() + 1000), new Date(System.currentTimeMillis() + 2000), "Organizer123", 5, false);
+
+        // Create a mock callback
+        DataCallback<Event> mockCallback = mock(DataCallback.class);
+
+        // Add a user to the waiting list
+        eventController.addUserToWaitingList(event, "User123", mockCallback);
+
+        // Verify that only the join was sent to the repository instead of a full event update
+        verify(mockRepository).joinWaitingList(eq(event), eq("User123"), any());
+        verify(mockRepository, never()).updateEventDetails(any(), any(), any());
+    }
+
+    @Test
+    public void testAddUserToWaitingList_StoresLocation() {
+
+        // Create an event that requires a location
+        Event event = new Event("Event1", "Facility1", "Location1", "Test Event", 10, new Date(System.currentTimeMillis() + 1000), new Date(System.currentTimeMillis() + 2000), "Organizer123", 5, true);
+        event.setEventID("EventID");
+
+        // Make the repository accept the join
+        doAnswer(invocation -> {
+            DataCallback<Event> callback = invocation.getArgument(2);
+            callback.onSuccess(event);
+            return null;
+        }).when(mockRepository).joinWaitingList(any(), anyString(), any());
+
+        // Create a mock callback
+        DataCallback<Event> mockCallback = mock(DataCallback.class);
+
+        // Join with the user's location
+        eventController.addUserToWaitingList(event, "User123", Arrays.asList(53.5461, -113.4938), mockCallback);
+
+        // Check that the location was stored for the map and the join reported
+        verify(mockRepository).saveParticipantLocation(eq(event),
+                argThat(location -> location.getUserId().equals("User123") && location.getLatitude() == 53.5461), any());
+        verify(mockCallback).onSuccess(event);
+    }
+
+    @Test
+    public void testAddUserToWaitingList_NoLocationWithoutRequirement() {
+
+        // Create an event that does not require a location
+        Event event = new Event("Event1", "Facility1", "Location1", "Test Event", 10, new Date(System.currentTimeMillis() + 1000), new Date(System.currentTimeMillis() + 2000), "Organizer123", 5, false);
+
+        // Make the repository accept the join
+        doAnswer(invocation -> {
+            DataCallback<Event> callback = invocation.getArgument(2);
+            callback.onSuccess(event);
+            return null;
+        }).when(mockRepository).joinWaitingList(any(), anyString(), any());
+
+        // Join with the user's location
+        eventController.addUserToWaitingList(event, "User123", Arrays.asList(53.5461, -113.4938), mock(DataCallback.class));
+
+        // Check that no location was stored
+        verify(mockRepository, never()).saveParticipantLocation(any(), any(), any());
+    }
+
+    @Test
+    public void testAddUserToWaitingList_RestoredOnError() {
+
+        // Create a test event
+        Event event = new Event("Event1", "Facility1", "Location1", "Test Event", 10, new Date(System.currentTimeMillis() + 1000), new Date(System.currentTimeMillis() + 2000), "Organizer123", 5, false);
+
+        // Make the repository fail the join, e.g. because the waiting list filled up meanwhile
+        doAnswer(invocation -> {
+            DataCallback<Event> callback = invocation.getArgument(2);
+            callback.onError(new Exception("Failed to join waiting list: No spots available"));
+            return null;
+        }).when(mockRepository).joinWaitingList(any(), anyString(), any());
+
+        // Create a mock callback
+        DataCallback<Event> mockCallback = mock(DataCallback.class);
+
+        // Try to add a user to the waiting list
+        eventController.addUserToWaitingList(event, "User123", mockCallback);
+
+        // Check that the local change was undone and the error was reported
+        assertFalse(event.getParticipants().contains("User123"));
+        verify(mockCallback).onError(any(Exception.class));
+    }
+
+    @Test
+    public void testGetEvent_ReadsFromRepository() {
+
+        // Create a mock callback
+        DataCallback<Event> mockCallback = mock(DataCallback.class);
+
+        // Load a single event through the controller
+        eventController.getEvent("EventID", mockCallback);
+
+        // Check that the repository is asked for that event only
+        verify(mockRepository).getEvent(eq("EventID"), eq(mockCallback));
+        verify(mockRepository, never()).updateLocalEventsList(any());
+    }
+
+    @Test
+    public void testGetEvent_NullId() {
+
+        // Create a mock callback
+        DataCallback<Event> mockCallback = mock(DataCallback.class);
+
+        // Load an event without an ID
+        eventController.getEvent(null, mockCallback);
+
+        // Check that no read is made and null is returned
+        verify(mockRepository, never()).getEvent(any(), any());
+        verify(mockCallback).onSuccess(null);
+    }
+
+    @Test
+    public void testLoadOrganizerEventPage_QueriesOrganizerOnly() {
+
+        // Create a mock callback
+        DataCallback<DocumentPage<Event>> mockCallback = mock(DataCallback.class);
+
+        // Load the first page of an organizer's events
+        eventController.loadOrganizerEventPage("Organizer123", null, mockCallback);
+
+        // Check that one page of that organizer's events is queried instead of the whole collection
+        verify(mockRepository).loadOrganizerEventsPage(eq("Organizer123"), isNull(),
+                eq(EventController.ORGANIZER_EVENT_PAGE_SIZE), eq(mockCallback));
+        verify(mockRepository, never()).updateLocalEventsList(any());
+    }
+
+    @Test
+    public void testLoadAllOrganizerEvents_MissingOrganizer() {
+
+        // Create a mock callback
+        DataCallback<ArrayList<Event>> mockCallback = mock(DataCallback.class);
+
+        // Load the events of a missing organizer
+        eventController.loadAllOrganizerEvents(null, mockCallback);
+
+        // Check that no query is made and an error is reported
+        verify(mockRepository, never()).loadAllOrganizerEvents(any(), anyInt(), any());
+        verify(mockCallback).onError(any(IllegalArgumentException.class));
+    }
+
+    private Event createDrawEvent(int capacity, String... entrants) {
+        Event event = new Event("Event1", "Facility1", "Location1", "Test Event", capacity, new Date(System.currentTimeMillis() + 1000), new Date(System.currentTimeMillis() + 2000), "Organizer123", null, false);
+        event.setEventID("EventID");
+        event.setParticipants(new ArrayList<>(Arrays.asList(entrants)));
+        return event;
+    }
+
+    private NotificationCampaign campaignFor(List<NotificationCampaign> campaigns, ParticipantState group) {
+        for (NotificationCampaign campaign : campaigns) {
+            if (group.name().equals(campaign.getGroup())) {
+                return campaign;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testPerformDraw_NotifiesAfterDrawSaved() {
+
+        // Create an event with two spots and three entrants
+        Event event = createDrawEvent(2, "User1", "User2", "User3");
+
+        // Make the repository save the draw
+        doAnswer(invocation -> {
+            DataCallback<Event> callback = invocation.getArgument(3);
+            callback.onSuccess(event);
+            return null;
+        }).when(mockRepository).updateParticipantState(any(), anyList(), any(), any());
+
+        // Perform the draw
+        eventController.performDraw(event, mockContext, mock(DataCallback.class));
+
+        // Check that the results were sent after the draw was saved
+        InOrder order = inOrder(mockRepository, mockNotificationRepository);
+        order.verify(mockRepository).updateParticipantState(eq(event), anyList(), eq(ParticipantState.SELECTED), any());
+        ArgumentCaptor<List<NotificationCampaign>> captor = ArgumentCaptor.forClass(List.class);
+        order.verify(mockNotificationRepository).addCampaigns(captor.capture(), any());
+
+        // Check that each campaign names exactly the entrants of its result
+        NotificationCampaign selected = campaignFor(captor.getValue(), ParticipantState.SELECTED);
+        NotificationCampaign notSelected = campaignFor(captor.getValue(), ParticipantState.WAITING);
+        assertEquals(new HashSet<>(event.getSelectedParticipants()), new HashSet<>(selected.getRecipientIds()));
+        assertEquals(new HashSet<>(event.getParticipants()), new HashSet<>(notSelected.getRecipientIds()));
+        assertEquals(2, selected.getRecipientIds().size());
+    }
+
+    @Test
+    public void testPerformDraw_NoNotificationsWhenSaveFails() {
+
+        // Create an event with two spots and three entrants
+        Event event = createDrawEvent(2, "User1", "User2", "User3");
+
+        // Make the repository fail to save the draw
+        doAnswer(invocation -> {
+            DataCallback<Event> callback = invocation.getArgument(3);
+            callback.onError(new Exception("Failed to save the draw"));
+            return null;
+        }).when(mockRepository).updateParticipantState(any(), anyList(), any(), any());
+
+        // Create a mock callback
+        DataCallback<Event> mockCallback = mock(DataCallback.class);
+
+        // Perform the draw
+        eventController.performDraw(event, mockContext, mockCallback);
+
+        // Check that the draw was undone locally and nobody was notified
+        assertFalse(event.isDrawed());
+        assertEquals(3, event.getParticipants().size());
+        verify(mockNotificationRepository, never()).addCampaigns(any(), any());
+        verify(mockCallback).onError(any(Exception.class));
+    }
+
+    @Test
+    public void testPerformDraw_PartialFailureKeepsMovedEntrants() {
+
+        // Create an event with two spots and three entrants
+        Event event = createDrawEvent(2, "User1", "User2", "User3");
+
+        // Make the repository move only the first chosen entrant, as a failed batch of a sharded event does
+        doAnswer(invocation -> {
+            DataCallback<Event> callback = invocation.getArgument(3);
+            List<String> chosen = invocation.getArgument(1);
+            callback.onError(new EntrantStore.PartialMoveException(chosen.subList(0, 1), chosen.size(), new Exception("Batch failed")));
+            return null;
+        }).when(mockRepository).updateParticipantState(any(), anyList(), any(), any());
+
+        // Create a mock callback
+        DataCallback<Event> mockCallback = mock(DataCallback.class);
+
+        // Perform the draw
+        eventController.performDraw(event, mockContext, mockCallback);
+
+        // Check that the moved entrant stays selected and the event stays drawn
+        assertTrue(event.isDrawed());
+        assertEquals(1, event.getSelectedParticipants().size());
+        assertEquals(2, event.getParticipants().size());
+        verify(mockCallback).onError(any(EntrantStore.PartialMoveException.class));
+
+        // Check that only the moved entrant was told they were selected, and nobody that they were not
+        ArgumentCaptor<List<NotificationCampaign>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockNotificationRepository).addCampaigns(captor.capture(), any());
+        assertEquals(event.getSelectedParticipants(), campaignFor(captor.getValue(), ParticipantState.SELECTED).getRecipientIds());
+        assertTrue(campaignFor(captor.getValue(), ParticipantState.WAITING).getRecipientIds().isEmpty());
+    }
+
+    @Test
+    public void testSendNotificationsToGroup_StoresCurrentMembers() {
+
+        // Create an event with two entrants on the waiting list
+        Event event = createDrawEvent(2, "User1", "User2");
+
+        // Make the repository return the waiting list
+        doAnswer(invocation -> {
+            DataCallback<List<String>> callback = invocation.getArgument(2);
+            callback.onSuccess(event.getParticipants());
+            return null;
+        }).when(mockRepository).loadAllEntrants(any(), any(), any());
+
+        // Send a message to the waiting list
+        eventController.sendNotificationsToGroup(event, "waitingList", "Hello", null, mock(DataCallback.class));
+
+        // Check that the campaign names the entrants waiting when it was sent
+        ArgumentCaptor<List<NotificationCampaign>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockNotificationRepository).addCampaigns(captor.capture(), any());
+        assertEquals(Arrays.asList("User1", "User2"), captor.getValue().get(0).getRecipientIds());
+        assertEquals("Hello", captor.getValue().get(0).getMessage());
+    }
+}
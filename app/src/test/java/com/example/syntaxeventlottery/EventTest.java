@@ -5,6 +5,7 @@ import org.junit.Test;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -173,6 +174,126 @@ public class EventTest {
         assertEquals("CancelledParticipant1", event.getCancelledParticipants().get(0));
     }
 
+    @Test
+    public void testParticipantStateTransitions() {
+
+        // Add two entrants to the waiting list
+        event.setParticipantState("Participant1", ParticipantState.WAITING);
+        event.setParticipantState("Participant2", ParticipantState.WAITING);
+        assertEquals(2, event.getParticipantCount(ParticipantState.WAITING));
+
+        // Select the first entrant, which takes them off the waiting list
+        event.setParticipantState("Participant1", ParticipantState.SELECTED);
+        assertTrue(event.hasParticipant("Participant1", ParticipantState.SELECTED));
+        assertFalse(event.getParticipants().contains("Participant1"));
+        assertEquals(1, event.getSelectedParticipants().size());
+
+        // Cancelling twice keeps a single entry in the cancelled list
+        event.setParticipantState("Participant1", ParticipantState.CANCELLED);
+        event.setParticipantState("Participant1", ParticipantState.CANCELLED);
+        assertEquals(1, event.getCancelledParticipants().size());
+        assertTrue(event.getSelectedParticipants().isEmpty());
+
+        // Removing an entrant clears their state
+        assertEquals(ParticipantState.WAITING, event.removeParticipant("Participant2"));
+        assertNull(event.getParticipantState("Participant2"));
+    }
+
+    @Test
+    public void testWaitingListKeepsJoinOrder() {
+
+        // Entrants join in order, a cancelled entrant that joins again goes to the end
+        event.setParticipantState("Participant1", ParticipantState.WAITING);
+        event.setParticipantState("Participant2", ParticipantState.WAITING);
+        event.setParticipantState("Participant1", ParticipantState.CANCELLED);
+        event.setParticipantState("Participant1", ParticipantState.WAITING);
+
+        assertEquals("Participant2", event.getParticipants().get(0));
+        assertEquals("Participant1", event.getParticipants().get(1));
+    }
+
+    @Test
+    public void testStoredListsResolveToOneState() {
+
+        // The same entrant stored in two lists keeps the later state in either order
+        ArrayList<String> lists = new ArrayList<>();
+        lists.add("Participant1");
+        event.setSelectedParticipants(lists);
+        event.setParticipants(lists);
+
+        assertEquals(ParticipantState.SELECTED, event.getParticipantState("Participant1"));
+        assertTrue(event.getParticipants().isEmpty());
+    }
+
+    @Test
+    public void testStoredListsKeepRejoinedEntrantWaiting() {
+
+        // A legacy document where Participant1 cancelled and joined again, so they are in both lists
+        ArrayList<String> waiting = new ArrayList<>(Arrays.asList("Participant1", "Participant2"));
+        ArrayList<String> cancelled = new ArrayList<>(Arrays.asList("Participant1", "Participant3"));
+
+        // Load the lists in both orders, as the fields of the document may be set in any order
+        Event cancelledFirst = new Event();
+        cancelledFirst.setCancelledParticipants(cancelled);
+        cancelledFirst.setParticipants(waiting);
+        Event waitingFirst = new Event();
+        waitingFirst.setParticipants(waiting);
+        waitingFirst.setCancelledParticipants(cancelled);
+
+        // Check that the entrant who joined again is on the waiting list and can be drawn
+        for (Event loaded : Arrays.asList(cancelledFirst, waitingFirst)) {
+            assertEquals(ParticipantState.WAITING, loaded.getParticipantState("Participant1"));
+            assertEquals(Arrays.asList("Participant1", "Participant2"), loaded.getParticipants());
+            assertEquals(Arrays.asList("Participant3"), loaded.getCancelledParticipants());
+        }
+    }
+
+    @Test
+    public void testShardedEntrantCounts() {
+
+        // Events with a large or no waiting list limit keep their entrants in a subcollection
+        assertTrue(Event.needsShardedEntrants(Event.SHARDED_ENTRANTS_THRESHOLD + 1));
+        assertTrue(Event.needsShardedEntrants(null));
+        assertFalse(Event.needsShardedEntrants(10));
+        event.setShardedEntrants(true);
+
+        // The counts come from the counters, not from the entrants loaded so far
+        HashMap<ParticipantState, Long> counts = new HashMap<>();
+        counts.put(ParticipantState.WAITING, 5000L);
+        event.setEntrantCounts(counts);
+        assertEquals(5000, event.getParticipantCount(ParticipantState.WAITING));
+
+        // Local transitions keep the counts in step
+        event.getMembership().setState("Participant1", ParticipantState.WAITING);
+        event.setParticipantState("Participant1", ParticipantState.SELECTED);
+        assertEquals(4999, event.getParticipantCount(ParticipantState.WAITING));
+        assertEquals(1, event.getParticipantCount(ParticipantState.SELECTED));
+        event.removeParticipant("Participant1");
+        assertEquals(0, event.getParticipantCount(ParticipantState.SELECTED));
+    }
+
+    @Test
+    public void testShardedEventFullFromCounts() {
+
+        // A sharded event with a full waiting list and all spots confirmed, none of the entrants loaded
+        event.setShardedEntrants(true);
+        event.setWaitingListLimit(5000);
+        HashMap<ParticipantState, Long> counts = new HashMap<>();
+        counts.put(ParticipantState.WAITING, 5000L);
+        counts.put(ParticipantState.CONFIRMED, 50L);
+        event.setEntrantCounts(counts);
+
+        // Check that both flags come from the counters
+        assertTrue(event.getParticipants().isEmpty());
+        assertTrue(event.getWaitingListFull());
+        assertTrue(event.getCapacityFull());
+
+        // Check that a spot opening up is seen too
+        counts.put(ParticipantState.WAITING, 4999L);
+        event.setEntrantCounts(counts);
+        assertFalse(event.getWaitingListFull());
+    }
+
 //    @Test
 //    public void testLocationDetails() {
 //
@@ -213,4 +334,23 @@ public class EventTest {
         // Verify the event location required is set to false
         assertFalse(event.getLocationRequired());
     }
+
+    @Test
+    public void testSetCoordinates() {
+
+        // Verify that a new event has no coordinates
+        assertFalse(event.hasCoordinates());
+
+        // Set the coordinates of the facility
+        event.setCoordinates(53.5461, -113.4938);
+
+        // Verify that the geohash of the coordinates is stored with them
+        assertTrue(event.hasCoordinates());
+        assertEquals(GeoHash.encode(53.5461, -113.4938, GeoQuery.STORED_PRECISION), event.getGeohash());
+
+        // Clear the coordinates and verify that the geohash is cleared too
+        event.setCoordinates(null, null);
+        assertFalse(event.hasCoordinates());
+        assertNull(event.getGeohash());
+    }
 }
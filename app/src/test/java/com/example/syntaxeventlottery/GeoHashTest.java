@@ -0,0 +1,66 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class GeoHashTest {
+
+    @Test
+    public void testEncodeKnownPoint() {
+
+        // Encode a point with a well-known geohash
+        String hash = GeoHash.encode(57.64911, 10.40744, 11);
+
+        // Check the published geohash of that point
+        assertEquals("u4pruydqqvj", hash);
+    }
+
+    @Test
+    public void testShorterPrecisionIsPrefix() {
+
+        // Encode the same point at two precisions
+        String coarse = GeoHash.encode(53.5461, -113.4938, 5);
+        String fine = GeoHash.encode(53.5461, -113.4938, 9);
+
+        // Check that the coarse cell contains the fine one
+        assertTrue(fine.startsWith(coarse));
+    }
+
+    @Test
+    public void testDecodeIsInsideCell() {
+
+        // Encode a point and decode the cell bounds again
+        String hash = GeoHash.encode(-33.8688, 151.2093, 7);
+        double[] bounds = GeoHash.bounds(hash);
+        double[] centre = GeoHash.decode(hash);
+
+        // Check that the point and the centre lie in the cell
+        assertTrue(bounds[0] <= -33.8688 && -33.8688 <= bounds[2]);
+        assertTrue(bounds[1] <= 151.2093 && 151.2093 <= bounds[3]);
+        assertEquals(-33.8688, centre[0], bounds[2] - bounds[0]);
+        assertEquals(151.2093, centre[1], bounds[3] - bounds[1]);
+    }
+
+    @Test
+    public void testCornersEncode() {
+
+        // Check that the corners of the world can be encoded
+        assertEquals("00000", GeoHash.encode(-90, -180, 5));
+        assertEquals("zzzzz", GeoHash.encode(90, 180, 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLatitudeRejected() {
+
+        // Try to encode a latitude outside of the world
+        GeoHash.encode(91, 0, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCharacterRejected() {
+
+        // Try to decode a hash with a letter not used by geohashes
+        GeoHash.decode("u4pa");
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * JVM benchmark comparing a radius query that scans every location with the geohash range queries of
+ * {@link GeoQuery}, on a million synthetic event locations. The locations are kept sorted by geohash,
+ * as an index on the geohash field keeps them, and every range is found by binary search.
+ * Only runs with {@code -Pbenchmarks}, which prints the timings.
+ */
+public class GeoQueryBenchmark {
+
+    private static final int LOCATION_COUNT = 1_000_000;
+    private static final int QUERY_COUNT = 50;
+    private static final double[] RADII = {1_000, 10_000, 50_000};
+
+    private static int lowerBound(String[] sorted, String key) {
+        int from = 0;
+        int to = sorted.length;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Test
+    public void benchmarkRadiusQueries() {
+        // Locations spread over western Canada, about 1500 by 1100 km
+        Random random = new Random(7);
+        double[] latitudes = new double[LOCATION_COUNT];
+        double[] longitudes = new double[LOCATION_COUNT];
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            latitudes[i] = 49 + random.nextDouble() * 10;
+            longitudes[i] = -125 + random.nextDouble() * 15;
+        }
+
+        // The index: geohashes in sorted order, each pointing back to its location
+        String[] hashes = new String[LOCATION_COUNT];
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            hashes[i] = GeoHash.encode(latitudes[i], longitudes[i], GeoQuery.STORED_PRECISION) + ":" + i;
+        }
+        Arrays.sort(hashes);
+
+        for (double radius : RADII) {
+            long scanNanos = 0;
+            long indexNanos = 0;
+            for (int query = 0; query < QUERY_COUNT; query++) {
+                double latitude = 50 + random.nextDouble() * 8;
+                double longitude = -123 + random.nextDouble() * 11;
+
+                // Scan: the distance of every location
+                long start = System.nanoTime();
+                int scanned = 0;
+                for (int i = 0; i < LOCATION_COUNT; i++) {
+                    if (GeoQuery.distanceMeters(latitude, longitude, latitudes[i], longitudes[i]) <= radius) {
+                        scanned++;
+                    }
+                }
+                scanNanos += System.nanoTime() - start;
+
+                // Index: read the geohash ranges, then keep the candidates within the radius
+                start = System.nanoTime();
+                List<Integer> read = new ArrayList<>();
+                List<GeoQuery.Range> queryRanges = GeoQuery.ranges(latitude, longitude, radius);
+                for (GeoQuery.Range range : queryRanges) {
+                    int from = lowerBound(hashes, range.getStart());
+                    int to = lowerBound(hashes, range.getEnd() + GeoQuery.PREFIX_END);
+                    for (int i = from; i < to; i++) {
+                        read.add(Integer.parseInt(hashes[i].substring(hashes[i].indexOf(':') + 1)));
+                    }
+                }
+                List<Integer> nearest = GeoQuery.nearest(read, i -> latitudes[i], i -> longitudes[i],
+                        latitude, longitude, radius);
+                indexNanos += System.nanoTime() - start;
+
+                // Both must find the same locations, with a bounded number of queries
+                assertEquals(scanned, nearest.size());
+                assertTrue(queryRanges.size() <= GeoQuery.MAX_RANGES);
+            }
+            System.out.printf("%d queries within %.0f m: scan %.2f ms, geohash ranges %.2f ms%n",
+                    QUERY_COUNT, radius, scanNanos / 1e6, indexNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class GeoQueryTest {
+
+    private static boolean covered(List<GeoQuery.Range> ranges, double latitude, double longitude) {
+        String hash = GeoHash.encode(latitude, longitude, GeoQuery.STORED_PRECISION);
+        for (GeoQuery.Range range : ranges) {
+            if (range.contains(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testDistanceParisLondon() {
+
+        // Check the distance between Paris and London against its known value of about 344 km
+        double distance = GeoQuery.distanceMeters(48.8566, 2.3522, 51.5074, -0.1278);
+        assertEquals(343_500, distance, 1_000);
+    }
+
+    @Test
+    public void testRangesCoverCircle() {
+
+        // Compute the ranges of a 5 km circle
+        double latitude = 53.5461;
+        double longitude = -113.4938;
+        List<GeoQuery.Range> ranges = GeoQuery.ranges(latitude, longitude, 5_000);
+
+        // Check that the number of queries is bounded
+        assertTrue(ranges.size() <= GeoQuery.MAX_RANGES);
+
+        // Check that random points inside the circle are all in a range
+        Random random = new Random(3);
+        for (int i = 0; i < 2_000; i++) {
+            double lat = latitude + (random.nextDouble() - 0.5) * 0.1;
+            double lng = longitude + (random.nextDouble() - 0.5) * 0.16;
+            if (GeoQuery.distanceMeters(latitude, longitude, lat, lng) <= 5_000) {
+                assertTrue(covered(ranges, lat, lng));
+            }
+        }
+    }
+
+    @Test
+    public void testSmallerRadiusUsesLongerPrefixes() {
+
+        // Compute the ranges of a small and a large circle
+        GeoQuery.Range small = GeoQuery.ranges(53.5461, -113.4938, 200).get(0);
+        GeoQuery.Range large = GeoQuery.ranges(53.5461, -113.4938, 50_000).get(0);
+
+        // Check that the small circle reads smaller cells
+        assertTrue(small.getStart().length() > large.getStart().length());
+    }
+
+    @Test
+    public void testTinyRadiusMatchesStoredGeohash() {
+
+        // Compute the ranges of a circle far smaller than a stored geohash cell
+        List<GeoQuery.Range> ranges = GeoQuery.ranges(53.5461, -113.4938, 0.01);
+
+        // Check that no prefix is longer than a stored geohash and the centre is still covered
+        for (GeoQuery.Range range : ranges) {
+            assertTrue(range.getStart().length() <= GeoQuery.STORED_PRECISION);
+        }
+        assertTrue(covered(ranges, 53.5461, -113.4938));
+    }
+
+    @Test
+    public void testRangesAcrossAntimeridian() {
+
+        // Compute the ranges of a circle on the antimeridian
+        List<GeoQuery.Range> ranges = GeoQuery.ranges(-17.0, 179.99, 20_000);
+
+        // Check that points on both sides are covered
+        assertTrue(covered(ranges, -17.0, 179.9));
+        assertTrue(covered(ranges, -17.0, -179.9));
+    }
+
+    @Test
+    public void testWholeEarthRadius() {
+
+        // Compute the ranges of a circle larger than the earth
+        List<GeoQuery.Range> ranges = GeoQuery.ranges(0, 0, 30_000_000);
+
+        // Check that a single range covering every geohash is read
+        assertEquals(1, ranges.size());
+        assertTrue(covered(ranges, -89, -179));
+        assertTrue(covered(ranges, 89, 179));
+    }
+
+    @Test
+    public void testNearestFiltersAndSorts() {
+
+        // Create candidates read by the range queries, one of them outside of the radius
+        double[][] points = {{53.60, -113.49}, {53.55, -113.49}, {54.50, -113.49}, {53.57, -113.49}};
+
+        // Keep the candidates within 10 km of the centre
+        List<double[]> result = GeoQuery.nearest(Arrays.asList(points), p -> p[0], p -> p[1], 53.5461, -113.4938, 10_000);
+
+        // Check that the far candidate was dropped and the rest are nearest first
+        assertEquals(3, result.size());
+        assertSame(points[1], result.get(0));
+        assertSame(points[3], result.get(1));
+        assertSame(points[0], result.get(2));
+    }
+}
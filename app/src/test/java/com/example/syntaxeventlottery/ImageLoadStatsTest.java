@@ -0,0 +1,60 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ImageLoadStatsTest {
+
+    @Test
+    public void testRecord_CountsPerSource() {
+
+        ImageLoadStats stats = new ImageLoadStats();
+
+        // Two memory hits and one network load
+        stats.record(ImageLoadStats.Source.MEMORY);
+        stats.record(ImageLoadStats.Source.MEMORY);
+        long total = stats.record(ImageLoadStats.Source.REMOTE);
+
+        // Check the counters and the returned total
+        assertEquals(3, total);
+        assertEquals(2, stats.getCount(ImageLoadStats.Source.MEMORY));
+        assertEquals(1, stats.getCount(ImageLoadStats.Source.REMOTE));
+        assertEquals(0, stats.getCount(ImageLoadStats.Source.DISK));
+    }
+
+    @Test
+    public void testGetHitRate_IgnoresLocalAndFailedLoads() {
+
+        ImageLoadStats stats = new ImageLoadStats();
+
+        // No remote image loaded yet
+        assertEquals(0, stats.getHitRate(), 0.0001);
+
+        // One memory hit, one disk hit, two network loads, plus loads that are not cacheable
+        stats.record(ImageLoadStats.Source.MEMORY);
+        stats.record(ImageLoadStats.Source.DISK);
+        stats.record(ImageLoadStats.Source.REMOTE);
+        stats.record(ImageLoadStats.Source.REMOTE);
+        stats.record(ImageLoadStats.Source.LOCAL);
+        stats.record(ImageLoadStats.Source.FAILED);
+
+        // Check that the hit rate only counts remote images
+        assertEquals(0.5, stats.getHitRate(), 0.0001);
+        assertEquals(6, stats.getTotal());
+    }
+
+    @Test
+    public void testReset() {
+
+        ImageLoadStats stats = new ImageLoadStats();
+        stats.record(ImageLoadStats.Source.DISK);
+
+        // Reset the counters
+        stats.reset();
+
+        // Check that every counter is back to zero
+        assertEquals(0, stats.getTotal());
+        assertEquals(0, stats.getHitRate(), 0.0001);
+    }
+}
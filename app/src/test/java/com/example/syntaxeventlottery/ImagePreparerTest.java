@@ -0,0 +1,33 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ImagePreparerTest {
+
+    @Test
+    public void testCalculateInSampleSize() {
+
+        // A 12 megapixel photo decoded for a 1280 pixel poster
+        assertEquals(2, ImagePreparer.calculateInSampleSize(4000, 3000, 1280));
+
+        // The sample size never decodes below the target size
+        assertEquals(4, ImagePreparer.calculateInSampleSize(6000, 4000, 1280));
+        assertEquals(1, ImagePreparer.calculateInSampleSize(2000, 1500, 1280));
+
+        // Small images are decoded in full
+        assertEquals(1, ImagePreparer.calculateInSampleSize(800, 600, 1280));
+    }
+
+    @Test
+    public void testScaledSize() {
+
+        // Landscape and portrait images keep their aspect ratio
+        assertArrayEquals(new int[] {1280, 960}, ImagePreparer.scaledSize(2000, 1500, 1280));
+        assertArrayEquals(new int[] {96, 128}, ImagePreparer.scaledSize(1500, 2000, 128));
+
+        // Images that already fit are not upscaled
+        assertArrayEquals(new int[] {800, 600}, ImagePreparer.scaledSize(800, 600, 1280));
+    }
+}
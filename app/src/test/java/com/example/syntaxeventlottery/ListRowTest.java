@@ -0,0 +1,81 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ListRowTest {
+
+    private final DiffUtil.ItemCallback<ListRow<User>> callback = ListRow.diffCallback();
+
+    private User createUser(String id, String username) {
+        User user = new User();
+        user.setUserID(id);
+        user.setUsername(username);
+        return user;
+    }
+
+    private List<ListRow<User>> rowsOf(User... users) {
+        return ListRow.of(Arrays.asList(users), User::getUserID, user -> new Object[] {user.getUsername()});
+    }
+
+    @Test
+    public void testDiff_SameIdAndContent() {
+
+        // The same user loaded twice
+        ListRow<User> oldRow = rowsOf(createUser("User1", "alice")).get(0);
+        ListRow<User> newRow = rowsOf(createUser("User1", "alice")).get(0);
+
+        // Check that the row is kept without being bound again
+        assertTrue(callback.areItemsTheSame(oldRow, newRow));
+        assertTrue(callback.areContentsTheSame(oldRow, newRow));
+    }
+
+    @Test
+    public void testDiff_ChangedContent() {
+
+        // The user changed their name
+        ListRow<User> oldRow = rowsOf(createUser("User1", "alice")).get(0);
+        ListRow<User> newRow = rowsOf(createUser("User1", "alice2")).get(0);
+
+        // Check that the row is bound again
+        assertTrue(callback.areItemsTheSame(oldRow, newRow));
+        assertFalse(callback.areContentsTheSame(oldRow, newRow));
+    }
+
+    @Test
+    public void testDiff_ItemEditedInPlace() {
+
+        // A row captured before the user is edited in place
+        User user = createUser("User1", "alice");
+        ListRow<User> oldRow = rowsOf(user).get(0);
+        user.setUsername("alice2");
+        ListRow<User> newRow = rowsOf(user).get(0);
+
+        // Check that the change is detected although both rows hold the same object
+        assertSame(oldRow.getItem(), newRow.getItem());
+        assertFalse(callback.areContentsTheSame(oldRow, newRow));
+    }
+
+    @Test
+    public void testDiff_DifferentIds() {
+
+        ListRow<User> oldRow = rowsOf(createUser("User1", "alice")).get(0);
+        ListRow<User> newRow = rowsOf(createUser("User2", "alice")).get(0);
+
+        // Check that rows of different users are different items
+        assertFalse(callback.areItemsTheSame(oldRow, newRow));
+    }
+
+    @Test
+    public void testOf_NullList() {
+
+        // Check that a missing list gives no rows
+        assertTrue(ListRow.<User>of(null, User::getUserID, user -> new Object[0]).isEmpty());
+    }
+}
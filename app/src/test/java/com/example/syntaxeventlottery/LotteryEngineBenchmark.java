@@ -0,0 +1,86 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * JVM benchmark comparing the original draw (shuffle the whole waiting list, then removeAll
+ * the winners) with {@link LotteryEngine}. Only runs with {@code -Pbenchmarks}, which prints the timings.
+ */
+public class LotteryEngineBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    private static List<String> createWaitingList(int size) {
+        List<String> waitingList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            waitingList.add("User" + i);
+        }
+        return waitingList;
+    }
+
+    // The draw as it was done before the lottery engine
+    private static List<String> legacyDraw(List<String> participants, int capacity, Random random) {
+        ArrayList<String> shuffled = new ArrayList<>(participants);
+        ArrayList<String> updatedWaitingList = new ArrayList<>(participants);
+        Collections.shuffle(shuffled, random);
+        List<String> chosenParticipants = shuffled.subList(0, capacity);
+        updatedWaitingList.removeAll(chosenParticipants);
+        return updatedWaitingList;
+    }
+
+    private static double timeLegacy(List<String> waitingList, int capacity) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<String> remaining = legacyDraw(waitingList, capacity, new Random(round));
+            best = Math.min(best, System.nanoTime() - start);
+            assertEquals(waitingList.size() - capacity, remaining.size());
+        }
+        return best / 1e6;
+    }
+
+    private static double timeEngine(List<String> waitingList, int capacity, boolean partition) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            LotteryEngine engine = new LotteryEngine(new Random(round));
+            long start = System.nanoTime();
+            if (partition) {
+                LotteryEngine.DrawResult result = engine.draw(waitingList, capacity);
+                best = Math.min(best, System.nanoTime() - start);
+                assertEquals(waitingList.size() - capacity, result.getRemaining().size());
+            } else {
+                List<String> winners = engine.selectWinners(waitingList, capacity);
+                best = Math.min(best, System.nanoTime() - start);
+                assertEquals(capacity, winners.size());
+            }
+        }
+        return best / 1e6;
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Test
+    public void benchmarkDraw() {
+        // The legacy draw is O(n * k), so it is only measured on the smaller waiting list
+        List<String> small = createWaitingList(20_000);
+        System.out.printf("Draw of 5000 from 20000: shuffle and removeAll %.2f ms, selectWinners %.2f ms, draw %.2f ms%n",
+                timeLegacy(small, 5_000), timeEngine(small, 5_000, false), timeEngine(small, 5_000, true));
+
+        // The engine alone on a waiting list ten times as large
+        List<String> large = createWaitingList(200_000);
+        System.out.printf("Draw of 50000 from 200000: selectWinners %.2f ms, draw %.2f ms%n",
+                timeEngine(large, 50_000, false), timeEngine(large, 50_000, true));
+    }
+}
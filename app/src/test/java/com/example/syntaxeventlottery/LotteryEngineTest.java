@@ -0,0 +1,77 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+public class LotteryEngineTest {
+
+    // Initialize variables
+    private List<String> waitingList;
+
+    @Before
+    public void setUp() {
+        // Create a waiting list of 100 entrants
+        waitingList = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            waitingList.add("User" + i);
+        }
+    }
+
+    @Test
+    public void testSelectWinners_DistinctAndFromPool() {
+
+        // Draw 30 winners
+        List<String> winners = new LotteryEngine(new Random(42)).selectWinners(waitingList, 30);
+
+        // Check the number of winners and that they are distinct entrants from the waiting list
+        assertEquals(30, winners.size());
+        assertEquals(30, new HashSet<>(winners).size());
+        assertTrue(waitingList.containsAll(winners));
+
+        // Check that the waiting list was not modified
+        assertEquals(100, waitingList.size());
+    }
+
+    @Test
+    public void testSelectWinners_SmallWaitingList() {
+
+        // Drawing more winners than entrants selects everyone
+        List<String> winners = new LotteryEngine(new Random(42)).selectWinners(waitingList, 500);
+        assertEquals(waitingList, winners);
+    }
+
+    @Test
+    public void testSelectWinners_SeededIsReproducible() {
+
+        // Two engines with the same seed draw the same winners
+        List<String> first = new LotteryEngine(new Random(7)).selectWinners(waitingList, 10);
+        List<String> second = new LotteryEngine(new Random(7)).selectWinners(waitingList, 10);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testDraw_PartitionsWaitingList() {
+
+        // Draw 10 winners
+        LotteryEngine.DrawResult result = new LotteryEngine(new Random(42)).draw(waitingList, 10);
+
+        // Check that winners and remaining entrants cover the waiting list exactly once
+        assertEquals(10, result.getWinners().size());
+        assertEquals(90, result.getRemaining().size());
+        HashSet<String> all = new HashSet<>(result.getWinners());
+        all.addAll(result.getRemaining());
+        assertEquals(100, all.size());
+
+        // Check that the remaining entrants keep their waiting list order
+        List<String> expected = new ArrayList<>(waitingList);
+        expected.removeAll(result.getWinners());
+        assertEquals(expected, result.getRemaining());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * JVM benchmark comparing the clustering of every location on each camera move, with a grid over all
+ * locations, against querying the quadtree of {@link MarkerClusterer} for the visible clusters,
+ * for 200k participants spread over a city. Only runs with {@code -Pbenchmarks}, which prints the timings.
+ */
+public class MarkerClustererBenchmark {
+
+    private static final int LOCATION_COUNT = 200_000;
+    private static final int ROUNDS = 10;
+    // a city of about 40 by 40 km around Edmonton, viewed at a street zoom and a city zoom
+    private static final double[][] VIEWS = {
+            {53.53, -113.52, 53.56, -113.47, 14},
+            {53.35, -113.75, 53.72, -113.25, 10},
+    };
+
+    // Clustering as a map without an index does it: every location is put into the grid cell of the zoom
+    private static int gridClusters(double[] latitudes, double[] longitudes, double[] view) {
+        double cell = 360 / Math.pow(2, Math.floor(view[4]) + MarkerClusterer.CELL_DEPTH_OFFSET);
+        Map<Long, int[]> cells = new HashMap<>();
+        for (int i = 0; i < latitudes.length; i++) {
+            if (latitudes[i] < view[0] || latitudes[i] > view[2] || longitudes[i] < view[1] || longitudes[i] > view[3]) {
+                continue;
+            }
+            long key = ((long) Math.floor(latitudes[i] / cell) << 32) ^ (long) Math.floor(longitudes[i] / cell);
+            int[] count = cells.get(key);
+            if (count == null) {
+                cells.put(key, new int[] {1});
+            } else {
+                count[0]++;
+            }
+        }
+        return cells.size();
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Test
+    public void benchmarkVisibleClusters() {
+        Random random = new Random(42);
+        double[] latitudes = new double[LOCATION_COUNT];
+        double[] longitudes = new double[LOCATION_COUNT];
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            latitudes[i] = 53.36 + random.nextDouble() * 0.36;
+            longitudes[i] = -113.74 + random.nextDouble() * 0.48;
+        }
+
+        MarkerClusterer clusterer = new MarkerClusterer(latitudes, longitudes);
+
+        for (double[] view : VIEWS) {
+            long gridNanos = Long.MAX_VALUE;
+            long treeNanos = Long.MAX_VALUE;
+            int gridCount = 0;
+            List<MarkerClusterer.Cluster> clusters = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                gridCount = gridClusters(latitudes, longitudes, view);
+                gridNanos = Math.min(gridNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                clusters = clusterer.clusters(view[0], view[1], view[2], view[3], view[4]);
+                treeNanos = Math.min(treeNanos, System.nanoTime() - start);
+            }
+            // Both find a bounded number of markers instead of one per location
+            assertTrue(gridCount > 0);
+            assertTrue(clusters.size() < LOCATION_COUNT / 10);
+            System.out.printf("%d clusters at zoom %.0f: grid %.2f ms, quadtree %.2f ms%n",
+                    clusters.size(), view[4], gridNanos / 1e6, treeNanos / 1e6);
+        }
+    }
+}
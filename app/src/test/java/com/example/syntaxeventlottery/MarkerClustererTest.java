@@ -0,0 +1,143 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class MarkerClustererTest {
+
+    private static int total(List<MarkerClusterer.Cluster> clusters) {
+        int total = 0;
+        for (MarkerClusterer.Cluster cluster : clusters) {
+            total += cluster.getSize();
+        }
+        return total;
+    }
+
+    private static MarkerClusterer random(int count, long seed) {
+        Random random = new Random(seed);
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            latitudes[i] = random.nextDouble() * 160 - 80;
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+        return new MarkerClusterer(latitudes, longitudes);
+    }
+
+    @Test
+    public void testWorldViewCountsEveryLocation() {
+
+        // Index random locations all over the world
+        MarkerClusterer clusterer = random(10_000, 1);
+
+        // Find the clusters of the whole world at the lowest zoom
+        List<MarkerClusterer.Cluster> clusters = clusterer.clusters(-90, -180, 90, 180, 0);
+
+        // Check that every location is in exactly one of a few clusters
+        assertEquals(10_000, total(clusters));
+        assertTrue(clusters.size() <= 16);
+    }
+
+    @Test
+    public void testCloseLocationsSplitWhenZoomedIn() {
+
+        // Index two locations about a kilometre apart
+        MarkerClusterer clusterer = new MarkerClusterer(new double[] {53.5461, 53.5551}, new double[] {-113.4938, -113.4938});
+
+        // Check that they are one cluster from far away and two clusters close up
+        assertEquals(1, clusterer.clusters(-90, -180, 90, 180, 5).size());
+        List<MarkerClusterer.Cluster> close = clusterer.clusters(53.5, -113.6, 53.6, -113.4, 16);
+        assertEquals(2, close.size());
+    }
+
+    @Test
+    public void testSingleLocationKeepsItsPosition() {
+
+        // Index one location
+        MarkerClusterer clusterer = new MarkerClusterer(new double[] {-33.8688}, new double[] {151.2093});
+
+        // Find its cluster at a low zoom
+        List<MarkerClusterer.Cluster> clusters = clusterer.clusters(-90, -180, 90, 180, 2);
+
+        // Check that the marker is shown at the location, not at the centre of the cell
+        assertEquals(1, clusters.size());
+        assertEquals(1, clusters.get(0).getSize());
+        assertEquals(-33.8688, clusters.get(0).getLatitude(), 1e-6);
+        assertEquals(151.2093, clusters.get(0).getLongitude(), 1e-6);
+    }
+
+    @Test
+    public void testOnlyVisibleClustersReturned() {
+
+        // Index one location in Europe and one in Australia
+        MarkerClusterer clusterer = new MarkerClusterer(new double[] {48.8566, -33.8688}, new double[] {2.3522, 151.2093});
+
+        // Find the clusters of a view of Europe
+        List<MarkerClusterer.Cluster> clusters = clusterer.clusters(40, -10, 55, 15, 6);
+
+        // Check that only the European location is returned
+        assertEquals(1, total(clusters));
+        assertEquals(48.8566, clusters.get(0).getLatitude(), 1e-6);
+    }
+
+    @Test
+    public void testBoundsAcrossAntimeridian() {
+
+        // Index locations on both sides of the antimeridian and one far away
+        MarkerClusterer clusterer = new MarkerClusterer(new double[] {-17.7, -14.3, 0}, new double[] {178.0, -170.7, 0});
+
+        // Find the clusters of a view crossing the antimeridian
+        List<MarkerClusterer.Cluster> clusters = clusterer.clusters(-30, 170, 0, -160, 5);
+
+        // Check that both nearby locations are found and the far one is not
+        assertEquals(2, total(clusters));
+    }
+
+    @Test
+    public void testKeysStableWhenPanning() {
+
+        // Index random locations
+        MarkerClusterer clusterer = random(5_000, 2);
+
+        // Find the clusters of two overlapping views at the same zoom
+        List<MarkerClusterer.Cluster> first = clusterer.clusters(0, 0, 40, 40, 4);
+        List<MarkerClusterer.Cluster> second = clusterer.clusters(0, 20, 40, 60, 4);
+
+        // Check that clusters in both views have the same key and size
+        Set<String> firstClusters = new HashSet<>();
+        for (MarkerClusterer.Cluster cluster : first) {
+            firstClusters.add(cluster.getKey() + ":" + cluster.getSize());
+        }
+        int shared = 0;
+        for (MarkerClusterer.Cluster cluster : second) {
+            if (firstClusters.contains(cluster.getKey() + ":" + cluster.getSize())) {
+                shared++;
+            }
+        }
+        assertTrue(shared > 0);
+        for (MarkerClusterer.Cluster cluster : second) {
+            if (cluster.getLongitude() > 25 && cluster.getLongitude() < 35
+                    && cluster.getLatitude() > 5 && cluster.getLatitude() < 35) {
+                assertTrue(firstClusters.contains(cluster.getKey() + ":" + cluster.getSize()));
+            }
+        }
+    }
+
+    @Test
+    public void testSameLocationStaysOneCluster() {
+
+        // Index several entrants at the same address
+        MarkerClusterer clusterer = new MarkerClusterer(new double[] {10, 10, 10}, new double[] {20, 20, 20});
+
+        // Check that they form one cluster even at the highest zoom
+        List<MarkerClusterer.Cluster> clusters = clusterer.clusters(9, 19, 11, 21, 21);
+        assertEquals(1, clusters.size());
+        assertEquals(3, clusters.get(0).getSize());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+public class NotificationInboxTest {
+
+    private NotificationCampaign createCampaign(String id, String eventId, ParticipantState group, long time) {
+        NotificationCampaign campaign = new NotificationCampaign(eventId, group, "Message " + id, Collections.singletonList("User123"));
+        campaign.setId(id);
+        campaign.setTimestamp(new Date(time));
+        return campaign;
+    }
+
+    @Test
+    public void testMerge_KeepsCampaignsAfterStateChange() {
+
+        // The user was told they were not selected in Event1, then selected in a redraw
+        List<NotificationCampaign> campaigns = Arrays.asList(
+                createCampaign("C1", "Event1", ParticipantState.WAITING, 1000),
+                createCampaign("C2", "Event1", ParticipantState.SELECTED, 2000));
+
+        List<Notification> inbox = NotificationInbox.merge(Collections.emptyList(), campaigns, "User123");
+
+        // Check that both campaigns the user received are in the inbox, whatever their state is now
+        assertEquals(2, inbox.size());
+        assertEquals("C2", inbox.get(0).getId());
+        assertEquals("C1", inbox.get(1).getId());
+        assertTrue(inbox.get(0).isCampaign());
+        assertEquals("User123", inbox.get(0).getDeviceId());
+    }
+
+    @Test
+    public void testCampaign_KeepsRecipientsGivenWhenSent() {
+
+        // Create a campaign for two entrants
+        List<String> recipients = new ArrayList<>(Arrays.asList("User1", "User2"));
+        NotificationCampaign campaign = new NotificationCampaign("Event1", ParticipantState.SELECTED, "Message", recipients);
+
+        // Change the list the campaign was created from
+        recipients.add("User3");
+
+        // Check that the campaign still names only the entrants it was sent to
+        assertEquals(Arrays.asList("User1", "User2"), campaign.getRecipientIds());
+        assertEquals("SELECTED", campaign.getGroup());
+    }
+
+    @Test
+    public void testMerge_SortsWithPersonalNotifications() {
+
+        // A personal notification between two campaigns
+        Notification personal = new Notification();
+        personal.setId("N1");
+        personal.setTimestamp(new Date(2000));
+
+        List<NotificationCampaign> campaigns = Arrays.asList(
+                createCampaign("C1", "Event1", ParticipantState.WAITING, 1000),
+                createCampaign("C2", "Event1", ParticipantState.WAITING, 3000));
+
+        List<Notification> inbox = NotificationInbox.merge(Collections.singletonList(personal), campaigns, "User123");
+
+        // Check that the inbox is ordered newest first
+        assertEquals("C2", inbox.get(0).getId());
+        assertEquals("N1", inbox.get(1).getId());
+        assertEquals("C1", inbox.get(2).getId());
+        assertFalse(inbox.get(1).isCampaign());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class NotificationRepositoryTest {
+
+    @Test
+    public void testCountDeliveries_OncePerCampaign() {
+
+        // Two campaigns, one user listed twice and one user in both campaigns
+        List<NotificationCampaign> campaigns = Arrays.asList(
+                new NotificationCampaign("Event1", ParticipantState.SELECTED, "Selected", Arrays.asList("User1", "User2", "User1")),
+                new NotificationCampaign("Event1", ParticipantState.WAITING, "Waiting", Arrays.asList("User2", "User3")));
+
+        Map<String, Integer> deliveries = NotificationRepository.countDeliveries(campaigns);
+
+        // Check that every user receives each of their campaigns once
+        assertEquals(3, deliveries.size());
+        assertEquals(1, (int) deliveries.get("User1"));
+        assertEquals(2, (int) deliveries.get("User2"));
+        assertEquals(1, (int) deliveries.get("User3"));
+    }
+
+    @Test
+    public void testKeepAllowed_DropsOptedOutUsers() {
+
+        // A campaign to three users, one of whom disabled notifications
+        List<NotificationCampaign> campaigns = Collections.singletonList(
+                new NotificationCampaign("Event1", ParticipantState.SELECTED, "Selected", Arrays.asList("User1", "User2", "User3")));
+
+        List<NotificationCampaign> kept = NotificationRepository.keepAllowed(campaigns, new HashSet<>(Arrays.asList("User1", "User3")));
+
+        // Check that the campaign is kept for the users allowing notifications only
+        assertEquals(1, kept.size());
+        assertEquals(Arrays.asList("User1", "User3"), kept.get(0).getRecipientIds());
+        assertEquals("SELECTED", kept.get(0).getGroup());
+        assertEquals("Selected", kept.get(0).getMessage());
+    }
+
+    @Test
+    public void testFanOutResult_CountsEveryRecipient() {
+
+        // Ten notifications: four skipped by preference, three written and three in a failed batch
+        NotificationRepository.FanOutResult result = new NotificationRepository.FanOutResult(10);
+        Exception error = new Exception("Batch failed");
+        result.skip(4);
+        result.write(3);
+        result.fail(3, error);
+
+        // Check that every notification is accounted for and the batch error is kept
+        assertEquals(10, result.getRecipients());
+        assertEquals(4, result.getSkipped());
+        assertEquals(3, result.getWritten());
+        assertEquals(3, result.getFailed());
+        assertEquals(Collections.singletonList(error), result.getErrors());
+    }
+}
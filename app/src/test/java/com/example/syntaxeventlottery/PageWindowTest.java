@@ -0,0 +1,135 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PageWindowTest {
+
+    private PageWindow<String> window;
+
+    // a page of the given items, full unless it is the last one
+    private static DocumentPage<String> page(boolean hasMore, String... items) {
+        return new DocumentPage<>(new ArrayList<>(Arrays.asList(items)), null, null, hasMore);
+    }
+
+    @Before
+    public void setUp() {
+
+        // Create a window holding at most four items
+        window = new PageWindow<>(4);
+    }
+
+    @Test
+    public void testAppendKeepsListOrder() {
+
+        // Load the first two pages
+        window.replace(page(true, "a", "b"), 2);
+        window.append(page(true, "c", "d"));
+
+        // Check that the items are in list order and that more may follow
+        assertEquals(Arrays.asList("a", "b", "c", "d"), window.getItems());
+        assertFalse(window.hasBefore());
+        assertTrue(window.hasAfter());
+    }
+
+    @Test
+    public void testAppendDropsPagesAtTheStart() {
+
+        // Load three pages into a window holding four items
+        window.replace(page(true, "a", "b"), 2);
+        window.append(page(true, "c", "d"));
+        int dropped = window.append(page(true, "e", "f"));
+
+        // Check that the first page was dropped and can be loaded again
+        assertEquals(2, dropped);
+        assertEquals(Arrays.asList("c", "d", "e", "f"), window.getItems());
+        assertEquals(4, window.size());
+        assertTrue(window.hasBefore());
+    }
+
+    @Test
+    public void testPrependDropsPagesAtTheEnd() {
+
+        // Scroll down past the first page and back up again
+        window.replace(page(true, "a", "b"), 2);
+        window.append(page(true, "c", "d"));
+        window.append(page(true, "e", "f"));
+        window.prepend(page(false, "a", "b"));
+
+        // Check that the last page was dropped and that the window starts the list again
+        assertEquals(Arrays.asList("a", "b", "c", "d"), window.getItems());
+        assertFalse(window.hasBefore());
+        assertTrue(window.hasAfter());
+    }
+
+    @Test
+    public void testLargePageIsKept() {
+
+        // Load a page larger than the window
+        window.replace(page(true, "a", "b", "c"), 3);
+        window.append(page(true, "d", "e", "f", "g", "h"));
+
+        // Check that the newest page is kept even though it does not fit
+        assertEquals(Arrays.asList("d", "e", "f", "g", "h"), window.getItems());
+    }
+
+    @Test
+    public void testReplaceSplitsReloadIntoPages() {
+
+        // Reload a window of two pages in one read, then load the next page
+        window.replace(page(true, "a", "b", "c", "d"), 2);
+        int dropped = window.append(page(true, "e", "f"));
+
+        // Check that only the first page of the reload was dropped
+        assertEquals(2, dropped);
+        assertEquals(Arrays.asList("c", "d", "e", "f"), window.getItems());
+        assertTrue(window.hasBefore());
+    }
+
+    @Test
+    public void testEmptyLastPageEndsTheList() {
+
+        // Load a full page followed by an empty one
+        window.replace(page(true, "a", "b"), 2);
+        window.append(page(false));
+
+        // Check that the empty page is not kept as the cursor and the list ends
+        List<String> items = window.getItems();
+        assertEquals(Arrays.asList("a", "b"), items);
+        assertFalse(window.hasAfter());
+        assertEquals(Arrays.asList("a", "b"), window.getLastPage().getItems());
+    }
+
+    @Test
+    public void testRemove() {
+
+        // Load a page and remove one of its items
+        window.replace(page(false, "a", "b"), 2);
+        boolean removed = window.remove("a");
+
+        // Check that the item is no longer shown
+        assertTrue(removed);
+        assertEquals(Arrays.asList("b"), window.getItems());
+        assertEquals(1, window.size());
+        assertFalse(window.remove("x"));
+    }
+
+    @Test
+    public void testReplaceWithEmptyPageClears() {
+
+        // Reload a window whose items were all deleted
+        window.replace(page(true, "a", "b"), 2);
+        window.replace(page(false), 2);
+
+        // Check that the window is empty and the next page starts the list
+        assertNull(window.getFirstPage());
+        assertEquals(0, window.size());
+        assertFalse(window.hasBefore());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParticipantLocationLoaderTest {
+
+    // a source whose reads are completed by the test, placing user "uN" at (N, N)
+    private static class FakeSource implements ParticipantLocationLoader.LocationSource {
+        final List<List<String>> requested = new ArrayList<>();
+        final List<DataCallback<List<LatLng>>> callbacks = new ArrayList<>();
+        int running;
+        int maxRunning;
+
+        @Override
+        public void load(List<String> userIds, DataCallback<List<LatLng>> callback) {
+            requested.add(userIds);
+            callbacks.add(callback);
+            running++;
+            maxRunning = Math.max(maxRunning, running);
+        }
+
+        void complete(int read) {
+            List<LatLng> locations = new ArrayList<>();
+            for (String userId : requested.get(read)) {
+                double n = Integer.parseInt(userId.substring(1));
+                locations.add(new LatLng(n, n));
+            }
+            running--;
+            callbacks.get(read).onSuccess(locations);
+        }
+
+        void fail(int read) {
+            running--;
+            callbacks.get(read).onError(new Exception("offline"));
+        }
+    }
+
+    // records what the listener receives
+    private static class Recorder implements ParticipantLocationLoader.Listener {
+        final List<Integer> chunkSizes = new ArrayList<>();
+        List<LatLng> all;
+        int failedChunks = -1;
+
+        @Override
+        public void onLocations(List<LatLng> locations) {
+            chunkSizes.add(locations.size());
+        }
+
+        @Override
+        public void onComplete(List<LatLng> locations, int failedChunks) {
+            this.all = locations;
+            this.failedChunks = failedChunks;
+        }
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("u" + i);
+        }
+        return ids;
+    }
+
+    private FakeSource source;
+    private ParticipantLocationLoader loader;
+
+    @Before
+    public void setUp() {
+
+        // Create a loader reading at most two chunks at once
+        source = new FakeSource();
+        loader = new ParticipantLocationLoader(source, 2);
+    }
+
+    @Test
+    public void testChunksAndInFlightCap() {
+
+        // Load the locations of 100 participants and complete the reads one by one
+        Recorder recorder = new Recorder();
+        loader.load(ids(100), recorder);
+        for (int read = 0; read < source.requested.size(); read++) {
+            source.complete(read);
+        }
+
+        // Check that 4 chunks of at most 30 IDs were read, never more than two at once
+        assertEquals(4, source.requested.size());
+        assertEquals(ParticipantLocationLoader.CHUNK_SIZE, source.requested.get(0).size());
+        assertEquals(10, source.requested.get(3).size());
+        assertEquals(2, source.maxRunning);
+        assertEquals(100, recorder.all.size());
+        assertEquals(0, recorder.failedChunks);
+    }
+
+    @Test
+    public void testLocationsArriveChunkByChunk() {
+
+        // Load the locations of 40 participants and complete only the first chunk
+        Recorder recorder = new Recorder();
+        loader.load(ids(40), recorder);
+        source.complete(0);
+
+        // Check that the first chunk is delivered before the load completes
+        assertEquals(1, recorder.chunkSizes.size());
+        assertEquals(Integer.valueOf(30), recorder.chunkSizes.get(0));
+        assertNull(recorder.all);
+    }
+
+    @Test
+    public void testFailedChunkIsCounted() {
+
+        // Load the locations of 40 participants and fail the second chunk
+        Recorder recorder = new Recorder();
+        loader.load(ids(40), recorder);
+        source.complete(0);
+        source.fail(1);
+
+        // Check that the other chunk's locations are kept and the failure is reported
+        assertEquals(30, recorder.all.size());
+        assertEquals(1, recorder.failedChunks);
+    }
+
+    @Test
+    public void testDuplicatesReadOnce() {
+
+        // Load the locations of a participant listed twice
+        List<String> userIds = ids(3);
+        userIds.add("u1");
+        Recorder recorder = new Recorder();
+        loader.load(userIds, recorder);
+        source.complete(0);
+
+        // Check that every participant was read once
+        assertEquals(3, source.requested.get(0).size());
+        assertEquals(3, recorder.all.size());
+    }
+
+    @Test
+    public void testNoParticipants() {
+
+        // Load the locations of no participants
+        Recorder recorder = new Recorder();
+        loader.load(new ArrayList<>(), recorder);
+
+        // Check that nothing is read and the load completes at once
+        assertTrue(source.requested.isEmpty());
+        assertTrue(recorder.all.isEmpty());
+    }
+}
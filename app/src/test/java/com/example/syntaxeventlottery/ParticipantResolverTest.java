@@ -0,0 +1,187 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ParticipantResolverTest {
+
+    // a loader whose reads are completed by the test, knowing users "u0" to "u99"
+    private static class FakeLoader implements ParticipantResolver.UserBatchLoader {
+        final List<List<String>> requested = new ArrayList<>();
+        final List<DataCallback<List<User>>> callbacks = new ArrayList<>();
+
+        @Override
+        public void load(List<String> userIds, DataCallback<List<User>> callback) {
+            requested.add(userIds);
+            callbacks.add(callback);
+        }
+
+        void complete(int read) {
+            List<User> users = new ArrayList<>();
+            for (String userId : requested.get(read)) {
+                if (Integer.parseInt(userId.substring(1)) < 100) {
+                    users.add(new User(userId, userId + "@example.com", "1234567890", "url", userId, null, null));
+                }
+            }
+            callbacks.get(read).onSuccess(users);
+        }
+    }
+
+    // records what the listener receives
+    private static class Recorder implements ParticipantResolver.Listener {
+        final List<List<String>> calls = new ArrayList<>();
+        boolean complete;
+        Exception error;
+
+        @Override
+        public void onUsers(List<User> users, boolean complete) {
+            List<String> ids = new ArrayList<>();
+            for (User user : users) {
+                ids.add(user.getUserID());
+            }
+            calls.add(ids);
+            this.complete = complete;
+        }
+
+        @Override
+        public void onError(Exception e) {
+            error = e;
+        }
+    }
+
+    private static List<String> ids(int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add("u" + i);
+        }
+        return ids;
+    }
+
+    private FakeLoader loader;
+    private ParticipantResolver resolver;
+
+    @Before
+    public void setUp() {
+
+        // Create a resolver reading users from the fake loader
+        loader = new FakeLoader();
+        resolver = new ParticipantResolver(loader);
+    }
+
+    @Test
+    public void testReadsOnlyRequestedUsersInChunks() {
+
+        // Resolve 70 participants
+        resolver.resolve(ids(0, 70), new Recorder());
+
+        // Check that the IDs were split into chunks no larger than a Firestore in filter allows
+        assertEquals(3, loader.requested.size());
+        assertEquals(ParticipantResolver.CHUNK_SIZE, loader.requested.get(0).size());
+        assertEquals(ParticipantResolver.CHUNK_SIZE, loader.requested.get(1).size());
+        assertEquals(70 - 2 * ParticipantResolver.CHUNK_SIZE, loader.requested.get(2).size());
+    }
+
+    @Test
+    public void testStreamsChunksInDisplayOrder() {
+
+        // Resolve 40 participants and complete the second chunk first
+        Recorder recorder = new Recorder();
+        resolver.resolve(ids(0, 40), recorder);
+        loader.complete(1);
+
+        // Check that the users of the finished chunk are shown before the list is complete
+        assertEquals(ids(30, 40), recorder.calls.get(recorder.calls.size() - 1));
+        assertFalse(recorder.complete);
+
+        // Complete the first chunk
+        loader.complete(0);
+
+        // Check that every user is shown in the order of the IDs
+        assertEquals(ids(0, 40), recorder.calls.get(recorder.calls.size() - 1));
+        assertTrue(recorder.complete);
+    }
+
+    @Test
+    public void testRemembersUsersAcrossLists() {
+
+        // Resolve a list, then another list sharing some participants
+        resolver.resolve(ids(0, 10), new Recorder());
+        loader.complete(0);
+        Recorder recorder = new Recorder();
+        resolver.resolve(ids(5, 15), recorder);
+
+        // Check that only the participants not seen before are read
+        assertEquals(ids(10, 15), loader.requested.get(1));
+        assertEquals(ids(5, 10), recorder.calls.get(0));
+        assertEquals(5, resolver.getMemoHits());
+    }
+
+    @Test
+    public void testMissingUsersAreNotReadAgain() {
+
+        // Resolve participants whose user documents do not exist
+        Recorder recorder = new Recorder();
+        resolver.resolve(Arrays.asList("u1", "u100"), recorder);
+        loader.complete(0);
+        resolver.resolve(Arrays.asList("u1", "u100"), new Recorder());
+
+        // Check that the missing user is left out and remembered as missing
+        assertEquals(Arrays.asList("u1"), recorder.calls.get(recorder.calls.size() - 1));
+        assertEquals(1, loader.requested.size());
+    }
+
+    @Test
+    public void testUsersBeingReadAreShared() {
+
+        // Resolve the same participants twice before the read finishes
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        resolver.resolve(ids(0, 5), first);
+        resolver.resolve(ids(0, 5), second);
+        loader.complete(0);
+
+        // Check that one read served both lists
+        assertEquals(1, loader.requested.size());
+        assertTrue(first.complete);
+        assertTrue(second.complete);
+        assertEquals(ids(0, 5), second.calls.get(second.calls.size() - 1));
+    }
+
+    @Test
+    public void testFailedChunkIsReportedAndReadAgainLater() {
+
+        // Fail the read of a list
+        Recorder recorder = new Recorder();
+        resolver.resolve(ids(0, 5), recorder);
+        Exception error = new Exception("offline");
+        loader.callbacks.get(0).onError(error);
+
+        // Check that the error is reported and the list still completes
+        assertSame(error, recorder.error);
+        assertTrue(recorder.complete);
+
+        // Resolve the list again
+        resolver.resolve(ids(0, 5), new Recorder());
+
+        // Check that the failed users are read again
+        assertEquals(2, loader.requested.size());
+    }
+
+    @Test
+    public void testEmptyList() {
+
+        // Resolve an empty list
+        Recorder recorder = new Recorder();
+        resolver.resolve(new ArrayList<>(), recorder);
+
+        // Check that nothing is read and the list completes at once
+        assertTrue(loader.requested.isEmpty());
+        assertTrue(recorder.complete);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ProjectedLocationTest {
+
+    @Test
+    public void testPackRoundTrip() {
+
+        // Project a location and read it back from its stored form
+        ProjectedLocation location = ProjectedLocation.of("User1", 53.544389, -113.490927);
+        ProjectedLocation read = ProjectedLocation.unpack("User1", location.pack());
+
+        // Check that the user, the geohash and the quantized coordinates survive
+        assertNotNull(read);
+        assertEquals("User1", read.getUserId());
+        assertEquals(location.getGeohash(), read.getGeohash());
+        assertEquals(53.54439, read.getLatitude(), 1e-9);
+        assertEquals(-113.49093, read.getLongitude(), 1e-9);
+    }
+
+    @Test
+    public void testGeohashMatchesCoordinates() {
+
+        // Project a location
+        ProjectedLocation location = ProjectedLocation.of("User1", 57.64911, 10.40744);
+
+        // Check that the stored geohash is the cell of the location
+        assertEquals("u4pruy", location.getGeohash());
+        assertEquals("u4pruy|5764911|1040744", location.pack());
+    }
+
+    @Test
+    public void testQuantizationErrorIsBounded() {
+
+        // Project a location with more digits than are stored
+        ProjectedLocation location = ProjectedLocation.of("User1", 12.3456789, -98.7654321);
+
+        // Check that the coordinates are off by at most half a step
+        assertEquals(12.3456789, location.getLatitude(), 0.5 / ProjectedLocation.SCALE);
+        assertEquals(-98.7654321, location.getLongitude(), 0.5 / ProjectedLocation.SCALE);
+    }
+
+    @Test
+    public void testInvalidStoredFormSkipped() {
+
+        // Check that stored values that cannot be read are rejected instead of throwing
+        assertNull(ProjectedLocation.unpack("User1", null));
+        assertNull(ProjectedLocation.unpack("User1", "u4pruy"));
+        assertNull(ProjectedLocation.unpack("User1", "u4pruy|abc|1"));
+        assertNull(ProjectedLocation.unpack("User1", "u4pruy|9100000|0"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.zxing.common.BitMatrix;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * JVM benchmark comparing the original per-pixel conversion of a QR code matrix (one
+ * {@code get(x, y)} per pixel in column order, as done with {@code Bitmap.setPixel}) with
+ * {@link QRCodeRenderer#toPixels} and {@link QRCodeRenderer#toPng}. Only runs with {@code -Pbenchmarks}, which prints the timings.
+ */
+public class QRCodeRendererBenchmark {
+
+    private static final int ROUNDS = 200;
+
+    // The conversion as it was done before the renderer, writing into an array instead of a Bitmap
+    private static int[] legacyPixels(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int[] pixels = new int[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                pixels[y * width + x] = matrix.get(x, y) ? QRCodeRenderer.BLACK : QRCodeRenderer.WHITE;
+            }
+        }
+        return pixels;
+    }
+
+    private static double timeLegacy(BitMatrix matrix) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int[] pixels = legacyPixels(matrix);
+            best = Math.min(best, System.nanoTime() - start);
+            assertEquals(matrix.getWidth() * matrix.getHeight(), pixels.length);
+        }
+        return best / 1e6;
+    }
+
+    private static double timeRenderer(BitMatrix matrix) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int[] pixels = QRCodeRenderer.toPixels(matrix);
+            best = Math.min(best, System.nanoTime() - start);
+            assertEquals(matrix.getWidth() * matrix.getHeight(), pixels.length);
+        }
+        return best / 1e6;
+    }
+
+    private static double timePng(BitMatrix matrix) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            byte[] png = QRCodeRenderer.toPng(matrix);
+            best = Math.min(best, System.nanoTime() - start);
+            assertTrue(png.length > 0);
+        }
+        return best / 1e6;
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Test
+    public void benchmarkToPixels() throws Exception {
+        for (int size : new int[] {300, 1000}) {
+            BitMatrix matrix = QRCodeRenderer.encode("Event1234567890", size);
+            System.out.printf("QR code of %d px: per-pixel conversion %.2f ms, toPixels %.2f ms, toPng %.2f ms%n",
+                    size, timeLegacy(matrix), timeRenderer(matrix), timePng(matrix));
+        }
+    }
+}
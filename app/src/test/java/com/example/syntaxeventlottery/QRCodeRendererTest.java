@@ -0,0 +1,54 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+
+import com.google.zxing.common.BitMatrix;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import javax.imageio.ImageIO;
+
+public class QRCodeRendererTest {
+
+    @Test
+    public void testToPixels_MatchesMatrix() throws Exception {
+
+        // Encode an event ID the same way the app does
+        BitMatrix matrix = QRCodeRenderer.encode("Event123", 300);
+        int[] pixels = QRCodeRenderer.toPixels(matrix);
+
+        // Check every pixel against the matrix
+        assertEquals(matrix.getWidth() * matrix.getHeight(), pixels.length);
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                int expected = matrix.get(x, y) ? QRCodeRenderer.BLACK : QRCodeRenderer.WHITE;
+                assertEquals(expected, pixels[y * matrix.getWidth() + x]);
+            }
+        }
+    }
+
+    @Test
+    public void testToPng_DecodesToMatrix() throws Exception {
+
+        // Encode a size that does not fill whole bytes per row
+        BitMatrix matrix = QRCodeRenderer.encode("Event123", 301);
+        byte[] png = QRCodeRenderer.toPng(matrix);
+
+        // Decode the PNG with a standard decoder
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertNotNull(image);
+        assertEquals(matrix.getWidth(), image.getWidth());
+        assertEquals(matrix.getHeight(), image.getHeight());
+
+        // Check that dark modules are black and the rest is white
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                int expected = matrix.get(x, y) ? 0x000000 : 0xFFFFFF;
+                assertEquals(expected, image.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+}
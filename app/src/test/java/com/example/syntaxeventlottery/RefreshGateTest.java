@@ -0,0 +1,154 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RefreshGateTest {
+
+    private long now;
+    private RefreshGate gate;
+    private List<DataCallback<Void>> startedLoads;
+    private RefreshGate.Loader loader;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        gate = new RefreshGate(1000, 5000, () -> now);
+        startedLoads = new ArrayList<>();
+        loader = done -> startedLoads.add(done);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DataCallback<Void> mockCallback() {
+        return mock(DataCallback.class);
+    }
+
+    @Test
+    public void testRefresh_CoalescesConcurrentCalls() {
+
+        DataCallback<Void> first = mockCallback();
+        DataCallback<Void> second = mockCallback();
+
+        // Two refreshes before the first load finishes
+        gate.refresh(loader, first);
+        gate.refresh(loader, second);
+
+        // Check that only one load was started and nobody was notified yet
+        assertEquals(1, startedLoads.size());
+        verify(first, never()).onSuccess(null);
+
+        // Finish the load
+        startedLoads.get(0).onSuccess(null);
+
+        // Check that both callers were notified by the single load
+        verify(first).onSuccess(null);
+        verify(second).onSuccess(null);
+        assertEquals(2, gate.getMisses());
+        assertEquals(1, gate.getCoalesced());
+        assertEquals(1, gate.getLoads());
+    }
+
+    @Test
+    public void testRefresh_FreshDataServedFromCache() {
+
+        gate.refresh(loader, mockCallback());
+        startedLoads.get(0).onSuccess(null);
+
+        // Refresh again within the fresh window
+        now = 1000;
+        DataCallback<Void> callback = mockCallback();
+        gate.refresh(loader, callback);
+
+        // Check that the cache was used without loading again
+        verify(callback).onSuccess(null);
+        assertEquals(1, startedLoads.size());
+        assertEquals(1, gate.getHits());
+    }
+
+    @Test
+    public void testRefresh_StaleDataServedWhileRevalidating() {
+
+        gate.refresh(loader, mockCallback());
+        startedLoads.get(0).onSuccess(null);
+
+        // Refresh twice after the fresh window but within the stale window
+        now = 3000;
+        DataCallback<Void> first = mockCallback();
+        DataCallback<Void> second = mockCallback();
+        gate.refresh(loader, first);
+        gate.refresh(loader, second);
+
+        // Check that both were served at once and a single background load was started
+        verify(first).onSuccess(null);
+        verify(second).onSuccess(null);
+        assertEquals(2, startedLoads.size());
+        assertEquals(2, gate.getStaleHits());
+        assertEquals(1, gate.getCoalesced());
+
+        // Finish the background load, the data is fresh again
+        startedLoads.get(1).onSuccess(null);
+        now = 3500;
+        gate.refresh(loader, mockCallback());
+        assertEquals(1, gate.getHits());
+    }
+
+    @Test
+    public void testRefresh_TooStaleWaitsForLoad() {
+
+        gate.refresh(loader, mockCallback());
+        startedLoads.get(0).onSuccess(null);
+
+        // Refresh after the stale window
+        now = 6000;
+        DataCallback<Void> callback = mockCallback();
+        gate.refresh(loader, callback);
+
+        // Check that the caller waits for the new load
+        verify(callback, never()).onSuccess(null);
+        startedLoads.get(1).onSuccess(null);
+        verify(callback).onSuccess(null);
+    }
+
+    @Test
+    public void testRefresh_ErrorNotifiesWaitersAndRetries() {
+
+        DataCallback<Void> first = mockCallback();
+        DataCallback<Void> second = mockCallback();
+        gate.refresh(loader, first);
+        gate.refresh(loader, second);
+
+        // Fail the load
+        Exception error = new Exception("offline");
+        startedLoads.get(0).onError(error);
+
+        // Check that every waiting caller got the error
+        verify(first).onError(error);
+        verify(second).onError(error);
+
+        // Check that the next refresh loads again
+        gate.refresh(loader, mockCallback());
+        assertEquals(2, startedLoads.size());
+    }
+
+    @Test
+    public void testInvalidate() {
+
+        gate.refresh(loader, mockCallback());
+        startedLoads.get(0).onSuccess(null);
+
+        // Invalidate fresh data
+        gate.invalidate();
+        DataCallback<Void> callback = mockCallback();
+        gate.refresh(loader, callback);
+
+        // Check that the caller waits for a new load
+        verify(callback, never()).onSuccess(null);
+        assertEquals(2, startedLoads.size());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures event creation latency against a stubbed storage backend where every round trip takes
+ * {@link #ROUND_TRIP_MS}. The original creation path ran put poster, get poster URL, put QR code,
+ * get QR code URL and write document one after the other; the pipeline starts both uploads at once.
+ * Only runs with {@code -Pbenchmarks}, which prints the timings.
+ */
+public class UploadPipelineBenchmark {
+
+    private static final long ROUND_TRIP_MS = 40;
+    private static final int ROUNDS = 5;
+
+    // An upload is two round trips, the put and the download URL request
+    private static class DelayedBlobStore implements BlobStore {
+        private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+
+        @Override
+        public void upload(String path, Uri source, DataCallback<String> callback) {
+            upload(path, new byte[0], callback);
+        }
+
+        @Override
+        public void upload(String path, byte[] data, DataCallback<String> callback) {
+            executor.schedule(() -> callback.onSuccess("https://store/" + path), 2 * ROUND_TRIP_MS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void delete(String path, DataCallback<Void> callback) {
+            executor.schedule(() -> callback.onSuccess(null), ROUND_TRIP_MS, TimeUnit.MILLISECONDS);
+        }
+
+        void writeDocument(DataCallback<Void> callback) {
+            executor.schedule(() -> callback.onSuccess(null), ROUND_TRIP_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static <T> DataCallback<T> then(Runnable next) {
+        return new DataCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                next.run();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                fail(e.getMessage());
+            }
+        };
+    }
+
+    // The creation path as it was before the pipeline
+    private static void legacyCreate(DelayedBlobStore store, Runnable done) {
+        store.upload("event_poster_images/Event1", new byte[1], then(() ->
+                store.upload("event_qrcode_images/Event1.png", new byte[1], then(() ->
+                        store.writeDocument(then(done))))));
+    }
+
+    private static void pipelineCreate(DelayedBlobStore store, Runnable done) {
+        List<UploadPipeline.Upload> uploads = Arrays.asList(
+                UploadPipeline.Upload.fromBytes("posterUrl", "event_poster_images/Event1", new byte[1]),
+                UploadPipeline.Upload.fromBytes("qrCode", "event_qrcode_images/Event1.png", new byte[1]));
+        new UploadPipeline(store).run(uploads, new HashMap<>(), true,
+                (data, callback) -> store.writeDocument(callback), then(done));
+    }
+
+    private interface Create {
+        void run(DelayedBlobStore store, Runnable done);
+    }
+
+    private static double time(Create create) throws InterruptedException {
+        DelayedBlobStore store = new DelayedBlobStore();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            CountDownLatch latch = new CountDownLatch(1);
+            long start = System.nanoTime();
+            create.run(store, latch::countDown);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        store.executor.shutdown();
+        return best / 1e6;
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+    }
+
+    @Test
+    public void benchmarkCreate() throws InterruptedException {
+        double legacy = time(UploadPipelineBenchmark::legacyCreate);
+        double pipeline = time(UploadPipelineBenchmark::pipelineCreate);
+        System.out.printf("Event creation with %d ms round trips: sequential %.2f ms, pipeline %.2f ms%n",
+                ROUND_TRIP_MS, legacy, pipeline);
+    }
+}
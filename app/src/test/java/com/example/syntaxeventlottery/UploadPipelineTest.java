@@ -0,0 +1,133 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class UploadPipelineTest {
+
+    // Store that answers right away and fails the paths it is told to
+    private static class StubBlobStore implements BlobStore {
+        final Set<String> failingPaths = new HashSet<>();
+        final List<String> uploaded = new ArrayList<>();
+        final List<String> deleted = new ArrayList<>();
+
+        @Override
+        public void upload(String path, Uri source, DataCallback<String> callback) {
+            upload(path, new byte[0], callback);
+        }
+
+        @Override
+        public void upload(String path, byte[] data, DataCallback<String> callback) {
+            if (failingPaths.contains(path)) {
+                callback.onError(new Exception("upload failed"));
+                return;
+            }
+            uploaded.add(path);
+            callback.onSuccess("https://store/" + path);
+        }
+
+        @Override
+        public void delete(String path, DataCallback<Void> callback) {
+            deleted.add(path);
+            callback.onSuccess(null);
+        }
+    }
+
+    private StubBlobStore blobStore;
+    private UploadPipeline pipeline;
+    private List<UploadPipeline.Upload> uploads;
+
+    @Mock
+    private DataCallback<Void> mockCallback;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        blobStore = new StubBlobStore();
+        pipeline = new UploadPipeline(blobStore);
+        uploads = Arrays.asList(
+                UploadPipeline.Upload.fromBytes("posterUrl", "posters/Event1", new byte[1]),
+                UploadPipeline.Upload.fromBytes("posterThumbnailUrl", "thumbnails/Event1", new byte[1]));
+    }
+
+    @Test
+    public void testRun_WritesDocumentWithAllUrls() {
+
+        // Write the document into a map
+        Map<String, Object> written = new HashMap<>();
+
+        pipeline.run(uploads, new HashMap<>(), true, (data, callback) -> {
+            written.putAll(data);
+            callback.onSuccess(null);
+        }, mockCallback);
+
+        // Check that the document was written once with both URLs
+        assertEquals("https://store/posters/Event1", written.get("posterUrl"));
+        assertEquals("https://store/thumbnails/Event1", written.get("posterThumbnailUrl"));
+        verify(mockCallback).onSuccess(null);
+        assertTrue(blobStore.deleted.isEmpty());
+    }
+
+    @Test
+    public void testRun_UploadFailureRollsBack() {
+
+        // The thumbnail upload fails
+        blobStore.failingPaths.add("thumbnails/Event1");
+        UploadPipeline.DocumentWriter mockWriter = mock(UploadPipeline.DocumentWriter.class);
+
+        pipeline.run(uploads, new HashMap<>(), true, mockWriter, mockCallback);
+
+        // Check that the document was not written and the poster was deleted again
+        verify(mockWriter, never()).write(any(), any());
+        assertEquals(Arrays.asList("posters/Event1"), blobStore.deleted);
+
+        // Check that the error names the failed stage and file
+        ArgumentCaptor<Exception> captor = ArgumentCaptor.forClass(Exception.class);
+        verify(mockCallback).onError(captor.capture());
+        UploadPipeline.PipelineException error = (UploadPipeline.PipelineException) captor.getValue();
+        assertEquals(UploadPipeline.Stage.UPLOAD, error.getStage());
+        assertEquals("thumbnails/Event1", error.getPath());
+    }
+
+    @Test
+    public void testRun_DocumentFailureRollsBack() {
+
+        // The document write fails
+        pipeline.run(uploads, new HashMap<>(), true,
+                (data, callback) -> callback.onError(new Exception("write failed")), mockCallback);
+
+        // Check that both uploads were deleted and the stage is reported
+        assertEquals(2, blobStore.deleted.size());
+        ArgumentCaptor<Exception> captor = ArgumentCaptor.forClass(Exception.class);
+        verify(mockCallback).onError(captor.capture());
+        assertEquals(UploadPipeline.Stage.DOCUMENT, ((UploadPipeline.PipelineException) captor.getValue()).getStage());
+    }
+
+    @Test
+    public void testRun_NoRollbackForUpdates() {
+
+        // The document write of an update fails
+        pipeline.run(uploads, new HashMap<>(), false,
+                (data, callback) -> callback.onError(new Exception("write failed")), mockCallback);
+
+        // Check that the uploaded files were kept
+        assertTrue(blobStore.deleted.isEmpty());
+        verify(mockCallback).onError(any());
+    }
+}
@@ -40,17 +40,11 @@ public class UserControllerTest {
     @Test
     public void testGetUserByDeviceID_Found() {
 
-        // Create mock user array
-        ArrayList<User> mockUsers = new ArrayList<>();
-
         // Create a mew user with specified values
         User user1 = new User("Device123", "test@example.com", "1234567890", "url1", "User1", null, null);
 
-        // Add that user to the mock users array
-        mockUsers.add(user1);
-
-        // Simulate the behavior of getLocalUsersList() to return mock data (mockUsers) for testing
-        when(mockRepository.getLocalUsersList()).thenReturn(mockUsers);
+        // Simulate the behavior of the user index to return the mock user for testing
+        when(mockRepository.getUserById(user1.getUserID())).thenReturn(user1);
 
         // Use the getUserByDeviceID method to find a user with ID Device123
         User result = userController.getUserByDeviceID("Device123");
@@ -62,14 +56,8 @@ public class UserControllerTest {
     @Test
     public void testGetUserByDeviceID_NotFound() {
 
-        // Create mock user array
-        ArrayList<User> mockUsers = new ArrayList<>();
-
-        // Create a mew user with specified values
-        mockUsers.add(new User("Device456", "test2@example.com", "0987654321", "url2", "User2", null, null));
-
-        // Simulate the behavior of getLocalUsersList() to return mock data (mockUsers) for testing
-        when(mockRepository.getLocalUsersList()).thenReturn(mockUsers);
+        // Simulate the behavior of the user index when no user with the given ID is cached
+        when(mockRepository.getUserById("Device123")).thenReturn(null);
 
         // Use the getUserByDeviceID method to find a user with ID Device123
         User result = userController.getUserByDeviceID("Device123");
@@ -129,4 +117,26 @@ public class UserControllerTest {
         // Check that deleteUserfromRepo was called on the mockRepository with the correct user and callback
         verify(mockRepository).deleteUserfromRepo(eq(userToDelete), eq(mockCallback));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetUser_ReadsFromRepository() {
+
+        // Load a single user through the controller
+        userController.getUser("Device123", mockUserCallback);
+
+        // Check that only that user's document is requested from the repository
+        verify(mockRepository).getUser(eq("Device123"), eq(mockUserCallback));
+        verify(mockRepository, never()).fetchAllUsers(any());
+    }
+
+    @Test
+    public void testGetUser_NullId() {
+
+        // Load a user without a device ID
+        userController.getUser(null, mockUserCallback);
+
+        // Check that no read is made and null is returned
+        verify(mockRepository, never()).getUser(any(), any());
+        verify(mockUserCallback).onSuccess(null);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.*;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.storage.FirebaseStorage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM microbenchmark comparing the old copy-and-scan user lookup with the indexed lookup,
+ * rendering a participants list against a cache of 100k users. Only runs with {@code -Pbenchmarks}, which prints the timings.
+ */
+public class UserLookupBenchmark {
+
+    private static final int USER_COUNT = 100_000;
+    private static final int PARTICIPANT_COUNT = 300;
+    private static final int ROUNDS = 5;
+
+    private UserRepository userRepository;
+    private List<String> participantIds;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+
+        // Repository backed by mocked Firebase instances, only the local cache is used
+        userRepository = new UserRepository(mock(FirebaseFirestore.class, RETURNS_DEEP_STUBS),
+                mock(FirebaseStorage.class, RETURNS_DEEP_STUBS));
+        for (int i = 0; i < USER_COUNT; i++) {
+            User user = new User("Device" + i, "user" + i + "@example.com", null, null, "User" + i, null, null);
+            userRepository.cacheUser(user);
+        }
+
+        // Participants spread over the whole user list
+        participantIds = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANT_COUNT; i++) {
+            participantIds.add("Device" + (long) i * USER_COUNT / PARTICIPANT_COUNT);
+        }
+    }
+
+    // Lookup as it was done before the index: copy the cached list and scan it
+    private User linearLookup(String userId) {
+        for (User user : userRepository.getLocalUsersList()) {
+            if (user.getUserID().equals(userId)) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void benchmarkParticipantLookup() {
+        long linearNanos = Long.MAX_VALUE;
+        long indexedNanos = Long.MAX_VALUE;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String userId : participantIds) {
+                assertNotNull(linearLookup(userId));
+            }
+            linearNanos = Math.min(linearNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (String userId : participantIds) {
+                assertNotNull(userRepository.getUserById(userId));
+            }
+            indexedNanos = Math.min(indexedNanos, System.nanoTime() - start);
+        }
+
+        // Both lookups must agree
+        for (String userId : participantIds) {
+            assertSame(linearLookup(userId), userRepository.getUserById(userId));
+        }
+        System.out.printf("Lookup of %d participants among %d users: copy and scan %.3f ms, index %.3f ms%n",
+                PARTICIPANT_COUNT, USER_COUNT, linearNanos / 1e6, indexedNanos / 1e6);
+    }
+}
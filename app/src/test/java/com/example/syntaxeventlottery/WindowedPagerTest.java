@@ -0,0 +1,141 @@
+package com.example.syntaxeventlottery;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class WindowedPagerTest {
+
+    // a page source whose loads are completed by the test
+    private static class FakeSource implements WindowedPager.PageSource<String> {
+        final List<DocumentPage.Direction> directions = new ArrayList<>();
+        final List<Integer> sizes = new ArrayList<>();
+        final List<DataCallback<DocumentPage<String>>> callbacks = new ArrayList<>();
+
+        @Override
+        public void load(DocumentPage<String> cursor, DocumentPage.Direction direction, int pageSize,
+                         DataCallback<DocumentPage<String>> callback) {
+            directions.add(cursor == null ? null : direction);
+            sizes.add(pageSize);
+            callbacks.add(callback);
+        }
+
+        void complete(int load, boolean hasMore, String... items) {
+            callbacks.get(load).onSuccess(new DocumentPage<>(new ArrayList<>(Arrays.asList(items)), null, null, hasMore));
+        }
+    }
+
+    private FakeSource source;
+    private PageWindow<String> window;
+    @Mock
+    private DataCallback<Void> listener;
+    private WindowedPager<String> pager;
+
+    @Before
+    public void setUp() {
+
+        // Create a pager loading pages of two items into a window of four
+        MockitoAnnotations.openMocks(this);
+        source = new FakeSource();
+        window = new PageWindow<>(4);
+        pager = new WindowedPager<>(window, source, 2, listener);
+    }
+
+    @Test
+    public void testFirstLoadAndNextPage() {
+
+        // Load the first page, then the next one
+        pager.reload();
+        source.complete(0, true, "a", "b");
+        pager.loadAfter();
+        source.complete(1, true, "c", "d");
+
+        // Check that the first page had no cursor, the second followed it and the window was shown twice
+        assertEquals(Arrays.asList(null, DocumentPage.Direction.AFTER), source.directions);
+        assertEquals(Arrays.asList("a", "b", "c", "d"), window.getItems());
+        verify(listener, times(2)).onSuccess(null);
+    }
+
+    @Test
+    public void testOnePageAtATime() {
+
+        // Ask for the next page twice while the first page is loading
+        pager.reload();
+        pager.loadAfter();
+        pager.loadAfter();
+
+        // Check that only one load was started
+        assertEquals(1, source.callbacks.size());
+        assertTrue(pager.isLoading());
+    }
+
+    @Test
+    public void testNoLoadPastTheEnds() {
+
+        // Load the only page of a short list
+        pager.reload();
+        source.complete(0, false, "a");
+        pager.loadAfter();
+        pager.loadBefore();
+
+        // Check that nothing else is loaded
+        assertEquals(1, source.callbacks.size());
+    }
+
+    @Test
+    public void testReloadReadsTheWindowFromItsFirstPage() {
+
+        // Load two pages, then reload
+        pager.reload();
+        source.complete(0, true, "a", "b");
+        pager.loadAfter();
+        source.complete(1, true, "c", "d");
+        pager.reload();
+        source.complete(2, true, "a", "c", "d", "e");
+
+        // Check that the whole window was read again in one query starting at its first item
+        assertEquals(DocumentPage.Direction.FROM, source.directions.get(2));
+        assertEquals(Integer.valueOf(4), source.sizes.get(2));
+        assertEquals(Arrays.asList("a", "c", "d", "e"), window.getItems());
+
+        // Check that the reloaded items are pages of two again
+        assertEquals(Arrays.asList("a", "c"), window.getFirstPage().getItems());
+        assertEquals(Arrays.asList("d", "e"), window.getLastPage().getItems());
+    }
+
+    @Test
+    public void testPageRequestedBeforeReloadIsIgnored() {
+
+        // Start loading the next page, then reload before it arrives
+        pager.reload();
+        source.complete(0, true, "a", "b");
+        pager.loadAfter();
+        pager.reload();
+        source.complete(2, true, "a", "b");
+        source.complete(1, true, "c", "d");
+
+        // Check that the outdated page was not added
+        assertEquals(Arrays.asList("a", "b"), window.getItems());
+    }
+
+    @Test
+    public void testErrorIsReported() {
+
+        // Fail the first load
+        pager.reload();
+        Exception error = new Exception("offline");
+        source.callbacks.get(0).onError(error);
+
+        // Check that the error is reported and another load can start
+        verify(listener).onError(error);
+        assertFalse(pager.isLoading());
+    }
+}